@@ -0,0 +1,183 @@
+package org.aksw.limes.core.benchmarks;
+
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TimeZone;
+
+import org.aksw.limes.core.io.cache.ACache;
+import org.aksw.limes.core.io.cache.MemoryCache;
+import org.aksw.limes.core.io.config.Configuration;
+import org.aksw.limes.core.io.config.KBInfo;
+import org.aksw.limes.core.io.config.reader.xml.XMLConfigurationReader;
+import org.aksw.limes.core.io.mapping.AMapping;
+import org.aksw.limes.core.io.mapping.MappingFactory;
+import org.aksw.limes.core.io.query.QueryModuleFactory;
+import org.aksw.limes.core.util.DataGenerator;
+import org.aksw.limes.core.util.RandomStringGenerator;
+
+/**
+ * Seeded synthetic data and bundled datasets for the benchmarks. Every
+ * synthetic instance has a label, coordinates, a time interval, a polygon and
+ * a set of tags, so that one pair of caches serves the mappers of all measure
+ * types. The target instances are perturbed copies of the source instances.
+ * <p>
+ * The bundled datasets are read with the configuration files in
+ * <code>limes-core/src/main/resources/datasets</code>, whose endpoints are
+ * relative to <code>limes-core</code>. Benchmarks on datasets thus have to be
+ * run from that directory.
+ *
+ * @version 1.0
+ */
+public class BenchmarkData {
+
+    public static final String LABEL = DataGenerator.LABEL;
+    public static final String LAT = "lat";
+    public static final String LONG = "long";
+    public static final String BEGIN = "begin";
+    public static final String END = "end";
+    public static final String WKT = "wkt";
+    public static final String TAG = "tag";
+
+    public static final String DATASET_FOLDER = "src/main/resources/datasets/";
+
+    private static final int TAGS = 50;
+
+    /**
+     * Creates a source cache and a target cache of perturbed copies of the
+     * source instances.
+     *
+     * @param size
+     *            Number of instances of each cache
+     * @param seed
+     *            Seed of the random generators
+     * @return the source cache and the target cache
+     */
+    public static ACache[] createCaches(int size, long seed) {
+        RandomStringGenerator labels = new RandomStringGenerator(5, 20, seed);
+        Random random = new Random(seed);
+        SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ssXXX");
+        format.setTimeZone(TimeZone.getTimeZone("GMT+02:00"));
+        long epoch = 1431000000000L;
+        ACache source = new MemoryCache();
+        ACache target = new MemoryCache();
+        for (int i = 0; i < size; i++) {
+            String label = labels.generateString();
+            double lat = random.nextDouble() * 90;
+            double lon = random.nextDouble() * 180;
+            long begin = epoch + random.nextInt(10 * 24 * 60) * 60000L;
+            long end = begin + (1 + random.nextInt(60)) * 60000L;
+            int tag = random.nextInt(TAGS);
+            add(source, "http://example.org/source/" + i, label, lat, lon, begin, end, tag, format);
+
+            // perturb the copy of the source instance
+            if (label.length() > 1 && random.nextBoolean()) {
+                int position = random.nextInt(label.length());
+                label = label.substring(0, position) + (char) ('a' + random.nextInt(26))
+                        + label.substring(position + 1);
+            }
+            lat += random.nextGaussian() * 0.01;
+            lon += random.nextGaussian() * 0.01;
+            long shift = (random.nextInt(5) - 2) * 60000L;
+            add(target, "http://example.org/target/" + i, label, lat, lon, begin + shift, end + shift,
+                    random.nextInt(4) == 0 ? random.nextInt(TAGS) : tag, format);
+        }
+        return new ACache[] { source, target };
+    }
+
+    private static void add(ACache cache, String uri, String label, double lat, double lon, long begin, long end,
+            int tag, SimpleDateFormat format) {
+        cache.addTriple(uri, LABEL, label);
+        cache.addTriple(uri, LAT, "" + lat);
+        cache.addTriple(uri, LONG, "" + lon);
+        cache.addTriple(uri, BEGIN, format.format(begin));
+        cache.addTriple(uri, END, format.format(end));
+        double d = 0.05;
+        cache.addTriple(uri, WKT, "POLYGON ((" + lat + " " + lon + ", " + lat + " " + (lon + d) + ", " + (lat + d)
+                + " " + (lon + d) + ", " + (lat + d) + " " + lon + ", " + lat + " " + lon + "))");
+        cache.addTriple(uri, TAG, "tag" + tag);
+        cache.addTriple(uri, TAG, "tag" + (tag + 1) % TAGS);
+    }
+
+    /**
+     * Creates a mapping of random pairs of source and target instances with
+     * random similarities.
+     *
+     * @param source
+     *            Source cache
+     * @param target
+     *            Target cache
+     * @param size
+     *            Number of links
+     * @param seed
+     *            Seed of the random generator
+     * @return the mapping
+     */
+    public static AMapping createMapping(ACache source, ACache target, int size, long seed) {
+        return createMapping(source, target, size, MappingFactory.createDefaultMapping(), 0, seed);
+    }
+
+    /**
+     * Creates a mapping that shares a part of its pairs with another mapping
+     * and has random pairs otherwise. All similarities are random.
+     *
+     * @param source
+     *            Source cache
+     * @param target
+     *            Target cache
+     * @param size
+     *            Number of links
+     * @param other
+     *            Mapping to share pairs with
+     * @param share
+     *            Share of the links that are pairs of the other mapping
+     * @param seed
+     *            Seed of the random generator
+     * @return the mapping
+     */
+    public static AMapping createMapping(ACache source, ACache target, int size, AMapping other, double share,
+            long seed) {
+        Random random = new Random(seed);
+        AMapping mapping = MappingFactory.createDefaultMapping();
+        int shared = (int) Math.min(size * share, other.getNumberofMappings());
+        for (String s : other.getMap().keySet()) {
+            for (String t : other.getMap().get(s).keySet()) {
+                if (mapping.getNumberofMappings() < shared) {
+                    mapping.add(s, t, random.nextDouble());
+                }
+            }
+        }
+        List<String> sourceUris = new ArrayList<>(source.getAllUris());
+        List<String> targetUris = new ArrayList<>(target.getAllUris());
+        while (mapping.getNumberofMappings() < size) {
+            mapping.add(sourceUris.get(random.nextInt(sourceUris.size())),
+                    targetUris.get(random.nextInt(targetUris.size())), random.nextDouble());
+        }
+        return mapping;
+    }
+
+    /**
+     * Reads the configuration of a bundled dataset.
+     *
+     * @param dataset
+     *            Name of the configuration file, e.g. persons1.xml
+     * @return the configuration
+     */
+    public static Configuration readConfiguration(String dataset) {
+        return new XMLConfigurationReader(DATASET_FOLDER + dataset).read();
+    }
+
+    /**
+     * Loads a knowledge base with its query module, without serializing it.
+     *
+     * @param kb
+     *            Knowledge base of a configuration
+     * @return a memory cache of the knowledge base
+     */
+    public static ACache loadCache(KBInfo kb) {
+        ACache cache = new MemoryCache();
+        QueryModuleFactory.getQueryModule(kb.getType(), kb).fillCache(cache);
+        return cache;
+    }
+}
@@ -0,0 +1,78 @@
+package org.aksw.limes.core.benchmarks;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks selected by the JMH command line arguments once for
+ * every thread count of the system property <code>limes.threads</code>
+ * (default 1, 2, 4, ... up to the number of processors). The GC profiler
+ * reports the allocation rate, the results of each thread count are written
+ * to <code>jmh-result-&lt;threads&gt;t.json</code> and the throughput across
+ * thread counts is printed at the end.
+ *
+ * @version 1.0
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws CommandLineOptionException, RunnerException {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        if (commandLine.shouldHelp() || commandLine.shouldList()) {
+            new Runner(commandLine).list();
+            return;
+        }
+        Map<String, Map<Integer, Double>> scores = new LinkedHashMap<>();
+        List<Integer> threadCounts = getThreadCounts();
+        for (int threads : threadCounts) {
+            Options options = new OptionsBuilder().parent(commandLine).threads(threads)
+                    .addProfiler(GCProfiler.class).resultFormat(ResultFormatType.JSON)
+                    .result("jmh-result-" + threads + "t.json").build();
+            Collection<RunResult> results = new Runner(options).run();
+            for (RunResult result : results) {
+                String key = result.getParams().id();
+                scores.computeIfAbsent(key, k -> new LinkedHashMap<>()).put(threads,
+                        result.getPrimaryResult().getScore());
+            }
+        }
+        StringBuilder table = new StringBuilder("\nThroughput by threads " + threadCounts + ":\n");
+        for (Map.Entry<String, Map<Integer, Double>> entry : scores.entrySet()) {
+            table.append(entry.getKey());
+            for (int threads : threadCounts) {
+                Double score = entry.getValue().get(threads);
+                table.append('\t').append(score == null ? "-" : String.format("%.3f", score));
+            }
+            table.append('\n');
+        }
+        System.out.println(table);
+    }
+
+    private static List<Integer> getThreadCounts() {
+        List<Integer> threadCounts = new ArrayList<>();
+        String property = System.getProperty("limes.threads");
+        if (property != null) {
+            for (String threads : property.split(",")) {
+                threadCounts.add(Integer.parseInt(threads.trim()));
+            }
+        } else {
+            int processors = Runtime.getRuntime().availableProcessors();
+            for (int threads = 1; threads < processors; threads *= 2) {
+                threadCounts.add(threads);
+            }
+            threadCounts.add(processors);
+        }
+        return threadCounts;
+    }
+}
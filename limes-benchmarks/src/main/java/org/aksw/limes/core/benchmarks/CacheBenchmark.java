@@ -0,0 +1,84 @@
+package org.aksw.limes.core.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import org.aksw.limes.core.io.cache.ACache;
+import org.aksw.limes.core.io.cache.HybridCache;
+import org.aksw.limes.core.io.cache.Instance;
+import org.aksw.limes.core.io.config.KBInfo;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Loads the source of a bundled dataset with its query module, and serializes
+ * and deserializes it as a {@link HybridCache}. Has to be run from
+ * <code>limes-core</code>, see {@link BenchmarkData}. Each thread serializes
+ * its own copy of the cache.
+ *
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MINUTES)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class CacheBenchmark {
+
+    @Param({ "persons1.xml", "restaurants.xml", "Abt-Buy.xml" })
+    public String dataset;
+
+    private KBInfo kb;
+    private HybridCache cache;
+    private File folder;
+    private File file;
+
+    @Setup
+    public void setUp() throws IOException {
+        kb = BenchmarkData.readConfiguration(dataset).getSourceInfo();
+        folder = Files.createTempDirectory("limes-benchmark").toFile();
+        cache = new HybridCache(folder);
+        for (Instance instance : BenchmarkData.loadCache(kb).getAllInstances()) {
+            cache.addInstance(instance);
+        }
+        new File(folder, "cache").mkdir();
+        file = new File(folder, "cache/" + kb.hashCode() + ".ser");
+        cache.saveToFile(file);
+    }
+
+    @TearDown
+    public void tearDown() {
+        file.delete();
+        new File(folder, "cache").delete();
+        folder.delete();
+    }
+
+    @Benchmark
+    public ACache load() {
+        return BenchmarkData.loadCache(kb);
+    }
+
+    @Benchmark
+    public File serialize() {
+        cache.saveToFile(file);
+        return file;
+    }
+
+    @Benchmark
+    public ACache deserialize() throws IOException {
+        return HybridCache.loadFromFile(file);
+    }
+}
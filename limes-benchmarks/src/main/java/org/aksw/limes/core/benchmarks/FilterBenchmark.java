@@ -0,0 +1,90 @@
+package org.aksw.limes.core.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.aksw.limes.core.execution.engine.filter.LinearFilter;
+import org.aksw.limes.core.io.cache.ACache;
+import org.aksw.limes.core.io.mapping.AMapping;
+import org.aksw.limes.core.measures.measure.MeasureFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Runs the filters of the {@link LinearFilter} on random mappings between
+ * synthetic caches.
+ *
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FilterBenchmark {
+
+    @Param({ MeasureFactory.QGRAMS, MeasureFactory.JARO, MeasureFactory.EUCLIDEAN })
+    public String measure;
+
+    @Param({ "10000", "100000" })
+    public int size;
+
+    @Param({ "0.5" })
+    public double threshold;
+
+    @Param({ "42" })
+    public long seed;
+
+    private final LinearFilter filter = new LinearFilter();
+    private ACache source;
+    private ACache target;
+    private AMapping mapping;
+    private AMapping other;
+    private String condition;
+
+    @Setup
+    public void setUp() {
+        ACache[] caches = BenchmarkData.createCaches((int) Math.sqrt(size) * 4, seed);
+        source = caches[0];
+        target = caches[1];
+        mapping = BenchmarkData.createMapping(source, target, size, seed);
+        other = BenchmarkData.createMapping(source, target, size, mapping, 0.5, seed + 1);
+        String property = measure.equals(MeasureFactory.EUCLIDEAN) ? BenchmarkData.LAT + "|" + BenchmarkData.LONG
+                : BenchmarkData.LABEL;
+        condition = measure + "(x." + property + ",y." + property + ")";
+    }
+
+    @Benchmark
+    public AMapping filterByThreshold() {
+        return filter.filter(mapping, threshold);
+    }
+
+    @Benchmark
+    public AMapping filterByCondition() {
+        return filter.filter(mapping, condition, threshold, source, target, "?x", "?y");
+    }
+
+    @Benchmark
+    public AMapping filterByConditionAndMainThreshold() {
+        return filter.filter(mapping, condition, threshold, threshold, source, target, "?x", "?y");
+    }
+
+    @Benchmark
+    public AMapping reverseFilter() {
+        return filter.reversefilter(mapping, condition, threshold, threshold, source, target, "?x", "?y");
+    }
+
+    @Benchmark
+    public AMapping filterByLinearCombination() {
+        return filter.filter(mapping, other, 0.5, 0.5, threshold, "add");
+    }
+}
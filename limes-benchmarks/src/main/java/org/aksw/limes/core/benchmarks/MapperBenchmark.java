@@ -0,0 +1,104 @@
+package org.aksw.limes.core.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.aksw.limes.core.io.cache.ACache;
+import org.aksw.limes.core.io.mapping.AMapping;
+import org.aksw.limes.core.measures.mapper.IMapper;
+import org.aksw.limes.core.measures.mapper.MapperFactory;
+import org.aksw.limes.core.measures.measure.MeasureFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Runs the mapper of every measure type on synthetic data. The measure types
+ * GEO_QUINLAN and GEO_SCAN__INDEXED_HAUSDORFF have no mapper and are not
+ * covered. Mappers are not required to be thread-safe, so every benchmark
+ * thread generates its own data and creates its own mapper.
+ *
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MINUTES)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class MapperBenchmark {
+
+    @Param({ MeasureFactory.COSINE, MeasureFactory.EXACTMATCH, MeasureFactory.JACCARD, MeasureFactory.JARO,
+            MeasureFactory.JAROWINKLER, MeasureFactory.LEVENSHTEIN, MeasureFactory.MONGEELKAN,
+            MeasureFactory.OVERLAP, MeasureFactory.QGRAMS, MeasureFactory.RATCLIFF, MeasureFactory.SOUNDEX,
+            MeasureFactory.TRIGRAM, MeasureFactory.EUCLIDEAN, MeasureFactory.GEO_ORTHODROMIC,
+            MeasureFactory.GEO_GREAT_ELLIPTIC, MeasureFactory.GEO_CENTROID_INDEXED_HAUSDORFF,
+            MeasureFactory.GEO_FAST_HAUSDORFF, MeasureFactory.GEO_HAUSDORFF, MeasureFactory.GEO_INDEXED_HAUSDORFF,
+            MeasureFactory.GEO_NAIVE_HAUSDORFF, MeasureFactory.GEO_SCAN_INDEXED_HAUSDORFF,
+            MeasureFactory.GEO_SYMMETRIC_HAUSDORFF, MeasureFactory.GEO_MAX, MeasureFactory.GEO_MEAN,
+            MeasureFactory.GEO_MIN, MeasureFactory.GEO_AVG, MeasureFactory.GEO_FRECHET, MeasureFactory.GEO_LINK,
+            MeasureFactory.GEO_SUM_OF_MIN, MeasureFactory.GEO_NAIVE_SURJECTION, MeasureFactory.GEO_FAIR_SURJECTION,
+            MeasureFactory.TMP_CONCURRENT, MeasureFactory.TMP_PREDECESSOR, MeasureFactory.TMP_SUCCESSOR,
+            MeasureFactory.TMP_AFTER, MeasureFactory.TMP_BEFORE, MeasureFactory.TMP_DURING,
+            MeasureFactory.TMP_DURING_REVERSE, MeasureFactory.TMP_EQUALS, MeasureFactory.TMP_FINISHES,
+            MeasureFactory.TMP_IS_FINISHED_BY, MeasureFactory.TMP_IS_MET_BY, MeasureFactory.TMP_IS_OVERLAPPED_BY,
+            MeasureFactory.TMP_IS_STARTED_BY, MeasureFactory.TMP_MEETS, MeasureFactory.TMP_OVERLAPS,
+            MeasureFactory.TMP_STARTS, MeasureFactory.TOP_CONTAINS, MeasureFactory.TOP_COVERED_BY,
+            MeasureFactory.TOP_COVERS, MeasureFactory.TOP_CROSSES, MeasureFactory.TOP_DISJOINT,
+            MeasureFactory.TOP_EQUALS, MeasureFactory.TOP_INTERSECTS, MeasureFactory.TOP_OVERLAPS,
+            MeasureFactory.TOP_TOUCHES, MeasureFactory.TOP_WITHIN, MeasureFactory.SET_JACCARD })
+    public String measure;
+
+    @Param({ "1000", "10000" })
+    public int size;
+
+    @Param({ "42" })
+    public long seed;
+
+    private ACache source;
+    private ACache target;
+    private IMapper mapper;
+    private String expression;
+    private double threshold;
+
+    @Setup
+    public void setUp() {
+        ACache[] caches = BenchmarkData.createCaches(size, seed);
+        source = caches[0];
+        target = caches[1];
+        mapper = MapperFactory.createMapper(MeasureFactory.getMeasureType(measure));
+        if (measure.startsWith("tmp_")) {
+            String interval = BenchmarkData.BEGIN + "|" + BenchmarkData.END;
+            expression = measure + "(x." + interval + ",y." + interval + ")";
+            threshold = 1.0;
+        } else if (measure.startsWith("top_")) {
+            expression = measure + "(x." + BenchmarkData.WKT + ",y." + BenchmarkData.WKT + ")";
+            threshold = 1.0;
+        } else if (measure.startsWith("geo_")) {
+            expression = measure + "(x." + BenchmarkData.WKT + ",y." + BenchmarkData.WKT + ")";
+            threshold = 0.9;
+        } else if (measure.equals(MeasureFactory.EUCLIDEAN)) {
+            String point = BenchmarkData.LAT + "|" + BenchmarkData.LONG;
+            expression = measure + "(x." + point + ",y." + point + ")";
+            threshold = 0.9;
+        } else if (measure.equals(MeasureFactory.SET_JACCARD)) {
+            expression = measure + "(x." + BenchmarkData.TAG + ",y." + BenchmarkData.TAG + ")";
+            threshold = 0.3;
+        } else {
+            expression = measure + "(x." + BenchmarkData.LABEL + ",y." + BenchmarkData.LABEL + ")";
+            threshold = measure.equals(MeasureFactory.EXACTMATCH) ? 1.0 : 0.8;
+        }
+    }
+
+    @Benchmark
+    public AMapping getMapping() {
+        return mapper.getMapping(source, target, "?x", "?y", expression, threshold);
+    }
+}
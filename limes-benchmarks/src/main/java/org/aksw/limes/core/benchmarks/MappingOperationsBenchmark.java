@@ -0,0 +1,67 @@
+package org.aksw.limes.core.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.aksw.limes.core.io.cache.ACache;
+import org.aksw.limes.core.io.mapping.AMapping;
+import org.aksw.limes.core.measures.mapper.MappingOperations;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Runs the set operations of {@link MappingOperations} on two random
+ * mappings that share a part of their pairs.
+ *
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MappingOperationsBenchmark {
+
+    @Param({ "10000", "100000", "1000000" })
+    public int size;
+
+    @Param({ "0.1", "0.5", "0.9" })
+    public double overlap;
+
+    @Param({ "42" })
+    public long seed;
+
+    private AMapping mapping;
+    private AMapping other;
+
+    @Setup
+    public void setUp() {
+        ACache[] caches = BenchmarkData.createCaches((int) Math.sqrt(size) * 4, seed);
+        mapping = BenchmarkData.createMapping(caches[0], caches[1], size, seed);
+        other = BenchmarkData.createMapping(caches[0], caches[1], size, mapping, overlap, seed + 1);
+    }
+
+    @Benchmark
+    public AMapping union() {
+        return MappingOperations.union(mapping, other);
+    }
+
+    @Benchmark
+    public AMapping intersection() {
+        return MappingOperations.intersection(mapping, other);
+    }
+
+    @Benchmark
+    public AMapping difference() {
+        return MappingOperations.difference(mapping, other);
+    }
+}
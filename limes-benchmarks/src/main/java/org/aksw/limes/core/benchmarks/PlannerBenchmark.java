@@ -0,0 +1,97 @@
+package org.aksw.limes.core.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.aksw.limes.core.controller.LSPipeline;
+import org.aksw.limes.core.execution.engine.ExecutionEngineFactory.ExecutionEngineType;
+import org.aksw.limes.core.execution.planning.plan.NestedPlan;
+import org.aksw.limes.core.execution.planning.planner.ExecutionPlannerFactory;
+import org.aksw.limes.core.execution.planning.planner.ExecutionPlannerFactory.ExecutionPlannerType;
+import org.aksw.limes.core.execution.planning.planner.Planner;
+import org.aksw.limes.core.execution.rewriter.RewriterFactory.RewriterType;
+import org.aksw.limes.core.io.cache.ACache;
+import org.aksw.limes.core.io.config.Configuration;
+import org.aksw.limes.core.io.ls.LinkSpecification;
+import org.aksw.limes.core.io.mapping.AMapping;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Plans and executes a link specification with every planner, on synthetic
+ * data with a complex specification or on a bundled dataset with the
+ * specification of its configuration. Bundled datasets have to be run from
+ * <code>limes-core</code>, see {@link BenchmarkData}.
+ *
+ * @version 1.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MINUTES)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class PlannerBenchmark {
+
+    public static final String SYNTHETIC = "synthetic";
+
+    private static final String SYNTHETIC_METRIC = "AND(OR(qgrams(x.label,y.label)|0.8,jaro(x.label,y.label)|0.9)"
+            + "|0.8,euclidean(x.lat|long,y.lat|long)|0.5)";
+
+    @Param({ "CANONICAL", "HELIOS", "DYNAMIC" })
+    public ExecutionPlannerType planner;
+
+    @Param({ SYNTHETIC, "persons1.xml", "restaurants.xml" })
+    public String data;
+
+    @Param({ "5000" })
+    public int size;
+
+    @Param({ "42" })
+    public long seed;
+
+    private ACache source;
+    private ACache target;
+    private LinkSpecification spec;
+    private String sourceVar;
+    private String targetVar;
+
+    @Setup
+    public void setUp() {
+        if (data.equals(SYNTHETIC)) {
+            ACache[] caches = BenchmarkData.createCaches(size, seed);
+            source = caches[0];
+            target = caches[1];
+            spec = new LinkSpecification(SYNTHETIC_METRIC, 0.5);
+            sourceVar = "?x";
+            targetVar = "?y";
+        } else {
+            Configuration config = BenchmarkData.readConfiguration(data);
+            source = BenchmarkData.loadCache(config.getSourceInfo());
+            target = BenchmarkData.loadCache(config.getTargetInfo());
+            spec = new LinkSpecification(config.getMetricExpression(), config.getVerificationThreshold());
+            sourceVar = config.getSourceInfo().getVar();
+            targetVar = config.getTargetInfo().getVar();
+        }
+    }
+
+    @Benchmark
+    public NestedPlan plan() {
+        Planner p = ExecutionPlannerFactory.getPlanner(planner, source, target);
+        return p.plan(p.normalize(spec));
+    }
+
+    @Benchmark
+    public AMapping execute() {
+        return LSPipeline.execute(source, target, spec, sourceVar, targetVar, RewriterType.DEFAULT, planner,
+                ExecutionEngineType.DEFAULT);
+    }
+}
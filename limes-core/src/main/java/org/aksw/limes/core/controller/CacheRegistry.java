@@ -0,0 +1,339 @@
+package org.aksw.limes.core.controller;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Function;
+
+import org.aksw.limes.core.io.cache.ACache;
+import org.aksw.limes.core.io.cache.HybridCache;
+import org.aksw.limes.core.io.cache.Instance;
+import org.aksw.limes.core.io.config.KBInfo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Registry of loaded caches that are shared between jobs. Caches are keyed by
+ * the fingerprint of their {@link KBInfo}, i.e. by everything that determines
+ * their content, so that all jobs reading the same knowledge base share one
+ * copy in memory. Jobs hold a {@link Lease} while they use a cache and must
+ * not modify it. Caches without leases stay resident until the estimated
+ * memory of all resident caches exceeds the budget, then the least recently
+ * used idle caches are evicted.
+ */
+public class CacheRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(CacheRegistry.class);
+
+    /**
+     * Assumed memory of an object header plus reference.
+     */
+    private static final int OBJECT_OVERHEAD = 40;
+
+    /**
+     * A cache in the registry.
+     */
+    private static class Entry {
+        private final String fingerprint;
+        private ACache cache = null;
+        private Throwable failure = null;
+        private long memory = 0;
+        private int leases = 0;
+
+        private Entry(String fingerprint) {
+            this.fingerprint = fingerprint;
+        }
+    }
+
+    /**
+     * Read-only access of a job to a shared cache. The lease must be closed
+     * when the job does not use the cache anymore.
+     */
+    public class Lease implements AutoCloseable {
+        private final Entry entry;
+        private boolean closed = false;
+
+        private Lease(Entry entry) {
+            this.entry = entry;
+        }
+
+        public ACache getCache() {
+            return entry.cache;
+        }
+
+        @Override
+        public void close() {
+            synchronized (CacheRegistry.this) {
+                if (!closed) {
+                    closed = true;
+                    entry.leases--;
+                    evict();
+                }
+            }
+        }
+    }
+
+    private final long memoryBudget;
+    private final Function<KBInfo, ACache> loader;
+    /**
+     * Entries in access order, the least recently used entry comes first.
+     */
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long residentMemory = 0;
+    private long hits = 0;
+    private long misses = 0;
+    private long evictions = 0;
+    private long loadTime = 0;
+
+    /**
+     * Constructor of CacheRegistry class, loads caches by
+     * {@link HybridCache#getData(KBInfo)}.
+     *
+     * @param memoryBudget
+     *            estimated memory in bytes up to which idle caches stay
+     *            resident
+     */
+    public CacheRegistry(long memoryBudget) {
+        this(memoryBudget, HybridCache::getData);
+    }
+
+    /**
+     * Constructor of CacheRegistry class.
+     *
+     * @param memoryBudget
+     *            estimated memory in bytes up to which idle caches stay
+     *            resident
+     * @param loader
+     *            loads the cache of a knowledge base
+     */
+    public CacheRegistry(long memoryBudget, Function<KBInfo, ACache> loader) {
+        this.memoryBudget = memoryBudget;
+        this.loader = loader;
+    }
+
+    /**
+     * Returns a lease on the cache of a knowledge base. The cache is loaded if
+     * it is not resident. Concurrent requests for the same knowledge base wait
+     * for a single load.
+     *
+     * @param kb
+     *            the knowledge base
+     * @return the lease of the cache
+     */
+    public Lease acquire(KBInfo kb) {
+        String fingerprint = getFingerprint(kb);
+        Entry entry;
+        synchronized (this) {
+            entry = entries.get(fingerprint);
+            if (entry != null) {
+                entry.leases++;
+                while (entry.cache == null && entry.failure == null) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        entry.leases--;
+                        Thread.currentThread().interrupt();
+                        throw new RuntimeException("Interrupted while waiting for cache " + kb.getId(), e);
+                    }
+                }
+                if (entry.failure != null) {
+                    entry.leases--;
+                    if (entry.failure instanceof RuntimeException) {
+                        throw (RuntimeException) entry.failure;
+                    }
+                    throw new RuntimeException("Loading cache " + kb.getId() + " failed", entry.failure);
+                }
+                hits++;
+                return new Lease(entry);
+            }
+            misses++;
+            entry = new Entry(fingerprint);
+            entry.leases++;
+            entries.put(fingerprint, entry);
+        }
+        long begin = System.currentTimeMillis();
+        ACache cache;
+        long memory;
+        try {
+            cache = loader.apply(kb);
+            memory = estimateMemory(cache);
+        } catch (Throwable e) {
+            // also errors such as OutOfMemoryError, waiters would block forever otherwise
+            synchronized (this) {
+                entry.failure = e;
+                entries.remove(fingerprint);
+                notifyAll();
+            }
+            throw e;
+        }
+        synchronized (this) {
+            entry.cache = cache;
+            entry.memory = memory;
+            residentMemory += memory;
+            loadTime += System.currentTimeMillis() - begin;
+            notifyAll();
+            logger.info("Loaded cache " + kb.getId() + " with " + cache.size() + " instances and estimated memory "
+                    + (memory >> 20) + " MB");
+            evict();
+        }
+        return new Lease(entry);
+    }
+
+    /**
+     * @param kb
+     *            the knowledge base
+     * @return true if the cache of the knowledge base is loaded
+     */
+    public synchronized boolean isResident(KBInfo kb) {
+        Entry entry = entries.get(getFingerprint(kb));
+        return entry != null && entry.cache != null;
+    }
+
+    /**
+     * Evicts idle caches in least recently used order until the resident
+     * caches fit into the memory budget.
+     */
+    private synchronized void evict() {
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (residentMemory > memoryBudget && iterator.hasNext()) {
+            Entry entry = iterator.next();
+            if (entry.leases == 0 && entry.cache != null) {
+                iterator.remove();
+                residentMemory -= entry.memory;
+                evictions++;
+                logger.info("Evicted cache " + entry.fingerprint.hashCode() + " (" + (entry.memory >> 20) + " MB)");
+            }
+        }
+    }
+
+    /**
+     * Removes all idle caches.
+     */
+    public synchronized void clear() {
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            Entry entry = iterator.next();
+            if (entry.leases == 0 && entry.cache != null) {
+                iterator.remove();
+                residentMemory -= entry.memory;
+                evictions++;
+            }
+        }
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    public synchronized long getEvictions() {
+        return evictions;
+    }
+
+    public synchronized long getResidentMemory() {
+        return residentMemory;
+    }
+
+    public synchronized int getResidentCaches() {
+        int resident = 0;
+        for (Entry entry : entries.values()) {
+            resident += entry.cache != null ? 1 : 0;
+        }
+        return resident;
+    }
+
+    /**
+     * @return total time spent loading caches in milliseconds
+     */
+    public synchronized long getLoadTime() {
+        return loadTime;
+    }
+
+    /**
+     * Returns the metrics of the registry as JSON object.
+     *
+     * @return the JSON representation
+     */
+    public synchronized String toJson() {
+        List<Entry> resident = new ArrayList<>();
+        for (Entry entry : entries.values()) {
+            if (entry.cache != null) {
+                resident.add(entry);
+            }
+        }
+        StringBuilder json = new StringBuilder("{");
+        json.append("\"hits\":").append(hits);
+        json.append(",\"misses\":").append(misses);
+        json.append(",\"evictions\":").append(evictions);
+        json.append(",\"load_time\":").append(loadTime);
+        json.append(",\"resident_memory\":").append(residentMemory);
+        json.append(",\"memory_budget\":").append(memoryBudget);
+        json.append(",\"caches\":[");
+        String separator = "";
+        for (Entry entry : resident) {
+            json.append(separator).append("{\"fingerprint\":").append(entry.fingerprint.hashCode());
+            json.append(",\"size\":").append(entry.cache.size());
+            json.append(",\"memory\":").append(entry.memory);
+            json.append(",\"leases\":").append(entry.leases).append('}');
+            separator = ",";
+        }
+        return json.append("]}").toString();
+    }
+
+    /**
+     * Returns a key that is equal for two knowledge bases if and only if
+     * their caches have the same content. In contrast to
+     * {@link KBInfo#hashCode()} it covers the preprocessing functions and
+     * ignores the id and variable of the knowledge base.
+     *
+     * @param kb
+     *            the knowledge base
+     * @return the fingerprint
+     */
+    public static String getFingerprint(KBInfo kb) {
+        Map<String, Map<String, String>> functions = new TreeMap<>();
+        if (kb.getFunctions() != null) {
+            for (Map.Entry<String, Map<String, String>> e : kb.getFunctions().entrySet()) {
+                functions.put(e.getKey(), e.getValue() == null ? null : new TreeMap<>(e.getValue()));
+            }
+        }
+        StringBuilder fingerprint = new StringBuilder();
+        fingerprint.append(kb.getType()).append('\n');
+        fingerprint.append(kb.getEndpoint()).append('\n');
+        fingerprint.append(kb.getGraph()).append('\n');
+        fingerprint.append(kb.getPageSize()).append('\n');
+        fingerprint.append(kb.getRestrictions()).append('\n');
+        fingerprint.append(kb.getProperties()).append('\n');
+        fingerprint.append(kb.getOptionalProperties()).append('\n');
+        fingerprint.append(functions).append('\n');
+        fingerprint.append(kb.getPrefixes() == null ? null : new TreeMap<>(kb.getPrefixes()));
+        return fingerprint.toString();
+    }
+
+    /**
+     * Estimates the memory of a cache from the strings it holds.
+     *
+     * @param cache
+     *            the cache
+     * @return the estimated memory in bytes
+     */
+    public static long estimateMemory(ACache cache) {
+        long memory = 0;
+        for (Instance instance : cache.getAllInstances()) {
+            memory += 3 * OBJECT_OVERHEAD + 2L * instance.getUri().length();
+            for (String property : instance.getAllProperties()) {
+                memory += 2 * OBJECT_OVERHEAD;
+                for (String value : instance.getProperty(property)) {
+                    memory += 2 * OBJECT_OVERHEAD + 2L * value.length();
+                }
+            }
+        }
+        return memory;
+    }
+}
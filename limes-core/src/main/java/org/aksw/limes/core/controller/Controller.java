@@ -3,20 +3,35 @@ package org.aksw.limes.core.controller;
 import static org.fusesource.jansi.Ansi.ansi;
 import static org.fusesource.jansi.Ansi.Color.RED;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
 import org.aksw.limes.core.exceptions.UnsupportedMLImplementationException;
 import org.aksw.limes.core.execution.engine.ExecutionEngineFactory;
+import org.aksw.limes.core.execution.engine.PlanProfiler;
 import org.aksw.limes.core.execution.planning.planner.ExecutionPlannerFactory;
 import org.aksw.limes.core.execution.rewriter.RewriterFactory;
 //import org.aksw.limes.core.gui.LimesGUI;
+import org.aksw.limes.core.io.cache.ACache;
 import org.aksw.limes.core.io.cache.HybridCache;
 import org.aksw.limes.core.io.config.Configuration;
+import org.aksw.limes.core.io.config.KBInfo;
 import org.aksw.limes.core.io.config.reader.AConfigurationReader;
 import org.aksw.limes.core.io.config.reader.rdf.RDFConfigurationReader;
 import org.aksw.limes.core.io.config.reader.xml.XMLConfigurationReader;
+import org.aksw.limes.core.io.ls.LinkSpecification;
 import org.aksw.limes.core.io.mapping.AMapping;
 import org.aksw.limes.core.io.serializer.ISerializer;
 import org.aksw.limes.core.io.serializer.SerializerFactory;
-import org.aksw.limes.core.measures.mapper.MappingOperations;
 import org.apache.commons.cli.BasicParser;
 import org.apache.commons.cli.CommandLine;
 import org.apache.commons.cli.CommandLineParser;
@@ -62,7 +77,14 @@ public class Controller {
 //            System.exit(0);
         } else if (cmd.hasOption('s')){
             int port = serverPort;
-            if (cmd.hasOption('p')) port = Integer.parseInt(cmd.getOptionValue('p'));
+            if (cmd.hasOption('p')) {
+                port = parsePositiveInt(cmd.getOptionValue('p'));
+                if (port < 0) {
+                    logger.error("Error:\n\t Option -p requires a positive port number!");
+                    printHelp();
+                    System.exit(1);
+                }
+            }
             SimpleServer.startServer(port);
         } else {
             // III. Has Arguments?
@@ -73,8 +95,97 @@ public class Controller {
             }
 
             Configuration config = getConfig(cmd);
-            ResultMappings mappings = getMapping(config);
-            writeResults(mappings, config);
+            String error = checkExecutionOptions(cmd, config);
+            if (error != null) {
+                logger.error("Error:\n\t " + error + "!");
+                printHelp();
+                System.exit(1);
+            }
+            if (cmd.hasOption('d')) {
+                String snapshot = cmd.getOptionValue('d');
+                ACache[] caches = loadCaches(config);
+                DeltaMappings mappings = new IncrementalLinker(config, new File(snapshot)).getMapping(caches[0],
+                        caches[1]);
+                writeResults(mappings, config);
+                writeDelta(mappings, config, snapshot);
+            } else if (cmd.hasOption('w')) {
+                int workers = parsePositiveInt(cmd.getOptionValue('w'));
+                StopWatch stopWatch = new StopWatch();
+                stopWatch.start();
+                new PartitionedPipeline(workers).execute(config);
+                logger.info("Mapping task finished in " + stopWatch.getTime() + " ms");
+            } else if (cmd.hasOption('k')) {
+                int k = parsePositiveInt(cmd.getOptionValue('k'));
+                ACache[] caches = loadCaches(config);
+                StopWatch stopWatch = new StopWatch();
+                stopWatch.start();
+                AMapping results = LSPipeline.execute(caches[0], caches[1],
+                        new LinkSpecification(config.getMetricExpression(), config.getVerificationThreshold()),
+                        config.getSourceInfo().getVar(), config.getTargetInfo().getVar(),
+                        RewriterFactory.getRewriterType(config.getExecutionRewriter()),
+                        ExecutionPlannerFactory.getExecutionPlannerType(config.getExecutionPlanner()), k);
+                logger.info("Mapping task finished in " + stopWatch.getTime() + " ms");
+                writeResults(getResultMappings(results, config), config);
+            } else if (cmd.hasOption('m')) {
+                ACache[] caches = loadCaches(config);
+                PlanProfiler profiler = new PlanProfiler();
+                ResultMappings mappings = getMapping(config, caches[0], caches[1], profiler);
+                writeResults(mappings, config);
+                writeProfile(profiler, config.getAcceptanceFile() + ".profile.json");
+            } else {
+                ResultMappings mappings = getMapping(config);
+                writeResults(mappings, config);
+            }
+        }
+    }
+
+    /**
+     * Checks the options that select how the link specification of a
+     * configuration is executed. At most one of -d, -w, -k and -m can be
+     * given, and -w and -k require a positive number and a configuration
+     * without machine learning algorithm.
+     *
+     * @param cmd
+     *            Parsed command line
+     * @param config
+     *            LIMES configuration object
+     *
+     * @return the error message, null if the options are valid
+     */
+    static String checkExecutionOptions(CommandLine cmd, Configuration config) {
+        List<String> given = new ArrayList<>();
+        for (String option : new String[] { "d", "w", "k", "m" }) {
+            if (cmd.hasOption(option)) {
+                given.add("-" + option);
+            }
+        }
+        if (given.size() > 1) {
+            return "Options " + String.join(", ", given) + " cannot be combined";
+        }
+        for (String option : new String[] { "w", "k" }) {
+            if (!cmd.hasOption(option)) {
+                continue;
+            }
+            if (!config.getMlAlgorithmName().equals("")) {
+                return "Option -" + option + " cannot be used with a machine learning algorithm";
+            }
+            if (parsePositiveInt(cmd.getOptionValue(option)) < 0) {
+                return "Option -" + option + " requires a positive number, not \"" + cmd.getOptionValue(option)
+                        + "\"";
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return the value as int, -1 if it is not a positive int
+     */
+    private static int parsePositiveInt(String value) {
+        try {
+            int i = Integer.parseInt(value.trim());
+            return i > 0 ? i : -1;
+        } catch (NumberFormatException e) {
+            return -1;
         }
     }
 
@@ -135,14 +246,81 @@ public class Controller {
      *
      */
     public static ResultMappings getMapping(Configuration config) {
+        // 3. Fill Caches
+        ACache[] caches = loadCaches(config);
+        return getMapping(config, caches[0], caches[1]);
+    }
+
+    /**
+     * Loads the source and target caches of a configuration. The caches are
+     * loaded concurrently, so that slow endpoints are queried at the same
+     * time. A knowledge base that is used as source and target is only loaded
+     * once.
+     *
+     * @param config
+     *            LIMES configuration object
+     *
+     * @return the source cache and the target cache
+     */
+    public static ACache[] loadCaches(Configuration config) {
+        final KBInfo sourceInfo = config.getSourceInfo();
+        final KBInfo targetInfo = config.getTargetInfo();
+        if (CacheRegistry.getFingerprint(sourceInfo).equals(CacheRegistry.getFingerprint(targetInfo))) {
+            HybridCache cache = HybridCache.getData(sourceInfo);
+            return new ACache[] { cache, cache };
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<HybridCache> sourceCache = executor.submit(() -> HybridCache.getData(sourceInfo));
+            Future<HybridCache> targetCache = executor.submit(() -> HybridCache.getData(targetInfo));
+            return new ACache[] { sourceCache.get(), targetCache.get() };
+        } catch (InterruptedException | ExecutionException e) {
+            throw new RuntimeException("Loading caches failed", e);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Execute LIMES on already loaded caches
+     *
+     * @param config
+     *            LIMES configuration object
+     * @param sourceCache
+     *            Cache of the source knowledge base
+     * @param targetCache
+     *            Cache of the target knowledge base
+     *
+     * @return Instance of ResultMapping
+     *
+     */
+    public static ResultMappings getMapping(Configuration config, ACache sourceCache, ACache targetCache) {
+        return getMapping(config, sourceCache, targetCache, null);
+    }
+
+    /**
+     * Execute LIMES on already loaded caches and record the metrics of the
+     * executed plan nodes. Machine learning runs are not profiled.
+     *
+     * @param config
+     *            LIMES configuration object
+     * @param sourceCache
+     *            Cache of the source knowledge base
+     * @param targetCache
+     *            Cache of the target knowledge base
+     * @param profiler
+     *            Records the metrics of the executed plan nodes, null to
+     *            execute with the configured execution engine
+     *
+     * @return Instance of ResultMapping
+     *
+     */
+    public static ResultMappings getMapping(Configuration config, ACache sourceCache, ACache targetCache,
+            PlanProfiler profiler) {
         if (logger == null)
             logger = LoggerFactory.getLogger(Controller.class);
         AMapping results = null;
 
-        // 3. Fill Caches
-        HybridCache sourceCache = HybridCache.getData(config.getSourceInfo());
-        HybridCache targetCache = HybridCache.getData(config.getTargetInfo());
-
         // 4. Machine Learning or Planning
         StopWatch stopWatch = new StopWatch();
         stopWatch.start();
@@ -156,6 +334,12 @@ public class Controller {
             } catch (UnsupportedMLImplementationException e) {
                 e.printStackTrace();
             }
+        } else if (profiler != null) {
+            results = LSPipeline.execute(sourceCache, targetCache,
+                    new LinkSpecification(config.getMetricExpression(), config.getVerificationThreshold()),
+                    config.getSourceInfo().getVar(), config.getTargetInfo().getVar(),
+                    RewriterFactory.getRewriterType(config.getExecutionRewriter()),
+                    ExecutionPlannerFactory.getExecutionPlannerType(config.getExecutionPlanner()), profiler);
         } else {
             results = LSPipeline.execute(sourceCache, targetCache, config.getMetricExpression(),
                     config.getVerificationThreshold(), config.getSourceInfo().getVar(), config.getTargetInfo().getVar(),
@@ -165,8 +349,16 @@ public class Controller {
         }
         logger.info("Mapping task finished in " + stopWatch.getTime() + " ms");
         assert results != null;
-        AMapping acceptanceMapping = results.getSubMap(config.getAcceptanceThreshold());
-        AMapping verificationMapping = MappingOperations.difference(results, acceptanceMapping);
+        return getResultMappings(results, config);
+    }
+
+    /**
+     * Splits a mapping at the acceptance threshold of a configuration.
+     */
+    private static ResultMappings getResultMappings(AMapping results, Configuration config) {
+        AMapping[] split = results.split(config.getAcceptanceThreshold());
+        AMapping acceptanceMapping = split[0];
+        AMapping verificationMapping = split[1];
         logger.info("Mapping size: " + acceptanceMapping.size() + " (accepted) + " + verificationMapping.size()
                 + " (need verification) = " + results.size() + " (total)");
         return new ResultMappings(verificationMapping, acceptanceMapping);
@@ -181,6 +373,24 @@ public class Controller {
         output.writeToFile(mappings.getAcceptanceMapping(), config.getAcceptanceRelation(), config.getAcceptanceFile());
     }
 
+    /**
+     * Writes the metrics of the executed plan nodes as JSON.
+     */
+    static void writeProfile(PlanProfiler profiler, String file) {
+        try {
+            Files.write(Paths.get(file), profiler.toJson().getBytes(StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new RuntimeException("Writing the profile to " + file + " failed", e);
+        }
+    }
+
+    private static void writeDelta(DeltaMappings mappings, Configuration config, String snapshot) {
+        ISerializer output = SerializerFactory.createSerializer(config.getOutputFormat());
+        output.setPrefixes(config.getPrefixes());
+        output.writeToFile(mappings.getAddedLinks(), config.getVerificationRelation(), snapshot + ".added");
+        output.writeToFile(mappings.getRemovedLinks(), config.getVerificationRelation(), snapshot + ".removed");
+    }
+
     /**
      * Print the usage text
      */
@@ -202,6 +412,14 @@ public class Controller {
         options.addOption("f", true, "Optionally configure format of <config_file_or_uri>, either \"xml\" (default) or " +
                 "\"rdf\". If not specified, LIMES tries to infer the format from file ending.");
         options.addOption("p", true, "Optionally configure HTTP server port. Only effective if -s is specified. Default port is 8080.");
+        options.addOption("d", true, "Optionally link incrementally against the snapshot file of the previous run, "
+                + "which is replaced. The added and removed links are written next to it.");
+        options.addOption("w", true, "Optionally execute the link specification in the given number of worker "
+                + "processes, each linking one partition of the source");
+        options.addOption("m", false, "Optionally write the wall time, CPU time, allocated bytes, mapping sizes and "
+                + "estimated costs of every executed plan node as JSON next to the acceptance file");
+        options.addOption("k", true, "Optionally link each source instance only to its k most similar target "
+                + "instances, with the verification threshold as minimal similarity");
         // options.addOption("s", false, "Silent run");
         // options.addOption("v", false, "Verbose run");
         return options;
@@ -0,0 +1,45 @@
+package org.aksw.limes.core.controller;
+
+import org.aksw.limes.core.io.mapping.AMapping;
+
+/**
+ * Result of an incremental run: the acceptance and verification mappings of
+ * the complete new mapping, together with the links that were added and
+ * removed since the previous run.
+ *
+ * @version 1.0
+ */
+public class DeltaMappings extends ResultMappings {
+    protected AMapping addedLinks;
+    protected AMapping removedLinks;
+
+    /**
+     * Constructor
+     * @param verificationMapping Mapping where acceptanceThreshold &gt; sim &gt;= verificationThreshold
+     * @param acceptanceMapping Mapping where sim &gt;= acceptanceThreshold
+     * @param addedLinks Links of the new mapping that are not in the previous one or have another similarity
+     * @param removedLinks Links of the previous mapping that are not in the new one or have another similarity
+     */
+    public DeltaMappings(AMapping verificationMapping, AMapping acceptanceMapping, AMapping addedLinks,
+            AMapping removedLinks) {
+        super(verificationMapping, acceptanceMapping);
+        this.addedLinks = addedLinks;
+        this.removedLinks = removedLinks;
+    }
+
+    /**
+     * Getter for the added links
+     * @return added links
+     */
+    public AMapping getAddedLinks() {
+        return addedLinks;
+    }
+
+    /**
+     * Getter for the removed links
+     * @return removed links
+     */
+    public AMapping getRemovedLinks() {
+        return removedLinks;
+    }
+}
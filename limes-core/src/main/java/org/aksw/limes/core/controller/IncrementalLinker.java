@@ -0,0 +1,268 @@
+package org.aksw.limes.core.controller;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.aksw.limes.core.execution.engine.ExecutionEngineFactory;
+import org.aksw.limes.core.execution.planning.planner.ExecutionPlannerFactory;
+import org.aksw.limes.core.execution.rewriter.RewriterFactory;
+import org.aksw.limes.core.io.cache.ACache;
+import org.aksw.limes.core.io.cache.Instance;
+import org.aksw.limes.core.io.cache.MemoryCache;
+import org.aksw.limes.core.io.config.Configuration;
+import org.aksw.limes.core.io.mapping.AMapping;
+import org.aksw.limes.core.io.mapping.MappingFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Re-links only what changed since the previous run. The snapshot of a run
+ * holds a hash of the property values of every source and target instance
+ * together with the complete mapping. The next run compares the newly loaded
+ * caches with the snapshot by URI and hash, executes the link specification
+ * for the added and changed source instances against the whole target and
+ * for the added and changed target instances against the whole source, drops
+ * the previous links of changed and deleted instances and merges the rest of
+ * the previous mapping with the new links.
+ * <p>
+ * This requires that whether two instances are linked, and with which
+ * similarity, depends only on these two instances, which holds for link
+ * specifications but not for machine learning. Without a snapshot or with a
+ * machine learning configuration the complete mapping is computed.
+ *
+ * @version 1.0
+ */
+public class IncrementalLinker {
+
+    static Logger logger = LoggerFactory.getLogger(IncrementalLinker.class);
+
+    /**
+     * State persisted between runs.
+     */
+    public static class Snapshot implements Serializable {
+        private static final long serialVersionUID = 3146570862310495720L;
+
+        /** Fingerprint of the link specification and thresholds the mapping was computed with */
+        String task;
+        HashMap<String, Long> sourceHashes;
+        HashMap<String, Long> targetHashes;
+        AMapping mapping;
+    }
+
+    private final Configuration config;
+    private final File snapshotFile;
+
+    /**
+     * Constructor
+     * @param config LIMES configuration object
+     * @param snapshotFile File of the snapshot, read if it exists and replaced after each run
+     */
+    public IncrementalLinker(Configuration config, File snapshotFile) {
+        this.config = config;
+        this.snapshotFile = snapshotFile;
+    }
+
+    /**
+     * Links the caches incrementally and replaces the snapshot.
+     *
+     * @param sourceCache Cache of the source knowledge base
+     * @param targetCache Cache of the target knowledge base
+     * @return the new mapping and the delta to the previous one
+     */
+    public DeltaMappings getMapping(ACache sourceCache, ACache targetCache) {
+        Snapshot previous = readSnapshot();
+        Snapshot next = new Snapshot();
+        next.task = getTask();
+        next.sourceHashes = getHashes(sourceCache);
+        next.targetHashes = getHashes(targetCache);
+
+        AMapping previousMapping = previous == null ? MappingFactory.createDefaultMapping() : previous.mapping;
+        if (previous == null || !next.task.equals(previous.task) || !config.getMlAlgorithmName().equals("")) {
+            logger.info("No usable snapshot in " + snapshotFile + ", computing the complete mapping");
+            ResultMappings mappings = Controller.getMapping(config, sourceCache, targetCache);
+            next.mapping = MappingFactory.createDefaultMapping();
+            add(next.mapping, mappings.getAcceptanceMapping());
+            add(next.mapping, mappings.getVerificationMapping());
+        } else {
+            next.mapping = relink(previous, next, sourceCache, targetCache);
+        }
+        writeSnapshot(next);
+
+        AMapping added = getMissing(next.mapping, previousMapping);
+        AMapping removed = getMissing(previousMapping, next.mapping);
+        logger.info("Mapping size: " + next.mapping.size() + " (" + added.size() + " added, " + removed.size()
+                + " removed)");
+        AMapping[] split = next.mapping.split(config.getAcceptanceThreshold());
+        return new DeltaMappings(split[1], split[0], added, removed);
+    }
+
+    private AMapping relink(Snapshot previous, Snapshot next, ACache sourceCache, ACache targetCache) {
+        Set<String> changedSources = getChanged(previous.sourceHashes, next.sourceHashes);
+        Set<String> changedTargets = getChanged(previous.targetHashes, next.targetHashes);
+        logger.info(changedSources.size() + " source and " + changedTargets.size()
+                + " target instances were added, changed or deleted");
+
+        // keep the previous links between unchanged instances
+        AMapping mapping = MappingFactory.createDefaultMapping();
+        for (String s : previous.mapping.getMap().keySet()) {
+            if (changedSources.contains(s)) {
+                continue;
+            }
+            for (Map.Entry<String, Double> link : previous.mapping.getMap().get(s).entrySet()) {
+                if (!changedTargets.contains(link.getKey())) {
+                    mapping.add(s, link.getKey(), link.getValue());
+                }
+            }
+        }
+        ACache sources = getSubCache(sourceCache, changedSources);
+        ACache targets = getSubCache(targetCache, changedTargets);
+        if (sources.size() > 0) {
+            add(mapping, execute(sources, targetCache));
+        }
+        if (targets.size() > 0) {
+            add(mapping, execute(sourceCache, targets));
+        }
+        return mapping;
+    }
+
+    private AMapping execute(ACache sourceCache, ACache targetCache) {
+        return LSPipeline.execute(sourceCache, targetCache, config.getMetricExpression(),
+                config.getVerificationThreshold(), config.getSourceInfo().getVar(), config.getTargetInfo().getVar(),
+                RewriterFactory.getRewriterType(config.getExecutionRewriter()),
+                ExecutionPlannerFactory.getExecutionPlannerType(config.getExecutionPlanner()),
+                ExecutionEngineFactory.getExecutionEngineType(config.getExecutionEngine()));
+    }
+
+    private static void add(AMapping mapping, AMapping links) {
+        for (String s : links.getMap().keySet()) {
+            for (Map.Entry<String, Double> link : links.getMap().get(s).entrySet()) {
+                mapping.add(s, link.getKey(), link.getValue());
+            }
+        }
+    }
+
+    /**
+     * @return the instances of the cache with the given URIs that still exist
+     */
+    private static ACache getSubCache(ACache cache, Set<String> uris) {
+        ACache subCache = new MemoryCache();
+        for (String uri : uris) {
+            if (cache.containsUri(uri)) {
+                subCache.addInstance(cache.getInstance(uri));
+            }
+        }
+        return subCache;
+    }
+
+    /**
+     * @return the URIs that were added, deleted or whose hash changed
+     */
+    static Set<String> getChanged(Map<String, Long> previous, Map<String, Long> next) {
+        Set<String> changed = new HashSet<>();
+        for (Map.Entry<String, Long> e : next.entrySet()) {
+            if (!e.getValue().equals(previous.get(e.getKey()))) {
+                changed.add(e.getKey());
+            }
+        }
+        for (String uri : previous.keySet()) {
+            if (!next.containsKey(uri)) {
+                changed.add(uri);
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * @return links of the first mapping that are not in the second one with
+     *         the same similarity
+     */
+    private static AMapping getMissing(AMapping mapping, AMapping other) {
+        AMapping missing = MappingFactory.createDefaultMapping();
+        for (String s : mapping.getMap().keySet()) {
+            for (Map.Entry<String, Double> link : mapping.getMap().get(s).entrySet()) {
+                if (!other.contains(s, link.getKey())
+                        || other.getConfidence(s, link.getKey()) != link.getValue()) {
+                    missing.add(s, link.getKey(), link.getValue());
+                }
+            }
+        }
+        return missing;
+    }
+
+    static HashMap<String, Long> getHashes(ACache cache) {
+        HashMap<String, Long> hashes = new HashMap<>();
+        for (Instance instance : cache.getAllInstances()) {
+            hashes.put(instance.getUri(), getHash(instance));
+        }
+        return hashes;
+    }
+
+    /**
+     * 64-bit FNV-1a hash of the sorted properties and values of an instance.
+     */
+    static long getHash(Instance instance) {
+        List<String> properties = new ArrayList<>(instance.getAllProperties());
+        Collections.sort(properties);
+        long hash = 0xcbf29ce484222325L;
+        for (String property : properties) {
+            hash = hash(hash, property);
+            for (String value : instance.getProperty(property)) {
+                hash = hash(hash, value);
+            }
+        }
+        return hash;
+    }
+
+    private static long hash(long hash, String s) {
+        for (byte b : s.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= 0x100000001b3L;
+        }
+        // separator, so that the split between strings counts
+        hash ^= 0xff;
+        hash *= 0x100000001b3L;
+        return hash;
+    }
+
+    private String getTask() {
+        return config.getMetricExpression() + "|" + config.getVerificationThreshold() + "|"
+                + config.getSourceInfo().getVar() + "|" + config.getTargetInfo().getVar();
+    }
+
+    private Snapshot readSnapshot() {
+        if (!snapshotFile.exists()) {
+            return null;
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new FileInputStream(snapshotFile))) {
+            return (Snapshot) in.readObject();
+        } catch (IOException | ClassNotFoundException e) {
+            logger.warn("Could not read snapshot " + snapshotFile + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    private void writeSnapshot(Snapshot snapshot) {
+        File tmp = new File(snapshotFile.getPath() + ".tmp");
+        try (ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(tmp))) {
+            out.writeObject(snapshot);
+        } catch (IOException e) {
+            throw new RuntimeException("Writing snapshot " + snapshotFile + " failed", e);
+        }
+        if (snapshotFile.exists() && !snapshotFile.delete() || !tmp.renameTo(snapshotFile)) {
+            throw new RuntimeException("Replacing snapshot " + snapshotFile + " failed");
+        }
+    }
+}
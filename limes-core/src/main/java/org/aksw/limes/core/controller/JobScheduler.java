@@ -0,0 +1,472 @@
+package org.aksw.limes.core.controller;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.aksw.limes.core.io.config.Configuration;
+import org.aksw.limes.core.io.config.KBInfo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Runs linking jobs on a bounded pool of workers. Submitted jobs wait in an
+ * admission queue ordered by priority (higher first) and submission order. The
+ * head of the queue is started as soon as a worker is free and the estimated
+ * memory of its source and target caches fits into the memory budget next to
+ * the jobs already running. A job that exceeds the budget on its own is only
+ * started when no other job is running. Queued and running jobs can be
+ * cancelled. A running job is interrupted and keeps the status RUNNING until
+ * it actually stopped, so that a CANCELLED job no longer uses a worker or
+ * memory. The execution engines and
+ * {@link org.aksw.limes.core.util.Partitions} check the interrupt per
+ * instruction and per partition. Only the most recently ended jobs are
+ * retained for status queries.
+ */
+public class JobScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(JobScheduler.class);
+
+    /**
+     * Assumed in-memory size of a cache relative to the size of its
+     * serialization or source file.
+     */
+    private static final int MEMORY_FACTOR = 4;
+
+    /**
+     * Assumed in-memory size of a cache that can not be estimated otherwise,
+     * e.g. one that is read from a remote SPARQL endpoint.
+     */
+    private static final long DEFAULT_CACHE_MEMORY = 256L * 1024 * 1024;
+
+    /**
+     * Default number of finished, failed or cancelled jobs that are retained.
+     */
+    private static final int DEFAULT_RETAINED_JOBS = 1000;
+
+    public enum Status {
+        QUEUED, RUNNING, FINISHED, FAILED, CANCELLED
+    }
+
+    public enum Phase {
+        QUEUED, LOADING_SOURCE, LOADING_TARGET, LINKING, WRITING_RESULTS, DONE
+    }
+
+    /**
+     * The work of a job.
+     */
+    public interface JobTask {
+        /**
+         * Runs the job. Implementations report their progress by
+         * {@link Job#setPhase(Phase)} and should call
+         * {@link Job#checkCancelled()} between expensive steps.
+         *
+         * @param job
+         *            the job that is run
+         * @throws Exception
+         *             if the job fails
+         */
+        void run(Job job) throws Exception;
+    }
+
+    /**
+     * Thrown by {@link Job#checkCancelled()} if the job was cancelled.
+     */
+    public static class CancelledException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        public CancelledException(long id) {
+            super("Job " + id + " was cancelled");
+        }
+    }
+
+    public static class Job {
+        private final long id;
+        private final int priority;
+        private final long sequence;
+        private final long estimatedMemory;
+        private final JobTask task;
+        private volatile Status status = Status.QUEUED;
+        private volatile Phase phase = Phase.QUEUED;
+        private volatile Thread worker = null;
+        private volatile boolean cancelRequested = false;
+        private volatile String error = null;
+        private long phaseStart = System.currentTimeMillis();
+        /**
+         * Duration of each finished phase.
+         */
+        private final Map<Phase, Long> phaseDurations = new LinkedHashMap<>();
+
+        private Job(long id, int priority, long sequence, long estimatedMemory, JobTask task) {
+            this.id = id;
+            this.priority = priority;
+            this.sequence = sequence;
+            this.estimatedMemory = estimatedMemory;
+            this.task = task;
+        }
+
+        public long getId() {
+            return id;
+        }
+
+        public int getPriority() {
+            return priority;
+        }
+
+        public long getEstimatedMemory() {
+            return estimatedMemory;
+        }
+
+        public Status getStatus() {
+            return status;
+        }
+
+        public Phase getPhase() {
+            return phase;
+        }
+
+        public String getError() {
+            return error;
+        }
+
+        /**
+         * @return true if the job was cancelled while running but did not
+         *         stop yet
+         */
+        public boolean isCancelRequested() {
+            return cancelRequested && status == Status.RUNNING;
+        }
+
+        /**
+         * Marks the beginning of a new phase of the job.
+         *
+         * @param phase
+         *            the new phase
+         */
+        public synchronized void setPhase(Phase phase) {
+            long now = System.currentTimeMillis();
+            phaseDurations.put(this.phase, now - phaseStart);
+            phaseStart = now;
+            this.phase = phase;
+        }
+
+        /**
+         * Returns the duration of every phase so far in milliseconds,
+         * including the running time of the current phase.
+         *
+         * @return phase durations in order of execution
+         */
+        public synchronized Map<Phase, Long> getPhaseDurations() {
+            Map<Phase, Long> durations = new LinkedHashMap<>(phaseDurations);
+            if (phase != Phase.DONE) {
+                durations.put(phase, System.currentTimeMillis() - phaseStart);
+            }
+            return durations;
+        }
+
+        /**
+         * @throws CancelledException
+         *             if the job was cancelled
+         */
+        public void checkCancelled() {
+            if (status == Status.CANCELLED || cancelRequested || Thread.currentThread().isInterrupted()) {
+                throw new CancelledException(id);
+            }
+        }
+    }
+
+    private final int workers;
+    private final long memoryBudget;
+    private final ExecutorService executor;
+    private final PriorityQueue<Job> queue = new PriorityQueue<>((a, b) -> a.priority != b.priority
+            ? Integer.compare(b.priority, a.priority) : Long.compare(a.sequence, b.sequence));
+    private final Map<Long, Job> jobs = new ConcurrentHashMap<>();
+    /**
+     * Ended jobs, oldest first.
+     */
+    private final Deque<Job> ended = new ArrayDeque<>();
+    private final int retainedJobs;
+    private long sequence = 0;
+    private int running = 0;
+    private long reservedMemory = 0;
+
+    /**
+     * Constructor of JobScheduler class.
+     *
+     * @param workers
+     *            maximal number of jobs that run at the same time
+     * @param memoryBudget
+     *            maximal estimated memory in bytes of all running jobs
+     */
+    public JobScheduler(int workers, long memoryBudget) {
+        this(workers, memoryBudget, DEFAULT_RETAINED_JOBS);
+    }
+
+    /**
+     * Constructor of JobScheduler class.
+     *
+     * @param workers
+     *            maximal number of jobs that run at the same time
+     * @param memoryBudget
+     *            maximal estimated memory in bytes of all running jobs
+     * @param retainedJobs
+     *            number of ended jobs that are kept for status queries
+     */
+    public JobScheduler(int workers, long memoryBudget, int retainedJobs) {
+        this.workers = workers;
+        this.memoryBudget = memoryBudget;
+        this.retainedJobs = retainedJobs;
+        this.executor = Executors.newFixedThreadPool(workers);
+    }
+
+    /**
+     * Adds a job to the admission queue.
+     *
+     * @param id
+     *            the job id
+     * @param priority
+     *            the priority, higher priorities are started first
+     * @param estimatedMemory
+     *            the estimated memory of the job in bytes
+     * @param task
+     *            the work of the job
+     * @return the queued job
+     */
+    public synchronized Job submit(long id, int priority, long estimatedMemory, JobTask task) {
+        Job job = new Job(id, priority, sequence++, estimatedMemory, task);
+        jobs.put(id, job);
+        queue.add(job);
+        logger.info("Queued job " + id + " with priority " + priority + " and estimated memory "
+                + (estimatedMemory >> 20) + " MB");
+        dispatch();
+        return job;
+    }
+
+    /**
+     * Starts queued jobs as long as workers and memory are available.
+     */
+    private synchronized void dispatch() {
+        while (!queue.isEmpty() && running < workers) {
+            final Job job = queue.peek();
+            if (running > 0 && reservedMemory + job.estimatedMemory > memoryBudget) {
+                break;
+            }
+            queue.poll();
+            running++;
+            reservedMemory += job.estimatedMemory;
+            job.status = Status.RUNNING;
+            executor.execute(() -> run(job));
+        }
+    }
+
+    private void run(Job job) {
+        job.worker = Thread.currentThread();
+        try {
+            job.checkCancelled();
+            logger.info("Started job " + job.id);
+            job.task.run(job);
+            if (end(job, Status.FINISHED, null)) {
+                logger.info("Finished job " + job.id);
+            } else {
+                logger.info("Cancelled job " + job.id);
+            }
+        } catch (Throwable e) {
+            if (end(job, Status.FAILED, e.toString())) {
+                logger.error("Job " + job.id + " failed", e);
+            } else {
+                logger.info("Cancelled job " + job.id);
+            }
+        } finally {
+            synchronized (this) {
+                // cancel only interrupts the worker of a job while holding the
+                // lock, so no interrupt for this job can arrive after this
+                job.worker = null;
+                running--;
+                reservedMemory -= job.estimatedMemory;
+            }
+            // clear a pending interrupt before the worker takes the next job
+            Thread.interrupted();
+            dispatch();
+        }
+    }
+
+    /**
+     * Sets the final status of a running job. A job that was cancelled while
+     * running becomes CANCELLED instead, whatever its outcome.
+     *
+     * @param job
+     *            the job
+     * @param status
+     *            the final status
+     * @param error
+     *            the error of a failed job, null otherwise
+     * @return true if the status was set, false if the job was cancelled
+     */
+    private synchronized boolean end(Job job, Status status, String error) {
+        if (job.status != Status.RUNNING) {
+            return false;
+        }
+        if (job.cancelRequested) {
+            job.status = Status.CANCELLED;
+            retain(job);
+            return false;
+        }
+        if (status == Status.FINISHED) {
+            job.setPhase(Phase.DONE);
+        }
+        job.error = error;
+        job.status = status;
+        retain(job);
+        return true;
+    }
+
+    /**
+     * Records that a job ended and drops the oldest ended jobs beyond the
+     * retained number.
+     *
+     * @param job
+     *            the ended job
+     */
+    private synchronized void retain(Job job) {
+        ended.add(job);
+        while (ended.size() > retainedJobs) {
+            Job oldest = ended.poll();
+            jobs.remove(oldest.id, oldest);
+        }
+    }
+
+    /**
+     * Cancels a queued or running job. A running job is interrupted and
+     * becomes CANCELLED once it stopped.
+     *
+     * @param id
+     *            the job id
+     * @return true if the job was queued or running, false otherwise
+     */
+    public synchronized boolean cancel(long id) {
+        Job job = jobs.get(id);
+        if (job == null) {
+            return false;
+        }
+        if (job.status == Status.QUEUED) {
+            queue.remove(job);
+            job.status = Status.CANCELLED;
+            retain(job);
+            return true;
+        }
+        if (job.status == Status.RUNNING) {
+            job.cancelRequested = true;
+            Thread worker = job.worker;
+            if (worker != null) {
+                worker.interrupt();
+            }
+            return true;
+        }
+        return false;
+    }
+
+    public Job getJob(long id) {
+        return jobs.get(id);
+    }
+
+    /**
+     * Returns the number of queued jobs that will be started before the given
+     * job.
+     *
+     * @param id
+     *            the job id
+     * @return the queue position starting at 0, or -1 if the job is not queued
+     */
+    public synchronized int getQueuePosition(long id) {
+        Job job = jobs.get(id);
+        if (job == null || job.status != Status.QUEUED) {
+            return -1;
+        }
+        List<Job> ordered = new ArrayList<>(queue);
+        Collections.sort(ordered, queue.comparator());
+        return ordered.indexOf(job);
+    }
+
+    /**
+     * Returns the status of a job as JSON object.
+     *
+     * @param id
+     *            the job id
+     * @return the JSON representation, or null if the job is unknown
+     */
+    public String toJson(long id) {
+        Job job = jobs.get(id);
+        if (job == null) {
+            return null;
+        }
+        StringBuilder json = new StringBuilder("{");
+        json.append("\"id\":").append(job.id);
+        json.append(",\"status\":\"").append(job.status).append('"');
+        if (job.isCancelRequested()) {
+            json.append(",\"cancel_requested\":true");
+        }
+        json.append(",\"phase\":\"").append(job.phase).append('"');
+        json.append(",\"priority\":").append(job.priority);
+        json.append(",\"queue_position\":").append(getQueuePosition(id));
+        json.append(",\"estimated_memory\":").append(job.estimatedMemory);
+        json.append(",\"phases\":{");
+        String separator = "";
+        for (Map.Entry<Phase, Long> entry : job.getPhaseDurations().entrySet()) {
+            json.append(separator).append('"').append(entry.getKey()).append("\":").append(entry.getValue());
+            separator = ",";
+        }
+        json.append('}');
+        if (job.error != null) {
+            json.append(",\"error\":\"").append(job.error.replace("\\", "\\\\").replace("\"", "\\\"")).append('"');
+        }
+        return json.append('}').toString();
+    }
+
+    /**
+     * Estimates the memory needed by the source and target caches of a
+     * configuration, based on the serialized caches of earlier runs or the
+     * size of local source files.
+     *
+     * @param config
+     *            the job configuration
+     * @return the estimated memory in bytes
+     */
+    public static long estimateMemory(Configuration config) {
+        return estimateMemory(config.getSourceInfo()) + estimateMemory(config.getTargetInfo());
+    }
+
+    /**
+     * Estimates the memory needed by the cache of a knowledge base.
+     *
+     * @param kb
+     *            the knowledge base
+     * @return the estimated memory in bytes
+     */
+    public static long estimateMemory(KBInfo kb) {
+        // location of the serialization written by HybridCache.getData
+        File serialization = new File("cache/" + kb.hashCode() + ".ser");
+        if (serialization.isFile()) {
+            return serialization.length() * MEMORY_FACTOR;
+        }
+        if (kb.getEndpoint() != null && new File(kb.getEndpoint()).isFile()) {
+            return new File(kb.getEndpoint()).length() * MEMORY_FACTOR;
+        }
+        return DEFAULT_CACHE_MEMORY;
+    }
+
+    /**
+     * Stops the workers. Running jobs are interrupted.
+     */
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
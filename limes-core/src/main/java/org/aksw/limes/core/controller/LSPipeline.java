@@ -2,6 +2,9 @@ package org.aksw.limes.core.controller;
 
 import org.aksw.limes.core.execution.engine.ExecutionEngine;
 import org.aksw.limes.core.execution.engine.ExecutionEngineFactory;
+import org.aksw.limes.core.execution.engine.PlanProfiler;
+import org.aksw.limes.core.execution.engine.ProfilingExecutionEngine;
+import org.aksw.limes.core.execution.engine.TopKExecutionEngine;
 import org.aksw.limes.core.execution.planning.planner.ExecutionPlannerFactory;
 import org.aksw.limes.core.execution.planning.planner.Planner;
 import org.aksw.limes.core.execution.rewriter.Rewriter;
@@ -73,6 +76,64 @@ public class LSPipeline {
         return engine.execute(rwLs, planner);
     }
 
+    /**
+     * Execute a given LS, generating a mapping and recording the metrics of
+     * the executed plan nodes. The plan is executed by a
+     * {@link ProfilingExecutionEngine} in place of the configured execution
+     * engine.
+     *
+     * @param sourceCache Resources from source KB
+     * @param targetCache Resources from target KB
+     * @param ls LIMES Link Specification
+     * @param sourceVar Name of SPARQL variable for resources from source KB
+     * @param targetVar Name of SPARQL variable for resources from target KB
+     * @param rewriterType Specifies rewriter module to use
+     * @param executionPlannerType Specifies executionPlanner module to use
+     * @param profiler Records the metrics of the executed plan nodes
+     * @return Mapping of resources in sourceCache to resources in targetCache with similarity &gt; threshold
+     */
+    public static AMapping execute(ACache sourceCache, ACache targetCache, LinkSpecification ls, String sourceVar,
+                                   String targetVar, RewriterFactory.RewriterType rewriterType,
+                                   ExecutionPlannerFactory.ExecutionPlannerType executionPlannerType,
+                                   PlanProfiler profiler) {
+        Rewriter rw = RewriterFactory.getRewriter(rewriterType);
+        assert rw != null;
+        LinkSpecification rwLs = rw.rewrite(ls);
+        Planner planner = ExecutionPlannerFactory.getPlanner(executionPlannerType, sourceCache, targetCache);
+        assert planner != null;
+        ExecutionEngine engine = new ProfilingExecutionEngine(sourceCache, targetCache, sourceVar, targetVar,
+                profiler);
+        return engine.execute(rwLs, planner);
+    }
+
+    /**
+     * Execute a given LS, generating for each resource in sourceCache the links
+     * to its k most similar resources in targetCache. The thresholds of the LS
+     * are the minimal similarities of the links. The plan is executed by a
+     * {@link TopKExecutionEngine} in place of the configured execution engine.
+     *
+     * @param sourceCache Resources from source KB
+     * @param targetCache Resources from target KB
+     * @param ls LIMES Link Specification
+     * @param sourceVar Name of SPARQL variable for resources from source KB
+     * @param targetVar Name of SPARQL variable for resources from target KB
+     * @param rewriterType Specifies rewriter module to use
+     * @param executionPlannerType Specifies executionPlanner module to use
+     * @param k Number of resources in targetCache per resource in sourceCache
+     * @return Mapping of resources in sourceCache to their k most similar resources in targetCache
+     */
+    public static AMapping execute(ACache sourceCache, ACache targetCache, LinkSpecification ls, String sourceVar,
+                                   String targetVar, RewriterFactory.RewriterType rewriterType,
+                                   ExecutionPlannerFactory.ExecutionPlannerType executionPlannerType, int k) {
+        Rewriter rw = RewriterFactory.getRewriter(rewriterType);
+        assert rw != null;
+        LinkSpecification rwLs = rw.rewrite(ls);
+        Planner planner = ExecutionPlannerFactory.getPlanner(executionPlannerType, sourceCache, targetCache);
+        assert planner != null;
+        ExecutionEngine engine = new TopKExecutionEngine(sourceCache, targetCache, sourceVar, targetVar, k);
+        return engine.execute(rwLs, planner);
+    }
+
     /**
      * Execute a given LS with default rewriter, planner and execution engine,
      * generating a mapping.
@@ -0,0 +1,61 @@
+package org.aksw.limes.core.controller;
+
+import org.aksw.limes.core.io.mapping.AMapping;
+
+/**
+ * Links of one micro-batch of a {@link StreamingLinker} together with its
+ * latency metrics.
+ *
+ * @version 1.0
+ */
+public class LinkBatch {
+    protected long number;
+    protected int instanceCount;
+    protected AMapping mapping;
+    protected long executionTime;
+    protected long latency;
+
+    /**
+     * Constructor
+     * @param number Number of the batch, starting at 0
+     * @param instanceCount Number of source instances in the batch
+     * @param mapping Links of the source instances of the batch
+     * @param executionTime Nanoseconds spent executing the plan for the batch
+     * @param latency Nanoseconds from the arrival of the first instance of the batch until its links were computed
+     */
+    public LinkBatch(long number, int instanceCount, AMapping mapping, long executionTime, long latency) {
+        this.number = number;
+        this.instanceCount = instanceCount;
+        this.mapping = mapping;
+        this.executionTime = executionTime;
+        this.latency = latency;
+    }
+
+    public long getNumber() {
+        return number;
+    }
+
+    public int getInstanceCount() {
+        return instanceCount;
+    }
+
+    public AMapping getMapping() {
+        return mapping;
+    }
+
+    /**
+     * @return nanoseconds spent executing the plan for the batch
+     */
+    public long getExecutionTime() {
+        return executionTime;
+    }
+
+    /**
+     * @return nanoseconds from the arrival of the first instance of the batch
+     *         until its links were computed, including the time spent waiting
+     *         for further instances
+     */
+    public long getLatency() {
+        return latency;
+    }
+}
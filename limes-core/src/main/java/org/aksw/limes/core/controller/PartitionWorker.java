@@ -0,0 +1,59 @@
+package org.aksw.limes.core.controller;
+
+import java.io.File;
+
+import org.aksw.limes.core.io.cache.ACache;
+import org.aksw.limes.core.io.cache.MemoryCache;
+import org.aksw.limes.core.io.mapping.AMapping;
+import org.aksw.limes.core.io.serializer.ISerializer;
+import org.aksw.limes.core.io.serializer.SerializerFactory;
+
+/**
+ * Worker process of a {@link PartitionedPipeline}. Reads a task file, loads
+ * the source and target triples of its partition, executes the link
+ * specification of the task and writes the links it owns either as
+ * serialized mapping or, if the task has an output format, split at the
+ * acceptance threshold into an acceptance and a verification file. Exits with
+ * 1 if the execution failed.
+ *
+ * @version 1.0
+ */
+public class PartitionWorker {
+
+    /**
+     * @param args
+     *            Task file
+     */
+    public static void main(String[] args) {
+        if (args.length != 1) {
+            System.err.println("Usage: PartitionWorker <task_file>");
+            System.exit(1);
+        }
+        try {
+            PartitionedPipeline.Task task = (PartitionedPipeline.Task) PartitionedPipeline.read(new File(args[0]));
+            ACache sourceCache = new MemoryCache();
+            PartitionedPipeline.TripleFiles.read(task.sourceFile, sourceCache);
+            ACache targetCache = new MemoryCache();
+            for (File targetFile : task.targetFiles) {
+                PartitionedPipeline.TripleFiles.read(targetFile, targetCache);
+            }
+            AMapping mapping = LSPipeline.execute(sourceCache, targetCache, task.metricExpression, task.threshold,
+                    task.sourceVar, task.targetVar, task.rewriterType, task.executionPlannerType,
+                    task.executionEngineType);
+            mapping = PartitionedPipeline.getOwnLinks(mapping, sourceCache, targetCache, task);
+            if (task.outputFormat == null) {
+                PartitionedPipeline.write(task.resultFile, mapping);
+            } else {
+                AMapping[] split = mapping.split(task.acceptanceThreshold);
+                ISerializer output = SerializerFactory.createSerializer(task.outputFormat);
+                output.setPrefixes(task.prefixes);
+                output.writeToFile(split[0], task.acceptanceRelation, task.acceptanceFile.getAbsolutePath());
+                output.writeToFile(split[1], task.verificationRelation, task.verificationFile.getAbsolutePath());
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+            System.exit(1);
+        }
+        System.exit(0);
+    }
+}
@@ -0,0 +1,643 @@
+package org.aksw.limes.core.controller;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.io.Serializable;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.aksw.limes.core.datastrutures.LogicOperator;
+import org.aksw.limes.core.execution.engine.ExecutionEngineFactory;
+import org.aksw.limes.core.execution.planning.planner.ExecutionPlannerFactory;
+import org.aksw.limes.core.execution.rewriter.RewriterFactory;
+import org.aksw.limes.core.io.cache.ACache;
+import org.aksw.limes.core.io.cache.Instance;
+import org.aksw.limes.core.io.cache.MemoryCache;
+import org.aksw.limes.core.io.config.Configuration;
+import org.aksw.limes.core.io.config.KBInfo;
+import org.aksw.limes.core.io.ls.LinkSpecification;
+import org.aksw.limes.core.io.mapping.AMapping;
+import org.aksw.limes.core.io.mapping.MappingFactory;
+import org.aksw.limes.core.io.parser.Parser;
+import org.aksw.limes.core.io.query.QueryModuleFactory;
+import org.aksw.limes.core.measures.mapper.pointsets.PropertyFetcher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Executes a link specification in several worker processes, so that one job
+ * is not limited by the heap of one JVM. The triples of the source and the
+ * target are written to one file per partition, and one
+ * {@link PartitionWorker} JVM per partition loads its files, executes the
+ * link specification and writes its links to a result file.
+ * <p>
+ * By default the sources are partitioned by the hash of their URI and every
+ * worker reads the complete target. If the specification requires an exact
+ * match of two properties, i.e. it is an exactmatch measure or a conjunction
+ * with one, source and target instances are partitioned by the hash of their
+ * values of these properties instead, so that every worker only reads the
+ * target instances that can be linked with its sources. An instance with
+ * several values can be in several partitions, a link is then only written
+ * by the worker of the smallest partition shared by its two instances.
+ * <p>
+ * {@link #execute(Configuration)} reads the knowledge bases triple by triple
+ * into the partition files and lets the workers write their links in the
+ * output format of the configuration, the result files are then concatenated
+ * into the acceptance and the verification file. Neither the caches nor the
+ * mapping are held by this JVM. The other execute methods partition caches
+ * that are already loaded and merge the results into one mapping.
+ * <p>
+ * The workers are started with the class path of this JVM. To run them on
+ * other hosts, a launcher prefix such as {@code ssh host} can be set per
+ * worker; the working directory must then be on a file system shared by all
+ * hosts.
+ *
+ * @version 1.0
+ */
+public class PartitionedPipeline {
+
+    static Logger logger = LoggerFactory.getLogger(PartitionedPipeline.class);
+
+    /**
+     * Everything a worker needs to execute its partition.
+     */
+    static class Task implements Serializable, Cloneable {
+        private static final long serialVersionUID = -4721336540827925379L;
+
+        String metricExpression;
+        double threshold;
+        String sourceVar;
+        String targetVar;
+        RewriterFactory.RewriterType rewriterType;
+        ExecutionPlannerFactory.ExecutionPlannerType executionPlannerType;
+        ExecutionEngineFactory.ExecutionEngineType executionEngineType;
+        /** Source and target property of the value partitioning, null if partitioned by URI */
+        String[] blockingProperties;
+        int partition;
+        int partitions;
+        File sourceFile;
+        /** Triple files of the target instances, all target files of a job when partitioning by URI */
+        ArrayList<File> targetFiles;
+        /** File of the serialized mapping, if no output format is set */
+        File resultFile;
+        String outputFormat;
+        HashMap<String, String> prefixes;
+        double acceptanceThreshold;
+        String acceptanceRelation;
+        String verificationRelation;
+        File acceptanceFile;
+        File verificationFile;
+
+        @Override
+        protected Task clone() {
+            try {
+                return (Task) super.clone();
+            } catch (CloneNotSupportedException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    /**
+     * Triples written to one file per partition. Strings are written as
+     * their length and their UTF-8 bytes, so that values of any length can
+     * be read back.
+     */
+    static class TripleFiles implements Closeable {
+        final File[] files;
+        final long[] sizes;
+        private final DataOutputStream[] outputs;
+
+        TripleFiles(File directory, String name, int partitions) throws IOException {
+            files = new File[partitions];
+            sizes = new long[partitions];
+            outputs = new DataOutputStream[partitions];
+            for (int p = 0; p < partitions; p++) {
+                files[p] = new File(directory, name + "-" + p + ".triples");
+                outputs[p] = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(files[p])));
+            }
+        }
+
+        void add(int partition, String s, String p, String o) throws IOException {
+            writeString(outputs[partition], s);
+            writeString(outputs[partition], p);
+            writeString(outputs[partition], o);
+            sizes[partition]++;
+        }
+
+        void add(int partition, Instance instance) throws IOException {
+            for (String property : instance.getAllProperties()) {
+                for (String value : instance.getProperty(property)) {
+                    add(partition, instance.getUri(), property, value);
+                }
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            for (DataOutputStream output : outputs) {
+                output.close();
+            }
+        }
+
+        private static void writeString(DataOutputStream output, String s) throws IOException {
+            byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+            output.writeInt(bytes.length);
+            output.write(bytes);
+        }
+
+        /**
+         * Adds the triples of a file to a cache.
+         */
+        static void read(File file, ACache cache) throws IOException {
+            try (DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+                while (true) {
+                    String s;
+                    try {
+                        s = readString(input);
+                    } catch (EOFException e) {
+                        return;
+                    }
+                    cache.addTriple(s, readString(input), readString(input));
+                }
+            }
+        }
+
+        private static String readString(DataInputStream input) throws IOException {
+            byte[] bytes = new byte[input.readInt()];
+            input.readFully(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Cache that is filled by a query module without keeping anything in
+     * memory: every triple is written to the partition of its subject. The
+     * size is the number of triples, query modules only log it.
+     */
+    private class SpillingCache extends MemoryCache {
+        private final TripleFiles files;
+        private int triples = 0;
+
+        SpillingCache(TripleFiles files) {
+            this.files = files;
+        }
+
+        @Override
+        public void addTriple(String s, String p, String o) {
+            try {
+                files.add(getPartition(s, workers), s, p, o);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            triples++;
+        }
+
+        @Override
+        public int size() {
+            return triples;
+        }
+    }
+
+    private final int workers;
+    private File workingDirectory = null;
+    private List<String> jvmOptions = Collections.emptyList();
+    private List<List<String>> launchers = Collections.emptyList();
+
+    /**
+     * Constructor
+     * @param workers Number of worker processes
+     */
+    public PartitionedPipeline(int workers) {
+        if (workers < 1) {
+            throw new IllegalArgumentException("Number of workers must be positive: " + workers);
+        }
+        this.workers = workers;
+    }
+
+    /**
+     * @param workingDirectory Directory of the task and result files, a new temporary directory if null
+     */
+    public void setWorkingDirectory(File workingDirectory) {
+        this.workingDirectory = workingDirectory;
+    }
+
+    /**
+     * @param jvmOptions Options of the worker JVMs, e.g. -Xmx100g
+     */
+    public void setJvmOptions(List<String> jvmOptions) {
+        this.jvmOptions = jvmOptions;
+    }
+
+    /**
+     * @param launchers Command prefixes of the workers, worker i uses the
+     *            prefix i modulo the number of prefixes, no prefix if empty
+     */
+    public void setLaunchers(List<List<String>> launchers) {
+        this.launchers = launchers;
+    }
+
+    /**
+     * Executes the link specification of a configuration and writes the
+     * links to its acceptance and verification files. The knowledge bases
+     * are read by their query modules directly into the partition files, the
+     * cache serializations of {@link org.aksw.limes.core.io.cache.HybridCache}
+     * are neither read nor written.
+     *
+     * @param config LIMES configuration object without machine learning algorithm
+     */
+    public void execute(Configuration config) {
+        if (!config.getMlAlgorithmName().equals("")) {
+            throw new IllegalArgumentException("Machine learning algorithms cannot be executed in partitions");
+        }
+        File directory = getDirectory();
+        try {
+            Task job = createTask(config.getMetricExpression(), config.getVerificationThreshold(),
+                    config.getSourceInfo().getVar(), config.getTargetInfo().getVar(),
+                    RewriterFactory.getRewriterType(config.getExecutionRewriter()),
+                    ExecutionPlannerFactory.getExecutionPlannerType(config.getExecutionPlanner()),
+                    ExecutionEngineFactory.getExecutionEngineType(config.getExecutionEngine()));
+            job.outputFormat = config.getOutputFormat();
+            job.prefixes = new HashMap<>(config.getPrefixes());
+            job.acceptanceThreshold = config.getAcceptanceThreshold();
+            job.acceptanceRelation = config.getAcceptanceRelation();
+            job.verificationRelation = config.getVerificationRelation();
+
+            TripleFiles sources = spill(config.getSourceInfo(), directory, "source-spill");
+            TripleFiles targets = sources;
+            if (!CacheRegistry.getFingerprint(config.getSourceInfo())
+                    .equals(CacheRegistry.getFingerprint(config.getTargetInfo()))) {
+                targets = spill(config.getTargetInfo(), directory, "target-spill");
+            }
+            if (job.blockingProperties != null) {
+                sources = partitionByValue(sources, job.blockingProperties[0], directory, "source");
+                targets = partitionByValue(targets, job.blockingProperties[1], directory, "target");
+            }
+            List<Task> tasks = run(job, sources, targets, directory);
+            concatenate(tasks, true, new File(config.getAcceptanceFile()));
+            concatenate(tasks, false, new File(config.getVerificationFile()));
+            logger.info("Wrote the links of " + tasks.size() + " partitions to " + config.getAcceptanceFile()
+                    + " and " + config.getVerificationFile());
+        } catch (IOException | InterruptedException e) {
+            throw new RuntimeException("Partitioned execution failed", e);
+        } finally {
+            if (workingDirectory == null) {
+                delete(directory);
+            }
+        }
+    }
+
+    /**
+     * Executes the link specification of a configuration.
+     *
+     * @param sourceCache Resources from source KB
+     * @param targetCache Resources from target KB
+     * @param config LIMES configuration object
+     * @return Mapping of resources in sourceCache to resources in targetCache
+     */
+    public AMapping execute(ACache sourceCache, ACache targetCache, Configuration config) {
+        return execute(sourceCache, targetCache, config.getMetricExpression(), config.getVerificationThreshold(),
+                config.getSourceInfo().getVar(), config.getTargetInfo().getVar(),
+                RewriterFactory.getRewriterType(config.getExecutionRewriter()),
+                ExecutionPlannerFactory.getExecutionPlannerType(config.getExecutionPlanner()),
+                ExecutionEngineFactory.getExecutionEngineType(config.getExecutionEngine()));
+    }
+
+    /**
+     * Same as
+     * {@link LSPipeline#execute(ACache, ACache, String, double, String, String, RewriterFactory.RewriterType, ExecutionPlannerFactory.ExecutionPlannerType, ExecutionEngineFactory.ExecutionEngineType)}
+     * with the partitions executed by worker processes.
+     *
+     * @param sourceCache Resources from source KB
+     * @param targetCache Resources from target KB
+     * @param metricExpression Specifies which measures are used and how they are combined to assert the similarity
+     *                         between two resources
+     * @param threshold Minimal similarity value for resource pairs to be included in the generated mapping
+     * @param sourceVar Name of SPARQL variable for resources from source KB
+     * @param targetVar Name of SPARQL variable for resources from target KB
+     * @param rewriterType Specifies rewriter module to use
+     * @param executionPlannerType Specifies executionPlanner module to use
+     * @param executionEngineType Specifies executionEngine module to use
+     * @return Mapping of resources in sourceCache to resources in targetCache with similarity &gt; threshold
+     */
+    public AMapping execute(ACache sourceCache, ACache targetCache, String metricExpression, double threshold,
+            String sourceVar, String targetVar, RewriterFactory.RewriterType rewriterType,
+            ExecutionPlannerFactory.ExecutionPlannerType executionPlannerType,
+            ExecutionEngineFactory.ExecutionEngineType executionEngineType) {
+        File directory = getDirectory();
+        try {
+            Task job = createTask(metricExpression, threshold, sourceVar, targetVar, rewriterType,
+                    executionPlannerType, executionEngineType);
+            String[] blockingProperties = job.blockingProperties == null ? new String[2] : job.blockingProperties;
+            TripleFiles sources = partition(sourceCache.getAllInstances(), blockingProperties[0], directory,
+                    "source");
+            TripleFiles targets = partition(targetCache.getAllInstances(), blockingProperties[1], directory,
+                    "target");
+            AMapping mapping = MappingFactory.createDefaultMapping();
+            for (Task task : run(job, sources, targets, directory)) {
+                add(mapping, (AMapping) read(task.resultFile));
+            }
+            return mapping;
+        } catch (IOException | ClassNotFoundException | InterruptedException e) {
+            throw new RuntimeException("Partitioned execution failed", e);
+        } finally {
+            if (workingDirectory == null) {
+                delete(directory);
+            }
+        }
+    }
+
+    private Task createTask(String metricExpression, double threshold, String sourceVar, String targetVar,
+            RewriterFactory.RewriterType rewriterType,
+            ExecutionPlannerFactory.ExecutionPlannerType executionPlannerType,
+            ExecutionEngineFactory.ExecutionEngineType executionEngineType) {
+        Task task = new Task();
+        task.metricExpression = metricExpression;
+        task.threshold = threshold;
+        task.sourceVar = sourceVar;
+        task.targetVar = targetVar;
+        task.rewriterType = rewriterType;
+        task.executionPlannerType = executionPlannerType;
+        task.executionEngineType = executionEngineType;
+        task.blockingProperties = getBlockingProperties(new LinkSpecification(metricExpression, threshold));
+        task.partitions = workers;
+        if (task.blockingProperties != null) {
+            logger.info("Partitioning by the values of " + task.blockingProperties[0] + " and "
+                    + task.blockingProperties[1]);
+        }
+        return task;
+    }
+
+    /**
+     * Starts one worker per partition with sources and waits for all of them.
+     *
+     * @return the tasks of the started workers
+     */
+    private List<Task> run(Task job, TripleFiles sources, TripleFiles targets, File directory)
+            throws IOException, InterruptedException {
+        List<Process> processes = new ArrayList<>();
+        List<Task> tasks = new ArrayList<>();
+        for (int p = 0; p < workers; p++) {
+            if (sources.sizes[p] == 0 || job.blockingProperties != null && targets.sizes[p] == 0) {
+                continue;
+            }
+            Task task = job.clone();
+            task.partition = p;
+            task.sourceFile = sources.files[p];
+            if (job.blockingProperties == null) {
+                task.targetFiles = new ArrayList<>(Arrays.asList(targets.files));
+            } else {
+                task.targetFiles = new ArrayList<>(Collections.singletonList(targets.files[p]));
+            }
+            if (job.outputFormat == null) {
+                task.resultFile = new File(directory, "result-" + p + ".ser");
+            } else {
+                task.acceptanceFile = new File(directory, "accepted-" + p + ".out");
+                task.verificationFile = new File(directory, "verification-" + p + ".out");
+            }
+            File taskFile = new File(directory, "task-" + p + ".ser");
+            write(taskFile, task);
+            processes.add(start(p, taskFile, new File(directory, "worker-" + p + ".log")));
+            tasks.add(task);
+        }
+        logger.info("Started " + processes.size() + " workers in " + directory);
+        for (int i = 0; i < processes.size(); i++) {
+            int exitValue = processes.get(i).waitFor();
+            if (exitValue != 0) {
+                throw new RuntimeException("Worker " + tasks.get(i).partition + " failed with exit value "
+                        + exitValue + ", see " + directory);
+            }
+        }
+        return tasks;
+    }
+
+    private Process start(int worker, File taskFile, File logFile) throws IOException {
+        List<String> command = new ArrayList<>();
+        if (!launchers.isEmpty()) {
+            command.addAll(launchers.get(worker % launchers.size()));
+        }
+        command.add(new File(System.getProperty("java.home"), "bin" + File.separator + "java").getPath());
+        command.addAll(jvmOptions);
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(PartitionWorker.class.getName());
+        command.add(taskFile.getAbsolutePath());
+        return new ProcessBuilder(command).redirectErrorStream(true).redirectOutput(logFile).start();
+    }
+
+    /**
+     * Finds two properties whose values must be equal for every link of the
+     * specification.
+     *
+     * @param spec Link specification
+     * @return the source and the target property, null if there are none
+     */
+    static String[] getBlockingProperties(LinkSpecification spec) {
+        if (spec.isAtomic()) {
+            if (spec.getThreshold() <= 0 || !spec.getAtomicMeasure().equalsIgnoreCase("exactmatch")) {
+                return null;
+            }
+            Parser p = new Parser(spec.getFilterExpression(), spec.getThreshold());
+            // preprocessing functions change the values
+            if (p.getLeftTerm().contains("(") || p.getRightTerm().contains("(")) {
+                return null;
+            }
+            List<String> properties = PropertyFetcher.getProperties(spec.getFilterExpression(), spec.getThreshold());
+            return new String[] { properties.get(0), properties.get(1) };
+        }
+        if (spec.getOperator() == LogicOperator.AND && spec.getFilterExpression() == null) {
+            for (LinkSpecification child : spec.getChildren()) {
+                String[] properties = getBlockingProperties(child);
+                if (properties != null) {
+                    return properties;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Writes the triples of a knowledge base to the partitions of their
+     * subjects as they are read.
+     */
+    private TripleFiles spill(KBInfo kb, File directory, String name) throws IOException {
+        try (TripleFiles files = new TripleFiles(directory, name, workers)) {
+            SpillingCache cache = new SpillingCache(files);
+            QueryModuleFactory.getQueryModule(kb.getType(), kb).fillCache(cache);
+            return files;
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Repartitions triples that are partitioned by subject by the values of a
+     * property. Only one partition of the input is held in memory at a time.
+     */
+    private TripleFiles partitionByValue(TripleFiles input, String property, File directory, String name)
+            throws IOException {
+        try (TripleFiles files = new TripleFiles(directory, name, workers)) {
+            for (File file : input.files) {
+                ACache cache = new MemoryCache();
+                TripleFiles.read(file, cache);
+                addByValue(cache.getAllInstances(), property, files);
+            }
+            return files;
+        }
+    }
+
+    /**
+     * Writes instances to the partitions of their URIs, or of their values of
+     * a property if it is not null.
+     */
+    private TripleFiles partition(List<Instance> instances, String property, File directory, String name)
+            throws IOException {
+        try (TripleFiles files = new TripleFiles(directory, name, workers)) {
+            if (property == null) {
+                for (Instance instance : instances) {
+                    files.add(getPartition(instance.getUri(), workers), instance);
+                }
+            } else {
+                addByValue(instances, property, files);
+            }
+            return files;
+        }
+    }
+
+    /**
+     * An instance is added to the partition of each of its values, instances
+     * without values cannot be linked and are left out.
+     */
+    private void addByValue(List<Instance> instances, String property, TripleFiles files) throws IOException {
+        Set<Integer> instancePartitions = new LinkedHashSet<>();
+        for (Instance instance : instances) {
+            instancePartitions.clear();
+            for (String value : instance.getProperty(property)) {
+                instancePartitions.add(getPartition(value, workers));
+            }
+            for (int p : instancePartitions) {
+                files.add(p, instance);
+            }
+        }
+    }
+
+    static int getPartition(String key, int partitions) {
+        int h = key.hashCode() * 0x9E3779B9;
+        return (int) ((h & 0xFFFFFFFFL) % partitions);
+    }
+
+    /**
+     * Removes the links that are also found by the worker of another
+     * partition, i.e. whose instances share a value of a smaller partition.
+     *
+     * @param mapping Links of the partition of a task
+     * @param sourceCache Source instances of the partition
+     * @param targetCache Target instances of the partition
+     * @param task Task of the partition
+     * @return the links owned by the partition
+     */
+    static AMapping getOwnLinks(AMapping mapping, ACache sourceCache, ACache targetCache, Task task) {
+        if (task.blockingProperties == null) {
+            return mapping;
+        }
+        AMapping own = MappingFactory.createDefaultMapping();
+        for (String s : mapping.getMap().keySet()) {
+            Set<String> sourceValues = sourceCache.getInstance(s).getProperty(task.blockingProperties[0]);
+            for (Map.Entry<String, Double> link : mapping.getMap().get(s).entrySet()) {
+                int owner = task.partition;
+                for (String value : targetCache.getInstance(link.getKey()).getProperty(task.blockingProperties[1])) {
+                    if (sourceValues.contains(value)) {
+                        owner = Math.min(owner, getPartition(value, task.partitions));
+                    }
+                }
+                if (owner == task.partition) {
+                    own.add(s, link.getKey(), link.getValue());
+                }
+            }
+        }
+        return own;
+    }
+
+    private static void add(AMapping mapping, AMapping links) {
+        for (String s : links.getMap().keySet()) {
+            for (Map.Entry<String, Double> link : links.getMap().get(s).entrySet()) {
+                mapping.add(s, link.getKey(), link.getValue());
+            }
+        }
+    }
+
+    /**
+     * Concatenates the acceptance or the verification files of the tasks.
+     * The serializers write self-contained files, e.g. Turtle files repeat
+     * their prefixes, so that the concatenation is a valid file.
+     */
+    private static void concatenate(List<Task> tasks, boolean accepted, File file) throws IOException {
+        try (OutputStream output = new BufferedOutputStream(new FileOutputStream(file))) {
+            for (Task task : tasks) {
+                Files.copy((accepted ? task.acceptanceFile : task.verificationFile).toPath(), output);
+            }
+        }
+    }
+
+    private File getDirectory() {
+        if (workingDirectory != null) {
+            workingDirectory.mkdirs();
+            return workingDirectory;
+        }
+        try {
+            return Files.createTempDirectory("limes-partitions").toFile();
+        } catch (IOException e) {
+            throw new RuntimeException("Creating working directory failed", e);
+        }
+    }
+
+    private static void delete(File directory) {
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    /**
+     * Writes an object to a temporary file that is then renamed, so that a
+     * reader never sees a partially written file.
+     */
+    static void write(File file, Serializable object) throws IOException {
+        File tmp = new File(file.getPath() + ".tmp");
+        try (ObjectOutputStream out = new ObjectOutputStream(new FileOutputStream(tmp))) {
+            out.writeObject(object);
+        }
+        if (file.exists() && !file.delete() || !tmp.renameTo(file)) {
+            throw new IOException("Replacing " + file + " failed");
+        }
+    }
+
+    static Object read(File file) throws IOException, ClassNotFoundException {
+        try (ObjectInputStream in = new ObjectInputStream(new FileInputStream(file))) {
+            return in.readObject();
+        }
+    }
+}
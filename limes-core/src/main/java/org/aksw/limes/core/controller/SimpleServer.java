@@ -5,6 +5,7 @@ import com.sun.net.httpserver.HttpExchange;
 import com.sun.net.httpserver.HttpHandler;
 import com.sun.net.httpserver.HttpServer;
 import eu.medsea.mimeutil.MimeUtil;
+import org.aksw.limes.core.execution.engine.PlanProfiler;
 import org.aksw.limes.core.io.config.Configuration;
 import org.aksw.limes.core.io.config.reader.AConfigurationReader;
 import org.aksw.limes.core.io.config.reader.xml.XMLConfigurationReader;
@@ -20,8 +21,6 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
 
 /**
  * @author Kevin Dreßler
@@ -34,8 +33,29 @@ public class SimpleServer {
     private static final String LOCK_DIR_PATH = "/lock/";
     private static final String QUERY_PARAM_RESULT_TYPE = "result_type";
     private static final String QUERY_PARAM_JOB_ID = "job_id";
+    private static final String QUERY_PARAM_PRIORITY = "priority";
+    private static final String PROFILE_FILE = "profile.json";
     public static final String CONFIG_FILE_PREFIX = "limes_server_cfg_";
-    private static ConcurrentMap<Long, Integer> jobs = new ConcurrentHashMap<>();
+    /**
+     * Number of linking jobs that run at the same time.
+     */
+    private static final int MAX_RUNNING_JOBS = Math.max(1, Runtime.getRuntime().availableProcessors() / 4);
+    /**
+     * Share of the maximal heap that the caches of running jobs may take.
+     */
+    private static final double MEMORY_BUDGET_SHARE = 0.75;
+    /**
+     * Number of threads handling HTTP requests. Linking jobs run on the
+     * workers of the scheduler, so handlers return quickly.
+     */
+    private static final int HTTP_THREADS = 8;
+    /**
+     * Share of the maximal heap up to which loaded caches stay resident
+     * between jobs.
+     */
+    private static final double CACHE_BUDGET_SHARE = 0.25;
+    private static JobScheduler scheduler = null;
+    private static CacheRegistry caches = null;
 
     public static void startServer(int port) {
         HttpServer server = null;
@@ -49,7 +69,12 @@ public class SimpleServer {
         server.createContext("/execute", new ExecuteHandler());
         server.createContext("/get_result", new GetResultHandler());
         server.createContext("/get_status", new GetStatusHandler());
-        server.setExecutor(java.util.concurrent.Executors.newCachedThreadPool());
+        server.createContext("/job", new JobHandler());
+        server.createContext("/caches", new CachesHandler());
+        server.createContext("/metrics", new MetricsHandler());
+        caches = new CacheRegistry((long) (Runtime.getRuntime().maxMemory() * CACHE_BUDGET_SHARE));
+        scheduler = new JobScheduler(MAX_RUNNING_JOBS, (long) (Runtime.getRuntime().maxMemory() * MEMORY_BUDGET_SHARE));
+        server.setExecutor(java.util.concurrent.Executors.newFixedThreadPool(HTTP_THREADS));
         server.start();
         logger.info("Server has been started! Waiting for requests...");
     }
@@ -68,38 +93,37 @@ public class SimpleServer {
                         break;
                     }
                 }
+                Map<String, String> params = queryToMap(t.getRequestURI().getRawQuery());
+                int priority = 0;
+                if (params.containsKey(QUERY_PARAM_PRIORITY)) {
+                    try {
+                        priority = Integer.parseInt(params.get(QUERY_PARAM_PRIORITY));
+                    } catch (NumberFormatException e) {
+                        // 400 - Bad Request
+                        t.sendResponseHeaders(400, -1);
+                        logger.info("Bad request: " + t.getRequestURI() + "\nPriority must be an integer!");
+                        return;
+                    }
+                }
                 String id = writeConfigFile(t.getRequestBody(), boundary);
-                jobs.put(Long.parseLong(id), 0);
+                AConfigurationReader reader = new XMLConfigurationReader(STORAGE_DIR_PATH + CONFIG_FILE_PREFIX + id + ".xml");
+                final Configuration config = reader.read();
+                // resident caches are shared and do not need additional memory
+                long memory = 0;
+                if (!caches.isResident(config.getSourceInfo())) {
+                    memory += JobScheduler.estimateMemory(config.getSourceInfo());
+                }
+                if (!caches.isResident(config.getTargetInfo())) {
+                    memory += JobScheduler.estimateMemory(config.getTargetInfo());
+                }
+                scheduler.submit(Long.parseLong(id), priority, memory,
+                        job -> runJob(job, id, config));
                 String response = id + "\n";
                 t.sendResponseHeaders(200, response.length());
                 logger.info("New Job: " + id);
                 OutputStream os = t.getResponseBody();
                 os.write(response.getBytes());
                 os.close();
-                AConfigurationReader reader = new XMLConfigurationReader(STORAGE_DIR_PATH + CONFIG_FILE_PREFIX + id + ".xml");
-                Configuration config = reader.read();
-                jobs.put(Long.parseLong(id), 1);
-                ResultMappings mappings = Controller.getMapping(config);
-                String outputFormat = config.getOutputFormat();
-                ISerializer output = SerializerFactory.createSerializer(outputFormat);
-                output.setPrefixes(config.getPrefixes());
-                File tempDir = new File(STORAGE_DIR_PATH + id + "/");
-                File lockDir = new File(tempDir + LOCK_DIR_PATH);
-                if (!lockDir.exists()) {
-                    lockDir.mkdirs();
-                }
-                File _verificationFile = new File(lockDir + "/" + config.getVerificationFile());
-                File _acceptanceFile = new File(lockDir + "/" + config.getAcceptanceFile());
-                File verificationFile = new File(tempDir + "/" + config.getVerificationFile());
-                File acceptanceFile = new File(tempDir + "/" + config.getAcceptanceFile());
-                output.writeToFile(mappings.getVerificationMapping(), config.getVerificationRelation(),
-                        _verificationFile.getAbsolutePath());
-                output.writeToFile(mappings.getAcceptanceMapping(), config.getAcceptanceRelation(),
-                        _acceptanceFile.getAbsolutePath());
-                _verificationFile.renameTo(verificationFile);
-                _acceptanceFile.renameTo(acceptanceFile);
-                lockDir.delete();
-                jobs.put(Long.parseLong(id), 2);
             } else {
                 // we only accept POST requests here, anything else gets code "405 - Method Not Allowed"
                 t.sendResponseHeaders(405 ,-1);
@@ -107,6 +131,45 @@ public class SimpleServer {
             }
         }
 
+        private void runJob(JobScheduler.Job job, String id, Configuration config) {
+            ResultMappings mappings;
+            PlanProfiler profiler = new PlanProfiler();
+            job.setPhase(JobScheduler.Phase.LOADING_SOURCE);
+            try (CacheRegistry.Lease source = caches.acquire(config.getSourceInfo())) {
+                job.checkCancelled();
+                job.setPhase(JobScheduler.Phase.LOADING_TARGET);
+                try (CacheRegistry.Lease target = caches.acquire(config.getTargetInfo())) {
+                    job.checkCancelled();
+                    job.setPhase(JobScheduler.Phase.LINKING);
+                    mappings = Controller.getMapping(config, source.getCache(), target.getCache(), profiler);
+                }
+            }
+            job.checkCancelled();
+            job.setPhase(JobScheduler.Phase.WRITING_RESULTS);
+            String outputFormat = config.getOutputFormat();
+            ISerializer output = SerializerFactory.createSerializer(outputFormat);
+            output.setPrefixes(config.getPrefixes());
+            File tempDir = new File(STORAGE_DIR_PATH + id + "/");
+            File lockDir = new File(tempDir + LOCK_DIR_PATH);
+            if (!lockDir.exists()) {
+                lockDir.mkdirs();
+            }
+            File _verificationFile = new File(lockDir + "/" + config.getVerificationFile());
+            File _acceptanceFile = new File(lockDir + "/" + config.getAcceptanceFile());
+            File verificationFile = new File(tempDir + "/" + config.getVerificationFile());
+            File acceptanceFile = new File(tempDir + "/" + config.getAcceptanceFile());
+            output.writeToFile(mappings.getVerificationMapping(), config.getVerificationRelation(),
+                    _verificationFile.getAbsolutePath());
+            output.writeToFile(mappings.getAcceptanceMapping(), config.getAcceptanceRelation(),
+                    _acceptanceFile.getAbsolutePath());
+            _verificationFile.renameTo(verificationFile);
+            _acceptanceFile.renameTo(acceptanceFile);
+            File _profileFile = new File(lockDir + "/" + PROFILE_FILE);
+            Controller.writeProfile(profiler, _profileFile.getAbsolutePath());
+            _profileFile.renameTo(new File(tempDir + "/" + PROFILE_FILE));
+            lockDir.delete();
+        }
+
         private String writeConfigFile (InputStream inputStream, String b) throws IOException {
             byte[] boundary = b.getBytes();
             @SuppressWarnings("deprecation")
@@ -210,8 +273,9 @@ public class SimpleServer {
                         String requestedFileName = config.getAcceptanceFile();
                         File requestedFile = new File(STORAGE_DIR_PATH + id + "/" + requestedFileName);
                         // is the file available yet?
-                        if (jobs.containsKey(id)) {
-                            status = jobs.get(id);
+                        JobScheduler.Job job = scheduler.getJob(id);
+                        if (job != null) {
+                            status = getLegacyStatus(job.getStatus());
                         } else if (requestedFile.exists()) {
                             status = 2;
                         }
@@ -234,6 +298,126 @@ public class SimpleServer {
         }
     }
 
+    /**
+     * Maps the status of a job to the codes of /get_status: 0 queued, 1
+     * running, 2 finished and -1 for failed or cancelled jobs.
+     */
+    private static int getLegacyStatus(JobScheduler.Status status) {
+        switch (status) {
+        case QUEUED:
+            return 0;
+        case RUNNING:
+            return 1;
+        case FINISHED:
+            return 2;
+        default:
+            return -1;
+        }
+    }
+
+    /**
+     * GET reports the metrics of the shared cache registry as JSON.
+     */
+    private static class CachesHandler implements HttpHandler {
+
+        @Override
+        public void handle(HttpExchange t) throws IOException {
+            if (t.getRequestMethod().equals("GET")) {
+                byte[] response = caches.toJson().getBytes();
+                t.getResponseHeaders().add("Content-Type", "application/json");
+                t.sendResponseHeaders(200, response.length);
+                OutputStream os = t.getResponseBody();
+                os.write(response);
+                os.close();
+            } else {
+                // we only accept GET requests here, anything else gets code "405 - Method Not Allowed"
+                t.sendResponseHeaders(405, -1);
+                logger.info("Bad request: HTTP VERB must be GET for " + t.getRequestURI());
+            }
+        }
+    }
+
+    /**
+     * GET reports the metrics of the executed plan nodes of a finished job as
+     * JSON.
+     */
+    private static class MetricsHandler implements HttpHandler {
+
+        @Override
+        public void handle(HttpExchange t) throws IOException {
+            Map<String, String> params = queryToMap(t.getRequestURI().getRawQuery());
+            if (!params.containsKey(QUERY_PARAM_JOB_ID)) {
+                // 400 - Bad Request
+                t.sendResponseHeaders(400, -1);
+                logger.info("Bad request: " + t.getRequestURI() + "\nPlease specify job_id query parameters!");
+                return;
+            }
+            long id = Long.parseLong(params.get(QUERY_PARAM_JOB_ID));
+            File profileFile = new File(STORAGE_DIR_PATH + id + "/" + PROFILE_FILE);
+            if (!t.getRequestMethod().equals("GET")) {
+                // we only accept GET requests here, anything else gets code "405 - Method Not Allowed"
+                t.sendResponseHeaders(405, -1);
+                logger.info("Bad request: HTTP VERB must be GET for " + t.getRequestURI());
+            } else if (!profileFile.exists()) {
+                // 404 - Not Found, unknown job or not finished yet
+                t.sendResponseHeaders(404, -1);
+                logger.info("Bad request: " + t.getRequestURI() + "\nMetrics not found!");
+            } else {
+                byte[] response = java.nio.file.Files.readAllBytes(profileFile.toPath());
+                t.getResponseHeaders().add("Content-Type", "application/json");
+                t.sendResponseHeaders(200, response.length);
+                OutputStream os = t.getResponseBody();
+                os.write(response);
+                os.close();
+            }
+        }
+    }
+
+    /**
+     * GET reports the status, queue position and phase durations of a job as
+     * JSON, DELETE cancels a queued or running job.
+     */
+    private static class JobHandler implements HttpHandler {
+
+        @Override
+        public void handle(HttpExchange t) throws IOException {
+            Map<String, String> params = queryToMap(t.getRequestURI().getRawQuery());
+            if (!params.containsKey(QUERY_PARAM_JOB_ID)) {
+                // 400 - Bad Request
+                t.sendResponseHeaders(400, -1);
+                logger.info("Bad request: " + t.getRequestURI() + "\nPlease specify job_id query parameters!");
+                return;
+            }
+            long id = Long.parseLong(params.get(QUERY_PARAM_JOB_ID));
+            if (scheduler.getJob(id) == null) {
+                // 404 - Not Found
+                t.sendResponseHeaders(404, -1);
+                logger.info("Bad request: " + t.getRequestURI() + "\nJob not found!");
+            } else if (t.getRequestMethod().equals("GET")) {
+                byte[] response = scheduler.toJson(id).getBytes();
+                t.getResponseHeaders().add("Content-Type", "application/json");
+                t.sendResponseHeaders(200, response.length);
+                OutputStream os = t.getResponseBody();
+                os.write(response);
+                os.close();
+            } else if (t.getRequestMethod().equals("DELETE")) {
+                if (scheduler.cancel(id)) {
+                    // 204 - No Content
+                    t.sendResponseHeaders(204, -1);
+                    logger.info("Cancelling job: " + id);
+                } else {
+                    // 409 - Conflict, the job has already ended
+                    t.sendResponseHeaders(409, -1);
+                    logger.info("Bad request: " + t.getRequestURI() + "\nJob has already ended!");
+                }
+            } else {
+                // we only accept GET and DELETE requests here, anything else gets code "405 - Method Not Allowed"
+                t.sendResponseHeaders(405, -1);
+                logger.info("Bad request: HTTP VERB must be GET or DELETE for " + t.getRequestURI());
+            }
+        }
+    }
+
         public static Map<String, String> queryToMap(String query){
             Map<String, String> result = new HashMap<>();
             if (query == null)
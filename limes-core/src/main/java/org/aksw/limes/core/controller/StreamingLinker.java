@@ -0,0 +1,148 @@
+package org.aksw.limes.core.controller;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.aksw.limes.core.execution.engine.StreamingExecutionEngine;
+import org.aksw.limes.core.execution.planning.plan.NestedPlan;
+import org.aksw.limes.core.execution.planning.planner.CanonicalPlanner;
+import org.aksw.limes.core.execution.rewriter.Rewriter;
+import org.aksw.limes.core.execution.rewriter.RewriterFactory;
+import org.aksw.limes.core.io.cache.ACache;
+import org.aksw.limes.core.io.cache.Instance;
+import org.aksw.limes.core.io.cache.MemoryCache;
+import org.aksw.limes.core.io.ls.LinkSpecification;
+import org.aksw.limes.core.io.mapping.AMapping;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Links continuously arriving source instances against a fixed target. The
+ * link specification is rewritten and planned once, and the target indexes of
+ * its atomic specifications are built once by a
+ * {@link StreamingExecutionEngine} and kept resident. The source instances
+ * are linked in micro-batches, each of them returned as a {@link LinkBatch}
+ * with its latency.
+ * <p>
+ * The plan is static, as dynamic planning depends on the sizes of the
+ * intermediate mappings of one source.
+ *
+ * @version 1.0
+ */
+public class StreamingLinker {
+
+    static Logger logger = LoggerFactory.getLogger(StreamingLinker.class);
+
+    /**
+     * Put into the queue given to {@link #run} to end the stream.
+     */
+    public static final Instance END_OF_STREAM = new Instance("urn:limes:end-of-stream");
+
+    private final StreamingExecutionEngine engine;
+    private final NestedPlan plan;
+    private int batchSize = 1000;
+    private long maxDelay = 100;
+    private long batches = 0;
+
+    /**
+     * Constructor, builds the target indexes.
+     *
+     * @param targetCache Resources from target KB
+     * @param metricExpression Specifies which measures are used and how they are combined to assert the similarity
+     *                         between two resources
+     * @param threshold Minimal similarity value for resource pairs to be included in the generated mapping
+     * @param sourceVar Name of SPARQL variable for resources from source KB
+     * @param targetVar Name of SPARQL variable for resources from target KB
+     * @param rewriterType Specifies rewriter module to use
+     */
+    public StreamingLinker(ACache targetCache, String metricExpression, double threshold, String sourceVar,
+            String targetVar, RewriterFactory.RewriterType rewriterType) {
+        long start = System.currentTimeMillis();
+        Rewriter rw = RewriterFactory.getRewriter(rewriterType);
+        assert rw != null;
+        CanonicalPlanner planner = new CanonicalPlanner();
+        LinkSpecification spec = planner.normalize(rw.rewrite(new LinkSpecification(metricExpression, threshold)));
+        plan = planner.plan(spec);
+        engine = new StreamingExecutionEngine(new MemoryCache(), targetCache, sourceVar, targetVar);
+        int indexes = engine.buildIndexes(plan);
+        logger.info("Built " + indexes + " target indexes in " + (System.currentTimeMillis() - start) + " ms");
+    }
+
+    /**
+     * @param batchSize Maximal number of source instances of a micro-batch
+     */
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * @param maxDelay Maximal milliseconds a micro-batch waits for further
+     *            instances after its first one arrived
+     */
+    public void setMaxDelay(long maxDelay) {
+        this.maxDelay = maxDelay;
+    }
+
+    /**
+     * Links a micro-batch of source instances.
+     *
+     * @param instances Source instances
+     * @return the links of the instances
+     */
+    public LinkBatch link(List<Instance> instances) {
+        return link(instances, System.nanoTime());
+    }
+
+    private LinkBatch link(List<Instance> instances, long arrival) {
+        ACache source = new MemoryCache();
+        for (Instance instance : instances) {
+            source.addInstance(instance);
+        }
+        long start = System.nanoTime();
+        engine.setSource(source);
+        AMapping mapping = engine.executeStatic(plan);
+        long end = System.nanoTime();
+        LinkBatch batch = new LinkBatch(batches++, instances.size(), mapping, end - start, end - arrival);
+        logger.debug("Batch " + batch.getNumber() + ": " + instances.size() + " instances, " + mapping.size()
+                + " links, " + batch.getLatency() / 1000000 + " ms latency");
+        return batch;
+    }
+
+    /**
+     * Links the instances taken from a queue until {@link #END_OF_STREAM} is
+     * taken. A micro-batch is linked when it is full or when the maximal delay
+     * since its first instance has passed.
+     *
+     * @param queue Queue of source instances
+     * @param sink Receives the links of every micro-batch
+     * @throws InterruptedException if interrupted while waiting for instances
+     */
+    public void run(BlockingQueue<Instance> queue, Consumer<LinkBatch> sink) throws InterruptedException {
+        boolean end = false;
+        while (!end) {
+            Instance first = queue.take();
+            long arrival = System.nanoTime();
+            if (first == END_OF_STREAM) {
+                break;
+            }
+            List<Instance> instances = new ArrayList<>();
+            instances.add(first);
+            long deadline = arrival + TimeUnit.MILLISECONDS.toNanos(maxDelay);
+            while (instances.size() < batchSize) {
+                Instance next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                if (next == null) {
+                    break;
+                }
+                if (next == END_OF_STREAM) {
+                    end = true;
+                    break;
+                }
+                instances.add(next);
+            }
+            sink.accept(link(instances, arrival));
+        }
+    }
+}
@@ -95,6 +95,14 @@ public class EvaluationRun {
     
     
     
+    public RunRecord getQuantitativeRecord() {
+        return quanititativeRecord;
+    }
+
+    public void setQuantitativeRecord(RunRecord quantitativeRecord) {
+        this.quanititativeRecord = quantitativeRecord;
+    }
+
     public Set<EvaluatorType> getQualititativeMeasures()
     {
         return qualititativeScores.keySet();
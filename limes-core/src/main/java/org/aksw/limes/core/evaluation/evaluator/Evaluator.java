@@ -1,5 +1,7 @@
 package org.aksw.limes.core.evaluation.evaluator;
 
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -8,6 +10,11 @@ import java.util.List;
 import java.util.Map;
 import java.util.Random;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.aksw.limes.core.datastrutures.EvaluationRun;
 import org.aksw.limes.core.datastrutures.GoldStandard;
@@ -16,6 +23,7 @@ import org.aksw.limes.core.datastrutures.TaskData;
 import org.aksw.limes.core.evaluation.evaluationDataLoader.EvaluationData;
 import org.aksw.limes.core.evaluation.qualititativeMeasures.QualitativeMeasuresEvaluator;
 import org.aksw.limes.core.evaluation.quantitativeMeasures.IQuantitativeMeasure;
+import org.aksw.limes.core.evaluation.quantitativeMeasures.RunRecord;
 import org.aksw.limes.core.exceptions.UnsupportedMLImplementationException;
 import org.aksw.limes.core.io.cache.ACache;
 import org.aksw.limes.core.io.cache.HybridCache;
@@ -26,7 +34,9 @@ import org.aksw.limes.core.io.mapping.MappingFactory;
 import org.aksw.limes.core.measures.mapper.MappingOperations;
 import org.aksw.limes.core.ml.algorithm.AMLAlgorithm;
 import org.aksw.limes.core.ml.algorithm.ActiveMLAlgorithm;
+import org.aksw.limes.core.ml.algorithm.Eagle;
 import org.aksw.limes.core.ml.algorithm.LearningParameter;
+import org.aksw.limes.core.ml.algorithm.MLAlgorithmFactory;
 import org.aksw.limes.core.ml.algorithm.MLImplementationType;
 import org.aksw.limes.core.ml.algorithm.MLResults;
 import org.aksw.limes.core.ml.algorithm.SupervisedMLAlgorithm;
@@ -47,8 +57,11 @@ public class Evaluator {
 
     List<EvaluationRun> runsList = new ArrayList<EvaluationRun>();
 
-    /**  The qualitative measure evaluator that evaluates the predictions generated by a machine learning algorithm using a gold standard and set of measures*/
-    private QualitativeMeasuresEvaluator eval = new QualitativeMeasuresEvaluator();
+    /** The number of evaluation runs that are executed concurrently */
+    private int parallelism = Runtime.getRuntime().availableProcessors();
+
+    /** The seed of the random fold generation, so that the folds do not depend on the number of threads */
+    private long seed = 42;
 
     //remember
     //---------AMLAlgorithm(concrete:SupervisedMLAlgorithm,ActiveMLAlgorithm or UnsupervisedMLAlgorithm--------
@@ -58,75 +71,90 @@ public class Evaluator {
     //---------------------------------------------------------------------------------------------------------
 
     /**
+     * Each pair of algorithm and dataset is an independent run. The runs are executed concurrently, each with its
+     * own copy of the algorithm, while the datasets are shared read-only. Runs of algorithms that share state between
+     * their instances, see {@link #isIsolated(AMLAlgorithm)}, are executed one after another.
+     *
      * @param TaskAlgorithms  the set of algorithms used to generate the predicted mappings
      * @param datasets    the set of the datasets to apply the algorithms on them. The should include source Cache, target Cache, goldstandard and predicted mapping
      * @param QlMeasures  the set of qualitative measures
-     * @param QnMeasures  the set of quantitative measures
+     * @param QnMeasures  the set of quantitative measures, the run records are added to each of them
      * @return List -  contains list of multiple runs evaluation results corresponding to the algorithms, its implementation and used dataset
      */
     public List<EvaluationRun> evaluate(List<TaskAlgorithm> TaskAlgorithms, Set<TaskData> datasets ,Set<EvaluatorType> QlMeasures, Set<IQuantitativeMeasure> QnMeasures) {
-        AMapping predictions = null;
-        Map<EvaluatorType, Double> evaluationResults = null;
-        try{
-            for (TaskAlgorithm tAlgorithm : TaskAlgorithms) {     //iterate over algorithms tasks(type,algorithm,parameter)
-                logger.info("Running algorihm: "+tAlgorithm.getMlAlgorithm().getName());
-                for (TaskData dataset : datasets) {     //iterate over datasets(name,source,target,mapping,training,pseudofm)
-                    logger.info("Used dataset: "+dataset.dataName);
-                    //initialize the algorithm with source and target data, passing its parameters too ( if it is null in case of WOMBAT it will use its defaults)
-                    tAlgorithm.getMlAlgorithm().init(null, dataset.source, dataset.target);
-                    
-                    MLResults mlModel= null; // model resulting from the learning process
-                    
-                    if(tAlgorithm.getMlType().equals(MLImplementationType.SUPERVISED_BATCH))
-                    {
-                        logger.info("Implementation type: "+MLImplementationType.SUPERVISED_BATCH);
-                        SupervisedMLAlgorithm sml =(SupervisedMLAlgorithm)tAlgorithm.getMlAlgorithm();
-                        mlModel = sml.learn(dataset.training);
-                    }
-                    else if(tAlgorithm.getMlType().equals(MLImplementationType.SUPERVISED_ACTIVE))
-                    {
-                        logger.info("Implementation type: "+MLImplementationType.SUPERVISED_ACTIVE);
-                        ActiveMLAlgorithm sml =(ActiveMLAlgorithm)tAlgorithm.getMlAlgorithm();
-                        sml.getMl().setConfiguration(dataset.evalData.getConfigReader().getConfiguration());
-//                        if(tAlgorithm.getMlAlgorithm().getName().equals("Decision Tree Learning")){
-//                            ((DecisionTreeLearning)sml.getMl()).setPropertyMapping(dataset.evalData.getPropertyMapping());
-//                            ((DecisionTreeLearning)sml.getMl()).setInitialMapping(dataset.training);
-//                        }
-                        sml.activeLearn();
-                        //mlModel = sml.activeLearn(dataset.training);
-                        AMapping nextExamples = sml.getNextExamples((int)Math.round(0.5*dataset.training.size()));
-                        AMapping oracleFeedback = oracleFeedback(nextExamples,dataset.training);
-                        mlModel = sml.activeLearn(oracleFeedback);
-                     }
-                    else if(tAlgorithm.getMlType().equals(MLImplementationType.UNSUPERVISED))
-                    {
-                        logger.info("Implementation type: "+MLImplementationType.UNSUPERVISED);
-                        UnsupervisedMLAlgorithm sml =(UnsupervisedMLAlgorithm)tAlgorithm.getMlAlgorithm();
-                        mlModel = sml.learn(dataset.pseudoFMeasure);
-                    }
-                    predictions = tAlgorithm.getMlAlgorithm().predict(dataset.source, dataset.target, mlModel);
-                    logger.info("Start the evaluation of the results");
-                    evaluationResults = eval.evaluate(predictions, dataset.goldStandard, QlMeasures);
-                    EvaluationRun er = new EvaluationRun(tAlgorithm.getMlAlgorithm().getName().replaceAll("\\s+", ""),tAlgorithm.getMlType().name().replaceAll("//s", ""),dataset.dataName.replaceAll("//s", ""),evaluationResults);
-                    runsList.add(er);
-                }
+        List<Run> runs = new ArrayList<>();
+        for (TaskAlgorithm tAlgorithm : TaskAlgorithms) {     //iterate over algorithms tasks(type,algorithm,parameter)
+            for (TaskData dataset : datasets) {     //iterate over datasets(name,source,target,mapping,training,pseudofm)
+                runs.add(new Run(() -> evaluate(tAlgorithm, dataset, QlMeasures), isIsolated(tAlgorithm.getMlAlgorithm())));
             }
         }
-        catch (UnsupportedMLImplementationException e) {
-            e.printStackTrace();
-        }
+        runsList.addAll(execute(runs, QnMeasures));
         return runsList;
+    }
 
+    /**
+     * Learns and evaluates one algorithm on one dataset.
+     *
+     * @param tAlgorithm the algorithm task
+     * @param dataset the dataset
+     * @param QlMeasures the set of qualitative measures
+     * @return the evaluation run
+     * @throws UnsupportedMLImplementationException if the algorithm does not support its implementation type
+     */
+    private EvaluationRun evaluate(TaskAlgorithm tAlgorithm, TaskData dataset, Set<EvaluatorType> QlMeasures)
+            throws UnsupportedMLImplementationException {
+        AMLAlgorithm algorithm = copy(tAlgorithm.getMlAlgorithm(), tAlgorithm.getMlType());
+        logger.info("Running algorihm: " + algorithm.getName() + " on dataset: " + dataset.dataName);
+        //initialize the algorithm with source and target data, passing its parameters too ( if it is null in case of WOMBAT it will use its defaults)
+        algorithm.init(null, dataset.source, dataset.target);
+
+        MLResults mlModel= null; // model resulting from the learning process
+
+        if(tAlgorithm.getMlType().equals(MLImplementationType.SUPERVISED_BATCH))
+        {
+            logger.info("Implementation type: "+MLImplementationType.SUPERVISED_BATCH);
+            SupervisedMLAlgorithm sml =(SupervisedMLAlgorithm)algorithm;
+            mlModel = sml.learn(dataset.training);
+        }
+        else if(tAlgorithm.getMlType().equals(MLImplementationType.SUPERVISED_ACTIVE))
+        {
+            logger.info("Implementation type: "+MLImplementationType.SUPERVISED_ACTIVE);
+            ActiveMLAlgorithm sml =(ActiveMLAlgorithm)algorithm;
+            sml.getMl().setConfiguration(dataset.evalData.getConfigReader().getConfiguration());
+//            if(tAlgorithm.getMlAlgorithm().getName().equals("Decision Tree Learning")){
+//                ((DecisionTreeLearning)sml.getMl()).setPropertyMapping(dataset.evalData.getPropertyMapping());
+//                ((DecisionTreeLearning)sml.getMl()).setInitialMapping(dataset.training);
+//            }
+            sml.activeLearn();
+            //mlModel = sml.activeLearn(dataset.training);
+            AMapping nextExamples = sml.getNextExamples((int)Math.round(0.5*dataset.training.size()));
+            AMapping oracleFeedback = oracleFeedback(nextExamples,dataset.training);
+            mlModel = sml.activeLearn(oracleFeedback);
+        }
+        else if(tAlgorithm.getMlType().equals(MLImplementationType.UNSUPERVISED))
+        {
+            logger.info("Implementation type: "+MLImplementationType.UNSUPERVISED);
+            UnsupervisedMLAlgorithm sml =(UnsupervisedMLAlgorithm)algorithm;
+            mlModel = sml.learn(dataset.pseudoFMeasure);
+        }
+        AMapping predictions = algorithm.predict(dataset.source, dataset.target, mlModel);
+        logger.info("Start the evaluation of the results");
+        Map<EvaluatorType, Double> evaluationResults = new QualitativeMeasuresEvaluator().evaluate(predictions, dataset.goldStandard, QlMeasures);
+        return new EvaluationRun(algorithm.getName().replaceAll("\\s+", ""),tAlgorithm.getMlType().name().replaceAll("//s", ""),dataset.dataName.replaceAll("//s", ""),evaluationResults);
     }
 
 
     /**
+     * Cross-validates an algorithm on each dataset. The datasets are validated concurrently as in
+     * {@link #evaluate(List, Set, Set, Set)}. Each run trains its own copy of the algorithm, so the given algorithm is
+     * only a prototype and is neither initialized nor trained by this method.
+     *
      * @param algorithm  the algorithm used to generate the predicted mappings
      * @param datasets    the set of the datasets to apply the algorithms on them. The should include source Cache, target Cache, goldstandard and predicted mapping
      * @param parameter the parameters of the algorithm (will be set to default if this is null)
      * @param foldNumber the number of subsamples to divide the data (k)
      * @param qlMeasures  the set of qualitative measures
-     * @param qnMeasures  the set of quantitative measures
+     * @param qnMeasures  the set of quantitative measures, the run records are added to each of them
      * @return List -  contains list of multiple runs evaluation results corresponding to the algorithms, its implementation and used dataset
      * 
      * @author Tommaso Soru (tsoru@informatik.uni-leipzig.de)
@@ -137,57 +165,225 @@ public class Evaluator {
             int foldNumber, Set<EvaluatorType> qlMeasures, Set<IQuantitativeMeasure> qnMeasures) {
 
         // select a dataset-pair to evaluate each ML algorithm on
+        List<Run> runs = new ArrayList<>();
         for (TaskData dataset : datasets) {
-        	List<FoldData> folds = generateFolds(dataset.evalData, foldNumber);
-
-			FoldData trainData = new FoldData();
-			FoldData testData = folds.get(foldNumber - 1);
-			// perform union on test folds
-			for (int i = 0; i < foldNumber; i++) {
-				if (i != 9) {
-					trainData.map = MappingOperations.union(trainData.map, folds.get(i).map);
-					trainData.sourceCache = cacheUnion(trainData.sourceCache, folds.get(i).sourceCache);
-					trainData.targetCache = cacheUnion(trainData.targetCache, folds.get(i).targetCache);
-				}
-			}
-			// fix caches if necessary
-			for (String s : trainData.map.getMap().keySet()) {
-				for (String t : trainData.map.getMap().get(s).keySet()) {
-					if (!trainData.targetCache.containsUri(t)) {
-						// logger.info("target: " + t);
-						trainData.targetCache.addInstance(dataset.target.getInstance(t));
-					}
-				}
-				if (!trainData.sourceCache.containsUri(s)) {
-					// logger.info("source: " + s);
-					trainData.sourceCache.addInstance(dataset.source.getInstance(s));
-				}
-			}  
-			AMapping trainingData = trainData.map;
-			ACache trainSourceCache = trainData.sourceCache;
-			ACache trainTargetCache = trainData.targetCache;
-			ACache testSourceCache = testData.sourceCache;
-			ACache testTargetCache = testData.targetCache;
-			GoldStandard goldStandard = new GoldStandard(testData.map, testSourceCache.getAllUris(), testTargetCache.getAllUris()); 
-
-			//train
-		    algorithm.init(parameter, trainSourceCache, trainTargetCache);
-		    Configuration config = dataset.evalData.getConfigReader().read();
-		    algorithm.getMl().setConfiguration(config);
-            MLResults model =null;
-            try {
-                if(algorithm instanceof SupervisedMLAlgorithm)
-                    model = algorithm.asSupervised().learn(trainingData);
-                else if(algorithm instanceof ActiveMLAlgorithm)
-                    model = algorithm.asActive().activeLearn(trainingData);
-            } catch (UnsupportedMLImplementationException e) {
-                e.printStackTrace();
-            }	    
-            EvaluationRun er = new EvaluationRun(algorithm.getName() ,dataset.dataName, eval.evaluate(algorithm.predict(testSourceCache, testTargetCache, model), goldStandard, qlMeasures));
-            er.display();
-            runsList.add(er);
+            runs.add(new Run(() -> crossValidate(algorithm, parameter, dataset, foldNumber, qlMeasures),
+                    isIsolated(algorithm)));
         }
+        runsList.addAll(execute(runs, qnMeasures));
         return runsList;
+    }
+
+    /**
+     * Trains on all folds but the last one of a dataset and evaluates on the last fold.
+     *
+     * @param prototype the algorithm, which is copied for the run
+     * @param parameter the parameters of the algorithm (will be set to default if this is null)
+     * @param dataset the dataset
+     * @param foldNumber the number of subsamples to divide the data (k)
+     * @param qlMeasures the set of qualitative measures
+     * @return the evaluation run
+     * @throws UnsupportedMLImplementationException if the algorithm does not support its implementation type
+     */
+    private EvaluationRun crossValidate(AMLAlgorithm prototype, List<LearningParameter> parameter, TaskData dataset,
+            int foldNumber, Set<EvaluatorType> qlMeasures) throws UnsupportedMLImplementationException {
+        AMLAlgorithm algorithm = copy(prototype, getImplementationType(prototype));
+        List<FoldData> folds = generateFolds(dataset.evalData, foldNumber, new Random(getSeed(dataset)));
+
+        FoldData trainData = new FoldData();
+        FoldData testData = folds.get(foldNumber - 1);
+        // perform union on test folds
+        for (int i = 0; i < foldNumber; i++) {
+            if (i != foldNumber - 1) {
+                trainData.map = MappingOperations.union(trainData.map, folds.get(i).map);
+                trainData.sourceCache = cacheUnion(trainData.sourceCache, folds.get(i).sourceCache);
+                trainData.targetCache = cacheUnion(trainData.targetCache, folds.get(i).targetCache);
+            }
+        }
+        // fix caches if necessary
+        for (String s : trainData.map.getMap().keySet()) {
+            for (String t : trainData.map.getMap().get(s).keySet()) {
+                if (!trainData.targetCache.containsUri(t)) {
+                    // logger.info("target: " + t);
+                    trainData.targetCache.addInstance(dataset.target.getInstance(t));
+                }
+            }
+            if (!trainData.sourceCache.containsUri(s)) {
+                // logger.info("source: " + s);
+                trainData.sourceCache.addInstance(dataset.source.getInstance(s));
+            }
+        }
+        AMapping trainingData = trainData.map;
+        ACache trainSourceCache = trainData.sourceCache;
+        ACache trainTargetCache = trainData.targetCache;
+        ACache testSourceCache = testData.sourceCache;
+        ACache testTargetCache = testData.targetCache;
+        GoldStandard goldStandard = new GoldStandard(testData.map, testSourceCache.getAllUris(), testTargetCache.getAllUris());
+
+        //train
+        algorithm.init(parameter, trainSourceCache, trainTargetCache);
+        Configuration config = dataset.evalData.getConfigReader().read();
+        algorithm.getMl().setConfiguration(config);
+        MLResults model =null;
+        if(algorithm instanceof SupervisedMLAlgorithm)
+            model = algorithm.asSupervised().learn(trainingData);
+        else if(algorithm instanceof ActiveMLAlgorithm)
+            model = algorithm.asActive().activeLearn(trainingData);
+        EvaluationRun er = new EvaluationRun(algorithm.getName() ,dataset.dataName, new QualitativeMeasuresEvaluator().evaluate(algorithm.predict(testSourceCache, testTargetCache, model), goldStandard, qlMeasures));
+        er.display();
+        return er;
+    }
+
+    /**
+     * An evaluation run and whether it may be executed concurrently with other runs.
+     */
+    private static class Run {
+        final Callable<EvaluationRun> callable;
+        final boolean isolated;
+
+        Run(Callable<EvaluationRun> callable, boolean isolated) {
+            this.callable = callable;
+            this.isolated = isolated;
+        }
+    }
+
+    /**
+     * Executes evaluation runs on a bounded thread pool and records their wall-clock time in milliseconds and the
+     * bytes allocated by them. Runs that are not isolated are executed one after another on a separate thread.
+     *
+     * @param runs the evaluation runs
+     * @param qnMeasures the set of quantitative measures the run records are added to, may be null
+     * @return the results of the runs in their order, without the failed runs
+     */
+    private List<EvaluationRun> execute(List<Run> runs, Set<IQuantitativeMeasure> qnMeasures) {
+        List<EvaluationRun> result = new ArrayList<>();
+        if (runs.isEmpty()) {
+            return result;
+        }
+        long firstRunId = runsList.size() + 1;
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(parallelism, runs.size())));
+        ExecutorService sequential = Executors.newSingleThreadExecutor();
+        List<Future<EvaluationRun>> futures = new ArrayList<>();
+        for (int i = 0; i < runs.size(); i++) {
+            final long runId = firstRunId + i;
+            final Callable<EvaluationRun> run = runs.get(i).callable;
+            ExecutorService runExecutor = runs.get(i).isolated ? executor : sequential;
+            futures.add(runExecutor.submit(() -> {
+                long begin = System.currentTimeMillis();
+                long allocated = getAllocatedBytes();
+                EvaluationRun er;
+                try {
+                    er = run.call();
+                } catch (UnsupportedMLImplementationException e) {
+                    e.printStackTrace();
+                    return null;
+                }
+                er.setQuantitativeRecord(new RunRecord(runId, System.currentTimeMillis() - begin,
+                        getAllocatedBytes() - allocated));
+                return er;
+            }));
+        }
+        try {
+            for (Future<EvaluationRun> future : futures) {
+                EvaluationRun er = future.get();
+                if (er != null) {
+                    result.add(er);
+                    if (qnMeasures != null) {
+                        for (IQuantitativeMeasure qnMeasure : qnMeasures) {
+                            qnMeasure.addRun(er.getQuantitativeRecord());
+                        }
+                    }
+                }
+            }
+        } catch (InterruptedException | ExecutionException e) {
+            throw new RuntimeException("Evaluation failed", e);
+        } finally {
+            executor.shutdownNow();
+            sequential.shutdownNow();
+        }
+        return result;
+    }
+
+    /**
+     * EAGLE runs share the fitness function singletons and the global JGAP configuration, so they must not overlap.
+     * WOMBAT and the other algorithms keep their state in their instances.
+     *
+     * @param algorithm the algorithm
+     * @return true if runs of the algorithm can be executed concurrently with other runs
+     */
+    private static boolean isIsolated(AMLAlgorithm algorithm) {
+        return !(algorithm.getMl() instanceof Eagle);
+    }
+
+    /**
+     * @return the bytes allocated by the current thread so far, or 0 if the JVM does not measure it
+     */
+    private static long getAllocatedBytes() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return 0;
+    }
+
+    /**
+     * Creates a new instance of an algorithm with the same parameters and configuration, so that runs do not
+     * share state.
+     *
+     * @param algorithm the algorithm
+     * @param mlType the implementation type
+     * @return the copy
+     * @throws UnsupportedMLImplementationException if the algorithm does not support the implementation type
+     */
+    private static AMLAlgorithm copy(AMLAlgorithm algorithm, MLImplementationType mlType)
+            throws UnsupportedMLImplementationException {
+        AMLAlgorithm copy = MLAlgorithmFactory.createMLAlgorithm(algorithm.getMl().getClass(), mlType);
+        if (algorithm.getParameters() != null) {
+            for (LearningParameter lp : algorithm.getParameters()) {
+                copy.setParameter(lp.getName(), lp.getValue());
+            }
+        }
+        copy.getMl().setConfiguration(algorithm.getMl().getConfiguration());
+        return copy;
+    }
+
+    private static MLImplementationType getImplementationType(AMLAlgorithm algorithm) {
+        if (algorithm instanceof SupervisedMLAlgorithm) {
+            return MLImplementationType.SUPERVISED_BATCH;
+        }
+        if (algorithm instanceof ActiveMLAlgorithm) {
+            return MLImplementationType.SUPERVISED_ACTIVE;
+        }
+        return MLImplementationType.UNSUPERVISED;
+    }
+
+    /**
+     * @param dataset the dataset
+     * @return the seed of the folds of the dataset
+     */
+    private long getSeed(TaskData dataset) {
+        return 31 * seed + (dataset.dataName == null ? 0 : dataset.dataName.hashCode());
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * @param parallelism the number of evaluation runs that are executed concurrently, 1 runs them sequentially
+     */
+    public void setParallelism(int parallelism) {
+        this.parallelism = parallelism;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
 // =========== OLD =======================0
 //
 //        //      Table<String, String, Map<EvaluatorType, Double>> evalTable = HashBasedTable.create();// multimap stores aglortihmName:datasetname:List of evaluations
@@ -284,8 +480,7 @@ public class Evaluator {
 //        return runsList;
 //        //        return evalTable;
 
-    }
-    
+
 	public ACache cacheUnion(ACache a, ACache b) {
 		ACache result = new HybridCache();
 		for (Instance i : a.getAllInstances()) {
@@ -298,6 +493,10 @@ public class Evaluator {
 	}
     
     public List<FoldData> generateFolds(EvaluationData data, int foldNumber) {
+		return generateFolds(data, foldNumber, new Random());
+	}
+
+    public List<FoldData> generateFolds(EvaluationData data, int foldNumber, Random rand) {
 		List<FoldData> folds = new ArrayList<>();
 
 		// Fill caches
@@ -309,7 +508,7 @@ public class Evaluator {
 		refMap = removeLinksWithNoInstances(refMap, source, target);
 
 		// generate AMapping folds
-		List<AMapping> foldMaps = generateMappingFolds(refMap, source, target, foldNumber);
+		List<AMapping> foldMaps = generateMappingFolds(refMap, source, target, foldNumber, rand);
 
 		// fill fold caches
 		for (AMapping foldMap : foldMaps) {
@@ -337,7 +536,10 @@ public class Evaluator {
 	}
     
     public List<AMapping> generateMappingFolds(AMapping refMap, ACache source, ACache target, int foldNumber) {
-		Random rand = new Random();
+		return generateMappingFolds(refMap, source, target, foldNumber, new Random());
+	}
+
+    public List<AMapping> generateMappingFolds(AMapping refMap, ACache source, ACache target, int foldNumber, Random rand) {
 		List<AMapping> foldMaps = new ArrayList<>();
 		int mapSize = refMap.getMap().keySet().size();
 		int foldSize = (int) (mapSize / foldNumber);
@@ -355,7 +557,7 @@ public class Evaluator {
 			while (index.size() < foldSize) {
 				int number;
 				do {
-					number = (int) (mapSize * Math.random());
+					number = rand.nextInt(mapSize);
 				} while (index.contains(number));
 				index.add(number);
 			}
@@ -24,13 +24,9 @@ public class FMeasure extends APRF implements IQualitativeMeasure {
     @Override
     public double calculate(AMapping predictions, GoldStandard goldStandard) {
 
-        double p = precision(predictions, goldStandard);
-        double r = recall(predictions, goldStandard);
-
-        if (p + r > 0d)
-            return 2 * p * r / (p + r);
-        else
+        if (predictions.size() == 0)
             return 0d;
+        return LinkStatistics.of(predictions, goldStandard, false).getFMeasure(1);
 
     }
 
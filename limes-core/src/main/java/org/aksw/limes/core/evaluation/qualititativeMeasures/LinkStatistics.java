@@ -0,0 +1,279 @@
+package org.aksw.limes.core.evaluation.qualititativeMeasures;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.aksw.limes.core.datastrutures.GoldStandard;
+import org.aksw.limes.core.io.mapping.AMapping;
+
+/**
+ * The counts from which precision, recall, F-measure and the pseudo-measures are computed, collected in a single pass
+ * over the predicted links without building intermediate mappings. The counts can be collected either from an
+ * in-memory mapping or from ID-encoded link streams that are sorted by source and target id, so that mappings that do
+ * not fit into the heap can be evaluated as well.
+ *
+ * @version 1.0
+ */
+public class LinkStatistics {
+
+    /**
+     * A stream of links whose source and target URIs are encoded as ids. The links are sorted by source id, then by
+     * target id, and each pair occurs at most once.
+     */
+    public interface LinkStream {
+        /**
+         * Moves to the next link.
+         *
+         * @return false if there is no next link
+         */
+        boolean next();
+
+        int getSource();
+
+        int getTarget();
+
+        double getSimilarity();
+    }
+
+    /** The number of predicted links */
+    private long links = 0;
+    /** The number of predicted links that are contained in the reference mapping */
+    private long truePositives = 0;
+    /** The number of links in the reference mapping */
+    private long references = 0;
+    /** The number of sources of the predictions */
+    private long sources = 0;
+    /** The number of distinct targets of the predictions */
+    private long targets = 0;
+    /** The number of sources of the best one-to-n mapping of the predictions */
+    private long bestSources = 0;
+    /** The number of distinct targets of the best one-to-n mapping of the predictions, -1 if not collected */
+    private long bestTargets = -1;
+    /** The number of source and target URIs of the gold standard */
+    private long sourceUris = 0;
+    private long targetUris = 0;
+
+    private LinkStatistics() {
+    }
+
+    /**
+     * Collects the counts of an in-memory mapping.
+     *
+     * @param predictions The predictions provided by a machine learning algorithm
+     * @param goldStandard It contains the gold standard (reference mapping, may be null) combined with the source and target URIs
+     * @param bestOneToN true if the targets of the best one-to-n mapping are needed, i.e. for one-to-one pseudo-measures
+     * @return the counts
+     */
+    public static LinkStatistics of(AMapping predictions, GoldStandard goldStandard, boolean bestOneToN) {
+        LinkStatistics statistics = new LinkStatistics();
+        AMapping reference = goldStandard.referenceMappings;
+        Set<String> targets = new HashSet<String>();
+        Set<String> bestTargets = bestOneToN ? new HashSet<String>() : null;
+        for (Map.Entry<String, HashMap<String, Double>> row : predictions.getMap().entrySet()) {
+            statistics.sources++;
+            statistics.links += row.getValue().size();
+            double maxSim = 0;
+            boolean hasBest = false;
+            for (Map.Entry<String, Double> link : row.getValue().entrySet()) {
+                targets.add(link.getKey());
+                if (reference != null && reference.contains(row.getKey(), link.getKey())) {
+                    statistics.truePositives++;
+                }
+                if (link.getValue() >= maxSim) {
+                    maxSim = link.getValue();
+                    hasBest = true;
+                }
+            }
+            if (hasBest) {
+                statistics.bestSources++;
+                if (bestOneToN) {
+                    for (Map.Entry<String, Double> link : row.getValue().entrySet()) {
+                        if (link.getValue() == maxSim) {
+                            bestTargets.add(link.getKey());
+                        }
+                    }
+                }
+            }
+        }
+        statistics.targets = targets.size();
+        if (bestOneToN) {
+            statistics.bestTargets = bestTargets.size();
+        }
+        statistics.references = reference == null ? 0 : reference.getNumberofMappings();
+        statistics.setUris(goldStandard);
+        return statistics;
+    }
+
+    /**
+     * Collects the counts of sorted link streams in one merged pass. Only a bit set over the target ids is kept in
+     * memory.
+     *
+     * @param predictions The predicted links
+     * @param reference The links of the reference mapping, may be null
+     * @param sourceUris The number of source URIs of the gold standard
+     * @param targetUris The number of target URIs of the gold standard
+     * @return the counts
+     */
+    public static LinkStatistics of(LinkStream predictions, LinkStream reference, long sourceUris, long targetUris) {
+        LinkStatistics statistics = new LinkStatistics();
+        statistics.sourceUris = sourceUris;
+        statistics.targetUris = targetUris;
+        BitSet targets = new BitSet();
+        BitSet bestTargets = new BitSet();
+        int[] best = new int[16];
+        int bestSize = 0;
+        boolean hasReference = reference != null && reference.next();
+        int source = -1;
+        double maxSim = 0;
+        boolean hasBest = false;
+        while (predictions.next()) {
+            int s = predictions.getSource(), t = predictions.getTarget();
+            double sim = predictions.getSimilarity();
+            if (s != source || statistics.links == 0) {
+                if (hasBest) {
+                    statistics.bestSources++;
+                    for (int i = 0; i < bestSize; i++) {
+                        bestTargets.set(best[i]);
+                    }
+                }
+                statistics.sources++;
+                source = s;
+                maxSim = 0;
+                hasBest = false;
+                bestSize = 0;
+            }
+            statistics.links++;
+            targets.set(t);
+            if (sim > maxSim) {
+                maxSim = sim;
+                bestSize = 0;
+            }
+            if (sim >= maxSim) {
+                hasBest = true;
+                if (bestSize == best.length) {
+                    int[] grown = new int[2 * best.length];
+                    System.arraycopy(best, 0, grown, 0, bestSize);
+                    best = grown;
+                }
+                best[bestSize++] = t;
+            }
+            while (hasReference && compare(reference.getSource(), reference.getTarget(), s, t) < 0) {
+                statistics.references++;
+                hasReference = reference.next();
+            }
+            if (hasReference && compare(reference.getSource(), reference.getTarget(), s, t) == 0) {
+                statistics.truePositives++;
+                statistics.references++;
+                hasReference = reference.next();
+            }
+        }
+        if (hasBest) {
+            statistics.bestSources++;
+            for (int i = 0; i < bestSize; i++) {
+                bestTargets.set(best[i]);
+            }
+        }
+        while (hasReference) {
+            statistics.references++;
+            hasReference = reference.next();
+        }
+        statistics.targets = targets.cardinality();
+        statistics.bestTargets = bestTargets.cardinality();
+        return statistics;
+    }
+
+    private static int compare(int source1, int target1, int source2, int target2) {
+        int c = Integer.compare(source1, source2);
+        return c != 0 ? c : Integer.compare(target1, target2);
+    }
+
+    private void setUris(GoldStandard goldStandard) {
+        sourceUris = goldStandard.sourceUris == null ? 0 : goldStandard.sourceUris.size();
+        targetUris = goldStandard.targetUris == null ? 0 : goldStandard.targetUris.size();
+    }
+
+    /**
+     * @return the precision, 0 if there are no predictions
+     */
+    public double getPrecision() {
+        return links == 0 ? 0 : truePositives / (double) links;
+    }
+
+    /**
+     * @return the recall, 0 if the reference mapping is empty
+     */
+    public double getRecall() {
+        return references == 0 ? 0 : truePositives / (double) references;
+    }
+
+    /**
+     * @param beta Beta for F-beta
+     * @return the F-beta measure
+     */
+    public double getFMeasure(double beta) {
+        return fMeasure(getPrecision(), getRecall(), beta);
+    }
+
+    /**
+     * @param symmetric true for the symmetric pseudo-precision
+     * @param oneToOne true to consider only the best one-to-n mapping of the predictions
+     * @return the pseudo-precision
+     */
+    public double getPseudoPrecision(boolean symmetric, boolean oneToOne) {
+        double p = oneToOne ? bestSources : sources;
+        if (symmetric) {
+            p += oneToOne ? getBestTargets() : targets;
+        }
+        double q = symmetric ? 2 * links : links;
+        if (p == 0 || q == 0) return 0;
+        return p / q;
+    }
+
+    /**
+     * @param oneToOne true to consider only the best one-to-n mapping of the predictions
+     * @return the pseudo-recall
+     */
+    public double getPseudoRecall(boolean oneToOne) {
+        double q = oneToOne ? bestSources + getBestTargets() : sources + targets;
+        return q / (double) (sourceUris + targetUris);
+    }
+
+    /**
+     * @param beta Beta for F-beta
+     * @param symmetric true for the symmetric pseudo-precision
+     * @param oneToOne true to consider only the best one-to-n mapping of the predictions
+     * @return the pseudo-F-beta measure
+     */
+    public double getPseudoFMeasure(double beta, boolean symmetric, boolean oneToOne) {
+        return fMeasure(getPseudoPrecision(symmetric, oneToOne), getPseudoRecall(oneToOne), beta);
+    }
+
+    private static double fMeasure(double p, double r, double beta) {
+        if (p == 0 && r == 0) {
+            return 0.0;
+        }
+        return (1 + beta * beta) * p * r / (beta * beta * p + r);
+    }
+
+    private long getBestTargets() {
+        if (bestTargets < 0) {
+            throw new IllegalStateException("The targets of the best one-to-n mapping were not collected");
+        }
+        return bestTargets;
+    }
+
+    public long getLinks() {
+        return links;
+    }
+
+    public long getTruePositives() {
+        return truePositives;
+    }
+
+    public long getReferences() {
+        return references;
+    }
+}
@@ -51,13 +51,8 @@ public class PseudoFMeasure extends APseudoPRF {
      * @return double - This returns the calculated pseudo F-Measure
      */
     public double getPseudoFMeasure(AMapping predictions, GoldStandard goldStandard, double beta) {
-        double p = precision(predictions, goldStandard);// getPseudoPrecision(sourceUris, targetUris, result);
-        double r = recall(predictions, goldStandard); //getPseudoRecall(sourceUris, targetUris, result);        
-        if (p == 0 && r == 0) {
-            return 0.0;
-        }
-        double f = (1 + beta * beta) * p * r / (beta * beta * p + r);
-        return f;
+        // symmetric pseudo-precision and pseudo-recall of all predictions, as by precision() and recall()
+        return LinkStatistics.of(predictions, goldStandard, false).getPseudoFMeasure(beta, true, false);
     }
 
     /** 
@@ -42,24 +42,8 @@ public class PseudoPrecision extends APseudoPRF {
      */
     @Override
     public double calculate(AMapping predictions, GoldStandard goldStandard) {
-        AMapping res = predictions;
-        AMapping rev = res.reverseSourceTarget();
-        if (useOneToOneMapping) {
-            res = predictions.getBestOneToNMapping();
-            rev = res.reverseSourceTarget().getBestOneToNMapping();
-        }
-        double p = res.getMap().keySet().size();
-        if (isSymmetricPrecision())
-            p = res.getMap().keySet().size() + rev.getMap().keySet().size();
-        double q = 0;
-        for (String s : predictions.getMap().keySet()) {
-            if (isSymmetricPrecision())
-                q = q + 2 * predictions.getMap().get(s).size();
-            else
-                q = q + predictions.getMap().get(s).size();
-        }
-        if (p == 0 || q == 0) return 0;
-        return p / q;
+        return LinkStatistics.of(predictions, goldStandard, useOneToOneMapping && isSymmetricPrecision())
+                .getPseudoPrecision(isSymmetricPrecision(), useOneToOneMapping);
     }
 
 
@@ -1,8 +1,5 @@
 package org.aksw.limes.core.evaluation.qualititativeMeasures;
 
-import java.util.HashSet;
-import java.util.Set;
-
 import org.aksw.limes.core.datastrutures.GoldStandard;
 import org.aksw.limes.core.io.mapping.AMapping;
 import org.slf4j.Logger;
@@ -47,18 +44,6 @@ public class PseudoRecall extends APseudoPRF {
      */
 
     public double calculate(AMapping predictions, GoldStandard goldStandard) {
-        AMapping res = predictions;
-        if (useOneToOneMapping) {
-            res = predictions.getBestOneToNMapping();
-        }
-        double q = res.getMap().keySet().size();
-        Set<String> values = new HashSet<String>();
-        for (String s : res.getMap().keySet()) {
-            for (String t : res.getMap().get(s).keySet()) {
-                values.add(t);
-            }
-        }
-        double reference = (double) (goldStandard.sourceUris.size() + goldStandard.targetUris.size());
-        return (q + values.size()) / reference;
+        return LinkStatistics.of(predictions, goldStandard, useOneToOneMapping).getPseudoRecall(useOneToOneMapping);
     }
 }
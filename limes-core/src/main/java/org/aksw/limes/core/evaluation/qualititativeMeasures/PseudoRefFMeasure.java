@@ -27,6 +27,11 @@ public class PseudoRefFMeasure extends PseudoFMeasure {
      * @return double - This returns the calculated pseudo reference F-Measure.
      */
     public double calculate(AMapping predictions, GoldStandard goldStandard, double beta) {
+        return getPseudoFMeasure(predictions, goldStandard, beta);
+    }
+
+    @Override
+    public double getPseudoFMeasure(AMapping predictions, GoldStandard goldStandard, double beta) {
 
         double p = precision(predictions, goldStandard);
         double r = recall(predictions, goldStandard);
@@ -5,6 +5,11 @@ import java.util.List;
 
 import org.aksw.limes.core.io.cache.ACache;
 import org.aksw.limes.core.io.mapping.AMapping;
+import org.aksw.limes.core.measures.mapper.AMapper;
+import org.aksw.limes.core.measures.mapper.IMapper;
+import org.aksw.limes.core.measures.mapper.MapperFactory;
+import org.aksw.limes.core.measures.mapper.ValueIndexRegistry;
+import org.aksw.limes.core.measures.measure.MeasureType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -39,6 +44,10 @@ public abstract class ExecutionEngine implements IExecutionEngine {
      * Target cache.
      */
     protected ACache target;
+    /**
+     * Value indexes shared by the mappers of the execution.
+     */
+    protected ValueIndexRegistry valueIndexes;
 
     /**
      * Constructor for an execution engine.
@@ -58,5 +67,26 @@ public abstract class ExecutionEngine implements IExecutionEngine {
         this.target = target;
         this.sourceVariable = sourceVar;
         this.targetVariable = targetVar;
+        this.valueIndexes = new ValueIndexRegistry();
+    }
+
+    public ValueIndexRegistry getValueIndexes() {
+        return valueIndexes;
+    }
+
+    /**
+     * Creates the mapper of a measure type, sharing the value indexes of the
+     * execution with it.
+     *
+     * @param type
+     *            The measure type
+     * @return the mapper
+     */
+    protected IMapper createMapper(MeasureType type) {
+        IMapper mapper = MapperFactory.createMapper(type);
+        if (mapper instanceof AMapper) {
+            ((AMapper) mapper).setValueIndexes(valueIndexes);
+        }
+        return mapper;
     }
 }
@@ -0,0 +1,386 @@
+package org.aksw.limes.core.execution.engine;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.aksw.limes.core.datastrutures.LogicOperator;
+import org.aksw.limes.core.exceptions.InvalidMeasureException;
+import org.aksw.limes.core.execution.planning.plan.Instruction;
+import org.aksw.limes.core.execution.planning.plan.Plan;
+import org.aksw.limes.core.io.cache.ACache;
+import org.aksw.limes.core.io.cache.Instance;
+import org.aksw.limes.core.io.ls.LinkSpecification;
+import org.aksw.limes.core.io.mapping.AMapping;
+import org.aksw.limes.core.io.mapping.MappingFactory;
+import org.aksw.limes.core.io.parser.Parser;
+import org.aksw.limes.core.measures.mapper.IMapper.Language;
+import org.aksw.limes.core.measures.mapper.MapperFactory;
+import org.aksw.limes.core.measures.measure.AMeasure;
+import org.aksw.limes.core.measures.measure.MeasureFactory;
+import org.aksw.limes.core.measures.measure.MeasureType;
+import org.aksw.limes.core.util.Partitions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Scores a complete link specification per candidate pair instead of
+ * executing every atomic measure with its mapper and combining the resulting
+ * mappings. Only the leaves of a blocking cover of the specification are
+ * executed: a leaf covers itself, an AND is covered by the cover of its child
+ * with the smaller estimated mapping size, OR and XOR by the union of the
+ * covers of their children and MINUS by the cover of its left child. Every
+ * link of the specification is contained in the union of the mappings of the
+ * cover leaves, so these pairs are the candidates. The remaining leaves are
+ * then computed per candidate with the similarity measure, and the boolean
+ * operators are evaluated on the scores, leaving out the rest of an AND as
+ * soon as one of its children rejects the pair. Candidates are scored in
+ * parallel, partitioned by source.
+ *
+ * @version 1.0
+ */
+public class LinkSpecificationScorer {
+
+    static Logger logger = LoggerFactory.getLogger(LinkSpecificationScorer.class);
+
+    /** Score of a pair that is not linked by a node */
+    private static final double ABSENT = -1d;
+    /** Minimal number of source instances scored by one task */
+    private static final int MIN_PARTITION_SIZE = 1000;
+
+    private final ACache source;
+    private final ACache target;
+    private final String sourceVar;
+    private final String targetVar;
+
+    /**
+     * Constructor of LinkSpecificationScorer class.
+     *
+     * @param source
+     *            Source cache
+     * @param target
+     *            Target cache
+     * @param sourceVar
+     *            Source variable
+     * @param targetVar
+     *            Target variable
+     */
+    public LinkSpecificationScorer(ACache source, ACache target, String sourceVar, String targetVar) {
+        this.source = source;
+        this.target = target;
+        this.sourceVar = sourceVar;
+        this.targetVar = targetVar;
+    }
+
+    /**
+     * Checks whether a link specification can be scored per pair. Atomic
+     * specifications are executed directly, and weighted sums (which carry a
+     * filter expression on a complex node) as well as leaves without a
+     * positive threshold or with a measure unknown to the framework are left
+     * to the execution engine.
+     *
+     * @param spec
+     *            The input link specification
+     * @return true if the specification can be scored per pair
+     */
+    public static boolean supports(LinkSpecification spec) {
+        return !spec.isAtomic() && isSupported(spec);
+    }
+
+    private static boolean isSupported(LinkSpecification spec) {
+        if (spec.isAtomic()) {
+            if (spec.getThreshold() <= 0 || spec.getFilterExpression() == null) {
+                return false;
+            }
+            try {
+                Parser p = new Parser(spec.getFilterExpression(), spec.getThreshold());
+                MeasureFactory.createMeasure(MeasureFactory.getMeasureType(p.getOperator()));
+                return true;
+            } catch (InvalidMeasureException e) {
+                return false;
+            }
+        }
+        if (spec.getFilterExpression() != null || spec.getOperator() == null
+                || spec.getOperator() == LogicOperator.DIFF || spec.getChildren().size() != 2) {
+            return false;
+        }
+        for (LinkSpecification child : spec.getChildren()) {
+            if (!isSupported(child)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Executes a link specification. The specification must be supported,
+     * see {@link #supports(LinkSpecification)}.
+     *
+     * @param spec
+     *            The input link specification
+     * @return the mapping of the specification
+     */
+    public AMapping execute(LinkSpecification spec) {
+        Map<String, AMapping> blocks = new LinkedHashMap<>();
+        for (LinkSpecification leaf : getCover(spec)) {
+            String key = getKey(leaf);
+            if (!blocks.containsKey(key)) {
+                blocks.put(key, executeLeaf(leaf));
+            }
+        }
+        Map<String, Set<String>> candidates = new HashMap<>();
+        for (AMapping block : blocks.values()) {
+            for (Map.Entry<String, HashMap<String, Double>> row : block.getMap().entrySet()) {
+                Set<String> targets = candidates.get(row.getKey());
+                if (targets == null) {
+                    targets = new HashSet<>();
+                    candidates.put(row.getKey(), targets);
+                }
+                targets.addAll(row.getValue().keySet());
+            }
+        }
+        List<String> sources = new ArrayList<>(candidates.keySet());
+        return Partitions.collect(sources.size(), MIN_PARTITION_SIZE,
+                (from, to) -> score(spec, blocks, candidates, sources.subList(from, to)));
+    }
+
+    /**
+     * Scores the candidates of some source instances.
+     */
+    private AMapping score(LinkSpecification spec, Map<String, AMapping> blocks, Map<String, Set<String>> candidates,
+            List<String> sources) {
+        Node root = compile(spec, blocks);
+        AMapping result = MappingFactory.createDefaultMapping();
+        for (String s : sources) {
+            Instance sourceInstance = source.getInstance(s);
+            for (String t : candidates.get(s)) {
+                double sim = root.score(s, t, sourceInstance, target.getInstance(t));
+                if (sim != ABSENT) {
+                    result.add(s, t, sim);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Computes the leaves whose mappings contain all links of a
+     * specification.
+     */
+    private List<LinkSpecification> getCover(LinkSpecification spec) {
+        List<LinkSpecification> cover = new ArrayList<>();
+        if (spec.isAtomic()) {
+            cover.add(spec);
+            return cover;
+        }
+        LinkSpecification left = spec.getChildren().get(0);
+        LinkSpecification right = spec.getChildren().get(1);
+        switch (spec.getOperator()) {
+        case AND:
+            List<LinkSpecification> leftCover = getCover(left);
+            List<LinkSpecification> rightCover = getCover(right);
+            return getSize(leftCover) <= getSize(rightCover) ? leftCover : rightCover;
+        case MINUS:
+            return getCover(left);
+        default:
+            cover.addAll(getCover(left));
+            cover.addAll(getCover(right));
+            return cover;
+        }
+    }
+
+    /**
+     * Estimates the number of candidates of a cover the same way as the
+     * HELIOS planner estimates the size of atomic mappings.
+     */
+    private double getSize(List<LinkSpecification> cover) {
+        double size = 0;
+        for (LinkSpecification leaf : cover) {
+            Parser p = new Parser(leaf.getFilterExpression(), leaf.getThreshold());
+            MeasureType type = MeasureFactory.getMeasureType(p.getOperator());
+            size += MapperFactory.createMapper(type).getMappingSizeApproximation(source.size(), target.size(),
+                    leaf.getThreshold(), Language.EN);
+        }
+        return size;
+    }
+
+    private AMapping executeLeaf(LinkSpecification leaf) {
+        Instruction inst = new Instruction(Instruction.Command.RUN, leaf.getFilterExpression(),
+                leaf.getThreshold() + "", -1, -1, -1);
+        Plan plan = new Plan();
+        plan.addInstruction(inst);
+        SimpleExecutionEngine engine = new SimpleExecutionEngine(source, target, sourceVar, targetVar);
+        return engine.executeInstructions(plan);
+    }
+
+    private static String getKey(LinkSpecification leaf) {
+        return leaf.getFilterExpression() + "|" + leaf.getThreshold();
+    }
+
+    /**
+     * Builds the node tree of a specification. Measures are not shared
+     * between trees.
+     */
+    private Node compile(LinkSpecification spec, Map<String, AMapping> blocks) {
+        if (spec.isAtomic()) {
+            AMapping block = blocks.get(getKey(spec));
+            if (block != null) {
+                return new BlockNode(block);
+            }
+            return new MeasureNode(spec);
+        }
+        Node left = compile(spec.getChildren().get(0), blocks);
+        Node right = compile(spec.getChildren().get(1), blocks);
+        if (spec.getOperator() == LogicOperator.AND && !left.isBlock() && right.isBlock()) {
+            // check the executed child first
+            Node tmp = left;
+            left = right;
+            right = tmp;
+        }
+        return new OperatorNode(spec.getOperator(), spec.getThreshold(), left, right);
+    }
+
+    private interface Node {
+        /**
+         * @return the similarity of the pair, ABSENT if the node does not
+         *         link it
+         */
+        double score(String s, String t, Instance sourceInstance, Instance targetInstance);
+
+        boolean isBlock();
+    }
+
+    /**
+     * Leaf whose mapping has been executed for the candidates.
+     */
+    private static class BlockNode implements Node {
+        private final AMapping block;
+
+        BlockNode(AMapping block) {
+            this.block = block;
+        }
+
+        @Override
+        public double score(String s, String t, Instance sourceInstance, Instance targetInstance) {
+            HashMap<String, Double> row = block.getMap().get(s);
+            Double sim = row == null ? null : row.get(t);
+            return sim == null ? ABSENT : sim;
+        }
+
+        @Override
+        public boolean isBlock() {
+            return true;
+        }
+    }
+
+    /**
+     * Leaf that is computed per pair with its similarity measure.
+     */
+    private class MeasureNode implements Node {
+        private final AMeasure measure;
+        private final double threshold;
+        private String property1;
+        private String property2;
+
+        MeasureNode(LinkSpecification leaf) {
+            Parser p = new Parser(leaf.getFilterExpression(), leaf.getThreshold());
+            measure = MeasureFactory.createMeasure(MeasureFactory.getMeasureType(p.getOperator()));
+            threshold = leaf.getThreshold();
+            setProperty("?" + p.getLeftTerm(), true);
+            setProperty("?" + p.getRightTerm(), false);
+            if (property1 == null || property2 == null) {
+                throw new RuntimeException("Property values of " + leaf.getFilterExpression() + " could not be read");
+            }
+        }
+
+        private void setProperty(String term, boolean first) {
+            if (!term.contains(".")) {
+                if (first) {
+                    property1 = term;
+                } else {
+                    property2 = term;
+                }
+                return;
+            }
+            int dot = term.indexOf('.');
+            if (term.substring(0, dot).equals(sourceVar)) {
+                property1 = term.substring(dot + 1);
+            } else {
+                property2 = term.substring(dot + 1);
+            }
+        }
+
+        @Override
+        public double score(String s, String t, Instance sourceInstance, Instance targetInstance) {
+            double sim = measure.getSimilarity(sourceInstance, targetInstance, property1, property2);
+            return sim >= threshold ? sim : ABSENT;
+        }
+
+        @Override
+        public boolean isBlock() {
+            return false;
+        }
+    }
+
+    /**
+     * Boolean operator, followed by the threshold filter of its node.
+     */
+    private static class OperatorNode implements Node {
+        private final LogicOperator operator;
+        private final double threshold;
+        private final Node left;
+        private final Node right;
+
+        OperatorNode(LogicOperator operator, double threshold, Node left, Node right) {
+            this.operator = operator;
+            this.threshold = threshold;
+            this.left = left;
+            this.right = right;
+        }
+
+        @Override
+        public double score(String s, String t, Instance sourceInstance, Instance targetInstance) {
+            double sim;
+            double l = left.score(s, t, sourceInstance, targetInstance);
+            switch (operator) {
+            case AND:
+                if (l == ABSENT || (threshold > 0 && l < threshold)) {
+                    return ABSENT;
+                }
+                double r = right.score(s, t, sourceInstance, targetInstance);
+                sim = r == ABSENT ? ABSENT : Math.min(l, r);
+                break;
+            case OR:
+                sim = Math.max(l, right.score(s, t, sourceInstance, targetInstance));
+                break;
+            case MINUS:
+                if (l == ABSENT) {
+                    return ABSENT;
+                }
+                sim = right.score(s, t, sourceInstance, targetInstance) == ABSENT ? l : ABSENT;
+                break;
+            case XOR:
+                r = right.score(s, t, sourceInstance, targetInstance);
+                double union = Math.max(l, r);
+                double intersection = l == ABSENT || r == ABSENT ? ABSENT : Math.min(l, r);
+                sim = union >= threshold && !(intersection != ABSENT && intersection >= threshold) ? union : ABSENT;
+                break;
+            default:
+                throw new IllegalStateException("Unsupported operator " + operator);
+            }
+            if (sim == ABSENT || (threshold > 0 && sim < threshold)) {
+                return ABSENT;
+            }
+            return sim;
+        }
+
+        @Override
+        public boolean isBlock() {
+            return false;
+        }
+    }
+}
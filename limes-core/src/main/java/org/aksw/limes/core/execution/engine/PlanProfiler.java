@@ -0,0 +1,283 @@
+package org.aksw.limes.core.execution.engine;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+import org.aksw.limes.core.io.mapping.AMapping;
+
+/**
+ * Records metrics of the plan nodes executed by a
+ * {@link ProfilingExecutionEngine} as a tree: each nested plan and each
+ * instruction is a node with the nodes it executed as children. A node holds
+ * its wall time, CPU time and allocated bytes including the ones of its
+ * children, the sizes of its input and output mappings, the numbers of
+ * candidate and verified pairs of filters and of the mappers that count
+ * them, and the costs estimated by the planner or the mapper. Metrics that
+ * are not available are -1.
+ * <p>
+ * CPU time and allocated bytes are read for the thread that executes the
+ * plan. Mappers that split their work across a thread pool, e.g. HR3,
+ * set Jaccard, Monge-Elkan, exact match and Soundex, spend most of it on
+ * other threads, which these metrics do not include. The JSON output
+ * therefore names them calling_thread_cpu_time_ns and
+ * calling_thread_allocated_bytes; the wall time covers all threads.
+ * <p>
+ * The profile is only available through {@link #toJson()}. No JDK Flight
+ * Recorder events are emitted: the project targets Java 8, and many Java 8
+ * runtimes lack the jdk.jfr API.
+ *
+ * @version 1.0
+ */
+public class PlanProfiler {
+
+    /**
+     * Metrics of one executed plan node.
+     */
+    public static class Node {
+        protected final String operation;
+        protected final String expression;
+        protected final String threshold;
+        protected long wallTime = -1;
+        protected long cpuTime = -1;
+        protected long allocatedBytes = -1;
+        protected long inputSize = -1;
+        protected long outputSize = -1;
+        protected long candidates = -1;
+        protected long verified = -1;
+        protected double estimatedRuntime = -1;
+        protected double estimatedSize = -1;
+        protected final List<Node> children = new ArrayList<>();
+
+        private long startWallTime;
+        private long startCpuTime;
+        private long startAllocatedBytes;
+
+        private Node(String operation, String expression, String threshold) {
+            this.operation = operation;
+            this.expression = expression;
+            this.threshold = threshold;
+        }
+
+        public String getOperation() {
+            return operation;
+        }
+
+        public String getExpression() {
+            return expression;
+        }
+
+        public String getThreshold() {
+            return threshold;
+        }
+
+        /**
+         * @return nanoseconds between start and end of the node
+         */
+        public long getWallTime() {
+            return wallTime;
+        }
+
+        /**
+         * @return CPU nanoseconds of the executing thread, without the pool
+         *         threads of parallel mappers, -1 if not supported by the JVM
+         */
+        public long getCpuTime() {
+            return cpuTime;
+        }
+
+        /**
+         * @return bytes allocated by the executing thread, without the pool
+         *         threads of parallel mappers, -1 if not supported by the JVM
+         */
+        public long getAllocatedBytes() {
+            return allocatedBytes;
+        }
+
+        public long getInputSize() {
+            return inputSize;
+        }
+
+        public long getOutputSize() {
+            return outputSize;
+        }
+
+        /**
+         * @return number of candidate pairs a filter or mapper compared. The
+         *         mappers PPJoin+, EDJoin, fast q-grams and HR3 count them,
+         *         the value joins as pairs of distinct values.
+         */
+        public long getCandidates() {
+            return candidates;
+        }
+
+        /**
+         * @return number of candidate pairs that passed a filter or mapper
+         */
+        public long getVerified() {
+            return verified;
+        }
+
+        public double getEstimatedRuntime() {
+            return estimatedRuntime;
+        }
+
+        public double getEstimatedSize() {
+            return estimatedSize;
+        }
+
+        public List<Node> getChildren() {
+            return children;
+        }
+
+        public void setInputSize(long inputSize) {
+            this.inputSize = inputSize;
+        }
+
+        public void setCandidates(long candidates, long verified) {
+            this.candidates = candidates;
+            this.verified = verified;
+        }
+
+        public void setEstimates(double estimatedRuntime, double estimatedSize) {
+            this.estimatedRuntime = estimatedRuntime;
+            this.estimatedSize = estimatedSize;
+        }
+
+        private void toJson(StringBuilder json) {
+            json.append("{\"operation\":").append(quote(operation));
+            if (expression != null) {
+                json.append(",\"expression\":").append(quote(expression));
+            }
+            if (threshold != null) {
+                json.append(",\"threshold\":").append(quote(threshold));
+            }
+            json.append(",\"wall_time_ns\":").append(wallTime);
+            json.append(",\"calling_thread_cpu_time_ns\":").append(cpuTime);
+            json.append(",\"calling_thread_allocated_bytes\":").append(allocatedBytes);
+            json.append(",\"input_size\":").append(inputSize);
+            json.append(",\"output_size\":").append(outputSize);
+            json.append(",\"candidates\":").append(candidates);
+            json.append(",\"verified\":").append(verified);
+            json.append(",\"estimated_runtime\":").append(estimatedRuntime);
+            json.append(",\"estimated_size\":").append(estimatedSize);
+            json.append(",\"children\":[");
+            String separator = "";
+            for (Node child : children) {
+                json.append(separator);
+                child.toJson(json);
+                separator = ",";
+            }
+            json.append("]}");
+        }
+    }
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    private final List<Node> roots = new ArrayList<>();
+    private final Deque<Node> open = new ArrayDeque<>();
+
+    /**
+     * Starts a node as child of the innermost open node.
+     *
+     * @param operation
+     *            Command of an instruction or PLAN for a nested plan
+     * @param expression
+     *            Measure expression, null if none
+     * @param threshold
+     *            Threshold, null if none
+     * @return the started node
+     */
+    public Node start(String operation, String expression, String threshold) {
+        Node node = new Node(operation, expression, threshold);
+        if (open.isEmpty()) {
+            roots.add(node);
+        } else {
+            open.peek().children.add(node);
+        }
+        open.push(node);
+        node.startAllocatedBytes = getAllocatedBytes();
+        node.startCpuTime = getCpuTime();
+        node.startWallTime = System.nanoTime();
+        return node;
+    }
+
+    /**
+     * Ends the innermost open node.
+     *
+     * @param node
+     *            The innermost open node
+     * @param outputSize
+     *            Size of the mapping computed by the node
+     */
+    public void end(Node node, long outputSize) {
+        node.wallTime = System.nanoTime() - node.startWallTime;
+        long cpuTime = getCpuTime();
+        if (cpuTime >= 0 && node.startCpuTime >= 0) {
+            node.cpuTime = cpuTime - node.startCpuTime;
+        }
+        long allocatedBytes = getAllocatedBytes();
+        if (allocatedBytes >= 0 && node.startAllocatedBytes >= 0) {
+            node.allocatedBytes = allocatedBytes - node.startAllocatedBytes;
+        }
+        node.outputSize = outputSize;
+        if (open.peek() != node) {
+            throw new IllegalStateException("Plan node " + node.operation + " is not the innermost open node");
+        }
+        open.pop();
+    }
+
+    /**
+     * Ends the innermost open node, also if it failed.
+     *
+     * @param node
+     *            The innermost open node
+     * @param mapping
+     *            Mapping computed by the node, null if it failed
+     */
+    public void end(Node node, AMapping mapping) {
+        end(node, mapping == null ? -1 : mapping.getNumberofMappings());
+    }
+
+    /**
+     * @return the outermost executed nodes
+     */
+    public List<Node> getRoots() {
+        return roots;
+    }
+
+    /**
+     * @return the recorded nodes as a JSON array
+     */
+    public String toJson() {
+        StringBuilder json = new StringBuilder("[");
+        String separator = "";
+        for (Node root : roots) {
+            json.append(separator);
+            root.toJson(json);
+            separator = ",";
+        }
+        return json.append(']').toString();
+    }
+
+    private static long getCpuTime() {
+        return THREADS.isCurrentThreadCpuTimeSupported() ? THREADS.getCurrentThreadCpuTime() : -1;
+    }
+
+    private static long getAllocatedBytes() {
+        if (THREADS instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) THREADS;
+            if (threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled()) {
+                return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+            }
+        }
+        return -1;
+    }
+
+    private static String quote(String s) {
+        return '"' + s.replace("\\", "\\\\").replace("\"", "\\\"") + '"';
+    }
+}
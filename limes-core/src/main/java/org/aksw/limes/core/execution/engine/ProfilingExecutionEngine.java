@@ -0,0 +1,195 @@
+package org.aksw.limes.core.execution.engine;
+
+import org.aksw.limes.core.execution.engine.PlanProfiler.Node;
+import org.aksw.limes.core.execution.planning.plan.Instruction;
+import org.aksw.limes.core.execution.planning.plan.NestedPlan;
+import org.aksw.limes.core.execution.planning.planner.DynamicPlanner;
+import org.aksw.limes.core.io.cache.ACache;
+import org.aksw.limes.core.io.ls.LinkSpecification;
+import org.aksw.limes.core.io.mapping.AMapping;
+import org.aksw.limes.core.measures.mapper.AMapper;
+import org.aksw.limes.core.measures.mapper.IMapper;
+import org.aksw.limes.core.measures.mapper.IMapper.Language;
+import org.aksw.limes.core.measures.mapper.MapperFactory;
+import org.aksw.limes.core.measures.mapper.PairCounter;
+import org.aksw.limes.core.measures.measure.MeasureFactory;
+import org.aksw.limes.core.measures.measure.MeasureType;
+
+/**
+ * Execution engine that executes plans as the {@link SimpleExecutionEngine}
+ * and records the metrics of every nested plan, link specification and
+ * instruction in a {@link PlanProfiler}. Nested plans carry the costs
+ * estimated by the static planners, RUN instructions the costs approximated by
+ * their mapper, so that estimated and actual costs can be compared. RUN
+ * instructions also carry the candidate and verified pairs counted by their
+ * mapper, see {@link PairCounter}. A node that throws is still ended, with an
+ * output size of -1.
+ *
+ * @version 1.0
+ */
+public class ProfilingExecutionEngine extends SimpleExecutionEngine {
+
+    private final PlanProfiler profiler;
+
+    /**
+     * Counts the pairs of the RUN instruction being executed, null outside
+     * of RUN instructions.
+     */
+    private PairCounter pairCounter;
+
+    /**
+     * Constructor for a profiling execution engine.
+     *
+     * @param source
+     *            Source cache
+     * @param target
+     *            Target cache
+     * @param sourceVar
+     *            Source variable
+     * @param targetVar
+     *            Target variable
+     * @param profiler
+     *            Records the metrics of the executed plan nodes
+     */
+    public ProfilingExecutionEngine(ACache source, ACache target, String sourceVar, String targetVar,
+            PlanProfiler profiler) {
+        super(source, target, sourceVar, targetVar);
+        this.profiler = profiler;
+    }
+
+    public PlanProfiler getProfiler() {
+        return profiler;
+    }
+
+    @Override
+    public AMapping executeStatic(NestedPlan plan) {
+        String operation = plan.getOperator() == null ? "PLAN" : "PLAN " + plan.getOperator();
+        Node node = profiler.start(operation, null, plan.getThreshold());
+        node.setEstimates(plan.getRuntimeCost(), plan.getMappingSize());
+        AMapping m = null;
+        try {
+            m = super.executeStatic(plan);
+            return m;
+        } finally {
+            profiler.end(node, m);
+        }
+    }
+
+    @Override
+    public AMapping executeDynamic(LinkSpecification spec, DynamicPlanner planner) {
+        Node node = profiler.start("SPEC", spec.getFullExpression(), String.valueOf(spec.getThreshold()));
+        AMapping m = null;
+        try {
+            m = super.executeDynamic(spec, planner);
+            return m;
+        } finally {
+            profiler.end(node, m);
+        }
+    }
+
+    @Override
+    public AMapping executeRun(Instruction inst) {
+        Node node = profiler.start(inst.getCommand().toString(), inst.getMeasureExpression(), inst.getThreshold());
+        node.setInputSize((long) source.size() * target.size());
+        AMapping m = null;
+        try {
+            double threshold = Double.parseDouble(inst.getThreshold());
+            if (threshold > 0) {
+                IMapper mapper = MapperFactory
+                        .createMapper(MeasureFactory.getMeasureType(inst.getMeasureExpression()));
+                node.setEstimates(
+                        mapper.getRuntimeApproximation(source.size(), target.size(), threshold, Language.EN),
+                        mapper.getMappingSizeApproximation(source.size(), target.size(), threshold, Language.EN));
+            }
+            pairCounter = new PairCounter();
+            m = super.executeRun(inst);
+            if (pairCounter.isCounted()) {
+                node.setCandidates(pairCounter.getCandidates(), pairCounter.getVerified());
+            }
+            return m;
+        } finally {
+            pairCounter = null;
+            profiler.end(node, m);
+        }
+    }
+
+    /**
+     * Creates the mapper of a measure type with the pair counter of the RUN
+     * instruction being executed.
+     */
+    @Override
+    protected IMapper createMapper(MeasureType type) {
+        IMapper mapper = super.createMapper(type);
+        if (mapper instanceof AMapper) {
+            ((AMapper) mapper).setPairCounter(pairCounter);
+        }
+        return mapper;
+    }
+
+    @Override
+    public AMapping executeFilter(Instruction inst, AMapping input) {
+        Node node = profiler.start(inst.getCommand().toString(), inst.getMeasureExpression(), inst.getThreshold());
+        node.setInputSize(input.getNumberofMappings());
+        AMapping m = null;
+        try {
+            m = super.executeFilter(inst, input);
+            node.setCandidates(input.getNumberofMappings(), m.getNumberofMappings());
+            return m;
+        } finally {
+            profiler.end(node, m);
+        }
+    }
+
+    @Override
+    protected AMapping executeReverseFilter(Instruction inst, AMapping input) {
+        Node node = profiler.start(inst.getCommand().toString(), inst.getMeasureExpression(), inst.getThreshold());
+        node.setInputSize(input.getNumberofMappings());
+        AMapping m = null;
+        try {
+            m = super.executeReverseFilter(inst, input);
+            node.setCandidates(input.getNumberofMappings(), m.getNumberofMappings());
+            return m;
+        } finally {
+            profiler.end(node, m);
+        }
+    }
+
+    @Override
+    public AMapping executeDifference(AMapping m1, AMapping m2) {
+        Node node = profiler.start("DIFF", null, null);
+        node.setInputSize(m1.getNumberofMappings() + m2.getNumberofMappings());
+        AMapping m = null;
+        try {
+            m = super.executeDifference(m1, m2);
+            return m;
+        } finally {
+            profiler.end(node, m);
+        }
+    }
+
+    @Override
+    public AMapping executeIntersection(AMapping m1, AMapping m2) {
+        Node node = profiler.start("INTERSECTION", null, null);
+        node.setInputSize(m1.getNumberofMappings() + m2.getNumberofMappings());
+        AMapping m = null;
+        try {
+            m = super.executeIntersection(m1, m2);
+            return m;
+        } finally {
+            profiler.end(node, m);
+        }
+    }
+
+    @Override
+    public AMapping executeUnion(AMapping m1, AMapping m2) {
+        Node node = profiler.start("UNION", null, null);
+        node.setInputSize(m1.getNumberofMappings() + m2.getNumberofMappings());
+        AMapping m = null;
+        try {
+            m = super.executeUnion(m1, m2);
+            return m;
+        } finally {
+            profiler.end(node, m);
+        }
+    }
+}
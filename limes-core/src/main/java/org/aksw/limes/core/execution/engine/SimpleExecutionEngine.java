@@ -19,10 +19,10 @@ import org.aksw.limes.core.io.mapping.AMapping;
 import org.aksw.limes.core.io.mapping.MappingFactory;
 import org.aksw.limes.core.io.mapping.MemoryMapping;
 import org.aksw.limes.core.measures.mapper.IMapper;
-import org.aksw.limes.core.measures.mapper.MapperFactory;
 import org.aksw.limes.core.measures.mapper.MappingOperations;
 import org.aksw.limes.core.measures.measure.MeasureFactory;
 import org.aksw.limes.core.measures.measure.MeasureType;
+import org.aksw.limes.core.util.Partitions;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -79,6 +79,8 @@ public class SimpleExecutionEngine extends ExecutionEngine {
         List<Instruction> instructions = plan.getInstructionList();
         AMapping m = MappingFactory.createDefaultMapping();
         for (int i = 0; i < instructions.size(); i++) {
+            // stop if the job of this thread was cancelled
+            Partitions.checkInterrupted();
             Instruction inst = instructions.get(i);
             // get the index for writing the results
             int index = inst.getResultIndex();
@@ -166,7 +168,7 @@ public class SimpleExecutionEngine extends ExecutionEngine {
                 IMapper mapper;
                 //try {
                     MeasureType type = MeasureFactory.getMeasureType(inst.getMeasureExpression());
-                    mapper = MapperFactory.createMapper(type);
+                    mapper = createMapper(type);
 
                     return mapper.getMapping(source, target, sourceVariable, targetVariable,
                             inst.getMeasureExpression(), threshold);
@@ -191,7 +193,7 @@ public class SimpleExecutionEngine extends ExecutionEngine {
      *            Mapping that is to be filtered
      * @return Filtered mapping
      */
-    private AMapping executeReverseFilter(Instruction inst, AMapping input) {
+    protected AMapping executeReverseFilter(Instruction inst, AMapping input) {
         LinearFilter filter = new LinearFilter();
         return filter.reversefilter(input, inst.getMeasureExpression(), Double.parseDouble(inst.getThreshold()),
                 Double.parseDouble(inst.getMainThreshold()), source, target, sourceVariable, targetVariable);
@@ -276,6 +278,7 @@ public class SimpleExecutionEngine extends ExecutionEngine {
      * @return The mapping obtained from executing the plan
      */
     public AMapping executeStatic(NestedPlan plan) {
+        Partitions.checkInterrupted();
         // empty nested plan contains nothing
         AMapping m = MappingFactory.createDefaultMapping();
         if (plan.isEmpty()) {
@@ -351,6 +354,7 @@ public class SimpleExecutionEngine extends ExecutionEngine {
      * @return The mapping obtained from executing the link specification.
      */
     public AMapping executeDynamic(LinkSpecification spec, DynamicPlanner planner) {
+        Partitions.checkInterrupted();
         long begin = System.currentTimeMillis();
         long end = 0;
         AMapping m = MappingFactory.createDefaultMapping();
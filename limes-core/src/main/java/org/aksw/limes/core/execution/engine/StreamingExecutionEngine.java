@@ -0,0 +1,127 @@
+package org.aksw.limes.core.execution.engine;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.aksw.limes.core.exceptions.InvalidThresholdException;
+import org.aksw.limes.core.execution.planning.plan.Instruction;
+import org.aksw.limes.core.execution.planning.plan.Instruction.Command;
+import org.aksw.limes.core.execution.planning.plan.NestedPlan;
+import org.aksw.limes.core.io.cache.ACache;
+import org.aksw.limes.core.io.mapping.AMapping;
+import org.aksw.limes.core.measures.mapper.IIndexedMapper;
+import org.aksw.limes.core.measures.mapper.IMapper;
+import org.aksw.limes.core.measures.mapper.ITargetIndex;
+import org.aksw.limes.core.measures.measure.MeasureFactory;
+import org.aksw.limes.core.util.Partitions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Execution engine for a fixed target and a changing source, e.g. for
+ * micro-batches of a stream of source instances. For every RUN instruction
+ * whose mapper is an {@link IIndexedMapper}, the target index is built once
+ * and kept, so that executing the plan for another source only probes the
+ * indexes. The other RUN instructions and all filters are executed as by the
+ * {@link SimpleExecutionEngine}.
+ *
+ * @version 1.0
+ */
+public class StreamingExecutionEngine extends SimpleExecutionEngine {
+
+    static Logger logger = LoggerFactory.getLogger(StreamingExecutionEngine.class);
+
+    /**
+     * Target indexes by measure expression and threshold, null for RUN
+     * instructions whose mapper cannot index the target.
+     */
+    private final Map<String, ITargetIndex> indexes = new HashMap<>();
+
+    /**
+     * Constructor for a streaming execution engine.
+     *
+     * @param source
+     *            First source cache
+     * @param target
+     *            Target cache
+     * @param sourceVar
+     *            Source variable
+     * @param targetVar
+     *            Target variable
+     */
+    public StreamingExecutionEngine(ACache source, ACache target, String sourceVar, String targetVar) {
+        super(source, target, sourceVar, targetVar);
+    }
+
+    /**
+     * Replaces the source cache. The target indexes are kept.
+     *
+     * @param source
+     *            Source cache
+     */
+    public void setSource(ACache source) {
+        this.source = source;
+    }
+
+    /**
+     * Builds the target indexes of all RUN instructions of a plan.
+     *
+     * @param plan
+     *            A nested plan created by a static planner
+     * @return number of target indexes
+     */
+    public int buildIndexes(NestedPlan plan) {
+        for (Instruction inst : plan.getInstructionList()) {
+            Partitions.checkInterrupted();
+            if (inst.getCommand().equals(Command.RUN)) {
+                getIndex(inst);
+            }
+        }
+        int count = 0;
+        for (ITargetIndex index : indexes.values()) {
+            if (index != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Executes a RUN instruction by probing its target index, if the mapper
+     * supports one.
+     *
+     * @param inst
+     *            Atomic RUN instruction
+     * @return The mapping obtained from executing the atomic RUN instruction
+     */
+    @Override
+    public AMapping executeRun(Instruction inst) {
+        ITargetIndex index = getIndex(inst);
+        if (index == null) {
+            return super.executeRun(inst);
+        }
+        return index.getMapping(source);
+    }
+
+    private ITargetIndex getIndex(Instruction inst) {
+        String key = inst.getMeasureExpression() + "|" + inst.getThreshold();
+        if (indexes.containsKey(key)) {
+            return indexes.get(key);
+        }
+        double threshold = Double.parseDouble(inst.getThreshold());
+        if (threshold <= 0) {
+            throw new InvalidThresholdException(threshold);
+        }
+        IMapper mapper = createMapper(MeasureFactory.getMeasureType(inst.getMeasureExpression()));
+        ITargetIndex index = null;
+        if (mapper instanceof IIndexedMapper) {
+            index = ((IIndexedMapper) mapper).getTargetIndex(target, sourceVariable, targetVariable,
+                    inst.getMeasureExpression(), threshold);
+        }
+        if (index == null) {
+            logger.info("No target index for " + key + ", the mapper is run for each source");
+        }
+        indexes.put(key, index);
+        return index;
+    }
+}
@@ -0,0 +1,239 @@
+package org.aksw.limes.core.execution.engine;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.aksw.limes.core.datastrutures.LogicOperator;
+import org.aksw.limes.core.exceptions.InvalidThresholdException;
+import org.aksw.limes.core.execution.engine.filter.LinearFilter;
+import org.aksw.limes.core.execution.planning.planner.IPlanner;
+import org.aksw.limes.core.io.cache.ACache;
+import org.aksw.limes.core.io.cache.MemoryCache;
+import org.aksw.limes.core.io.ls.LinkSpecification;
+import org.aksw.limes.core.io.mapping.AMapping;
+import org.aksw.limes.core.io.mapping.EncodedMapping;
+import org.aksw.limes.core.io.mapping.MappingFactory;
+import org.aksw.limes.core.measures.mapper.IMapper;
+import org.aksw.limes.core.measures.mapper.ITopKMapper;
+import org.aksw.limes.core.measures.mapper.MapperFactory;
+import org.aksw.limes.core.measures.measure.MeasureFactory;
+import org.aksw.limes.core.util.Partitions;
+
+/**
+ * Execution engine that links each source to its k most similar targets.
+ * Links whose similarity ties with the k-th one are kept as well, and the
+ * thresholds of the link specification are the minimal similarities of the
+ * links. The result is the same as the top-k links of the mapping the
+ * {@link SimpleExecutionEngine} computes, but k is propagated through the
+ * specification instead of materializing all links above the thresholds:
+ * <ul>
+ * <li>Atomic specifications are run by an {@link ITopKMapper}, other mappers
+ * compute their mapping before the top-k links are selected.</li>
+ * <li>OR specifications merge the top-k links of their children, since each
+ * link of the result is among the top-k links of one child.</li>
+ * <li>AND specifications compute the top-k' links of one child and verify
+ * them with the other children. A source is done once its k-th verified link
+ * is at least as similar as its k'-th candidate, which bounds the similarity
+ * of all other links, or once the child has no more candidates. k' is doubled
+ * for the remaining sources until all sources are done.</li>
+ * <li>All other specifications are executed as by the
+ * {@link SimpleExecutionEngine} before the top-k links are selected.</li>
+ * </ul>
+ *
+ * @version 1.0
+ */
+public class TopKExecutionEngine extends SimpleExecutionEngine {
+
+    private final int k;
+
+    /**
+     * Constructor for a top-k execution engine.
+     *
+     * @param source
+     *            Source cache
+     * @param target
+     *            Target cache
+     * @param sourceVar
+     *            Source variable
+     * @param targetVar
+     *            Target variable
+     * @param k
+     *            Number of targets per source
+     */
+    public TopKExecutionEngine(ACache source, ACache target, String sourceVar, String targetVar, int k) {
+        super(source, target, sourceVar, targetVar);
+        if (k < 1) {
+            throw new IllegalArgumentException("k must be positive, got " + k);
+        }
+        this.k = k;
+    }
+
+    public int getK() {
+        return k;
+    }
+
+    /**
+     * Computes the top-k links of a link specification. The planner
+     * normalizes the specification and plans the parts that are executed as
+     * by the {@link SimpleExecutionEngine}.
+     *
+     * @param spec
+     *            The link specification, after it was re-written
+     * @param planner
+     *            The chosen planner
+     * @return The k most similar targets of each source
+     */
+    @Override
+    public AMapping execute(LinkSpecification spec, IPlanner planner) {
+        return executeTopK(planner.normalize(spec), planner);
+    }
+
+    /**
+     * Computes the top-k links of a normalized link specification.
+     *
+     * @param spec
+     *            The normalized link specification
+     * @param planner
+     *            The chosen planner
+     * @return The k most similar targets of each source
+     */
+    public AMapping executeTopK(LinkSpecification spec, IPlanner planner) {
+        if (spec.isEmpty()) {
+            return MappingFactory.createDefaultMapping();
+        }
+        if (spec.isAtomic()) {
+            return executeTopKRun(spec.getFilterExpression(), spec.getThreshold());
+        }
+        // a filter expression recomputes the similarity of the links
+        if (spec.getFilterExpression() == null && spec.getOperator().equals(LogicOperator.OR)) {
+            AMapping m = MappingFactory.createDefaultMapping();
+            for (LinkSpecification child : spec.getChildren()) {
+                m = executeUnion(m, executeTopK(child, planner));
+            }
+            return getTopK(new LinearFilter().filter(m, spec.getThreshold()));
+        }
+        if (spec.getFilterExpression() == null && spec.getOperator().equals(LogicOperator.AND)) {
+            return executeTopKConjunction(spec, planner);
+        }
+        return getTopK(super.execute(spec, planner));
+    }
+
+    /**
+     * Computes the top-k links of an atomic link specification.
+     *
+     * @param expression
+     *            Atomic metric expression
+     * @param threshold
+     *            Minimal similarity of the links
+     * @return The k most similar targets of each source
+     */
+    public AMapping executeTopKRun(String expression, double threshold) {
+        if (threshold <= 0) {
+            throw new InvalidThresholdException(threshold);
+        }
+        Partitions.checkInterrupted();
+        IMapper mapper = createMapper(MeasureFactory.getMeasureType(expression));
+        if (mapper instanceof ITopKMapper) {
+            return ((ITopKMapper) mapper).getTopKMapping(source, target, sourceVariable, targetVariable, expression,
+                    threshold, k);
+        }
+        return getTopK(mapper.getMapping(source, target, sourceVariable, targetVariable, expression, threshold));
+    }
+
+    /**
+     * Computes the top-k links of an AND specification by verifying the
+     * top-k' links of its driving child, doubling k' for the sources that are
+     * not done.
+     */
+    private AMapping executeTopKConjunction(LinkSpecification spec, IPlanner planner) {
+        LinkSpecification driver = getDriver(spec);
+        AMapping result = MappingFactory.createDefaultMapping();
+        ACache sources = source;
+        for (int rank = k;; rank *= 2) {
+            TopKExecutionEngine engine = this;
+            if (rank != k) {
+                engine = new TopKExecutionEngine(sources, target, sourceVariable, targetVariable, rank);
+                engine.valueIndexes = valueIndexes;
+            }
+            AMapping candidates = engine.executeTopK(driver, planner);
+            AMapping verified = candidates;
+            for (LinkSpecification child : spec.getChildren()) {
+                if (child != driver) {
+                    verified = engine.verify(child, verified, planner);
+                }
+            }
+            verified = new LinearFilter().filter(verified, spec.getThreshold());
+            MemoryCache remaining = new MemoryCache();
+            for (Map.Entry<String, HashMap<String, Double>> row : candidates.getMap().entrySet()) {
+                HashMap<String, Double> links = verified.getMap().get(row.getKey());
+                if (row.getValue().size() < rank || (links != null && isDone(links, row.getValue()))) {
+                    if (links != null) {
+                        for (Map.Entry<String, Double> link : links.entrySet()) {
+                            result.add(row.getKey(), link.getKey(), link.getValue());
+                        }
+                    }
+                } else {
+                    remaining.addInstance(sources.getInstance(row.getKey()));
+                }
+            }
+            if (remaining.size() == 0) {
+                break;
+            }
+            sources = remaining;
+        }
+        return getTopK(result);
+    }
+
+    /**
+     * @return the child of an AND specification whose candidates are verified
+     *         by the other children, an atomic child with a top-k mapper if
+     *         there is one
+     */
+    private LinkSpecification getDriver(LinkSpecification spec) {
+        for (LinkSpecification child : spec.getChildren()) {
+            if (child.isAtomic() && MapperFactory.createMapper(
+                    MeasureFactory.getMeasureType(child.getFilterExpression())) instanceof ITopKMapper) {
+                return child;
+            }
+        }
+        return spec.getChildren().get(0);
+    }
+
+    /**
+     * @return true if the k-th verified link of a source is at least as
+     *         similar as its least similar candidate
+     */
+    private boolean isDone(HashMap<String, Double> verified, HashMap<String, Double> candidates) {
+        if (verified.size() < k) {
+            return false;
+        }
+        double min = Double.MAX_VALUE;
+        for (double similarity : candidates.values()) {
+            min = Math.min(min, similarity);
+        }
+        int greater = 0;
+        for (double similarity : verified.values()) {
+            if (similarity >= min) {
+                greater++;
+            }
+        }
+        return greater >= k;
+    }
+
+    /**
+     * Keeps the candidates that also satisfy a child of an AND specification,
+     * with the smaller of both similarities.
+     */
+    private AMapping verify(LinkSpecification child, AMapping candidates, IPlanner planner) {
+        if (child.isAtomic()) {
+            return executeIntersection(candidates, new LinearFilter().filter(candidates,
+                    child.getFilterExpression(), child.getThreshold(), source, target, sourceVariable,
+                    targetVariable));
+        }
+        return executeIntersection(candidates, super.execute(child, planner));
+    }
+
+    private AMapping getTopK(AMapping m) {
+        return EncodedMapping.of(m).getTopK(k);
+    }
+}
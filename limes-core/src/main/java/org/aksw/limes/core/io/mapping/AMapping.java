@@ -20,6 +20,8 @@ public abstract class AMapping implements IMapping {
 	private static final long serialVersionUID = -2139214978237914397L;
 	protected HashMap<String, HashMap<String, Double>> map;
     protected HashMap<Double, HashMap<String, TreeSet<String>>> reversedMap;
+    /** Links sorted by confidence, built on demand and dropped on change */
+    protected transient ConfidenceIndex confidenceIndex;
     protected int size;
     protected String predicate;
 
@@ -51,6 +53,31 @@ public abstract class AMapping implements IMapping {
 
     public abstract AMapping getSubMap(double threshold);
 
+    /**
+     * Splits the mapping at a threshold in a single pass, e.g., into the
+     * acceptance and the verification mapping.
+     *
+     * @param threshold
+     *            Similarity threshold
+     * @return the links with a similarity not below the threshold and the
+     *         links with a similarity below the threshold
+     */
+    public AMapping[] split(double threshold) {
+        AMapping above = MappingFactory.createDefaultMapping();
+        AMapping below = MappingFactory.createDefaultMapping();
+        for (String s : map.keySet()) {
+            for (String t : map.get(s).keySet()) {
+                double sim = map.get(s).get(t);
+                if (sim >= threshold) {
+                    above.add(s, t, sim);
+                } else {
+                    below.add(s, t, sim);
+                }
+            }
+        }
+        return new AMapping[] { above, below };
+    }
+
     /**
      * Returns the best one to one mapping with a bias towards the source Should
      * actually be solved with Hospital residents
@@ -59,11 +86,7 @@ public abstract class AMapping implements IMapping {
      * @return the best one-to-one mapping of m
      */
     public AMapping getBestOneToOneMappings(AMapping m) {
-        AMapping m2 = m.getBestOneToNMapping();
-        m2 = m2.reverseSourceTarget();
-        m2 = m2.getBestOneToNMapping();
-        m2 = m2.reverseSourceTarget();
-        return m2;
+        return EncodedMapping.of(m).getBestOneToOne();
     }
     /**
      * Get the predicate URI, which defaults to OWL.sameAs.
@@ -84,6 +107,7 @@ public abstract class AMapping implements IMapping {
 
     public void setMap(HashMap<String, HashMap<String, Double>> map) {
         this.map = map;
+        confidenceIndex = null;
     }
 
     public int getSize() {
@@ -0,0 +1,139 @@
+package org.aksw.limes.core.io.mapping;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The links of a mapping sorted by descending confidence. The links with a
+ * confidence not below any threshold are a prefix of the index, which is
+ * found by a binary search, so that repeated threshold cuts of the same
+ * mapping only copy the links they return.
+ *
+ * @version 1.0
+ */
+public class ConfidenceIndex {
+
+    private final String[] sources;
+    private final String[] targets;
+    private final double[] confidences;
+
+    /**
+     * Constructor of ConfidenceIndex class.
+     *
+     * @param mapping
+     *            The mapping to index
+     */
+    public ConfidenceIndex(AMapping mapping) {
+        int size = 0;
+        for (HashMap<String, Double> row : mapping.getMap().values()) {
+            size += row.size();
+        }
+        String[] s = new String[size];
+        String[] t = new String[size];
+        double[] c = new double[size];
+        int i = 0;
+        for (Map.Entry<String, HashMap<String, Double>> row : mapping.getMap().entrySet()) {
+            for (Map.Entry<String, Double> link : row.getValue().entrySet()) {
+                s[i] = row.getKey();
+                t[i] = link.getKey();
+                c[i] = link.getValue();
+                i++;
+            }
+        }
+        int[] order = new int[size];
+        for (i = 0; i < size; i++) {
+            order[i] = i;
+        }
+        sort(order, new int[size], 0, size, c);
+        sources = new String[size];
+        targets = new String[size];
+        confidences = new double[size];
+        for (i = 0; i < size; i++) {
+            sources[i] = s[order[i]];
+            targets[i] = t[order[i]];
+            confidences[i] = c[order[i]];
+        }
+    }
+
+    /**
+     * Merge sort of the positions from to to-1 of order by descending
+     * confidence.
+     */
+    private static void sort(int[] order, int[] buffer, int from, int to, double[] confidences) {
+        if (to - from < 2) {
+            return;
+        }
+        int middle = (from + to) >>> 1;
+        sort(order, buffer, from, middle, confidences);
+        sort(order, buffer, middle, to, confidences);
+        if (confidences[order[middle - 1]] >= confidences[order[middle]]) {
+            return;
+        }
+        System.arraycopy(order, from, buffer, from, to - from);
+        int i = from, j = middle, k = from;
+        while (i < middle && j < to) {
+            order[k++] = confidences[buffer[i]] >= confidences[buffer[j]] ? buffer[i++] : buffer[j++];
+        }
+        while (i < middle) {
+            order[k++] = buffer[i++];
+        }
+        while (j < to) {
+            order[k++] = buffer[j++];
+        }
+    }
+
+    /**
+     * @return number of indexed links
+     */
+    public int size() {
+        return confidences.length;
+    }
+
+    /**
+     * @param threshold
+     *            Confidence threshold
+     * @return number of links with a confidence not below the threshold
+     */
+    public int count(double threshold) {
+        int low = 0, high = confidences.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (confidences[middle] >= threshold) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * @param threshold
+     *            Confidence threshold
+     * @return mapping of all links with a confidence not below the threshold
+     */
+    public AMapping getSubMap(double threshold) {
+        return getRange(0, count(threshold));
+    }
+
+    /**
+     * Splits the links at a threshold.
+     *
+     * @param threshold
+     *            Confidence threshold
+     * @return the links with a confidence not below the threshold and the
+     *         links with a confidence below the threshold
+     */
+    public AMapping[] split(double threshold) {
+        int count = count(threshold);
+        return new AMapping[] { getRange(0, count), getRange(count, confidences.length) };
+    }
+
+    private AMapping getRange(int from, int to) {
+        AMapping m = MappingFactory.createDefaultMapping();
+        for (int i = from; i < to; i++) {
+            m.add(sources[i], targets[i], confidences[i]);
+        }
+        return m;
+    }
+}
@@ -0,0 +1,358 @@
+package org.aksw.limes.core.io.mapping;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.aksw.limes.core.util.Partitions;
+
+/**
+ * The links of a mapping with source and target URIs encoded as ids. The
+ * links are grouped by source: the links of source s are the positions
+ * getRowStart(s) to getRowEnd(s) - 1, each with a target id and a
+ * similarity. The one-to-n and one-to-one extractions work on these arrays;
+ * the ones that are computed per source run on partitions of the sources in
+ * parallel.
+ *
+ * @version 1.0
+ */
+public class EncodedMapping {
+
+    /** Minimal number of links processed by one task */
+    private static final int MIN_PARTITION_SIZE = 100000;
+
+    private final String[] sourceUris;
+    private final String[] targetUris;
+    private final int[] rowStarts;
+    private final int[] targets;
+    private final double[] similarities;
+
+    private EncodedMapping(String[] sourceUris, String[] targetUris, int[] rowStarts, int[] targets,
+            double[] similarities) {
+        this.sourceUris = sourceUris;
+        this.targetUris = targetUris;
+        this.rowStarts = rowStarts;
+        this.targets = targets;
+        this.similarities = similarities;
+    }
+
+    /**
+     * Encodes the links of a mapping.
+     *
+     * @param mapping
+     *            The mapping
+     * @return the encoded links
+     */
+    public static EncodedMapping of(AMapping mapping) {
+        int size = 0;
+        for (HashMap<String, Double> row : mapping.getMap().values()) {
+            size += row.size();
+        }
+        String[] sourceUris = new String[mapping.getMap().size()];
+        List<String> targetUris = new ArrayList<>();
+        Map<String, Integer> targetIds = new HashMap<>();
+        int[] rowStarts = new int[sourceUris.length + 1];
+        int[] targets = new int[size];
+        double[] similarities = new double[size];
+        int s = 0, i = 0;
+        for (Map.Entry<String, HashMap<String, Double>> row : mapping.getMap().entrySet()) {
+            sourceUris[s] = row.getKey();
+            for (Map.Entry<String, Double> link : row.getValue().entrySet()) {
+                Integer t = targetIds.get(link.getKey());
+                if (t == null) {
+                    t = targetUris.size();
+                    targetIds.put(link.getKey(), t);
+                    targetUris.add(link.getKey());
+                }
+                targets[i] = t;
+                similarities[i] = link.getValue();
+                i++;
+            }
+            rowStarts[++s] = i;
+        }
+        return new EncodedMapping(sourceUris, targetUris.toArray(new String[targetUris.size()]), rowStarts,
+                targets, similarities);
+    }
+
+    /**
+     * @return number of links
+     */
+    public int size() {
+        return similarities.length;
+    }
+
+    public int getSourceCount() {
+        return sourceUris.length;
+    }
+
+    public int getTargetCount() {
+        return targetUris.length;
+    }
+
+    public String getSourceUri(int source) {
+        return sourceUris[source];
+    }
+
+    public String getTargetUri(int target) {
+        return targetUris[target];
+    }
+
+    /**
+     * @param source
+     *            Source id
+     * @return position of the first link of the source
+     */
+    public int getRowStart(int source) {
+        return rowStarts[source];
+    }
+
+    /**
+     * @param source
+     *            Source id
+     * @return position after the last link of the source
+     */
+    public int getRowEnd(int source) {
+        return rowStarts[source + 1];
+    }
+
+    /**
+     * @param link
+     *            Position of a link
+     * @return target id of the link
+     */
+    public int getTarget(int link) {
+        return targets[link];
+    }
+
+    /**
+     * @param link
+     *            Position of a link
+     * @return similarity of the link
+     */
+    public double getSimilarity(int link) {
+        return similarities[link];
+    }
+
+    /**
+     * Decodes the links into a mapping.
+     *
+     * @return the mapping
+     */
+    public AMapping toMapping() {
+        AMapping m = MappingFactory.createDefaultMapping();
+        for (int s = 0; s < sourceUris.length; s++) {
+            for (int k = rowStarts[s]; k < rowStarts[s + 1]; k++) {
+                m.add(sourceUris[s], targetUris[targets[k]], similarities[k]);
+            }
+        }
+        return m;
+    }
+
+    /**
+     * Same as {@link AMapping#getBestOneToNMapping()}: for each source, the
+     * links with the highest similarity, as long as it is not negative.
+     *
+     * @return the best one-to-n mapping
+     */
+    public AMapping getBestOneToN() {
+        return collect((from, to, result) -> {
+            for (int s = from; s < to; s++) {
+                double max = getRowMax(s);
+                for (int k = rowStarts[s]; k < rowStarts[s + 1]; k++) {
+                    if (similarities[k] == max) {
+                        result.add(sourceUris[s], targetUris[targets[k]], max);
+                    }
+                }
+            }
+        });
+    }
+
+    private double getRowMax(int s) {
+        double max = 0;
+        for (int k = rowStarts[s]; k < rowStarts[s + 1]; k++) {
+            if (similarities[k] > max) {
+                max = similarities[k];
+            }
+        }
+        return max;
+    }
+
+    /**
+     * For each source, the links to its k most similar targets. Links whose
+     * similarity ties with the k-th one are kept as well.
+     *
+     * @param k
+     *            Number of targets per source
+     * @return the top-k mapping
+     */
+    public AMapping getTopK(int k) {
+        if (k < 1) {
+            return MappingFactory.createDefaultMapping();
+        }
+        return collect((from, to, result) -> {
+            for (int s = from; s < to; s++) {
+                int start = rowStarts[s], end = rowStarts[s + 1];
+                if (end == start) {
+                    continue;
+                }
+                double[] row = Arrays.copyOfRange(similarities, start, end);
+                Arrays.sort(row);
+                double kth = row[Math.max(0, row.length - k)];
+                for (int l = start; l < end; l++) {
+                    if (similarities[l] >= kth) {
+                        result.add(sourceUris[s], targetUris[targets[l]], similarities[l]);
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Same as {@link AMapping#getBestOneToOneMappings(AMapping)}: the links of
+     * the best one-to-n mapping that are also the best of their target among
+     * those links. Computed in two passes without reversing the mapping.
+     *
+     * @return the best one-to-one mapping with a bias towards the source
+     */
+    public AMapping getBestOneToOne() {
+        double[] rowMax = new double[sourceUris.length];
+        double[] columnMax = new double[targetUris.length];
+        for (int s = 0; s < sourceUris.length; s++) {
+            rowMax[s] = getRowMax(s);
+            for (int k = rowStarts[s]; k < rowStarts[s + 1]; k++) {
+                if (similarities[k] == rowMax[s] && similarities[k] > columnMax[targets[k]]) {
+                    columnMax[targets[k]] = similarities[k];
+                }
+            }
+        }
+        AMapping result = MappingFactory.createDefaultMapping();
+        for (int s = 0; s < sourceUris.length; s++) {
+            for (int k = rowStarts[s]; k < rowStarts[s + 1]; k++) {
+                if (similarities[k] == rowMax[s] && similarities[k] == columnMax[targets[k]]) {
+                    result.add(sourceUris[s], targetUris[targets[k]], similarities[k]);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Greedy global one-to-one matching: the links are visited by descending
+     * similarity (ties by position) and a link is kept if neither its source
+     * nor its target is matched yet. The links are sorted in parallel.
+     *
+     * @return the one-to-one mapping
+     */
+    public AMapping getGreedyOneToOne() {
+        int[] order = getOrder();
+        int[] sourceOf = new int[similarities.length];
+        for (int s = 0; s < sourceUris.length; s++) {
+            Arrays.fill(sourceOf, rowStarts[s], rowStarts[s + 1], s);
+        }
+        boolean[] sourceMatched = new boolean[sourceUris.length];
+        boolean[] targetMatched = new boolean[targetUris.length];
+        AMapping result = MappingFactory.createDefaultMapping();
+        for (int k : order) {
+            int s = sourceOf[k], t = targets[k];
+            if (!sourceMatched[s] && !targetMatched[t]) {
+                sourceMatched[s] = true;
+                targetMatched[t] = true;
+                result.add(sourceUris[s], targetUris[t], similarities[k]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Sorts the link positions by descending similarity. The links are first
+     * sorted in parallel by their similarity rounded to a float, packed with
+     * the position into one long, and the runs of equal floats are then
+     * sorted by the exact similarity.
+     *
+     * @return the positions of the links by descending similarity
+     */
+    public int[] getOrder() {
+        int n = similarities.length;
+        long[] keys = new long[n];
+        for (int k = 0; k < n; k++) {
+            keys[k] = ((long) ~sortable((float) similarities[k]) << 32) | k;
+        }
+        Arrays.parallelSort(keys);
+        int[] order = new int[n];
+        for (int k = 0; k < n; k++) {
+            order[k] = (int) keys[k];
+        }
+        int start = 0;
+        for (int k = 1; k <= n; k++) {
+            if (k == n || (keys[k] >>> 32) != (keys[start] >>> 32)) {
+                if (k - start > 1) {
+                    sortRun(order, start, k);
+                }
+                start = k;
+            }
+        }
+        return order;
+    }
+
+    /**
+     * @return the bits of a float as an int with the same order
+     */
+    private static int sortable(float f) {
+        int bits = Float.floatToIntBits(f);
+        return bits ^ ((bits >> 31) & 0x7fffffff);
+    }
+
+    /**
+     * Insertion sort of a run by descending exact similarity and ascending
+     * position.
+     */
+    private void sortRun(int[] order, int from, int to) {
+        for (int i = from + 1; i < to; i++) {
+            int k = order[i];
+            int j = i - 1;
+            while (j >= from && (similarities[order[j]] < similarities[k]
+                    || (similarities[order[j]] == similarities[k] && order[j] > k))) {
+                order[j + 1] = order[j];
+                j--;
+            }
+            order[j + 1] = k;
+        }
+    }
+
+    private interface PartitionTask {
+        void run(int fromSource, int toSource, AMapping result);
+    }
+
+    /**
+     * Runs a task on partitions of the sources with about the same number of
+     * links and merges the results.
+     */
+    private AMapping collect(PartitionTask task) {
+        int partitions = Partitions.count(similarities.length, MIN_PARTITION_SIZE);
+        AMapping result = MappingFactory.createDefaultMapping();
+        if (partitions == 1) {
+            task.run(0, sourceUris.length, result);
+            return result;
+        }
+        List<int[]> ranges = new ArrayList<>();
+        int from = 0;
+        for (int p = 1; p <= partitions && from < sourceUris.length; p++) {
+            long limit = (long) similarities.length * p / partitions;
+            int to = from + 1;
+            while (to < sourceUris.length && rowStarts[to] < limit) {
+                to++;
+            }
+            if (p == partitions) {
+                to = sourceUris.length;
+            }
+            ranges.add(new int[] { from, to });
+            from = to;
+        }
+        return Partitions.collect(ranges, (start, end) -> {
+            AMapping m = MappingFactory.createDefaultMapping();
+            task.run(start, end, m);
+            return m;
+        });
+    }
+}
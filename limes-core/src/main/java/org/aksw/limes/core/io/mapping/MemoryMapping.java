@@ -1,9 +1,8 @@
 package org.aksw.limes.core.io.mapping;
 
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Iterator;
-import java.util.Set;
+import java.util.Map;
 import java.util.TreeSet;
 
 import org.aksw.limes.core.util.RandomStringGenerator;
@@ -64,29 +63,34 @@ public class MemoryMapping extends AMapping{
     /**
      * Returns a mapping that contains all elements of the current mapping that
      * have similarity above the threshold. Basically the same as
-     * filter(mapping, threshold) but should be faster
+     * filter(mapping, threshold) but should be faster, as the links are
+     * indexed by confidence on the first call and later calls only copy the
+     * links above the threshold.
      *
      * @param threshold
      *         Similarity threshold for filtering
      * @return Mapping that contains all elements (s,t) with sim(s,t) {@literal <} = threshold
      */
     public AMapping getSubMap(double threshold) {
-        AMapping m = MappingFactory.createDefaultMapping();
-        HashMap<String, TreeSet<String>> pairs;
-        if (reversedMap == null || reversedMap.size() == 0) {
-            initReversedMap();
+        return getConfidenceIndex().getSubMap(threshold);
+    }
+
+    @Override
+    public AMapping[] split(double threshold) {
+        if (confidenceIndex != null) {
+            return confidenceIndex.split(threshold);
         }
-        for (Double d : reversedMap.keySet()) {
-            if (d.doubleValue() >= threshold) {
-                pairs = reversedMap.get(d);
-                for (String s : pairs.keySet()) {
-                    for (String t : pairs.get(s)) {
-                        m.add(s, t, d);
-                    }
-                }
-            }
+        return super.split(threshold);
+    }
+
+    /**
+     * @return the links sorted by confidence
+     */
+    public ConfidenceIndex getConfidenceIndex() {
+        if (confidenceIndex == null) {
+            confidenceIndex = new ConfidenceIndex(this);
         }
-        return m;
+        return confidenceIndex;
     }
 
     /**
@@ -99,6 +103,7 @@ public class MemoryMapping extends AMapping{
      *         similarity to uri
      */
     public void add(String uri, HashMap<String, Double> instances) {
+        confidenceIndex = null;
         if (!map.containsKey(uri)) {
             map.put(uri, instances);
             size += instances.size();
@@ -130,6 +135,7 @@ public class MemoryMapping extends AMapping{
      */
     @Override
     public void add(String source, String target, double similarity) {
+        confidenceIndex = null;
         if (map.containsKey(source)) {
             // System.out.print("Found duplicate key " + uri);
             if (map.get(source).containsKey(target)) {
@@ -224,22 +230,17 @@ public class MemoryMapping extends AMapping{
     @Override
     public AMapping getBestOneToNMapping() {
         AMapping result = MappingFactory.createDefaultMapping();
-        for (String s : map.keySet()) {
+        for (Map.Entry<String, HashMap<String, Double>> row : map.entrySet()) {
             double maxSim = 0;
-            Set<String> target = new HashSet<String>();
-            ;
-            for (String t : map.get(s).keySet()) {
-                if (getConfidence(s, t) == maxSim) {
-                    target.add(t);
-                }
-                if (getConfidence(s, t) > maxSim) {
-                    maxSim = getConfidence(s, t);
-                    target = new HashSet<String>();
-                    target.add(t);
+            for (double sim : row.getValue().values()) {
+                if (sim > maxSim) {
+                    maxSim = sim;
                 }
             }
-            for (String t : target) {
-                result.add(s, t, maxSim);
+            for (Map.Entry<String, Double> link : row.getValue().entrySet()) {
+                if (link.getValue() == maxSim) {
+                    result.add(row.getKey(), link.getKey(), maxSim);
+                }
             }
         }
         return result;
@@ -0,0 +1,278 @@
+package org.aksw.limes.core.io.preprocessing;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Compiled form of a preprocessing function chain such as
+ * "nolang-&gt;lowercase". The chain is parsed once into an immutable sequence
+ * of steps with precompiled patterns. Consecutive cleaniri and nolang
+ * functions, optionally followed by lowercase or uppercase, are fused into a
+ * single step that cuts the value once instead of creating a string per
+ * function. Pipelines are thread-safe.
+ *
+ * @version 1.0
+ */
+public class PreprocessingPipeline {
+
+    static Logger logger = LoggerFactory.getLogger(PreprocessingPipeline.class.getName());
+
+    /**
+     * Number of compiled chains after which the memo is cleared.
+     */
+    private static final int MAX_MEMO_SIZE = 10000;
+
+    private static final Map<String, PreprocessingPipeline> memo = new ConcurrentHashMap<>();
+
+    private static final Pattern NUMBER_PATTERN = Pattern.compile("[^0-9,.,-]");
+    private static final Pattern DATE_PATTERN = Pattern.compile("[^0-9,.-]");
+
+    /**
+     * A single function of a chain.
+     */
+    interface Step {
+        String apply(String entry);
+    }
+
+    private final Step[] steps;
+
+    private PreprocessingPipeline(Step[] steps) {
+        this.steps = steps;
+    }
+
+    /**
+     * Applies the chain to a value after removing its type information.
+     *
+     * @param entry
+     *            the raw value
+     * @return the processed value
+     */
+    public String apply(String entry) {
+        int type = entry.indexOf('^');
+        String result = type < 0 ? entry : entry.substring(0, type);
+        for (Step step : steps) {
+            result = step.apply(result);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the compiled pipeline of a function chain. Pipelines are
+     * memoized by their chain.
+     *
+     * @param functionChain
+     *            functions separated by "-&gt;", may be null or empty
+     * @return the pipeline
+     */
+    public static PreprocessingPipeline compile(String functionChain) {
+        String key = functionChain == null ? "" : functionChain;
+        PreprocessingPipeline pipeline = memo.get(key);
+        if (pipeline == null) {
+            if (memo.size() >= MAX_MEMO_SIZE) {
+                memo.clear();
+            }
+            pipeline = new PreprocessingPipeline(compileSteps(key));
+            memo.put(key, pipeline);
+        }
+        return pipeline;
+    }
+
+    private static Step[] compileSteps(String functionChain) {
+        List<Step> steps = new ArrayList<>();
+        if (!functionChain.equals("")) {
+            String[] functions = functionChain.split("->");
+            int i = 0;
+            while (i < functions.length) {
+                if (!isCut(functions[i])) {
+                    steps.add(compileFunction(functions[i++]));
+                    continue;
+                }
+                List<Boolean> cuts = new ArrayList<>();
+                while (i < functions.length && isCut(functions[i])) {
+                    cuts.add(functions[i++].startsWith(Preprocessor.CLEAN_IRI));
+                }
+                String caseFunction = null;
+                if (i < functions.length && (functions[i].startsWith(Preprocessor.LOWER_CASE)
+                        || functions[i].startsWith(Preprocessor.UPPER_CASE))) {
+                    caseFunction = functions[i++];
+                }
+                steps.add(new CutStep(cuts, caseFunction));
+            }
+        }
+        return steps.toArray(new Step[steps.size()]);
+    }
+
+    private static boolean isCut(String function) {
+        return function.startsWith(Preprocessor.CLEAN_IRI) || function.startsWith(Preprocessor.NO_LANG);
+    }
+
+    /**
+     * Fused cleaniri and nolang functions followed by an optional case
+     * conversion.
+     */
+    private static class CutStep implements Step {
+        /**
+         * true for cleaniri, false for nolang
+         */
+        private final boolean[] cleanIri;
+        private final boolean lowerCase;
+        private final boolean upperCase;
+
+        private CutStep(List<Boolean> cuts, String caseFunction) {
+            cleanIri = new boolean[cuts.size()];
+            for (int i = 0; i < cleanIri.length; i++) {
+                cleanIri[i] = cuts.get(i);
+            }
+            lowerCase = caseFunction != null && caseFunction.startsWith(Preprocessor.LOWER_CASE);
+            upperCase = caseFunction != null && caseFunction.startsWith(Preprocessor.UPPER_CASE);
+        }
+
+        @Override
+        public String apply(String entry) {
+            int begin = 0, end = entry.length();
+            for (boolean iri : cleanIri) {
+                if (iri) {
+                    int slash = entry.lastIndexOf('/', end - 1);
+                    if (slash >= begin) {
+                        begin = slash + 1;
+                    }
+                } else {
+                    int at = entry.lastIndexOf(Preprocessor.AT, end - 1);
+                    if (at >= begin) {
+                        end = at;
+                    }
+                }
+            }
+            String result = entry.substring(begin, end);
+            if (lowerCase) {
+                return result.toLowerCase();
+            }
+            return upperCase ? result.toUpperCase() : result;
+        }
+    }
+
+    /**
+     * Compiles a single function.
+     *
+     * @param function
+     *            the function with its arguments
+     * @return the compiled function
+     */
+    static Step compileFunction(String function) {
+        if (function.length() < 2) {
+            return entry -> entry;
+        }
+        if (function.startsWith(Preprocessor.LOWER_CASE)) {
+            return String::toLowerCase;
+        }
+        if (function.startsWith(Preprocessor.UPPER_CASE)) {
+            return String::toUpperCase;
+        }
+        if (function.startsWith(Preprocessor.REPLACE)) {
+            String replaced = function.substring(8, function.indexOf(","));
+            final String replacee = function.substring(function.indexOf(",") + 1, function.indexOf(")"));
+            final Pattern pattern = Pattern.compile(Pattern.quote(replaced));
+            return entry -> pattern.matcher(entry).replaceAll(replacee);
+        }
+        if (function.startsWith(Preprocessor.REG_EX_REPLACE)) {
+            try {
+                String replaced = function.substring(13, function.lastIndexOf(","));
+                final String replacee = function.substring(function.lastIndexOf(",") + 1,
+                        function.indexOf(")", function.lastIndexOf(",")));
+                final Pattern pattern = Pattern.compile(replaced);
+                return entry -> {
+                    try {
+                        return pattern.matcher(entry).replaceAll(replacee).trim();
+                    } catch (IndexOutOfBoundsException e) {
+                        logger.warn("Preprocessing function " + function + " could not be read.");
+                        return entry;
+                    }
+                };
+            } catch (IndexOutOfBoundsException e1) {
+                logger.warn("Preprocessing function " + function + " could not be read.");
+            } catch (PatternSyntaxException e2) {
+                logger.warn("Preprocessing function " + function
+                        + " could not be read. Error in Regular Expression.");
+            }
+            return entry -> entry;
+        }
+        if (isCut(function)) {
+            List<Boolean> cuts = new ArrayList<>();
+            cuts.add(function.startsWith(Preprocessor.CLEAN_IRI));
+            return new CutStep(cuts, null);
+        }
+        if (function.startsWith(Preprocessor.NUMBER)) {
+            return PreprocessingPipeline::number;
+        }
+        if (function.startsWith(Preprocessor.CELSIUS)) {
+            return entry -> (32 + Double.parseDouble(number(entry)) * 9 / 5) + "";
+        }
+        if (function.startsWith(Preprocessor.FAHRENHEIT)) {
+            return entry -> ((Double.parseDouble(number(entry)) - 32) * 5 / 9) + "";
+        }
+        if (function.startsWith(Preprocessor.DATE)) {
+            return entry -> DATE_PATTERN.matcher(entry).replaceAll("");
+        }
+        if (function.startsWith(Preprocessor.REMOVE_BRACES)) {
+            return PreprocessingPipeline::removeBraces;
+        }
+        if (function.startsWith(Preprocessor.REGULAR_ALPHABET)) {
+            return compileFunction("regexreplace([^A-Za-z0-9 ],)");
+        }
+        if (function.startsWith(Preprocessor.URI_AS_STRING)) {
+            return PreprocessingPipeline::uriAsString;
+        }
+        //function not known...
+        logger.warn("Unknown preprocessing function " + function);
+        return entry -> entry;
+    }
+
+    private static String number(String entry) {
+        //get rid of the type information
+        String value = NUMBER_PATTERN.matcher(entry).replaceAll("");
+        if (value.length() == 0) {
+            return 0 + "";
+        }
+        try {
+            Double.parseDouble(value);
+        } catch (Exception e) {
+            return 0 + "";
+        }
+        return value;
+    }
+
+    private static String removeBraces(String entry) {
+        int openBrace = entry.indexOf("(");
+        int closingBrace = entry.indexOf(")", Math.max(openBrace, 0));
+        if (closingBrace > -1 && openBrace > -1) {
+            return entry.substring(0, Math.min(closingBrace, openBrace) - 1)
+                    + entry.substring(Math.max(openBrace, closingBrace) + 1);
+        }
+        return entry.replace("(", "").replace(")", "");
+    }
+
+    /**
+     * Returns the last part of an URI as a String. Additional parsing _ as
+     * space.
+     */
+    private static String uriAsString(String org) {
+        String result = org;
+        int slash = org.lastIndexOf("/");
+        if (slash > 0 && slash < (org.length() - 1)) {
+            result = org.substring(slash + 1);
+        }
+        int colon = org.lastIndexOf(":");
+        if (colon > 0 && colon < (org.length() - 1)) {
+            result = org.substring(colon + 1);
+        }
+        return result.replace('_', ' ');
+    }
+}
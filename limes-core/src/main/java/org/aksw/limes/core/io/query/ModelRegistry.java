@@ -1,7 +1,7 @@
 package org.aksw.limes.core.io.query;
 
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.jena.rdf.model.Model;
 import org.slf4j.Logger;
@@ -17,13 +17,11 @@ import org.slf4j.LoggerFactory;
 public class ModelRegistry {
     static Logger logger = LoggerFactory.getLogger("LIMES");
 
-    private static ModelRegistry instance = null;
-    private Map<String, Model> map = new HashMap<String, Model>();
+    // caches of the source and target may be loaded concurrently
+    private static final ModelRegistry instance = new ModelRegistry();
+    private Map<String, Model> map = new ConcurrentHashMap<String, Model>();
 
     public static ModelRegistry getInstance() {
-        if (instance == null) {
-            instance = new ModelRegistry();
-        }
         return instance;
     }
 
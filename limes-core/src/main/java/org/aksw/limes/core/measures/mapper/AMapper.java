@@ -1,13 +1,11 @@
 package org.aksw.limes.core.measures.mapper;
 
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
 import org.aksw.limes.core.io.cache.ACache;
 import org.aksw.limes.core.io.mapping.AMapping;
+import org.aksw.limes.core.io.mapping.EncodedMapping;
 import org.aksw.limes.core.io.mapping.MappingFactory;
 
 /**
@@ -20,7 +18,59 @@ import org.aksw.limes.core.io.mapping.MappingFactory;
 public abstract class AMapper implements IMapper {
 
     /**
-     * Helper method, re-factored from common setup code of Mappers.
+     * Value indexes shared with the other mappers of an execution, null if
+     * each call builds its own indexes.
+     */
+    private ValueIndexRegistry valueIndexes;
+
+    /**
+     * Counts the candidate and verified pairs of the mapper, null if they are
+     * not counted.
+     */
+    private PairCounter pairCounter;
+
+    public ValueIndexRegistry getValueIndexes() {
+        return valueIndexes;
+    }
+
+    /**
+     * @param valueIndexes
+     *            Value indexes shared with the other mappers of an execution
+     */
+    public void setValueIndexes(ValueIndexRegistry valueIndexes) {
+        this.valueIndexes = valueIndexes;
+    }
+
+    public PairCounter getPairCounter() {
+        return pairCounter;
+    }
+
+    /**
+     * @param pairCounter
+     *            Counts the candidate and verified pairs of the mapper
+     */
+    public void setPairCounter(PairCounter pairCounter) {
+        this.pairCounter = pairCounter;
+    }
+
+    /**
+     * Adds to the pair counter of the mapper, if it has one.
+     *
+     * @param candidates
+     *            Number of compared candidate pairs
+     * @param verified
+     *            Number of candidate pairs that passed the comparison
+     */
+    protected void countPairs(long candidates, long verified) {
+        if (pairCounter != null) {
+            pairCounter.add(candidates, verified);
+        }
+    }
+
+    /**
+     * Helper method, re-factored from common setup code of Mappers. The map
+     * is a read-only view of a {@link ValueIndex}, taken from the shared value
+     * indexes if the mapper has them.
      *
      * @param cache,
      *            Input cache
@@ -30,18 +80,24 @@ public abstract class AMapper implements IMapper {
      *         property
      */
     protected Map<String, Set<String>> getValueToUriMap(ACache cache, String property) {
-        Map<String, Set<String>> result = new HashMap<>();
-        List<String> uris = cache.getAllUris();
-        for (String uri : uris) {
-            Set<String> values = cache.getInstance(uri).getProperty(property);
-            for (String value : values) {
-                if (!result.containsKey(value)) {
-                    result.put(value, new HashSet<>());
-                }
-                result.get(value).add(uri);
-            }
+        return getValueIndex(cache, property).asMap();
+    }
+
+    /**
+     * Returns the value index of a property, taken from the shared value
+     * indexes if the mapper has them.
+     *
+     * @param cache,
+     *            Input cache
+     * @param property,
+     *            Input linking property
+     * @return the value index
+     */
+    protected ValueIndex getValueIndex(ACache cache, String property) {
+        if (valueIndexes != null) {
+            return valueIndexes.getIndex(cache, property);
         }
-        return result;
+        return new ValueIndex(cache, property);
     }
 
     /**
@@ -61,14 +117,17 @@ public abstract class AMapper implements IMapper {
             Map<String, Set<String>> sourceValueToUriMap, Map<String, Set<String>> targetValueToUriMap,
             boolean swapped) {
         AMapping result = MappingFactory.createDefaultMapping();
-        for (String s : valueMap.keySet()) {
-            for (String t : valueMap.get(s).keySet()) {
-                if (sourceValueToUriMap.get(swapped ? t : s) != null)
-                    for (String sourceUri : sourceValueToUriMap.get(swapped ? t : s)) {
-                        for (String targetUri : targetValueToUriMap.get(swapped ? s : t)) {
-                            result.add(sourceUri, targetUri, valueMap.get(s).get(t));
+        for (Map.Entry<String, Map<String, Double>> row : valueMap.entrySet()) {
+            for (Map.Entry<String, Double> link : row.getValue().entrySet()) {
+                Set<String> sourceUris = sourceValueToUriMap.get(swapped ? link.getKey() : row.getKey());
+                if (sourceUris != null) {
+                    Set<String> targetUris = targetValueToUriMap.get(swapped ? row.getKey() : link.getKey());
+                    for (String sourceUri : sourceUris) {
+                        for (String targetUri : targetUris) {
+                            result.add(sourceUri, targetUri, link.getValue());
                         }
                     }
+                }
             }
         }
         return result;
@@ -79,4 +138,35 @@ public abstract class AMapper implements IMapper {
         return getUriToUriMapping(valueMap, sourceValueToUriMap, targetValueToUriMap, false);
     }
 
+    /**
+     * Helper method for top-k mappers: expands the heaps of the most similar
+     * target values of each source value into links between URIs and keeps
+     * the k most similar targets of each source URI.
+     *
+     * @param heaps
+     *            Heap of the most similar target values of each source value
+     * @param sourceValueToUriMap
+     *            ValueToUriMap constructed from a source cache
+     * @param targetValueToUriMap
+     *            ValueToUriMap constructed from a target cache
+     * @param k
+     *            Number of targets per source
+     * @return Mapping from source resource uri to its top-k target resource
+     *         uris
+     */
+    protected AMapping getTopKUriToUriMapping(Map<String, TopKHeap<String>> heaps,
+            Map<String, Set<String>> sourceValueToUriMap, Map<String, Set<String>> targetValueToUriMap, int k) {
+        AMapping result = MappingFactory.createDefaultMapping();
+        for (Map.Entry<String, TopKHeap<String>> heap : heaps.entrySet()) {
+            for (Map.Entry<String, Double> item : heap.getValue().getItems().entrySet()) {
+                for (String sourceUri : sourceValueToUriMap.get(heap.getKey())) {
+                    for (String targetUri : targetValueToUriMap.get(item.getKey())) {
+                        result.add(sourceUri, targetUri, item.getValue());
+                    }
+                }
+            }
+        }
+        return EncodedMapping.of(result).getTopK(k);
+    }
+
 }
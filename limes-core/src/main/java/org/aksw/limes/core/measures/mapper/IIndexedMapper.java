@@ -0,0 +1,29 @@
+package org.aksw.limes.core.measures.mapper;
+
+import org.aksw.limes.core.io.cache.ACache;
+
+/**
+ * A mapper whose index of the target can be kept and reused for several
+ * sources, e.g. for micro-batches of a stream of source instances.
+ *
+ * @version 1.0
+ */
+public interface IIndexedMapper extends IMapper {
+    /**
+     * Indexes the target of an atomic link specification.
+     *
+     * @param target
+     *            target cache
+     * @param sourceVar
+     *            source property variable
+     * @param targetVar
+     *            target property variable
+     * @param expression
+     *            metric expression of link specification
+     * @param threshold
+     *            threshold of link specification
+     * @return the index, null if the mapper cannot index this expression
+     */
+    ITargetIndex getTargetIndex(ACache target, String sourceVar, String targetVar, String expression,
+            double threshold);
+}
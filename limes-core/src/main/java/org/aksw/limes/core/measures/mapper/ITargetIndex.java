@@ -0,0 +1,23 @@
+package org.aksw.limes.core.measures.mapper;
+
+import org.aksw.limes.core.io.cache.ACache;
+import org.aksw.limes.core.io.mapping.AMapping;
+
+/**
+ * Index of the target side of an atomic link specification. It is built once
+ * by an {@link IIndexedMapper} and can then be probed with any number of
+ * source caches, each returning the same mapping as the mapper would return
+ * for this source and the indexed target.
+ *
+ * @version 1.0
+ */
+public interface ITargetIndex {
+    /**
+     * Returns the links between a source and the indexed target.
+     *
+     * @param source
+     *            source cache
+     * @return a mapping, the resulting mapping
+     */
+    AMapping getMapping(ACache source);
+}
@@ -0,0 +1,38 @@
+package org.aksw.limes.core.measures.mapper;
+
+import org.aksw.limes.core.io.cache.ACache;
+import org.aksw.limes.core.io.mapping.AMapping;
+
+/**
+ * A mapper that can compute the k most similar targets of each source
+ * directly, raising its pruning threshold while the k best targets of a source
+ * are found instead of materializing all links above a low threshold.
+ *
+ * @version 1.0
+ */
+public interface ITopKMapper extends IMapper {
+    /**
+     * Returns for each source the links to its k most similar targets. Links
+     * whose similarity ties with the k-th one are kept as well. The result is
+     * the same as the top-k links of
+     * {@link #getMapping(ACache, ACache, String, String, String, double)}.
+     *
+     * @param source
+     *            source cache
+     * @param target
+     *            target cache
+     * @param sourceVar
+     *            source property variable
+     * @param targetVar
+     *            target property variable
+     * @param expression
+     *            metric expression of link specification
+     * @param threshold
+     *            minimal similarity of a link
+     * @param k
+     *            number of targets per source
+     * @return a mapping, the resulting mapping
+     */
+    AMapping getTopKMapping(ACache source, ACache target, String sourceVar, String targetVar, String expression,
+            double threshold, int k);
+}
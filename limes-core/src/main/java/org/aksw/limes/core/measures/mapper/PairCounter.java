@@ -0,0 +1,46 @@
+package org.aksw.limes.core.measures.mapper;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts the candidate pairs a mapper compares and the pairs among them that
+ * pass the comparison. Mappers that split their work across a thread pool
+ * add the counts of each partition, so a counter may be used by several
+ * threads at once. Mappers that join distinct property values count pairs of
+ * values, not pairs of instances.
+ *
+ * @version 1.0
+ */
+public class PairCounter {
+
+    private final LongAdder candidates = new LongAdder();
+    private final LongAdder verified = new LongAdder();
+    private volatile boolean counted = false;
+
+    /**
+     * @param candidates
+     *            Number of compared candidate pairs
+     * @param verified
+     *            Number of candidate pairs that passed the comparison
+     */
+    public void add(long candidates, long verified) {
+        this.candidates.add(candidates);
+        this.verified.add(verified);
+        counted = true;
+    }
+
+    /**
+     * @return true if a mapper added counts
+     */
+    public boolean isCounted() {
+        return counted;
+    }
+
+    public long getCandidates() {
+        return candidates.sum();
+    }
+
+    public long getVerified() {
+        return verified.sum();
+    }
+}
@@ -0,0 +1,124 @@
+package org.aksw.limes.core.measures.mapper;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Bounded heap of the most similar targets of one source. Each item stands for
+ * a set of target URIs, e.g. the URIs of a target value. Items are only
+ * evicted while the remaining ones still cover k URIs, so that items tying
+ * with the k-th similarity are kept. Once k URIs are covered, the smallest
+ * similarity in the heap is the threshold below which candidates can be
+ * pruned.
+ *
+ * @param <T>
+ *            Type of the items
+ * @version 1.0
+ */
+public class TopKHeap<T> {
+
+    private final int k;
+    private final double threshold;
+    private final PriorityQueue<Entry<T>> queue = new PriorityQueue<>();
+    private final Map<String, Integer> uriCounts = new HashMap<>();
+
+    /**
+     * Constructor of TopKHeap class.
+     *
+     * @param k
+     *            Number of target URIs to keep
+     * @param threshold
+     *            Minimal similarity of an item
+     */
+    public TopKHeap(int k, double threshold) {
+        this.k = k;
+        this.threshold = threshold;
+    }
+
+    /**
+     * @return the similarity an item needs to enter the heap
+     */
+    public double getThreshold() {
+        if (uriCounts.size() >= k) {
+            return queue.peek().similarity;
+        }
+        return threshold;
+    }
+
+    /**
+     * Adds an item, unless its similarity is below the threshold.
+     *
+     * @param item
+     *            The item
+     * @param similarity
+     *            Similarity of the item
+     * @param uris
+     *            Target URIs of the item
+     */
+    public void add(T item, double similarity, Collection<String> uris) {
+        if (!(similarity >= getThreshold())) {
+            return;
+        }
+        queue.add(new Entry<T>(item, similarity, uris));
+        count(uris, 1);
+        while (uriCounts.size() > k) {
+            double min = queue.peek().similarity;
+            List<Entry<T>> evicted = new ArrayList<>();
+            while (!queue.isEmpty() && queue.peek().similarity == min) {
+                Entry<T> entry = queue.poll();
+                count(entry.uris, -1);
+                evicted.add(entry);
+            }
+            if (uriCounts.size() < k) {
+                for (Entry<T> entry : evicted) {
+                    queue.add(entry);
+                    count(entry.uris, 1);
+                }
+                break;
+            }
+        }
+    }
+
+    private void count(Collection<String> uris, int delta) {
+        for (String uri : uris) {
+            int count = uriCounts.getOrDefault(uri, 0) + delta;
+            if (count == 0) {
+                uriCounts.remove(uri);
+            } else {
+                uriCounts.put(uri, count);
+            }
+        }
+    }
+
+    /**
+     * @return the items in the heap and their similarity
+     */
+    public Map<T, Double> getItems() {
+        Map<T, Double> items = new HashMap<>();
+        for (Entry<T> entry : queue) {
+            items.put(entry.item, entry.similarity);
+        }
+        return items;
+    }
+
+    private static class Entry<T> implements Comparable<Entry<T>> {
+        private final T item;
+        private final double similarity;
+        private final Collection<String> uris;
+
+        private Entry(T item, double similarity, Collection<String> uris) {
+            this.item = item;
+            this.similarity = similarity;
+            this.uris = uris;
+        }
+
+        @Override
+        public int compareTo(Entry<T> other) {
+            return Double.compare(similarity, other.similarity);
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package org.aksw.limes.core.measures.mapper;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import org.aksw.limes.core.io.cache.ACache;
+
+/**
+ * Dictionary of the distinct values of a property in a cache. Each value has
+ * an int id, and the URIs of the instances with value v are
+ * uris[postings[postingStarts[v]]] to
+ * uris[postings[postingStarts[v + 1] - 1]], in the order of the cache.
+ *
+ * @version 1.0
+ */
+public class ValueIndex {
+
+    private final String[] uris;
+    private final String[] values;
+    private final Map<String, Integer> ids;
+    private final int[] postingStarts;
+    private final int[] postings;
+
+    /**
+     * Constructor of ValueIndex class.
+     *
+     * @param cache
+     *            The cache whose values are indexed
+     * @param property
+     *            The indexed property
+     */
+    public ValueIndex(ACache cache, String property) {
+        ArrayList<String> allUris = cache.getAllUris();
+        uris = allUris.toArray(new String[allUris.size()]);
+        ids = new HashMap<>();
+        List<String> distinct = new ArrayList<>();
+        int[] valueIds = new int[uris.length];
+        int[] uriIds = new int[uris.length];
+        int[] counts = new int[16];
+        int size = 0;
+        for (int i = 0; i < uris.length; i++) {
+            for (String value : cache.getInstance(uris[i]).getProperty(property)) {
+                Integer id = ids.get(value);
+                if (id == null) {
+                    id = distinct.size();
+                    ids.put(value, id);
+                    distinct.add(value);
+                    if (id == counts.length) {
+                        counts = Arrays.copyOf(counts, 2 * id);
+                    }
+                }
+                if (size == valueIds.length) {
+                    valueIds = Arrays.copyOf(valueIds, Math.max(16, 2 * size));
+                    uriIds = Arrays.copyOf(uriIds, valueIds.length);
+                }
+                valueIds[size] = id;
+                uriIds[size++] = i;
+                counts[id]++;
+            }
+        }
+        values = distinct.toArray(new String[distinct.size()]);
+        postingStarts = new int[values.length + 1];
+        for (int v = 0; v < values.length; v++) {
+            postingStarts[v + 1] = postingStarts[v] + counts[v];
+        }
+        int[] next = Arrays.copyOf(postingStarts, values.length);
+        postings = new int[size];
+        for (int k = 0; k < size; k++) {
+            postings[next[valueIds[k]]++] = uriIds[k];
+        }
+    }
+
+    /**
+     * @return number of distinct values
+     */
+    public int size() {
+        return values.length;
+    }
+
+    /**
+     * @param value
+     *            A value
+     * @return the id of the value, -1 if no instance has it
+     */
+    public int getId(String value) {
+        Integer id = ids.get(value);
+        return id == null ? -1 : id;
+    }
+
+    public String getValue(int id) {
+        return values[id];
+    }
+
+    /**
+     * @param id
+     *            Id of a value
+     * @return the URIs of the instances with the value
+     */
+    public Set<String> getUris(int id) {
+        return new Postings(postingStarts[id], postingStarts[id + 1]);
+    }
+
+    /**
+     * Returns a read-only view of the index as a map from values to the URIs
+     * of the instances with the value, as returned by
+     * {@link AMapper#getValueToUriMap(ACache, String)}.
+     *
+     * @return the map view
+     */
+    public Map<String, Set<String>> asMap() {
+        return new AbstractMap<String, Set<String>>() {
+            @Override
+            public Set<String> get(Object value) {
+                Integer id = ids.get(value);
+                return id == null ? null : getUris(id);
+            }
+
+            @Override
+            public boolean containsKey(Object value) {
+                return ids.containsKey(value);
+            }
+
+            @Override
+            public int size() {
+                return values.length;
+            }
+
+            @Override
+            public Set<String> keySet() {
+                return Collections.unmodifiableSet(ids.keySet());
+            }
+
+            @Override
+            public Set<Map.Entry<String, Set<String>>> entrySet() {
+                return new AbstractSet<Map.Entry<String, Set<String>>>() {
+                    @Override
+                    public Iterator<Map.Entry<String, Set<String>>> iterator() {
+                        return new Iterator<Map.Entry<String, Set<String>>>() {
+                            private int id = 0;
+
+                            @Override
+                            public boolean hasNext() {
+                                return id < values.length;
+                            }
+
+                            @Override
+                            public Map.Entry<String, Set<String>> next() {
+                                if (!hasNext()) {
+                                    throw new NoSuchElementException();
+                                }
+                                Map.Entry<String, Set<String>> entry = new AbstractMap.SimpleImmutableEntry<>(
+                                        values[id], getUris(id));
+                                id++;
+                                return entry;
+                            }
+                        };
+                    }
+
+                    @Override
+                    public int size() {
+                        return values.length;
+                    }
+                };
+            }
+        };
+    }
+
+    /**
+     * The URIs of one posting list.
+     */
+    private class Postings extends AbstractSet<String> {
+        private final int start;
+        private final int end;
+
+        private Postings(int start, int end) {
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        public Iterator<String> iterator() {
+            return new Iterator<String>() {
+                private int k = start;
+
+                @Override
+                public boolean hasNext() {
+                    return k < end;
+                }
+
+                @Override
+                public String next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    return uris[postings[k++]];
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return end - start;
+        }
+    }
+}
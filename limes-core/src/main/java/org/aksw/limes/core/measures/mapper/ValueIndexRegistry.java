@@ -0,0 +1,49 @@
+package org.aksw.limes.core.measures.mapper;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+import org.aksw.limes.core.io.cache.ACache;
+
+/**
+ * The value indexes of one execution, built once per cache and property and
+ * shared by all mappers of the execution. A cache whose properties were
+ * preprocessed is a different cache and gets its own indexes. Caches are
+ * weakly referenced, so that the indexes of caches that are no longer used,
+ * e.g. micro-batches of a stream, are dropped with them.
+ *
+ * @version 1.0
+ */
+public class ValueIndexRegistry {
+
+    private final Map<ACache, Map<String, ValueIndex>> indexes = new WeakHashMap<>();
+    private int builds = 0;
+
+    /**
+     * Returns the index of a property in a cache, building it on first use.
+     *
+     * @param cache
+     *            The cache
+     * @param property
+     *            The property
+     * @return the value index
+     */
+    public synchronized ValueIndex getIndex(ACache cache, String property) {
+        Map<String, ValueIndex> byProperty = indexes.computeIfAbsent(cache, c -> new HashMap<>());
+        ValueIndex index = byProperty.get(property);
+        if (index == null) {
+            index = new ValueIndex(cache, property);
+            byProperty.put(property, index);
+            builds++;
+        }
+        return index;
+    }
+
+    /**
+     * @return number of indexes built so far
+     */
+    public synchronized int getBuildCount() {
+        return builds;
+    }
+}
@@ -1,9 +1,10 @@
 package org.aksw.limes.core.measures.mapper.resourcesets;
 
 import java.util.ArrayList;
-import java.util.Collection;
-import java.util.Iterator;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.aksw.limes.core.io.cache.ACache;
@@ -11,274 +12,274 @@ import org.aksw.limes.core.io.mapping.AMapping;
 import org.aksw.limes.core.io.mapping.MappingFactory;
 import org.aksw.limes.core.measures.mapper.AMapper;
 import org.aksw.limes.core.measures.mapper.pointsets.PropertyFetcher;
+import org.aksw.limes.core.util.Partitions;
 
 /**
+ * Set similarity join for the Jaccard similarity of multi-valued properties.
+ * The values of both knowledge bases are dictionary-encoded into sorted int
+ * arrays, where tokens are ordered by ascending global frequency so that the
+ * prefixes of the sets consist of their rarest tokens. The target sets are
+ * indexed by their prefixes, the source sets probe the index in parallel
+ * (AllPairs/PPJoin): candidates must share a prefix token, pass the length
+ * filter and the positional filter, and are finally verified by a merge
+ * intersection of the sorted arrays.
+ *
  * @author Kevin Dreßler
  * @since 1.0
  */
 public class SetJaccardMapper extends AMapper {
 
-    public static class SetSizeQuicksort {
+    /**
+     * Minimal number of source sets per parallel probing partition.
+     */
+    private static final int MIN_PARTITION_SIZE = 1000;
 
-        /**
-         * Public class method to quicksort lists
-         *
-         * @param values
-         *         list of sets of strings
-         */
-        public static void sort(List<Set<String>> values) {
-            if (values == null || values.size() == 0)
-                return;
-            quicksort(values, 0, values.size() - 1);
-        }
-
-        /**
-         * Quicksort class method
-         *
-         * @param strings
-         *         list of sets of strings
-         * @param low
-         *         low index
-         * @param high
-         *         high index
-         */
-        private static void quicksort(List<Set<String>> strings, int low, int high) {
-            int i = low, j = high;
-            int pivot = strings.get(low + (high - low) / 2).size();
-            while (i <= j) {
-                while (strings.get(i).size() < pivot)
-                    i++;
-                while (strings.get(j).size() > pivot)
-                    j--;
-                if (i <= j) {
-                    exchange(strings, i, j);
-                    i++;
-                    j--;
-                }
-            }
-            if (low < j)
-                quicksort(strings, low, j);
-            if (i < high)
-                quicksort(strings, i, high);
-        }
-
-        /**
-         * Swap elements
-         *
-         * @param strings
-         *         list of sets of strings
-         * @param i
-         *         index of element a to be swapped
-         * @param j
-         *         index of element b to be swapped
-         */
-        private static void exchange(List<Set<String>> strings, int i, int j) {
-            Set<String> temp = strings.get(i);
-            strings.set(i, strings.get(j));
-            strings.set(j, temp);
-        }
-    }
+    /**
+     * Tolerance for rounding the filter bounds.
+     */
+    private static final double EPSILON = 1e-9;
 
-    public static class NamedHashSet<E> implements Set<E> {
-        private String uri;
-        private Set<E> decoratedSet;
+    /**
+     * Dictionary-encoded value sets of a knowledge base, ordered by size.
+     */
+    private static class EncodedSets {
+        private final String[] uris;
+        private final int[][] sets;
 
-        public NamedHashSet(Set<E> set, String uri) {
-            this.decoratedSet = set;
-            this.uri = uri;
+        private EncodedSets(String[] uris, int[][] sets) {
+            this.uris = uris;
+            this.sets = sets;
         }
 
-        public String getUri() {
-            return uri;
-        }
-
-        public void setUri(String uri) {
-            this.uri = uri;
-        }
-
-        @Override
-        public int size() {
-            return decoratedSet.size();
-        }
-
-        @Override
-        public boolean isEmpty() {
-            return decoratedSet.isEmpty();
+        private int size() {
+            return sets.length;
         }
+    }
 
-        @Override
-        public boolean contains(Object o) {
-            return decoratedSet.contains(o);
-        }
+    /**
+     * Inverted index of the prefix tokens of the target sets. The postings of
+     * token k are stored at [start[k], start[k + 1]) of records and positions
+     * and are ordered by the size of their sets.
+     */
+    private static class PrefixIndex {
+        private final int[] start;
+        private final int[] records;
+        private final int[] positions;
 
-        @Override
-        public Iterator<E> iterator() {
-            return decoratedSet.iterator();
+        private PrefixIndex(EncodedSets target, int dictionarySize, double threshold) {
+            start = new int[dictionarySize + 1];
+            for (int[] set : target.sets) {
+                for (int i = 0; i < prefixLength(set.length, threshold); i++) {
+                    start[set[i] + 1]++;
+                }
+            }
+            for (int k = 0; k < dictionarySize; k++) {
+                start[k + 1] += start[k];
+            }
+            records = new int[start[dictionarySize]];
+            positions = new int[start[dictionarySize]];
+            int[] next = Arrays.copyOf(start, dictionarySize);
+            for (int r = 0; r < target.size(); r++) {
+                int[] set = target.sets[r];
+                for (int i = 0; i < prefixLength(set.length, threshold); i++) {
+                    int p = next[set[i]]++;
+                    records[p] = r;
+                    positions[p] = i;
+                }
+            }
         }
+    }
 
-        @Override
-        public Object[] toArray() {
-            return decoratedSet.toArray();
+    @Override
+    public AMapping getMapping(ACache source, ACache target, String sourceVar, String targetVar, String expression,
+            double threshold) {
+        List<String> properties = PropertyFetcher.getProperties(expression, threshold);
+        List<String> sourceUris = new ArrayList<>(), targetUris = new ArrayList<>();
+        List<Set<String>> sourceValues = new ArrayList<>(), targetValues = new ArrayList<>();
+        collect(source, properties.get(0), sourceUris, sourceValues);
+        collect(target, properties.get(1), targetUris, targetValues);
+        if (sourceValues.isEmpty() || targetValues.isEmpty()) {
+            return MappingFactory.createDefaultMapping();
         }
+        Map<String, Integer> dictionary = buildDictionary(sourceValues, targetValues);
+        EncodedSets sourceSets = encode(sourceUris, sourceValues, dictionary);
+        EncodedSets targetSets = encode(targetUris, targetValues, dictionary);
+        PrefixIndex index = new PrefixIndex(targetSets, dictionary.size(), threshold);
+        return probe(sourceSets, targetSets, index, threshold);
+    }
 
-        @Override
-        public <T> T[] toArray(T[] a) {
-            return decoratedSet.toArray(a);
+    private void collect(ACache c, String p, List<String> uris, List<Set<String>> values) {
+        for (String uri : c.getAllUris()) {
+            Set<String> v = c.getInstance(uri).getProperty(p);
+            if (v.size() > 0) {
+                uris.add(uri);
+                values.add(v);
+            }
         }
+    }
 
-        @Override
-        public boolean add(E e) {
-            return decoratedSet.add(e);
+    /**
+     * Assigns an id to every token, rare tokens get small ids.
+     */
+    private Map<String, Integer> buildDictionary(List<Set<String>> sourceValues, List<Set<String>> targetValues) {
+        final Map<String, Integer> frequencies = new HashMap<>();
+        for (List<Set<String>> values : Arrays.asList(sourceValues, targetValues)) {
+            for (Set<String> set : values) {
+                for (String token : set) {
+                    frequencies.merge(token, 1, Integer::sum);
+                }
+            }
         }
-
-        @Override
-        public boolean remove(Object o) {
-            return decoratedSet.remove(o);
+        List<String> tokens = new ArrayList<>(frequencies.keySet());
+        tokens.sort((a, b) -> {
+            int c = Integer.compare(frequencies.get(a), frequencies.get(b));
+            return c != 0 ? c : a.compareTo(b);
+        });
+        Map<String, Integer> dictionary = new HashMap<>(tokens.size() * 2);
+        for (int id = 0; id < tokens.size(); id++) {
+            dictionary.put(tokens.get(id), id);
         }
+        return dictionary;
+    }
 
-        @Override
-        public boolean containsAll(Collection<?> c) {
-            return decoratedSet.containsAll(c);
+    private EncodedSets encode(List<String> uris, List<Set<String>> values, Map<String, Integer> dictionary) {
+        Integer[] order = new Integer[uris.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
         }
-
-        @Override
-        public boolean addAll(Collection<? extends E> c) {
-            return decoratedSet.addAll(c);
+        Arrays.sort(order, (a, b) -> Integer.compare(values.get(a).size(), values.get(b).size()));
+        String[] sortedUris = new String[order.length];
+        int[][] sets = new int[order.length][];
+        for (int r = 0; r < order.length; r++) {
+            sortedUris[r] = uris.get(order[r]);
+            int[] set = new int[values.get(order[r]).size()];
+            int i = 0;
+            for (String token : values.get(order[r])) {
+                set[i++] = dictionary.get(token);
+            }
+            Arrays.sort(set);
+            sets[r] = set;
         }
+        return new EncodedSets(sortedUris, sets);
+    }
 
-        @Override
-        public boolean retainAll(Collection<?> c) {
-            return decoratedSet.retainAll(c);
-        }
+    /**
+     * Number of tokens of a set of the given size that must be indexed and
+     * probed, i.e. size - ceil(threshold * size) + 1.
+     */
+    private static int prefixLength(int size, double threshold) {
+        return size - minSize(size, threshold) + 1;
+    }
 
-        @Override
-        public boolean removeAll(Collection<?> c) {
-            return decoratedSet.removeAll(c);
-        }
+    private static int minSize(int size, double threshold) {
+        return threshold > 0 ? Math.max(1, (int) Math.ceil(threshold * size - EPSILON)) : 1;
+    }
 
-        @Override
-        public void clear() {
-            decoratedSet.clear();
-        }
+    private static int maxSize(int size, double threshold) {
+        return threshold > 0 ? (int) Math.min(Integer.MAX_VALUE, Math.floor(size / threshold + EPSILON))
+                : Integer.MAX_VALUE;
     }
 
-    @Override
-    public AMapping getMapping(ACache source, ACache target, String sourceVar, String targetVar, String expression, double threshold) {
-        // Phase 0: Initialize
-        List<String> properties;
-        List<Set<String>> sourceIndex, targetIndex, small, big;
-        properties = PropertyFetcher.getProperties(expression, threshold);
-        sourceIndex = buildIndex(source, properties.get(0));
-        targetIndex = buildIndex(target, properties.get(1));
-        // Swap if necessary
-        if (sourceIndex.size() > targetIndex.size()) {
-            big = sourceIndex;
-            small = targetIndex;
-        } else {
-            big = targetIndex;
-            small = sourceIndex;
-        }
-        List<List<Set<String>>> possibleMatches = getPossibleMatches(small, big, threshold);
-        AMapping result = MappingFactory.createDefaultMapping();
-        for (int i = 0; i < possibleMatches.size(); i+=2) {
-            List<Set<String>> s = possibleMatches.get(i);
-            List<Set<String>> t = possibleMatches.get(i+1);
-            for (Set<String> setS : s) {
-                for (Set<String> setT : t) {
-                    double score = fastSimCheck(setS, setT, threshold);
-                    if (score >= threshold) {
-                        result.add(((NamedHashSet<String>)setS).getUri(), ((NamedHashSet<String>)setT).getUri(), score);
-                    }
-                }
-            }
-        }
-        return result;
+    /**
+     * Minimal overlap of two sets of the given sizes to reach the threshold.
+     */
+    private static int minOverlap(int sizeS, int sizeT, double threshold) {
+        return Math.max(1, (int) Math.ceil(threshold / (1 + threshold) * (sizeS + sizeT) - EPSILON));
     }
 
-    private List<Set<String>> buildIndex(ACache c, String p) {
-        List<Set<String>> index = new ArrayList<>();
-        // Phase 1: Build index
-        for (String uri : c.getAllUris()) {
-            Set<String> values = new NamedHashSet<>(c.getInstance(uri).getProperty(p), uri);
-            if (values.size() > 0) {
-                index.add(values);
-            }
-        }
-        SetSizeQuicksort.sort(index);
-        return index;
+    private AMapping probe(final EncodedSets source, final EncodedSets target, final PrefixIndex index,
+            final double threshold) {
+        return Partitions.collect(source.size(), MIN_PARTITION_SIZE,
+                (from, to) -> probe(source, target, index, threshold, from, to));
     }
 
-    private List<List<Set<String>>> getPossibleMatches(List<Set<String>> small, List<Set<String>> big, double threshold) {
-        // Phase 2: Iterate over smaller KB
-        int startBig = 0;
-        int oldSize = small.get(0).size();
-        List<Set<String>> tempSource = new ArrayList<>();
-        List<Set<String>> tempTarget = new ArrayList<>();
-        List<List<Set<String>>> possibleMatches = new ArrayList<>();
-        for (Set<String> values : small) {
-            // add sets of same size in small to temp
-            if (values.size() > oldSize) {
-                // Phase 2.1: Use boundaries to lookup possible matches
-                int loB, hiB, nextStartSize;
-                boolean nextStartSizeNotFixedYet = true;
-                loB = (int) Math.ceil((double) oldSize * threshold);
-                hiB = (int) Math.floor((double) oldSize / threshold);
-                nextStartSize = (int) Math.ceil(threshold * (double) values.size());
-                for (int j = startBig; j < big.size(); j++) {
-                    Set<String> targetValues = big.get(j);
-                    if (targetValues.size() < loB) {
+    /**
+     * Probes the source sets [from, to) against the prefix index.
+     */
+    private AMapping probe(EncodedSets source, EncodedSets target, PrefixIndex index, double threshold, int from,
+            int to) {
+        AMapping result = MappingFactory.createDefaultMapping();
+        // overlap within the prefixes so far, -1 marks pruned candidates
+        int[] overlap = new int[target.size()];
+        int[] candidates = new int[target.size()];
+        for (int r = from; r < to; r++) {
+            int[] x = source.sets[r];
+            int lo = minSize(x.length, threshold);
+            int hi = maxSize(x.length, threshold);
+            int candidateCount = 0;
+            for (int i = 0; i < prefixLength(x.length, threshold); i++) {
+                int end = index.start[x[i] + 1];
+                for (int p = firstPosting(index, target, x[i], lo); p < end; p++) {
+                    int c = index.records[p];
+                    int[] y = target.sets[c];
+                    if (y.length > hi) {
+                        break;
+                    }
+                    if (overlap[c] < 0) {
                         continue;
                     }
-                    if (targetValues.size() > hiB) {
-                        break;
+                    if (overlap[c] == 0) {
+                        candidates[candidateCount++] = c;
                     }
-                    if (nextStartSizeNotFixedYet && targetValues.size() >= nextStartSize) {
-                        nextStartSizeNotFixedYet = false;
-                        startBig = (startBig == 0) ? 0 : j - 1;
+                    int bound = overlap[c] + 1
+                            + Math.min(x.length - i - 1, y.length - index.positions[p] - 1);
+                    overlap[c] = bound >= minOverlap(x.length, y.length, threshold) ? overlap[c] + 1 : -1;
+                }
+            }
+            for (int k = 0; k < candidateCount; k++) {
+                int c = candidates[k];
+                if (overlap[c] > 0) {
+                    int[] y = target.sets[c];
+                    int common = intersect(x, y, minOverlap(x.length, y.length, threshold));
+                    if (common > 0) {
+                        double sim = common / ((double) x.length + (double) y.length - (double) common);
+                        if (sim >= threshold) {
+                            result.add(source.uris[r], target.uris[c], sim);
+                        }
                     }
-                    tempTarget.add(targetValues);
                 }
-                // Phase 2.2: Schedule temp lists for similarity check
-                possibleMatches.add(tempSource);
-                possibleMatches.add(tempTarget);
-                // Reset temps
-                tempSource = new ArrayList<>();
-                oldSize = values.size();
+                overlap[c] = 0;
             }
-            tempSource.add(values);
         }
-        int loB = (int) Math.ceil((double) oldSize * threshold);
-        int hiB = (int) Math.floor((double) oldSize / threshold);
-        for (int j = startBig; j < big.size(); j++) {
-            Set<String> targetValues = big.get(j);
-            if (targetValues.size() < loB) {
-                continue;
-            }
-            if (targetValues.size() > hiB) {
-                break;
-            }
-            tempTarget.add(targetValues);
+        return result;
+    }
+
+    /**
+     * Returns the first posting of a token whose set has at least minSize
+     * tokens.
+     */
+    private static int firstPosting(PrefixIndex index, EncodedSets target, int token, int minSize) {
+        int low = index.start[token], high = index.start[token + 1];
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (target.sets[index.records[mid]].length < minSize)
+                low = mid + 1;
+            else
+                high = mid;
         }
-        possibleMatches.add(tempSource);
-        possibleMatches.add(tempTarget);
-        return possibleMatches;
+        return low;
     }
 
-    private double fastSimCheck (Set<String> s, Set<String> t, double threshold) {
-        int matches = 0;
-        int mismatches = 0;
-        int maxMismatches = (int) Math.floor((Math.min(s.size(), t.size()) -
-                threshold * Math.max(s.size(), t.size())) / (1 + threshold));
-        for (String x : s) {
-            if (t.contains(x)) {
-                matches++;
-            } else {
-                mismatches++;
-                if (mismatches > maxMismatches)
-                    return 0d;
+    /**
+     * Merge intersection of two sorted int arrays. Stops as soon as the
+     * required overlap cannot be reached anymore.
+     *
+     * @return the size of the intersection, or 0 if it is below minOverlap
+     */
+    private static int intersect(int[] x, int[] y, int minOverlap) {
+        int i = 0, j = 0, common = 0;
+        while (i < x.length && j < y.length) {
+            if (common + Math.min(x.length - i, y.length - j) < minOverlap) {
+                return 0;
+            }
+            int a = x[i], b = y[j];
+            if (a == b) {
+                common++;
             }
+            i += (a <= b) ? 1 : 0;
+            j += (b <= a) ? 1 : 0;
         }
-        return matches / ((double) s.size() + (double) t.size() - (double) matches);
+        return common >= minOverlap ? common : 0;
     }
 
     @Override
@@ -0,0 +1,148 @@
+package org.aksw.limes.core.measures.mapper.space;
+
+import java.util.Arrays;
+
+/**
+ * Maps packed block ids to the indexes of the instances in the block. The
+ * keys are kept in an open-addressing table with linear probing and the
+ * instances of all blocks in one array, so that no objects are created per
+ * block or per instance. The table is built once and then only read, thus it
+ * can be probed by several threads.
+ *
+ * @version 1.0
+ */
+public class BlockTable {
+
+    private static final long EMPTY = Long.MIN_VALUE;
+
+    private final long[] keys;
+    /** Instances of the block in slot i are members[starts[i]] to members[starts[i + 1] - 1] */
+    private final int[] starts;
+    private final int[] members;
+    private final int mask;
+    private boolean hasEmptyKey = false;
+    private int emptyKeySlot = -1;
+
+    /**
+     * Constructor of BlockTable class.
+     *
+     * @param blockKeys
+     *            Packed block id of each entry
+     * @param instances
+     *            Instance index of each entry
+     * @param size
+     *            Number of entries
+     */
+    public BlockTable(long[] blockKeys, int[] instances, int size) {
+        int capacity = Integer.highestOneBit(Math.max(4, 2 * size - 1)) << 1;
+        keys = new long[capacity];
+        mask = capacity - 1;
+        Arrays.fill(keys, EMPTY);
+        // count the entries per slot, the slot of the key Long.MIN_VALUE is kept
+        // in the spare slot at the end
+        int[] counts = new int[capacity + 2];
+        int[] slots = new int[size];
+        for (int i = 0; i < size; i++) {
+            slots[i] = insert(blockKeys[i]);
+            counts[slots[i] + 1]++;
+        }
+        for (int i = 1; i < counts.length; i++) {
+            counts[i] += counts[i - 1];
+        }
+        starts = counts;
+        members = new int[size];
+        int[] fill = new int[capacity + 1];
+        for (int i = 0; i < size; i++) {
+            members[starts[slots[i]] + fill[slots[i]]++] = instances[i];
+        }
+    }
+
+    private int insert(long key) {
+        if (key == EMPTY) {
+            hasEmptyKey = true;
+            emptyKeySlot = keys.length;
+            return emptyKeySlot;
+        }
+        int slot = slot(key);
+        while (keys[slot] != EMPTY && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        return slot;
+    }
+
+    private int slot(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    /**
+     * @param key
+     *            Packed block id
+     * @return the slot of the block, -1 if there is no such block
+     */
+    public int find(long key) {
+        if (key == EMPTY) {
+            return hasEmptyKey ? emptyKeySlot : -1;
+        }
+        int slot = slot(key);
+        while (keys[slot] != key) {
+            if (keys[slot] == EMPTY) {
+                return -1;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * @param slot
+     *            Slot of a block
+     * @return the position of the first instance of the block
+     */
+    public int getStart(int slot) {
+        return starts[slot];
+    }
+
+    /**
+     * @param slot
+     *            Slot of a block
+     * @return the position after the last instance of the block
+     */
+    public int getEnd(int slot) {
+        return starts[slot + 1];
+    }
+
+    /**
+     * @param position
+     *            Position between the start and the end of a block
+     * @return the index of the instance
+     */
+    public int getMember(int position) {
+        return members[position];
+    }
+
+    /**
+     * Packs a block id into a long. Block ids of up to two dimensions are
+     * packed exactly; larger ones are hashed, so that different blocks may
+     * share a key. This only adds candidates, which are verified anyway.
+     *
+     * @param blockId
+     *            One block coordinate per dimension
+     * @return the key of the block
+     */
+    public static long pack(int[] blockId) {
+        if (blockId.length == 1) {
+            return blockId[0];
+        }
+        if (blockId.length == 2) {
+            return ((long) blockId[0] << 32) | (blockId[1] & 0xFFFFFFFFL);
+        }
+        long h = 1;
+        for (int id : blockId) {
+            h = h * 0x9E3779B97F4A7C15L + id;
+            h ^= h >>> 29;
+        }
+        return h;
+    }
+}
@@ -0,0 +1,158 @@
+package org.aksw.limes.core.measures.mapper.space;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.TreeSet;
+
+import org.aksw.limes.core.io.cache.ACache;
+import org.aksw.limes.core.io.cache.Instance;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The numeric property values of all instances of a cache, parsed once into a
+ * dense array. The values of instance i in dimension d are
+ * values[offsets[i * dim + d]] to values[offsets[i * dim + d + 1] - 1]. Values
+ * that are not numbers are stored as NaN.
+ *
+ * @version 1.0
+ */
+public class CoordinateTable {
+
+    static Logger logger = LoggerFactory.getLogger(CoordinateTable.class);
+
+    private final String[] uris;
+    private final int dim;
+    private final int[] offsets;
+    private final double[] values;
+
+    /**
+     * Constructor of CoordinateTable class.
+     *
+     * @param cache
+     *            The cache whose instances are parsed
+     * @param properties
+     *            One property per dimension
+     */
+    public CoordinateTable(ACache cache, String[] properties) {
+        ArrayList<String> allUris = cache.getAllUris();
+        uris = allUris.toArray(new String[allUris.size()]);
+        dim = properties.length;
+        offsets = new int[uris.length * dim + 1];
+        double[] parsed = new double[uris.length * dim];
+        int size = 0;
+        for (int i = 0; i < uris.length; i++) {
+            Instance instance = cache.getInstance(uris[i]);
+            for (int d = 0; d < dim; d++) {
+                TreeSet<String> property = instance.getProperty(properties[d]);
+                if (size + property.size() > parsed.length) {
+                    double[] grown = new double[Math.max(2 * parsed.length, size + property.size())];
+                    System.arraycopy(parsed, 0, grown, 0, size);
+                    parsed = grown;
+                }
+                for (String value : property) {
+                    try {
+                        parsed[size] = Double.parseDouble(value);
+                    } catch (NumberFormatException e) {
+                        logger.warn(value + " is not a number. Will be replaced by 0.");
+                        parsed[size] = Double.NaN;
+                    }
+                    size++;
+                }
+                offsets[i * dim + d + 1] = size;
+            }
+        }
+        values = new double[size];
+        System.arraycopy(parsed, 0, values, 0, size);
+    }
+
+    /**
+     * @return number of instances
+     */
+    public int size() {
+        return uris.length;
+    }
+
+    public String getUri(int i) {
+        return uris[i];
+    }
+
+    /**
+     * @param i
+     *            Index of the instance
+     * @param d
+     *            Dimension
+     * @return the values of the instance in the dimension
+     */
+    public double[] getValues(int i, int d) {
+        return Arrays.copyOfRange(values, offsets[i * dim + d], offsets[i * dim + d + 1]);
+    }
+
+    /**
+     * Computes the ids of all blocks of an instance, one for each combination
+     * of its values. Values that are not numbers are blocked as 0.
+     *
+     * @param i
+     *            Index of the instance
+     * @param granularity
+     *            Number of blocks per threshold
+     * @param thresholds
+     *            Distance threshold in each dimension
+     * @return the block ids, each an array of one block coordinate per
+     *         dimension
+     */
+    public int[][] getBlockIds(int i, int granularity, double[] thresholds) {
+        int combinations = 1;
+        for (int d = 0; d < dim; d++) {
+            combinations *= offsets[i * dim + d + 1] - offsets[i * dim + d];
+        }
+        int[][] blockIds = new int[combinations][dim];
+        for (int c = 0; c < combinations; c++) {
+            int rest = c;
+            for (int d = 0; d < dim; d++) {
+                int from = offsets[i * dim + d];
+                int count = offsets[i * dim + d + 1] - from;
+                double value = values[from + rest % count];
+                rest /= count;
+                if (Double.isNaN(value)) {
+                    value = 0;
+                }
+                blockIds[c][d] = (int) Math.floor((granularity * value) / thresholds[d]);
+            }
+        }
+        return blockIds;
+    }
+
+    /**
+     * Computes the Euclidean similarity 1/(1+d) between two instances. As in
+     * the Euclidean measure, the distance in each dimension is the smallest
+     * distance between any two of the values of the instances.
+     *
+     * @param i
+     *            Index of the instance in this table
+     * @param other
+     *            The other table
+     * @param j
+     *            Index of the instance in the other table
+     * @return the similarity
+     */
+    public double getSimilarity(int i, CoordinateTable other, int j) {
+        double sim = 0;
+        for (int d = 0; d < dim; d++) {
+            double min = Integer.MAX_VALUE;
+            int to1 = offsets[i * dim + d + 1];
+            int to2 = other.offsets[j * dim + d + 1];
+            for (int k = offsets[i * dim + d]; k < to1; k++) {
+                for (int l = other.offsets[j * dim + d]; l < to2; l++) {
+                    double entry = values[k] - other.values[l];
+                    entry = entry * entry;
+                    if (min > entry) {
+                        min = entry;
+                    }
+                }
+            }
+            sim = sim + min;
+        }
+        return 1.0 / (1 + Math.sqrt(sim));
+    }
+}
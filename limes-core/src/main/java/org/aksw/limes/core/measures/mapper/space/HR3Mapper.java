@@ -5,29 +5,46 @@
 package org.aksw.limes.core.measures.mapper.space;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.TreeSet;
 // * Previously call ToralOrderBlockingMapper
 
 import org.aksw.limes.core.io.cache.ACache;
 import org.aksw.limes.core.io.mapping.AMapping;
+import org.aksw.limes.core.io.mapping.EncodedMapping;
 import org.aksw.limes.core.io.mapping.MappingFactory;
 import org.aksw.limes.core.io.parser.Parser;
 import org.aksw.limes.core.measures.mapper.AMapper;
+import org.aksw.limes.core.measures.mapper.IIndexedMapper;
+import org.aksw.limes.core.measures.mapper.ITargetIndex;
+import org.aksw.limes.core.measures.mapper.ITopKMapper;
+import org.aksw.limes.core.measures.mapper.TopKHeap;
 import org.aksw.limes.core.measures.mapper.space.blocking.BlockingFactory;
+import org.aksw.limes.core.measures.mapper.space.blocking.HR3Blocker;
 import org.aksw.limes.core.measures.mapper.space.blocking.IBlockingModule;
+import org.aksw.limes.core.measures.measure.space.EuclideanMeasure;
 import org.aksw.limes.core.measures.measure.space.ISpaceMeasure;
 import org.aksw.limes.core.measures.measure.space.SpaceMeasureFactory;
+import org.aksw.limes.core.util.Partitions;
 
 /**
  * Uses metric spaces to create blocks.
  *
  * @author Axel-C. Ngonga Ngomo (ngonga@informatik.uni-leipzig.de)
  */
-public class HR3Mapper extends AMapper {
+public class HR3Mapper extends AMapper implements IIndexedMapper, ITopKMapper {
 
     public int granularity = 4;
 
+    /** Minimal number of source instances probed by one task */
+    private static final int MIN_PARTITION_SIZE = 1000;
+
     // this might only work for substraction. Need to create something that
     // transforms
     // the threshold on real numbers into a threshold in the function space.
@@ -63,37 +80,10 @@ public class HR3Mapper extends AMapper {
         
         AMapping mapping = MappingFactory.createDefaultMapping();
 
-        // maps each block id to a set of instances. Actually one should
-        // integrate LIMES here
-        HashMap<ArrayList<Integer>, TreeSet<String>> targetBlocks = new HashMap<ArrayList<Integer>, TreeSet<String>>();
-
         // 0. get properties
-        String property1, property2;
-        // get property labels
         Parser p = new Parser(expression, threshold);
-        // get first property label
-        String term1 = p.getLeftTerm();
-        if (term1.contains(".")) {
-            String split[] = term1.split("\\.");
-            property1 = split[1];
-            if (split.length >= 2)
-                for (int part = 2; part < split.length; part++)
-                    property1 += "." + split[part];
-        } else {
-            property1 = term1;
-        }
-
-        // get second property label
-        String term2 = p.getRightTerm();
-        if (term2.contains(".")) {
-            String split[] = term2.split("\\.");
-            property2 = split[1];
-            if (split.length >= 2)
-                for (int part = 2; part < split.length; part++)
-                    property2 += "." + split[part];
-        } else {
-            property2 = term2;
-        }
+        String[] properties = getProperties(p);
+        String property1 = properties[0], property2 = properties[1];
 
         // get number of dimensions we are dealing with
         int dimensions = property2.split("\\|").length;
@@ -107,6 +97,14 @@ public class HR3Mapper extends AMapper {
 
         // initialize the measure for similarity computation
         ISpaceMeasure measure = SpaceMeasureFactory.getMeasure(p.getOperator(), dimensions);
+        if (measure instanceof EuclideanMeasure) {
+            return new EuclideanIndex(target, property1.split("\\|"), property2.split("\\|"), measure, generator,
+                    threshold).getMapping(source);
+        }
+
+        // maps each block id to a set of instances. Actually one should
+        // integrate LIMES here
+        HashMap<ArrayList<Integer>, TreeSet<String>> targetBlocks = new HashMap<ArrayList<Integer>, TreeSet<String>>();
 
         // compute blockid for each of the elements of the target
         // implement our simple yet efficient blocking approach
@@ -125,29 +123,17 @@ public class HR3Mapper extends AMapper {
         // comparison
         TreeSet<String> uris;
         double sim;
-        int counter = 0;
-        source.getAllUris().size();
+        long candidates = 0;
         for (String sourceInstanceUri : source.getAllUris()) {
-            counter++;
-            if (counter % 1000 == 0) {
-                // logger.info("Processed " + (counter * 100 / size) + "% of the
-                // links");
-                // get key
-
-            }
-            // logger.info("Getting "+property1+" from "+sourceInstanceUri);
             blockIds = generator.getAllSourceIds(source.getInstance(sourceInstanceUri), property1);
-            // logger.info("BlockId for "+sourceInstanceUri+" is "+blockId);
             // for all blocks in [-1, +1] in each dimension compute similarities
             // and store them
             for (int ids = 0; ids < blockIds.size(); ids++) {
                 blocksToCompare = generator.getBlocksToCompare(blockIds.get(ids));
-
-                // logger.info(sourceInstanceUri+" is to compare with blocks
-                // "+blocksToCompare);
                 for (int index = 0; index < blocksToCompare.size(); index++) {
                     if (targetBlocks.containsKey(blocksToCompare.get(index))) {
                         uris = targetBlocks.get(blocksToCompare.get(index));
+                        candidates += uris.size();
                         for (String targetInstanceUri : uris) {
                             sim = measure.getSimilarity(source.getInstance(sourceInstanceUri),
                                     target.getInstance(targetInstanceUri), property1, property2);
@@ -159,10 +145,285 @@ public class HR3Mapper extends AMapper {
                 }
             }
         }
-        // logger.info("Cmin = "+necessaryComparisons+"; C = "+comparisons);
+        countPairs(candidates, mapping.getNumberofMappings());
         return mapping;
     }
 
+    /**
+     * Indexes the target of a Euclidean expression, so that several sources
+     * can be linked against it. Returns null for other space measures, which
+     * are only computed by {@link #getMapping}.
+     */
+    @Override
+    public ITargetIndex getTargetIndex(ACache target, String sourceVar, String targetVar, String expression,
+            double threshold) {
+        Parser p = new Parser(expression, threshold);
+        String[] properties = getProperties(p);
+        int dimensions = properties[1].split("\\|").length;
+        IBlockingModule generator = BlockingFactory.getBlockingModule(properties[1], p.getOperator(), threshold,
+                granularity);
+        ISpaceMeasure measure = SpaceMeasureFactory.getMeasure(p.getOperator(), dimensions);
+        if (!(measure instanceof EuclideanMeasure)) {
+            return null;
+        }
+        return new EuclideanIndex(target, properties[0].split("\\|"), properties[1].split("\\|"), measure,
+                generator, threshold);
+    }
+
+    /**
+     * Computes the k most similar targets of each source. For the Euclidean
+     * measure, the targets are sorted by their first coordinate and each
+     * source scans them outwards from its own first coordinate, until the
+     * distance in the first dimension alone exceeds the distance of the
+     * current k-th target. Other space measures are computed by
+     * {@link #getMapping} before the top-k links are selected.
+     */
+    @Override
+    public AMapping getTopKMapping(ACache source, ACache target, String sourceVar, String targetVar,
+            String expression, double threshold, int k) {
+        Parser p = new Parser(expression, threshold);
+        String[] properties = getProperties(p);
+        int dimensions = properties[1].split("\\|").length;
+        ISpaceMeasure measure = SpaceMeasureFactory.getMeasure(p.getOperator(), dimensions);
+        if (!(measure instanceof EuclideanMeasure)) {
+            return EncodedMapping.of(getMapping(source, target, sourceVar, targetVar, expression, threshold))
+                    .getTopK(k);
+        }
+        CoordinateTable sources = new CoordinateTable(source, properties[0].split("\\|"));
+        EuclideanTopK topK = new EuclideanTopK(new CoordinateTable(target, properties[1].split("\\|")), threshold,
+                k);
+        return Partitions.collect(sources.size(), MIN_PARTITION_SIZE, (start, end) -> topK.probe(sources, start, end));
+    }
+
+    /**
+     * @return the source and the target property label of an expression
+     */
+    private static String[] getProperties(Parser p) {
+        String property1, property2;
+        // get property labels
+        // get first property label
+        String term1 = p.getLeftTerm();
+        if (term1.contains(".")) {
+            String split[] = term1.split("\\.");
+            property1 = split[1];
+            if (split.length >= 2)
+                for (int part = 2; part < split.length; part++)
+                    property1 += "." + split[part];
+        } else {
+            property1 = term1;
+        }
+
+        // get second property label
+        String term2 = p.getRightTerm();
+        if (term2.contains(".")) {
+            String split[] = term2.split("\\.");
+            property2 = split[1];
+            if (split.length >= 2)
+                for (int part = 2; part < split.length; part++)
+                    property2 += "." + split[part];
+        } else {
+            property2 = term2;
+        }
+
+        return new String[] { property1, property2 };
+    }
+
+    /**
+     * Index of the Euclidean measure on primitive arrays. The coordinates of
+     * the target are parsed once, their block ids are packed into longs and
+     * indexed in an open-addressing table, and the source instances are probed
+     * against it in parallel partitions. The blocks to compare are the same as
+     * the ones of the blocking module, computed once as offsets around the
+     * block 0.
+     */
+    private class EuclideanIndex implements ITargetIndex {
+        private final String[] sourceProperties;
+        private final double threshold;
+        private final int blocksPerThreshold;
+        private final double[] thresholds;
+        private final int[][] neighbours;
+        private final CoordinateTable targets;
+        private final BlockTable table;
+
+        private EuclideanIndex(ACache target, String[] sourceProperties, String[] targetProperties,
+                ISpaceMeasure measure, IBlockingModule generator, double threshold) {
+            this.sourceProperties = sourceProperties;
+            this.threshold = threshold;
+            int dim = targetProperties.length;
+            blocksPerThreshold = generator instanceof HR3Blocker ? granularity : 1;
+            thresholds = new double[dim];
+            for (int d = 0; d < dim; d++) {
+                thresholds[d] = measure.getThreshold(d, threshold);
+            }
+            ArrayList<Integer> zero = new ArrayList<Integer>();
+            for (int d = 0; d < dim; d++) {
+                zero.add(0);
+            }
+            ArrayList<ArrayList<Integer>> blocksToCompare = generator.getBlocksToCompare(zero);
+            neighbours = new int[blocksToCompare.size()][dim];
+            for (int n = 0; n < neighbours.length; n++) {
+                for (int d = 0; d < dim; d++) {
+                    neighbours[n][d] = blocksToCompare.get(n).get(d);
+                }
+            }
+
+            targets = new CoordinateTable(target, targetProperties);
+            long[] keys = new long[targets.size()];
+            int[] members = new int[targets.size()];
+            int size = 0;
+            for (int j = 0; j < targets.size(); j++) {
+                for (int[] blockId : targets.getBlockIds(j, blocksPerThreshold, thresholds)) {
+                    if (size == keys.length) {
+                        keys = Arrays.copyOf(keys, 2 * size);
+                        members = Arrays.copyOf(members, 2 * size);
+                    }
+                    keys[size] = BlockTable.pack(blockId);
+                    members[size++] = j;
+                }
+            }
+            table = new BlockTable(keys, members, size);
+        }
+
+        @Override
+        public AMapping getMapping(ACache source) {
+            CoordinateTable sources = new CoordinateTable(source, sourceProperties);
+            return Partitions.collect(sources.size(), MIN_PARTITION_SIZE,
+                    (start, end) -> probe(sources, start, end));
+        }
+
+        /**
+         * Compares the source instances from start to end with the target
+         * instances in the blocks to compare.
+         */
+        private AMapping probe(CoordinateTable sources, int start, int end) {
+            AMapping mapping = MappingFactory.createDefaultMapping();
+            int[] block = new int[thresholds.length];
+            long candidates = 0;
+            for (int i = start; i < end; i++) {
+                for (int[] blockId : sources.getBlockIds(i, blocksPerThreshold, thresholds)) {
+                    for (int[] neighbour : neighbours) {
+                        for (int d = 0; d < block.length; d++) {
+                            block[d] = blockId[d] + neighbour[d];
+                        }
+                        int slot = table.find(BlockTable.pack(block));
+                        if (slot < 0) {
+                            continue;
+                        }
+                        candidates += table.getEnd(slot) - table.getStart(slot);
+                        for (int k = table.getStart(slot); k < table.getEnd(slot); k++) {
+                            int j = table.getMember(k);
+                            double sim = sources.getSimilarity(i, targets, j);
+                            if (sim >= threshold) {
+                                mapping.add(sources.getUri(i), targets.getUri(j), sim);
+                            }
+                        }
+                    }
+                }
+            }
+            countPairs(candidates, mapping.getNumberofMappings());
+            return mapping;
+        }
+    }
+
+    /**
+     * Top-k search of the Euclidean measure. The first coordinates of the
+     * target are sorted once; targets without a number in the first dimension
+     * are compared with every source.
+     */
+    private static class EuclideanTopK {
+        private final CoordinateTable targets;
+        private final double threshold;
+        private final int k;
+        private final double[] keys;
+        private final int[] members;
+        private final int[] unranked;
+
+        private EuclideanTopK(CoordinateTable targets, double threshold, int k) {
+            this.targets = targets;
+            this.threshold = threshold;
+            this.k = k;
+            List<double[]> entries = new ArrayList<>();
+            List<Integer> withoutNumber = new ArrayList<>();
+            for (int j = 0; j < targets.size(); j++) {
+                boolean ranked = false;
+                for (double value : targets.getValues(j, 0)) {
+                    if (!Double.isNaN(value)) {
+                        entries.add(new double[] { value, j });
+                        ranked = true;
+                    }
+                }
+                if (!ranked) {
+                    withoutNumber.add(j);
+                }
+            }
+            entries.sort((a, b) -> Double.compare(a[0], b[0]));
+            keys = new double[entries.size()];
+            members = new int[entries.size()];
+            for (int e = 0; e < keys.length; e++) {
+                keys[e] = entries.get(e)[0];
+                members[e] = (int) entries.get(e)[1];
+            }
+            unranked = new int[withoutNumber.size()];
+            for (int u = 0; u < unranked.length; u++) {
+                unranked[u] = withoutNumber.get(u);
+            }
+        }
+
+        /**
+         * Collects the k most similar targets of the source instances from
+         * start to end.
+         */
+        private AMapping probe(CoordinateTable sources, int start, int end) {
+            AMapping mapping = MappingFactory.createDefaultMapping();
+            for (int i = start; i < end; i++) {
+                TopKHeap<Integer> heap = new TopKHeap<Integer>(k, threshold);
+                Set<Integer> compared = new HashSet<>();
+                boolean ranked = false;
+                for (double value : sources.getValues(i, 0)) {
+                    if (Double.isNaN(value)) {
+                        continue;
+                    }
+                    ranked = true;
+                    int right = Arrays.binarySearch(keys, value);
+                    if (right < 0) {
+                        right = -right - 1;
+                    }
+                    int left = right - 1;
+                    while (true) {
+                        double rightDistance = right < keys.length ? keys[right] - value : Double.MAX_VALUE;
+                        double leftDistance = left >= 0 ? value - keys[left] : Double.MAX_VALUE;
+                        int e = rightDistance <= leftDistance ? right++ : left--;
+                        // the first dimension alone bounds the similarity
+                        if (1 / (1 + Math.min(rightDistance, leftDistance)) < heap.getThreshold()
+                                || e < 0 || e >= keys.length) {
+                            break;
+                        }
+                        compare(sources, i, members[e], heap, compared);
+                    }
+                }
+                if (ranked) {
+                    for (int j : unranked) {
+                        compare(sources, i, j, heap, compared);
+                    }
+                } else {
+                    for (int j = 0; j < targets.size(); j++) {
+                        compare(sources, i, j, heap, compared);
+                    }
+                }
+                for (Map.Entry<Integer, Double> item : heap.getItems().entrySet()) {
+                    mapping.add(sources.getUri(i), targets.getUri(item.getKey()), item.getValue());
+                }
+            }
+            return mapping;
+        }
+
+        private void compare(CoordinateTable sources, int i, int j, TopKHeap<Integer> heap, Set<Integer> compared) {
+            if (compared.add(j)) {
+                heap.add(j, sources.getSimilarity(i, targets, j), Collections.singleton(targets.getUri(j)));
+            }
+        }
+    }
+
     // need to change this
     public double getRuntimeApproximation(int sourceSize, int targetSize, double threshold, Language language) {
         if (language.equals(Language.DE)) {
@@ -2,17 +2,27 @@ package org.aksw.limes.core.measures.mapper.string;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
+import org.aksw.limes.core.exceptions.InvalidThresholdException;
 import org.aksw.limes.core.io.cache.ACache;
-import org.aksw.limes.core.io.cache.Instance;
 import org.aksw.limes.core.io.mapping.AMapping;
 import org.aksw.limes.core.io.mapping.MappingFactory;
 import org.aksw.limes.core.io.parser.Parser;
 import org.aksw.limes.core.measures.mapper.AMapper;
+import org.aksw.limes.core.measures.mapper.IIndexedMapper;
+import org.aksw.limes.core.measures.mapper.ITargetIndex;
+import org.aksw.limes.core.measures.mapper.ITopKMapper;
+import org.aksw.limes.core.measures.mapper.TopKHeap;
+import org.aksw.limes.core.measures.mapper.ValueIndex;
 import org.aksw.limes.core.measures.mapper.pointsets.PropertyFetcher;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -27,15 +37,20 @@ import algorithms.edjoin.Record;
 /**
  * @author Axel-C. Ngonga Ngomo (ngonga@informatik.uni-leipzig.de)
  */
-public class EDJoinMapper extends AMapper {
+public class EDJoinMapper extends AMapper implements ITopKMapper, IIndexedMapper {
 
     static Logger logger = LoggerFactory.getLogger(EDJoinMapper.class);
-    private static int Q = -1;
-    private static AMapping mapping = null;
-    private static HashMap<Integer, String> sourceMap;
-    private static HashMap<Integer, String> targetMap;
-    @SuppressWarnings("unused")
-    private int comparisons = 0;
+    private static final int Q = 3;
+    /**
+     * The top-k filters prune slightly below the threshold of a heap, so that
+     * rounding does not drop targets that tie with it.
+     */
+    private static final double TIE_TOLERANCE = 1e-9;
+    /**
+     * Number of source and target value pairs whose edit distance was
+     * checked by the last call of getMapping.
+     */
+    private long comparisons = 0;
 
     private static Record[] qTokenizer(String[] objects, int q) {
         StoppUhr s = new StoppUhr();
@@ -44,23 +59,7 @@ public class EDJoinMapper extends AMapper {
         Record[] records = new Record[objects.length];
 
         for (int i = 0; i < objects.length; i++) {
-
-            int qGramsNumber = objects[i].length() - q + 1;
-            Record record = new Record(i, Math.max(0, qGramsNumber), objects[i]);
-
-            for (int j = 0; j < qGramsNumber; j++) {
-                String token = objects[i].substring(j, j + q);
-                if (allTokens.containsKey(token)) {
-                    Token t = allTokens.get(token);
-                    t.df++;
-                    record.qGrams[j] = new QGram(t, j);
-                } else {
-                    Token t = new Token(allTokens.size(), 1);
-                    allTokens.put(token, t);
-                    record.qGrams[j] = new QGram(t, j);
-                }
-            }
-            records[i] = record;
+            records[i] = qTokenize(i, objects[i], q, allTokens, true);
         }
 
         for (int i = 0; i < records.length; i++) {
@@ -71,13 +70,57 @@ public class EDJoinMapper extends AMapper {
         return records;
     }
 
-    private static int verification(Record currentRec, HashMap<Integer, Record> candidates, ArrayList<String> objects,
-            int q, int threshold) {
+    /**
+     * Splits a string into its q-grams, which are not sorted yet.
+     *
+     * @param id
+     *            Id of the record
+     * @param object
+     *            The string
+     * @param q
+     *            Length of the q-grams
+     * @param allTokens
+     *            Tokens of the q-grams found so far
+     * @param add
+     *            Whether new q-grams are added to allTokens and the frequency
+     *            of known q-grams is increased. Otherwise a new q-gram gets a
+     *            token with frequency 0 and a negative id that no other token
+     *            has.
+     * @return the record of the string
+     */
+    private static Record qTokenize(int id, String object, int q, Map<String, Token> allTokens, boolean add) {
+        int qGramsNumber = object.length() - q + 1;
+        Record record = new Record(id, Math.max(0, qGramsNumber), object);
+        for (int j = 0; j < qGramsNumber; j++) {
+            String token = object.substring(j, j + q);
+            Token t = allTokens.get(token);
+            if (t != null) {
+                if (add) {
+                    t.df++;
+                }
+            } else if (add) {
+                t = new Token(allTokens.size(), 1);
+                allTokens.put(token, t);
+            } else {
+                t = new Token(-1 - j, 0);
+            }
+            record.qGrams[j] = new QGram(t, j);
+        }
+        return record;
+    }
+
+    private int verification(Record currentRec, HashMap<Integer, Record> candidates, ValueJoin join,
+            AMapping mapping, int q, int threshold) {
         int count = 0;
-        String id1, id2;
+        String[] objects = join.getValues();
         Iterator<Record> iter = candidates.values().iterator();
         while (iter.hasNext()) {
             Record y = iter.next();
+            // two source or two target values are not linked
+            if (!join.connects(currentRec.id, y.id)) {
+                continue;
+            }
+            comparisons++;
             compareQGramsResult compResult = compareQGrams(currentRec, y, threshold);
 
             /*
@@ -89,25 +132,12 @@ public class EDJoinMapper extends AMapper {
                  * location-based mismatch filtering
                  */
                 if (e2 <= threshold) {
-                    int e3 = contentFilter(objects.get(currentRec.id), objects.get(y.id), compResult.Q, threshold, q);
+                    int e3 = contentFilter(objects[currentRec.id], objects[y.id], compResult.Q, threshold, q);
                     if (e3 <= 2 * threshold) {
-                        int ed = editDistance(objects.get(currentRec.id), objects.get(y.id));
+                        int ed = editDistance(objects[currentRec.id], objects[y.id]);
                         if (ed <= threshold) {
-                            if ((sourceMap.containsKey(currentRec.id) && targetMap.containsKey(y.id))) {
-                                id1 = sourceMap.get(currentRec.id);
-                                id2 = targetMap.get(y.id);
-                                // CORRECT
-                                mapping.add(id1, id2, 1.0 / (1 + (double) ed));
-                            } else if (targetMap.containsKey(currentRec.id) && sourceMap.containsKey(y.id)) {
-                                // get uris for ids
-                                {
-                                    id1 = sourceMap.get(y.id);
-                                    id2 = targetMap.get(currentRec.id);
-                                    // CORRECT
-                                    mapping.add(id1, id2, 1.0 / (1 + (double) ed));
-                                }
-                                count++;
-                            }
+                            join.link(mapping, currentRec.id, y.id, 1.0 / (1 + (double) ed));
+                            count++;
                         }
                     }
                 }
@@ -369,14 +399,11 @@ public class EDJoinMapper extends AMapper {
     public AMapping getMapping(ACache source, ACache target, String sourceVar, String targetVar, String expression,
             double threshold) {
 
-        if (Q <= 1) {
-            Q = 3;
-        }
         // convert similarity in distance threshold
         threshold = (1 - threshold) / threshold;
 
         this.comparisons = 0;
-        mapping = MappingFactory.createDefaultMapping();
+        AMapping mapping = MappingFactory.createDefaultMapping();
         if (threshold < 0) {
             logger.info("Wrong threshold setting. Returning empty mapping.");
             return mapping;
@@ -401,50 +428,16 @@ public class EDJoinMapper extends AMapper {
                     "Expression " + expression + " was given to a mapper to process");
         }
 
-        // 3.1 fill objects from source in entry. This is for indexing and
-        // sorting
-        // later on
-        // logger.info("Filling objects from source knowledge base.");
-        sourceMap = new HashMap<Integer, String>();
-        ArrayList<String> uris = source.getAllUris();
-        ArrayList<String> entries = new ArrayList<String>();
-        Instance instance;
-        int counter = 0;
-        for (int i = 0; i < uris.size(); i++) {
-            instance = source.getInstance(uris.get(i));
-            for (String s : instance.getProperty(properties.get(0))) {
-                sourceMap.put(counter, uris.get(i));
-                entries.add(s);
-                counter++;
-            }
-        }
-
-        // 3.2 fill objects from target in entries
-        // logger.info("Filling objects from target knowledge base.");
-        targetMap = new HashMap<Integer, String>();
-        uris = target.getAllUris();
-        for (int i = 0; i < uris.size(); i++) {
-            instance = target.getInstance(uris.get(i));
-            for (String s : instance.getProperty(properties.get(1))) {
-                targetMap.put(counter, uris.get(i));
-                entries.add(s);
-                counter++;
-            }
-        }
-
-        // transform entries into array so that tokenizer will work
-        // we will use entries later on as they do not lead to RAM errors
-        String[] entryArray = new String[entries.size()];
-        for (int i = 0; i < entries.size(); i++) {
-            entryArray[i] = entries.get(i);
-        }
+        // 3. one record per distinct source and target value, taken from the
+        // shared value indexes
+        ValueJoin join = new ValueJoin(getValueIndex(source, properties.get(0)),
+                getValueIndex(target, properties.get(1)));
 
         // Begin EdJoin. First run the tokenization
-        Record[] records = qTokenizer(entryArray, Q);
+        Record[] records = qTokenizer(join.getValues(), Q);
         HashMap<Integer, LinkedList<EdPosition>> index = new HashMap<Integer, LinkedList<EdPosition>>(); // I
         int count = 0;
         // run the core of EdJoin
-        String id1, id2;
         for (int i = 0; i < records.length; i++) {
             /*
              * if the length of a record is smaller than q, then we cannot use
@@ -454,35 +447,15 @@ public class EDJoinMapper extends AMapper {
             if (records[i].qGrams.length == 0 && records[i].s.length() > 0) {
                 String x = records[i].s;
                 for (int j = i + 1; j < records.length; j++) {
-                    if ((sourceMap.containsKey(records[i].id) && targetMap.containsKey(records[j].id))
-                            || (targetMap.containsKey(records[i].id) && sourceMap.containsKey(records[j].id))) {
+                    if (join.connects(records[i].id, records[j].id)) {
                         String y = records[j].s;
 
                         // length filtering
                         if (Math.abs(x.length() - y.length()) <= threshold) {
+                            comparisons++;
                             int ed = editDistance(x, y);
                             if (ed <= threshold) {
-                                if ((sourceMap.containsKey(records[i].id) && targetMap.containsKey(records[j].id))) {
-                                    id1 = sourceMap.get(records[i].id);
-                                    id2 = targetMap.get(records[j].id);
-                                    // CORRECT
-                                    // if ((1.0 / (1 + (double) ed)) >=
-                                    // threshold)
-                                    mapping.add(id1, id2, 1.0 / (1 + (double) ed));
-                                } else // should not be necessary
-                                {
-                                    // get uris for ids
-                                    {
-                                        id1 = sourceMap.get(records[j].id);
-                                        id2 = targetMap.get(records[i].id);
-
-                                        // CORRECT
-                                        // if ((1.0 / (1 + (double) ed)) >=
-                                        // threshold)
-                                        mapping.add(id1, id2, 1.0 / (1 + (double) ed));
-                                        // mapping.add(id2, id1, similarity);
-                                    }
-                                }
+                                join.link(mapping, records[i].id, records[j].id, 1.0 / (1 + (double) ed));
                                 count++;
                             }
                         } else {
@@ -519,7 +492,7 @@ public class EDJoinMapper extends AMapper {
                     }
                 }
                 if (candidates.size() > 0) {
-                    count = count + verification(currentRec, candidates, entries, Q, (int) threshold);
+                    count = count + verification(currentRec, candidates, join, mapping, Q, (int) threshold);
                 }
             }
         }
@@ -530,10 +503,224 @@ public class EDJoinMapper extends AMapper {
          * mapping.getConfidence(key, value); if (confidence < threshold) {
          * tempMapping.add(key, value, confidence); } } } mapping = tempMapping;
          */
-
+        countPairs(comparisons, count);
         return mapping;
     }
 
+    /**
+     * Computes the top-k links by probing, for each source value, an index of
+     * the q-grams of the target values. The edit distance bound of the
+     * prefix, location, length, count and content filters follows the
+     * threshold of the {@link TopKHeap} of the source value, so the filters
+     * get stricter while more similar targets are found. Values shorter than
+     * q are compared directly, as in
+     * {@link #getMapping(ACache, ACache, String, String, String, double)}.
+     *
+     * @param source
+     *            Source cache
+     * @param target
+     *            Target cache
+     * @param sourceVar
+     *            Variable for the source dataset
+     * @param targetVar
+     *            Variable for the target dataset
+     * @param expression
+     *            Expression to process.
+     * @param threshold
+     *            Similarity threshold
+     * @param k
+     *            Number of targets per source
+     * @return the links of each source to its k most similar targets
+     */
+    @Override
+    public AMapping getTopKMapping(ACache source, ACache target, String sourceVar, String targetVar,
+            String expression, double threshold, int k) {
+        if (threshold <= 0) {
+            throw new InvalidThresholdException(threshold);
+        }
+        // largest edit distance of a link, as in getMapping
+        int maxTau = (int) ((1 - threshold) / threshold);
+        List<String> properties = PropertyFetcher.getProperties(expression, threshold);
+        ValueIndex sourceIndex = getValueIndex(source, properties.get(0));
+        ValueIndex targetIndex = getValueIndex(target, properties.get(1));
+        ValueJoin join = new ValueJoin(sourceIndex, targetIndex);
+        Record[] records = qTokenizer(join.getValues(), Q);
+        HashMap<Integer, LinkedList<EdPosition>> index = new HashMap<Integer, LinkedList<EdPosition>>();
+        List<Record> targets = new ArrayList<Record>();
+        List<Record> shortTargets = new ArrayList<Record>();
+        for (Record y : records) {
+            if (join.isSource(y.id) || y.s.length() == 0) {
+                continue;
+            }
+            targets.add(y);
+            if (y.qGrams.length == 0) {
+                shortTargets.add(y);
+            }
+            for (QGram qGram : y.qGrams) {
+                index.computeIfAbsent(qGram.token.id, id -> new LinkedList<EdPosition>())
+                        .add(new EdPosition(y, qGram.loc));
+            }
+        }
+        Map<String, TopKHeap<String>> heaps = new HashMap<String, TopKHeap<String>>();
+        for (Record x : records) {
+            if (!join.isSource(x.id) || x.s.length() == 0) {
+                continue;
+            }
+            TopKHeap<String> heap = new TopKHeap<String>(k, threshold);
+            if (x.qGrams.length == 0) {
+                for (Record y : targets) {
+                    verifyTopK(x, y, join, heap, maxTau);
+                }
+            } else {
+                for (Record y : shortTargets) {
+                    verifyTopK(x, y, join, heap, maxTau);
+                }
+                Set<Record> seen = new HashSet<Record>();
+                int tau = getTau(heap, maxTau);
+                int prefixLength = calcPrefixLen(x, tau, Q);
+                for (int j = 0; j < prefixLength; j++) {
+                    LinkedList<EdPosition> candidates = index.get(x.qGrams[j].token.id);
+                    if (candidates == null) {
+                        continue;
+                    }
+                    for (EdPosition pos : candidates) {
+                        if (Math.abs(x.qGrams[j].loc - pos.EdPosition) <= tau && seen.add(pos.record)) {
+                            verifyTopK(x, pos.record, join, heap, maxTau);
+                        }
+                    }
+                    if (getTau(heap, maxTau) < tau) {
+                        tau = getTau(heap, maxTau);
+                        prefixLength = calcPrefixLen(x, tau, Q);
+                    }
+                }
+            }
+            heaps.put(x.s, heap);
+        }
+        return getTopKUriToUriMapping(heaps, sourceIndex.asMap(), targetIndex.asMap(), k);
+    }
+
+    /**
+     * @return the largest edit distance of a target that can still enter the
+     *         heap
+     */
+    private static int getTau(TopKHeap<String> heap, int maxTau) {
+        double similarity = heap.getThreshold();
+        return Math.min(maxTau, (int) ((1 - similarity) / similarity + TIE_TOLERANCE));
+    }
+
+    /**
+     * Adds a target value to the heap of a source value if their edit
+     * distance is within the bound of the heap.
+     */
+    private static void verifyTopK(Record x, Record y, ValueJoin join, TopKHeap<String> heap, int maxTau) {
+        int tau = getTau(heap, maxTau);
+        int ed = getEditDistance(x, y, tau);
+        if (ed <= tau) {
+            heap.add(y.s, 1.0 / (1 + (double) ed), join.getUris(y.id));
+        }
+    }
+
+    /**
+     * Computes the edit distance of two values unless the length filter or,
+     * if both values have q-grams, the count, location-based mismatch or
+     * content filter shows that it is larger than tau.
+     *
+     * @return the edit distance, or tau + 1 if a filter prunes the pair
+     */
+    private static int getEditDistance(Record x, Record y, int tau) {
+        if (Math.abs(x.s.length() - y.s.length()) > tau) {
+            return tau + 1;
+        }
+        if (x.qGrams.length > 0 && y.qGrams.length > 0) {
+            compareQGramsResult compResult = compareQGrams(x, y, tau);
+            if (compResult.e1 > Q * tau || minEditErrors(compResult.Q, Q) > tau
+                    || contentFilter(x.s, y.s, compResult.Q, tau, Q) > 2 * tau) {
+                return tau + 1;
+            }
+        }
+        return editDistance(x.s, y.s);
+    }
+
+    /**
+     * Indexes all q-grams of the distinct target values. A source is linked
+     * by probing the index with the prefix of each of its distinct values at
+     * the largest edit distance of a link and verifying the candidates with
+     * the filters of
+     * {@link #getMapping(ACache, ACache, String, String, String, double)}.
+     * Values shorter than q are compared directly. The q-grams are ordered
+     * by their frequency in the target, so q-grams that no target value
+     * contains come first in a source value.
+     */
+    @Override
+    public ITargetIndex getTargetIndex(ACache target, String sourceVar, String targetVar, String expression,
+            double threshold) {
+        if (threshold <= 0) {
+            throw new InvalidThresholdException(threshold);
+        }
+        // largest edit distance of a link, as in getMapping
+        final int tau = (int) ((1 - threshold) / threshold);
+        List<String> properties = PropertyFetcher.getProperties(expression, threshold);
+        final String sourceProperty = properties.get(0);
+        final ValueIndex targetIndex = getValueIndex(target, properties.get(1));
+        final Map<String, Token> allTokens = new HashMap<String, Token>();
+        final List<Record> targets = new ArrayList<Record>();
+        for (int i = 0; i < targetIndex.size(); i++) {
+            if (targetIndex.getValue(i).length() > 0) {
+                targets.add(qTokenize(i, targetIndex.getValue(i), Q, allTokens, true));
+            }
+        }
+        final List<Record> shortTargets = new ArrayList<Record>();
+        final Map<Integer, List<EdPosition>> index = new HashMap<Integer, List<EdPosition>>();
+        for (Record y : targets) {
+            Arrays.sort(y.qGrams);
+            if (y.qGrams.length == 0) {
+                shortTargets.add(y);
+            }
+            for (QGram qGram : y.qGrams) {
+                index.computeIfAbsent(qGram.token.id, id -> new ArrayList<EdPosition>())
+                        .add(new EdPosition(y, qGram.loc));
+            }
+        }
+        return source -> {
+            ValueIndex sourceIndex = getValueIndex(source, sourceProperty);
+            AMapping m = MappingFactory.createDefaultMapping();
+            for (int v = 0; v < sourceIndex.size(); v++) {
+                Record x = qTokenize(v, sourceIndex.getValue(v), Q, allTokens, false);
+                if (x.s.length() == 0) {
+                    continue;
+                }
+                Collection<Record> candidates = targets;
+                if (x.qGrams.length > 0) {
+                    Arrays.sort(x.qGrams);
+                    candidates = new LinkedHashSet<Record>(shortTargets);
+                    int prefixLength = calcPrefixLen(x, tau, Q);
+                    for (int j = 0; j < prefixLength; j++) {
+                        List<EdPosition> positions = index.get(x.qGrams[j].token.id);
+                        if (positions == null) {
+                            continue;
+                        }
+                        for (EdPosition pos : positions) {
+                            if (Math.abs(x.qGrams[j].loc - pos.EdPosition) <= tau) {
+                                candidates.add(pos.record);
+                            }
+                        }
+                    }
+                }
+                for (Record y : candidates) {
+                    int ed = getEditDistance(x, y, tau);
+                    if (ed <= tau) {
+                        for (String sourceUri : sourceIndex.getUris(v)) {
+                            for (String targetUri : targetIndex.getUris(y.id)) {
+                                m.add(sourceUri, targetUri, 1.0 / (1 + (double) ed));
+                            }
+                        }
+                    }
+                }
+            }
+            return m;
+        };
+    }
+
     @Override
     public double getRuntimeApproximation(int sourceSize, int targetSize, double theta, Language language) {
         if (language.equals(Language.DE)) {
@@ -0,0 +1,134 @@
+package org.aksw.limes.core.measures.mapper.string;
+
+import org.aksw.limes.core.io.mapping.AMapping;
+import org.aksw.limes.core.io.mapping.MappingFactory;
+import org.aksw.limes.core.util.Partitions;
+
+/**
+ * Build side of a hash equi-join on long keys. The keys of the build side are
+ * stored in an open-addressing table with linear probing; entries with equal
+ * keys are chained, so that a probe visits exactly the entries of its key.
+ * Entries are identified by their position in the key array the table was
+ * built from.
+ */
+public class EquiJoin {
+
+    /**
+     * Minimal number of probe values per partition of a parallel probe.
+     */
+    private static final int MIN_PARTITION_SIZE = 10000;
+
+    private final long[] slotKeys;
+    /**
+     * First entry of each slot plus one, 0 marks empty slots.
+     */
+    private final int[] slotHeads;
+    /**
+     * Next entry with the same key, -1 terminates a chain.
+     */
+    private final int[] next;
+    private final int mask;
+
+    /**
+     * Probe of a contiguous range of probe values against the build side.
+     */
+    public interface PartitionProbe {
+        /**
+         * Adds the links of the probe values [from, to) to the mapping.
+         *
+         * @param from
+         *            first probe value (inclusive)
+         * @param to
+         *            last probe value (exclusive)
+         * @param mapping
+         *            the partition-local result mapping
+         */
+        void probe(int from, int to, AMapping mapping);
+    }
+
+    /**
+     * Builds the table.
+     *
+     * @param keys
+     *            the keys of the build side, entry i has key keys[i]
+     */
+    public EquiJoin(long[] keys) {
+        int capacity = Integer.highestOneBit(Math.max(2, keys.length * 2 - 1)) << 1;
+        slotKeys = new long[capacity];
+        slotHeads = new int[capacity];
+        next = new int[keys.length];
+        mask = capacity - 1;
+        // insert backwards so that chains list the entries in ascending order
+        for (int entry = keys.length - 1; entry >= 0; entry--) {
+            int slot = find(keys[entry]);
+            slotKeys[slot] = keys[entry];
+            next[entry] = slotHeads[slot] - 1;
+            slotHeads[slot] = entry + 1;
+        }
+    }
+
+    private int find(long key) {
+        int slot = (int) mix(key) & mask;
+        while (slotHeads[slot] != 0 && slotKeys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Returns the first entry with the given key.
+     *
+     * @param key
+     *            the probe key
+     * @return the first entry, or -1 if the key is not contained
+     */
+    public int first(long key) {
+        return slotHeads[find(key)] - 1;
+    }
+
+    /**
+     * Returns the next entry with the same key.
+     *
+     * @param entry
+     *            the current entry
+     * @return the next entry, or -1 if there is none
+     */
+    public int next(int entry) {
+        return next[entry];
+    }
+
+    /**
+     * Finalization step of MurmurHash3, spreads the bits of a key.
+     *
+     * @param key
+     *            the key
+     * @return the mixed key
+     */
+    public static long mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return key;
+    }
+
+    /**
+     * Runs a probe over the probe values [0, probeSize). The values are split
+     * into contiguous partitions that are probed in parallel by
+     * {@link Partitions}, each into its own mapping, and merged afterwards.
+     *
+     * @param probeSize
+     *            the number of probe values
+     * @param probe
+     *            the partition probe
+     * @return the resulting mapping
+     */
+    public static AMapping parallelProbe(int probeSize, final PartitionProbe probe) {
+        return Partitions.collect(probeSize, MIN_PARTITION_SIZE, (from, to) -> {
+            AMapping partial = MappingFactory.createDefaultMapping();
+            probe.probe(from, to, partial);
+            return partial;
+        });
+    }
+}
@@ -1,17 +1,18 @@
 package org.aksw.limes.core.measures.mapper.string;
 
-import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.TreeSet;
 
 import org.aksw.limes.core.exceptions.InvalidThresholdException;
 import org.aksw.limes.core.io.cache.ACache;
+import org.aksw.limes.core.io.cache.Instance;
 import org.aksw.limes.core.io.mapping.AMapping;
 import org.aksw.limes.core.io.mapping.MappingFactory;
 import org.aksw.limes.core.measures.mapper.AMapper;
+import org.aksw.limes.core.measures.mapper.IIndexedMapper;
+import org.aksw.limes.core.measures.mapper.ITargetIndex;
+import org.aksw.limes.core.measures.mapper.ValueIndex;
 import org.aksw.limes.core.measures.mapper.pointsets.PropertyFetcher;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -20,12 +21,14 @@ import org.slf4j.MarkerFactory;
 /**
  * @author Axel-C. Ngonga Ngomo (ngonga@informatik.uni-leipzig.de)
  */
-public class ExactMatchMapper extends AMapper {
+public class ExactMatchMapper extends AMapper implements IIndexedMapper {
 
     static Logger logger = LoggerFactory.getLogger(ExactMatchMapper.class);
 
     /**
-     * Computes a mapping between a source and a target.
+     * Computes a mapping between a source and a target. The distinct values of
+     * the side with more values probe the value index of the other side in
+     * parallel.
      *
      * @param source
      *            Source cache
@@ -45,6 +48,59 @@ public class ExactMatchMapper extends AMapper {
     @Override
     public AMapping getMapping(ACache source, ACache target, String sourceVar, String targetVar, String expression,
             double threshold) {
+        List<String> properties = getProperties(expression, threshold);
+        final ValueIndex sourceIndex = getValueIndex(source, properties.get(0));
+        final ValueIndex targetIndex = getValueIndex(target, properties.get(1));
+        // the side with less distinct values is the build side
+        final boolean buildSource = sourceIndex.size() <= targetIndex.size();
+        final ValueIndex buildIndex = buildSource ? sourceIndex : targetIndex;
+        final ValueIndex probeIndex = buildSource ? targetIndex : sourceIndex;
+        return EquiJoin.parallelProbe(probeIndex.size(), (from, to, m) -> {
+            for (int p = from; p < to; p++) {
+                int b = buildIndex.getId(probeIndex.getValue(p));
+                if (b == -1) {
+                    continue;
+                }
+                for (String buildUri : buildIndex.getUris(b)) {
+                    for (String probeUri : probeIndex.getUris(p)) {
+                        if (buildSource) {
+                            m.add(buildUri, probeUri, 1d);
+                        } else {
+                            m.add(probeUri, buildUri, 1d);
+                        }
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * Indexes the values of the target. A source is linked by looking up each
+     * of its values.
+     */
+    @Override
+    public ITargetIndex getTargetIndex(ACache target, String sourceVar, String targetVar, String expression,
+            double threshold) {
+        List<String> properties = getProperties(expression, threshold);
+        final String sourceProperty = properties.get(0);
+        final Map<String, Set<String>> targetIndex = getValueToUriMap(target, properties.get(1));
+        return source -> {
+            AMapping m = MappingFactory.createDefaultMapping();
+            for (Instance instance : source.getAllInstances()) {
+                for (String value : instance.getProperty(sourceProperty)) {
+                    Set<String> targetUris = targetIndex.get(value);
+                    if (targetUris != null) {
+                        for (String targetUri : targetUris) {
+                            m.add(instance.getUri(), targetUri, 1d);
+                        }
+                    }
+                }
+            }
+            return m;
+        };
+    }
+
+    private static List<String> getProperties(String expression, double threshold) {
         if (threshold <= 0) {
             throw new InvalidThresholdException(threshold);
         }
@@ -54,32 +110,7 @@ public class ExactMatchMapper extends AMapper {
             logger.error(MarkerFactory.getMarker("FATAL"), "Property values could not be read. Exiting");
             throw new RuntimeException();
         }
-        Map<String, Set<String>> sourceIndex = getValueToUriMap(source, properties.get(0));
-        Map<String, Set<String>> targetIndex = getValueToUriMap(target, properties.get(1));
-        AMapping m = MappingFactory.createDefaultMapping();
-        boolean swapped = sourceIndex.keySet().size() > targetIndex.keySet().size();
-        (swapped ? sourceIndex : targetIndex).keySet().stream().filter(targetIndex::containsKey).forEach(value -> {
-            for (String sourceUri : (swapped ? sourceIndex : targetIndex).get(value)) {
-                for (String targetUri : (swapped ? targetIndex : sourceIndex).get(value)) {
-                    m.add(sourceUri, targetUri, 1d);
-                }
-            }
-        });
-        return m;
-    }
-
-    public Map<String, Set<String>> index(ACache c, String property) {
-        Map<String, Set<String>> index = new HashMap<String, Set<String>>();
-        for (String uri : c.getAllUris()) {
-            TreeSet<String> values = c.getInstance(uri).getProperty(property);
-            for (String v : values) {
-                if (!index.containsKey(v)) {
-                    index.put(v, new HashSet<>());
-                }
-                index.get(v).add(uri);
-            }
-        }
-        return index;
+        return properties;
     }
 
     @Override
@@ -1,5 +1,7 @@
 package org.aksw.limes.core.measures.mapper.string;
 
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
@@ -11,6 +13,8 @@ import org.aksw.limes.core.io.cache.ACache;
 import org.aksw.limes.core.io.mapping.AMapping;
 import org.aksw.limes.core.io.mapping.MappingFactory;
 import org.aksw.limes.core.measures.mapper.AMapper;
+import org.aksw.limes.core.measures.mapper.ITopKMapper;
+import org.aksw.limes.core.measures.mapper.TopKHeap;
 import org.aksw.limes.core.measures.mapper.pointsets.PropertyFetcher;
 import org.aksw.limes.core.measures.measure.string.JaroMeasure;
 import org.slf4j.Logger;
@@ -19,7 +23,7 @@ import org.slf4j.LoggerFactory;
 /**
  * @author Axel-C. Ngonga Ngomo (ngonga@informatik.uni-leipzig.de)
  */
-public class JaroMapper extends AMapper {
+public class JaroMapper extends AMapper implements ITopKMapper {
 
     static Logger logger = LoggerFactory.getLogger(JaroMapper.class);
 
@@ -53,6 +57,72 @@ public class JaroMapper extends AMapper {
         return runWithoutPrefixFilter(sourceMap, targetMap, threshold);
     }
 
+    /**
+     * Computes the most similar target values of each source value. The
+     * target lengths are visited by decreasing upper bound (2 + min / max) / 3
+     * of the similarity, and the length and character filters use the
+     * threshold of a {@link TopKHeap}, which rises while the heap fills up.
+     */
+    @Override
+    public AMapping getTopKMapping(ACache source, ACache target, String sourceVar, String targetVar,
+            String expression, double threshold, int k) {
+        if (threshold <= 0) {
+            throw new InvalidThresholdException(threshold);
+        }
+        List<String> properties = PropertyFetcher.getProperties(expression, threshold);
+        Map<String, Set<String>> sourceMap = getValueToUriMap(source, properties.get(0));
+        Map<String, Set<String>> targetMap = getValueToUriMap(target, properties.get(1));
+        Map<Integer, Set<String>> targetLengthIndex = getLengthIndex(targetMap.keySet());
+        Map<String, TopKHeap<String>> heaps = new HashMap<String, TopKHeap<String>>();
+        List<Character> sourceMappingCharacters, targetMappingCharacters;
+        int halfLength, transpositions;
+        double theta, similarity;
+        for (String s : sourceMap.keySet()) {
+            int sourceLength = s.length();
+            TopKHeap<String> heap = new TopKHeap<String>(k, threshold);
+            List<Integer> lengths = new ArrayList<Integer>(targetLengthIndex.keySet());
+            Collections.sort(lengths,
+                    (a, b) -> Double.compare(getBound(sourceLength, b), getBound(sourceLength, a)));
+            for (int targetLength : lengths) {
+                if (getBound(sourceLength, targetLength) < heap.getThreshold()) {
+                    break;
+                }
+                halfLength = Math.min(sourceLength, targetLength) / 2;
+                for (String t : targetLengthIndex.get(targetLength)) {
+                    theta = (3 * heap.getThreshold() - 1) * sourceLength * targetLength
+                            / (2 * (sourceLength + targetLength));
+                    sourceMappingCharacters = JaroMeasure.getCommonCharacters(s, t, halfLength);
+                    if (sourceMappingCharacters.size() >= theta) {
+                        targetMappingCharacters = JaroMeasure.getCommonCharacters(t, s, halfLength);
+                        transpositions = JaroMeasure.getTranspositions(sourceMappingCharacters,
+                                targetMappingCharacters);
+                        if (transpositions != -1) {
+                            similarity = ((sourceMappingCharacters.size() / (float) sourceLength)
+                                    + (targetMappingCharacters.size() / (float) targetLength)
+                                    + (sourceMappingCharacters.size() - transpositions)
+                                            / (float) sourceMappingCharacters.size())
+                                    / 3.0;
+                            heap.add(t, similarity, targetMap.get(t));
+                        }
+                    }
+                }
+            }
+            heaps.put(s, heap);
+        }
+        return getTopKUriToUriMapping(heaps, sourceMap, targetMap, k);
+    }
+
+    /**
+     * @return the upper bound of the Jaro similarity of two strings of the
+     *         given lengths
+     */
+    private static double getBound(int sourceLength, int targetLength) {
+        if (sourceLength == 0 || targetLength == 0) {
+            return 1;
+        }
+        return (2 + Math.min(sourceLength, targetLength) / (double) Math.max(sourceLength, targetLength)) / 3;
+    }
+
     @Override
     public String getName() {
         return "jaro";
@@ -1,10 +1,11 @@
 package org.aksw.limes.core.measures.mapper.string;
 
+import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.aksw.limes.core.exceptions.InvalidThresholdException;
 import org.aksw.limes.core.io.cache.ACache;
@@ -13,12 +14,23 @@ import org.aksw.limes.core.io.mapping.MappingFactory;
 import org.aksw.limes.core.measures.mapper.AMapper;
 import org.aksw.limes.core.measures.mapper.pointsets.PropertyFetcher;
 import org.aksw.limes.core.measures.measure.string.TrigramMeasure;
+import org.aksw.limes.core.util.Partitions;
 
 /**
  * @author Peggy Lucke
  */
 public class MongeElkanMapper extends AMapper {
 
+    /**
+     * Upper bound of memoized token pair similarities.
+     */
+    private static final int MAX_MEMO_SIZE = 1 << 20;
+
+    /**
+     * Minimal number of source texts per parallel partition.
+     */
+    private static final int MIN_PARTITION_SIZE = 100;
+
     // Tokens are divide by space
     private String split = " ";
     // underlying trigram measure provided
@@ -39,56 +51,83 @@ public class MongeElkanMapper extends AMapper {
      * @return all results of source compare with target together with the
      *         similarity of them
      */
-    public AMapping getMapping(Map<String, Set<String>> sourceMap, Map<String, Set<String>> targetMap,
-            double threshold) {
+    public AMapping getMapping(final Map<String, Set<String>> sourceMap, final Map<String, Set<String>> targetMap,
+            final double threshold) {
         if (threshold <= 0) {
             throw new InvalidThresholdException(threshold);
         }
-        Iterator<String> sit = sourceMap.keySet().iterator();
-        double resultDouble;
-        Map<String, Map<String, Double>> similarityBook = new HashMap<>();
-        while (sit.hasNext()) {
-            Iterator<String> tit = targetMap.keySet().iterator();
-            String sourceString = sit.next();
-            HashMap<String, Double> resultB = new HashMap<>();
-            while (tit.hasNext()) {
-                String targetString = tit.next();
-                resultDouble = oneMongeElkan(sourceString.split(split), targetString.split(split), threshold);
+        // intern the tokens of all texts
+        Map<String, Integer> dictionary = new HashMap<>();
+        final List<String> vocabulary = new ArrayList<>();
+        final String[] sourceTexts = sourceMap.keySet().toArray(new String[sourceMap.size()]);
+        final String[] targetTexts = targetMap.keySet().toArray(new String[targetMap.size()]);
+        final int[][] sourceTokens = tokenize(sourceTexts, dictionary, vocabulary);
+        final int[][] targetTokens = tokenize(targetTexts, dictionary, vocabulary);
+        final TokenSimilarityCache cache = new TokenSimilarityCache(vocabulary);
+
+        return Partitions.collect(sourceTexts.length, MIN_PARTITION_SIZE, (from, to) -> getMapping(sourceTexts,
+                sourceTokens, targetTexts, targetTokens, sourceMap, targetMap, cache, threshold, from, to));
+    }
+
+    /*
+     * compare the source texts [from, to) with all target texts and add the
+     * uris of all pairs above the threshold to the result
+     */
+    private AMapping getMapping(String[] sourceTexts, int[][] sourceTokens, String[] targetTexts,
+            int[][] targetTokens, Map<String, Set<String>> sourceMap, Map<String, Set<String>> targetMap,
+            TokenSimilarityCache cache, double threshold, int from, int to) {
+        AMapping result = MappingFactory.createDefaultMapping();
+        for (int i = from; i < to; i++) {
+            for (int j = 0; j < targetTexts.length; j++) {
+                double resultDouble = oneMongeElkan(sourceTokens[i], targetTokens[j], cache, threshold);
                 if (threshold <= resultDouble) {
-                    resultB.put(targetString, resultDouble);
+                    for (String sourceUri : sourceMap.get(sourceTexts[i])) {
+                        for (String targetUri : targetMap.get(targetTexts[j])) {
+                            result.add(sourceUri, targetUri, resultDouble);
+                        }
+                    }
                 }
             }
-            similarityBook.put(sourceString, resultB);
         }
+        return result;
+    }
 
-        AMapping result = MappingFactory.createDefaultMapping();
-        for (String s : similarityBook.keySet()) {
-            for (String t : similarityBook.get(s).keySet()) {
-                for (String sourceUri : sourceMap.get(s)) {
-                    for (String targetUri : targetMap.get(t)) {
-                        result.add(sourceUri, targetUri, similarityBook.get(s).get(t));
-                    }
+    /*
+     * split the texts into tokens and replace each token by its id
+     */
+    private int[][] tokenize(String[] texts, Map<String, Integer> dictionary, List<String> vocabulary) {
+        int[][] tokens = new int[texts.length][];
+        for (int i = 0; i < texts.length; i++) {
+            String[] split = texts[i].split(this.split);
+            tokens[i] = new int[split.length];
+            for (int k = 0; k < split.length; k++) {
+                Integer id = dictionary.get(split[k]);
+                if (id == null) {
+                    id = vocabulary.size();
+                    dictionary.put(split[k], id);
+                    vocabulary.add(split[k]);
                 }
+                tokens[i][k] = id;
             }
         }
-        return result;
+        return tokens;
     }
 
     /*
      * compare one text with another
      */
-    private double oneMongeElkan(String[] sourceToken, String[] targetToken, double threshold) {
+    private double oneMongeElkan(int[] sourceToken, int[] targetToken, TokenSimilarityCache cache,
+            double threshold) {
         double simB = 0;
-        double result = 0;
-        float maxNumber = sourceToken.length;
+        double maxNumber = sourceToken.length;
         /*
          * the minimum of the result to reach the threshold
          */
-        float treshMin = (float) (maxNumber * threshold);
-        for (String sourceString : sourceToken) {// ein a
+        double treshMin = maxNumber * threshold;
+        for (int sourceId : sourceToken) {
             double maxSim = 0;
-            for (String targetString : targetToken) {// ein b
-                double sim = tokenSim(sourceString, targetString);
+            for (int targetId : targetToken) {
+                double sim = cache.getSimilarity(sourceId, targetId);
                 if (maxSim < sim) {
                     maxSim = sim;
                 }
@@ -98,20 +137,49 @@ public class MongeElkanMapper extends AMapper {
             }
             maxNumber -= 1 - maxSim;
             /*
-             * add 0.0001 for rounding errors. if the similarity of all source
-             * tokens with the target tokens don't reach the minimum threshold,
-             * there are no result, so break the algorithm.
+             * add 0.0001 for rounding errors. maxNumber is the best possible
+             * sum if all remaining source tokens find a perfect match. if it
+             * does not reach the minimum threshold, there are no result, so
+             * break the algorithm.
              */
             if (treshMin > maxNumber + 0.0001) {
-                result = 0;
-                break;
+                return 0;
             }
             simB += maxSim;
         }
-        if (simB != 0) {
-            result = simB / sourceToken.length;
+        return simB / sourceToken.length;
+    }
+
+    /**
+     * Bounded concurrent memo of the trigram similarities of interned token
+     * pairs. Texts such as person names or addresses share a small token
+     * vocabulary, so most token pairs are compared many times. The memo is
+     * cleared when it exceeds {@link #MAX_MEMO_SIZE} entries.
+     */
+    private class TokenSimilarityCache {
+        private final List<String> vocabulary;
+        private final ConcurrentHashMap<Long, Double> memo = new ConcurrentHashMap<>();
+
+        private TokenSimilarityCache(List<String> vocabulary) {
+            this.vocabulary = vocabulary;
+        }
+
+        private double getSimilarity(int a, int b) {
+            if (a == b) {
+                return 1d;
+            }
+            // the trigram similarity is symmetric
+            long key = a < b ? ((long) a << 32) | b : ((long) b << 32) | a;
+            Double sim = memo.get(key);
+            if (sim == null) {
+                sim = tokenSim(vocabulary.get(a), vocabulary.get(b));
+                if (memo.size() >= MAX_MEMO_SIZE) {
+                    memo.clear();
+                }
+                memo.put(key, sim);
+            }
+            return sim;
         }
-        return result;
     }
 
     /*
@@ -7,18 +7,26 @@ package org.aksw.limes.core.measures.mapper.string;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.StringTokenizer;
 
 import org.aksw.limes.core.exceptions.InvalidThresholdException;
 import org.aksw.limes.core.io.cache.ACache;
-import org.aksw.limes.core.io.cache.Instance;
 import org.aksw.limes.core.io.mapping.AMapping;
 import org.aksw.limes.core.io.mapping.MappingFactory;
 import org.aksw.limes.core.io.parser.Parser;
 import org.aksw.limes.core.measures.mapper.AMapper;
+import org.aksw.limes.core.measures.mapper.IIndexedMapper;
+import org.aksw.limes.core.measures.mapper.ITargetIndex;
+import org.aksw.limes.core.measures.mapper.ITopKMapper;
+import org.aksw.limes.core.measures.mapper.TopKHeap;
+import org.aksw.limes.core.measures.mapper.ValueIndex;
+import org.aksw.limes.core.measures.mapper.pointsets.PropertyFetcher;
 import org.aksw.limes.core.measures.measure.MeasureFactory;
 import org.aksw.limes.core.measures.measure.MeasureType;
 import org.aksw.limes.core.measures.measure.string.IStringMeasure;
@@ -103,10 +111,15 @@ class PartitionResult {
  * @author Dawid Kotlarz
  * @version 1.0
  */
-public class PPJoinPlusPlus extends AMapper {
+public class PPJoinPlusPlus extends AMapper implements ITopKMapper, IIndexedMapper {
 
     static Logger logger = LoggerFactory.getLogger(PPJoinPlusPlus.class);
     private static final int MAX_DEPTH = 2;
+    /**
+     * The top-k filters prune slightly below the threshold of a heap, so that
+     * rounding does not drop targets that tie with it.
+     */
+    private static final double TIE_TOLERANCE = 1e-9;
 
     /**
      * Berechnet die Überlappung zwischen zwei Datensätzen mithilfe ihrer Tokens
@@ -261,49 +274,7 @@ public class PPJoinPlusPlus extends AMapper {
         Record[] records = new Record[objects.length];
 
         for (int i = 0; i < objects.length; i++) {
-
-            StringTokenizer st = new StringTokenizer(objects[i], " .,?!\t");
-            int tokensNumber = st.countTokens();
-            Record record = new Record(i, tokensNumber);
-            // HasTable of tokens in the record <Sting> and their record
-            // frequency <Integer>
-            HashMap<String, Integer> recordTokens = new HashMap<String, Integer>();
-
-            for (int j = 0; j < tokensNumber; j++) {
-                String token = st.nextToken();
-                if (recordTokens.containsKey(token)) {
-                    Integer token_freq = recordTokens.get(token).intValue() + 1;
-                    recordTokens.put(token, token_freq);
-                    if (allTokens.containsKey(token + "." + token_freq)) { // character
-                        // '.'
-                        // is
-                        // not
-                        // allowed
-                        // in
-                        // tokens
-                        Token t = allTokens.get(token + "." + token_freq);
-                        t.df++;
-                        record.tokens[j] = t;
-                    } else {
-                        Token t = new Token(allTokens.size(), 1);
-                        allTokens.put(token + "." + token_freq, t);
-                        record.tokens[j] = t;
-                    }
-                } else {
-                    if (allTokens.containsKey(token)) {
-                        Token t = allTokens.get(token);
-                        t.df++;
-                        recordTokens.put(token, new Integer(1));
-                        record.tokens[j] = t;
-                    } else {
-                        Token t = new Token(allTokens.size(), 1);
-                        allTokens.put(token, t);
-                        recordTokens.put(token, new Integer(1));
-                        record.tokens[j] = t;
-                    }
-                }
-            }
-            records[i] = record;
+            records[i] = tokenize(i, objects[i], allTokens, true);
         }
         for (int i = 0; i < records.length; i++) {
             Arrays.sort(records[i].tokens);
@@ -314,6 +285,54 @@ public class PPJoinPlusPlus extends AMapper {
         return records;
     }
 
+    /**
+     * Zerlegt ein Objekt in seine Tokens. Wiederholte Tokens eines Objekts
+     * werden durchnummeriert. Die Tokens des Ergebnisses sind noch nicht
+     * sortiert.
+     *
+     * @param id
+     *            Id des Datensatzes
+     * @param object
+     *            das Objekt
+     * @param allTokens
+     *            bisher gefundene Tokens
+     * @param add
+     *            ob neue Tokens in allTokens aufgenommen werden und die
+     *            Häufigkeit bekannter Tokens erhöht wird. Sonst erhält jedes
+     *            neue Token die Häufigkeit 0 und eine negative Id, die mit
+     *            keinem anderen Token übereinstimmt.
+     * @return der Datensatz des Objekts
+     */
+    private static Record tokenize(int id, String object, Map<String, Token> allTokens, boolean add) {
+        StringTokenizer st = new StringTokenizer(object, " .,?!\t");
+        int tokensNumber = st.countTokens();
+        Record record = new Record(id, tokensNumber);
+        // HasTable of tokens in the record <Sting> and their record
+        // frequency <Integer>
+        HashMap<String, Integer> recordTokens = new HashMap<String, Integer>();
+
+        for (int j = 0; j < tokensNumber; j++) {
+            String token = st.nextToken();
+            Integer token_freq = recordTokens.containsKey(token) ? recordTokens.get(token).intValue() + 1 : 1;
+            recordTokens.put(token, token_freq);
+            // character '.' is not allowed in tokens
+            String key = token_freq == 1 ? token : token + "." + token_freq;
+            Token t = allTokens.get(key);
+            if (t != null) {
+                if (add) {
+                    t.df++;
+                }
+            } else if (add) {
+                t = new Token(allTokens.size(), 1);
+                allTokens.put(key, t);
+            } else {
+                t = new Token(-1 - j, 0);
+            }
+            record.tokens[j] = t;
+        }
+        return record;
+    }
+
     public String getName() {
         return "PPJoinPlusPlus";
     }
@@ -340,8 +359,6 @@ public class PPJoinPlusPlus extends AMapper {
             double threshold) {
 
         AMapping mapping;
-        HashMap<Integer, String> sourceMap;
-        HashMap<Integer, String> targetMap;
         IStringMeasure measure = null;
         if (threshold <= 0) {
             throw new InvalidThresholdException(threshold);
@@ -412,41 +429,10 @@ public class PPJoinPlusPlus extends AMapper {
                     "Expression " + expression + " was given to a mapper to process");
         }
 
-        // 3.1 fill objects from source in entry
-        // logger.info("Filling objects from source knowledge base.");
-        sourceMap = new HashMap<>();
-        ArrayList<String> uris = source.getAllUris();
-        ArrayList<String> entries = new ArrayList<>();
-        Instance instance;
-        int counter = 0;
-        for (int i = 0; i < uris.size(); i++) {
-            instance = source.getInstance(uris.get(i));
-            for (String s : instance.getProperty(property1)) {
-                sourceMap.put(counter, uris.get(i));
-                entries.add(s);
-                counter++;
-            }
-        }
-
-        // 3.2 fill objects from target in entries
-        // logger.info("Filling objects from target knowledge base.");
-        targetMap = new HashMap<Integer, String>();
-        uris = target.getAllUris();
-        for (int i = 0; i < uris.size(); i++) {
-            instance = target.getInstance(uris.get(i));
-            for (String s : instance.getProperty(property2)) {
-                targetMap.put(counter, uris.get(i));
-                entries.add(s);
-                counter++;
-            }
-        }
-
-        String[] entryArray = new String[entries.size()];
-        for (int i = 0; i < entries.size(); i++) {
-            entryArray[i] = entries.get(i);
-        }
-
-        Record[] records = tokenizer(entryArray);
+        // 3. one record per distinct source and target value, taken from the
+        // shared value indexes
+        ValueJoin join = new ValueJoin(getValueIndex(source, property1), getValueIndex(target, property2));
+        Record[] records = tokenizer(join.getValues());
         HashMap<Integer, LinkedList<Position>> index = new HashMap<Integer, LinkedList<Position>>(); // I
 
         if (threshold == 0) {
@@ -535,7 +521,7 @@ public class PPJoinPlusPlus extends AMapper {
                     }
                 }
             }
-            verification(currentRec, candidates, mapping, sourceMap, targetMap, measure);
+            verification(currentRec, candidates, mapping, join, measure);
         }
         // logger.info("Mapping carried out using " + comparisons + "
         // comparisons.");
@@ -552,16 +538,179 @@ public class PPJoinPlusPlus extends AMapper {
         return mapping;
     }
 
+    /**
+     * Computes the top-k links by probing, for each source value, an index of
+     * the prefixes of the target values at the threshold. The probed prefix
+     * of the source value and the size filter use the threshold of its
+     * {@link TopKHeap}, so they shrink while more similar targets are found.
+     * Candidates are verified by their overlap as in
+     * {@link #getMapping(ACache, ACache, String, String, String, double)}.
+     *
+     * @param source
+     *            Source cache
+     * @param target
+     *            Target cache
+     * @param sourceVar
+     *            Variable for the source dataset
+     * @param targetVar
+     *            Variable for the target dataset
+     * @param expression
+     *            Expression to process.
+     * @param threshold
+     *            Similarity threshold
+     * @param k
+     *            Number of targets per source
+     * @return the links of each source to its k most similar targets
+     */
+    @Override
+    public AMapping getTopKMapping(ACache source, ACache target, String sourceVar, String targetVar,
+            String expression, double threshold, int k) {
+        if (threshold <= 0) {
+            throw new InvalidThresholdException(threshold);
+        }
+        List<String> properties = PropertyFetcher.getProperties(expression, threshold);
+        ValueIndex sourceIndex = getValueIndex(source, properties.get(0));
+        ValueIndex targetIndex = getValueIndex(target, properties.get(1));
+        ValueJoin join = new ValueJoin(sourceIndex, targetIndex);
+        String[] values = join.getValues();
+        Record[] records = tokenizer(values);
+        IStringMeasure measure = (IStringMeasure) MeasureFactory
+                .createMeasure(MeasureFactory.getMeasureType(new Parser(expression, threshold).getOperator()));
+        // getMapping passes the later record of a pair first to the
+        // similarity, so the order of the records is kept
+        int[] order = new int[records.length];
+        HashMap<Integer, LinkedList<Record>> index = new HashMap<Integer, LinkedList<Record>>();
+        for (int i = 0; i < records.length; i++) {
+            Record y = records[i];
+            order[y.id] = i;
+            if (!join.isSource(y.id)) {
+                int prefixLength = Math.min(y.tokens.length,
+                        measure.getPrefixLength(y.tokens.length, threshold - TIE_TOLERANCE));
+                for (int j = 0; j < prefixLength; j++) {
+                    index.computeIfAbsent(y.tokens[j].id, id -> new LinkedList<Record>()).add(y);
+                }
+            }
+        }
+        Map<String, TopKHeap<String>> heaps = new HashMap<String, TopKHeap<String>>();
+        for (Record x : records) {
+            if (!join.isSource(x.id)) {
+                continue;
+            }
+            TopKHeap<String> heap = new TopKHeap<String>(k, threshold);
+            Set<Record> seen = new HashSet<Record>();
+            int size = x.tokens.length;
+            for (int j = 0; j < size; j++) {
+                if (j >= measure.getPrefixLength(size, heap.getThreshold() - TIE_TOLERANCE)) {
+                    break;
+                }
+                LinkedList<Record> candidates = index.get(x.tokens[j].id);
+                if (candidates == null) {
+                    continue;
+                }
+                for (Record y : candidates) {
+                    // the size filter only gets stricter, so a filtered
+                    // candidate does not need to be checked again
+                    double pruning = heap.getThreshold() - TIE_TOLERANCE;
+                    if (!seen.add(y) || y.tokens.length < measure.getSizeFilteringThreshold(size, pruning)
+                            || size < measure.getSizeFilteringThreshold(y.tokens.length, pruning)) {
+                        continue;
+                    }
+                    int overlap = overlap(x, 0, y, 0);
+                    double similarity = order[x.id] > order[y.id]
+                            ? measure.getSimilarity(overlap, size, y.tokens.length)
+                            : measure.getSimilarity(overlap, y.tokens.length, size);
+                    heap.add(values[y.id], similarity, join.getUris(y.id));
+                }
+            }
+            heaps.put(values[x.id], heap);
+        }
+        return getTopKUriToUriMapping(heaps, sourceIndex.asMap(), targetIndex.asMap(), k);
+    }
+
+    /**
+     * Indexes the prefixes of the distinct target values at the threshold. A
+     * source is linked by probing the index with the prefix of each of its
+     * distinct values and verifying the candidates by their overlap. The
+     * tokens are ordered by their frequency in the target, so tokens that no
+     * target value contains come first in a source value.
+     */
+    @Override
+    public ITargetIndex getTargetIndex(ACache target, String sourceVar, String targetVar, String expression,
+            double threshold) {
+        if (threshold <= 0) {
+            throw new InvalidThresholdException(threshold);
+        }
+        List<String> properties = PropertyFetcher.getProperties(expression, threshold);
+        final String sourceProperty = properties.get(0);
+        final ValueIndex targetIndex = getValueIndex(target, properties.get(1));
+        final IStringMeasure measure = (IStringMeasure) MeasureFactory
+                .createMeasure(MeasureFactory.getMeasureType(new Parser(expression, threshold).getOperator()));
+        final Map<String, Token> allTokens = new HashMap<String, Token>();
+        Record[] records = new Record[targetIndex.size()];
+        for (int i = 0; i < records.length; i++) {
+            records[i] = tokenize(i, targetIndex.getValue(i), allTokens, true);
+        }
+        final Map<Integer, List<Record>> index = new HashMap<Integer, List<Record>>();
+        for (Record y : records) {
+            Arrays.sort(y.tokens);
+            int prefixLength = Math.min(y.tokens.length, measure.getPrefixLength(y.tokens.length, threshold));
+            for (int j = 0; j < prefixLength; j++) {
+                index.computeIfAbsent(y.tokens[j].id, id -> new ArrayList<Record>()).add(y);
+            }
+        }
+        return source -> {
+            ValueIndex sourceIndex = getValueIndex(source, sourceProperty);
+            AMapping m = MappingFactory.createDefaultMapping();
+            for (int v = 0; v < sourceIndex.size(); v++) {
+                Record x = tokenize(v, sourceIndex.getValue(v), allTokens, false);
+                Arrays.sort(x.tokens);
+                Set<Record> seen = new HashSet<Record>();
+                int prefixLength = Math.min(x.tokens.length, measure.getPrefixLength(x.tokens.length, threshold));
+                for (int j = 0; j < prefixLength; j++) {
+                    List<Record> candidates = index.get(x.tokens[j].id);
+                    if (candidates == null) {
+                        continue;
+                    }
+                    for (Record y : candidates) {
+                        if (!seen.add(y)) {
+                            continue;
+                        }
+                        // getMapping processes the records by ascending size,
+                        // so the larger record of a pair comes first
+                        int larger = Math.max(x.tokens.length, y.tokens.length);
+                        int smaller = Math.min(x.tokens.length, y.tokens.length);
+                        if (smaller < measure.getSizeFilteringThreshold(larger, threshold)) {
+                            continue;
+                        }
+                        int overlap = overlap(x, 0, y, 0);
+                        double similarity = measure.getSimilarity(overlap, larger, smaller);
+                        if (overlap >= measure.getAlpha(larger, smaller, threshold) && similarity >= threshold) {
+                            for (String sourceUri : sourceIndex.getUris(v)) {
+                                for (String targetUri : targetIndex.getUris(y.id)) {
+                                    m.add(sourceUri, targetUri, similarity);
+                                }
+                            }
+                        }
+                    }
+                }
+            }
+            return m;
+        };
+    }
+
     private int verification(Record currentRec, HashMap<Record, CandidateInfo> candidates, AMapping mapping,
-            HashMap<Integer, String> sourceMap, HashMap<Integer, String> targetMap, IStringMeasure measure) {
+            ValueJoin join, IStringMeasure measure) {
         int count = 0;
-        String id1, id2;
+        int candidatePairs = 0;
 
         for (@SuppressWarnings("rawtypes")
         Map.Entry e : candidates.entrySet()) {
             CandidateInfo value = (CandidateInfo) e.getValue();
-            if (value.currentOverlap > 0) {
-                Record key = (Record) e.getKey();
+            Record key = (Record) e.getKey();
+            // two source or two target values are not linked, so their
+            // overlap is not computed
+            if (value.currentOverlap > 0 && join.connects(currentRec.id, key.id)) {
+                candidatePairs++;
                 int overlap = value.currentOverlap;
                 Token wx = currentRec.tokens[currentRec.prefixLength - 1];
                 // Token wy = key.tokens[key.prefixLength - 1];
@@ -599,28 +748,13 @@ public class PPJoinPlusPlus extends AMapper {
                 if (overlap >= value.alpha) {
                     double similarity = measure.getSimilarity(overlap, currentRec.tokens.length, key.tokens.length);
                     // use border here instead. faster!
-                    if ((sourceMap.containsKey(currentRec.id) && targetMap.containsKey(key.id))) {
-                        id1 = sourceMap.get(currentRec.id);
-                        id2 = targetMap.get(key.id);
-                        // CORRECT
-                        mapping.add(id1, id2, similarity);
-                        // mapping.add(id2, id1, similarity);
-                    } else if (targetMap.containsKey(currentRec.id) && sourceMap.containsKey(key.id)) {
-                        // get uris for ids
-                        {
-                            id1 = sourceMap.get(key.id);
-                            id2 = targetMap.get(currentRec.id);
-
-                            // CORRECT
-                            mapping.add(id1, id2, similarity);
-                            // mapping.add(id2, id1, similarity);
-                        }
-                        count++;
-                    }
+                    join.link(mapping, currentRec.id, key.id, similarity);
+                    count++;
                 }
                 // count++;
             }
         }
+        countPairs(candidatePairs, count);
         return count;
     }
 
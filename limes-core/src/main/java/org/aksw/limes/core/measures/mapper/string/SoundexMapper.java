@@ -1,10 +1,7 @@
 package org.aksw.limes.core.measures.mapper.string;
 
-import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.Deque;
 import java.util.HashMap;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -16,16 +13,26 @@ import org.aksw.limes.core.io.mapping.MappingFactory;
 import org.aksw.limes.core.measures.mapper.AMapper;
 import org.aksw.limes.core.measures.mapper.pointsets.PropertyFetcher;
 import org.aksw.limes.core.measures.measure.string.SoundexMeasure;
-import org.apache.commons.lang3.tuple.MutableTriple;
-import org.apache.commons.lang3.tuple.Triple;
 
 /**
  * @author Kevin Dreßler
  */
 public class SoundexMapper extends AMapper {
 
+    private static final int DIGIT_BITS = 3;
+
     /**
-     * Computes a mapping between a source and a target.
+     * Bit offset of the segment index in segment keys, above the packed code.
+     */
+    private static final int SEGMENT_SHIFT = 16 + DIGIT_BITS * (SoundexMeasure.codeLength - 1);
+
+    /**
+     * Computes a mapping between a source and a target. Soundex codes are
+     * packed into long keys. Two codes within the maximal Hamming distance d
+     * agree on at least one of d + 1 disjoint segments, so the codes of the
+     * side with less distinct codes are hashed by each of their segments into
+     * an {@link EquiJoin} table, and the codes of the other side probe it in
+     * parallel.
      *
      * @param source
      *            Source cache
@@ -48,168 +55,182 @@ public class SoundexMapper extends AMapper {
         if (threshold <= 0) {
             throw new InvalidThresholdException(threshold);
         }
-        List<String> listA, listB;
-        Map<String, List<Integer>> invListA, invListB;
         List<String> properties = PropertyFetcher.getProperties(expression, threshold);
         Map<String, Set<String>> sourceMap = getValueToUriMap(source, properties.get(0));
         Map<String, Set<String>> targetMap = getValueToUriMap(target, properties.get(1));
-        listA = new ArrayList<>(sourceMap.keySet());
-        listB = new ArrayList<>(targetMap.keySet());
-        // create inverted lists (code=>index of original list)
-        invListA = getInvertedList(listA);
-        invListB = getInvertedList(listB);
-        Deque<Triple<Integer, List<Integer>, List<Integer>>> similarityBook = new ArrayDeque<>();
-        // construct trie from smaller list
-        TrieNode trie = TrieNode.recursiveAddAll(invListB);
-        int maxDistance = getMaxDistance(threshold);
-        // iterate over other list
-        for (Map.Entry<String, List<Integer>> entry : invListA.entrySet()) {
-            // for each entry do trie search
-            Deque<TrieSearchState> queue = new ArrayDeque<>();
-            queue.add(new TrieSearchState(0, 0, trie));
-            while (!queue.isEmpty()) {
-                TrieSearchState current = queue.pop();
-                Set<Map.Entry<Character, TrieNode>> childs = current.getNode().getChildren();
-                if (childs.isEmpty() && !current.getNode().getReferences().isEmpty()) {
-                    similarityBook.push(new MutableTriple<>(current.getDistance(), entry.getValue(),
-                            current.getNode().getReferences()));
-                }
-                for (Map.Entry<Character, TrieNode> nodeEntry : childs) {
-                    if (nodeEntry.getKey().equals(entry.getKey().charAt(current.getPosition()))) {
-                        queue.push(new TrieSearchState(current.getDistance(), current.getPosition() + 1,
-                                nodeEntry.getValue()));
-                    } else if (current.getDistance() < maxDistance) {
-                        queue.push(new TrieSearchState(current.getDistance() + 1, current.getPosition() + 1,
-                                nodeEntry.getValue()));
-                    }
-                }
+        CodeGroups sourceCodes = new CodeGroups(sourceMap);
+        CodeGroups targetCodes = new CodeGroups(targetMap);
+        final boolean buildSource = sourceCodes.size() <= targetCodes.size();
+        final CodeGroups build = buildSource ? sourceCodes : targetCodes;
+        final CodeGroups probe = buildSource ? targetCodes : sourceCodes;
+        final int maxDistance = getMaxDistance(threshold);
+        if (maxDistance < 0) {
+            return MappingFactory.createDefaultMapping();
+        }
+        final long[] segmentMasks = getSegmentMasks(maxDistance + 1);
+        // entry s * build.size() + c holds segment s of build code c
+        long[] keys = new long[segmentMasks.length * build.size()];
+        for (int seg = 0; seg < segmentMasks.length; seg++) {
+            for (int c = 0; c < build.size(); c++) {
+                keys[seg * build.size() + c] = getSegmentKey(build.codes[c], seg, segmentMasks);
             }
         }
-        AMapping result = MappingFactory.createDefaultMapping();
-        while (!similarityBook.isEmpty()) {
-            Triple<Integer, List<Integer>, List<Integer>> t = similarityBook.pop();
-            for (Integer i : t.getMiddle()) {
-                String a = listA.get(i);
-                for (Integer j : t.getRight()) {
-                    String b = listB.get(j);
-                    for (String sourceUri : sourceMap.get(a)) {
-                        for (String targetUri : targetMap.get(b)) {
-                            result.add(sourceUri, targetUri,
-                                    (1.0d - (t.getLeft().doubleValue() / (double) SoundexMeasure.codeLength)));
+        final EquiJoin table = new EquiJoin(keys);
+        return EquiJoin.parallelProbe(probe.size(), (from, to, m) -> {
+            for (int p = from; p < to; p++) {
+                for (int seg = 0; seg < segmentMasks.length; seg++) {
+                    long key = getSegmentKey(probe.codes[p], seg, segmentMasks);
+                    for (int e = table.first(key); e != -1; e = table.next(e)) {
+                        int c = e % build.size();
+                        long difference = probe.codes[p] ^ build.codes[c];
+                        if (!isFirstCommonSegment(difference, seg, segmentMasks)) {
+                            continue;
+                        }
+                        int distance = getDistance(difference);
+                        if (distance <= maxDistance) {
+                            double sim = 1.0d - ((double) distance / (double) SoundexMeasure.codeLength);
+                            for (String buildUri : build.getUris(c)) {
+                                for (String probeUri : probe.getUris(p)) {
+                                    if (buildSource) {
+                                        m.add(buildUri, probeUri, sim);
+                                    } else {
+                                        m.add(probeUri, buildUri, sim);
+                                    }
+                                }
+                            }
                         }
                     }
                 }
             }
-        }
-
-        return result;
+        });
     }
 
-    private Map<String, List<Integer>> getInvertedList(List<String> list) {
-        Map<String, List<Integer>> result = new HashMap<>(list.size());
-        for (int i = 0, listASize = list.size(); i < listASize; i++) {
-            String s = list.get(i);
-            String code = SoundexMeasure.getCode(s);
-            List<Integer> ref;
-            if (!result.containsKey(code)) {
-                ref = new LinkedList<>();
-                result.put(code, ref);
-            } else {
-                ref = result.get(code);
-            }
-            ref.add(i);
+    /**
+     * Packs a Soundex code into a long. The first character takes 16 bits,
+     * every following digit 3 bits.
+     *
+     * @param code
+     *            the Soundex code
+     * @return the packed code
+     */
+    static long pack(String code) {
+        long packed = code.charAt(0);
+        for (int i = 1; i < SoundexMeasure.codeLength; i++) {
+            packed = (packed << DIGIT_BITS) | (code.charAt(i) - '0');
         }
-        return result;
-    }
-
-    public String getName() {
-        return "soundex";
+        return packed;
     }
 
-    public double getRuntimeApproximation(int sourceSize, int targetSize, double theta, Language language) {
-        return 1000d;
+    /**
+     * Returns the bits of a packed code that hold the given position.
+     */
+    private static long getPositionMask(int position) {
+        int shift = DIGIT_BITS * (SoundexMeasure.codeLength - 1 - Math.max(position, 1));
+        return (position == 0 ? 0xffffL << DIGIT_BITS : (1L << DIGIT_BITS) - 1) << shift;
     }
 
-    public double getMappingSizeApproximation(int sourceSize, int targetSize, double theta, Language language) {
-        return 1000d;
+    /**
+     * Splits the code positions into the given number of contiguous segments.
+     */
+    private static long[] getSegmentMasks(int segments) {
+        long[] masks = new long[segments];
+        for (int position = 0; position < SoundexMeasure.codeLength; position++) {
+            masks[position * segments / SoundexMeasure.codeLength] |= getPositionMask(position);
+        }
+        return masks;
     }
 
-    private int getMaxDistance(double threshold) {
-        return new Double(Math.floor(SoundexMeasure.codeLength * (1 - threshold))).intValue();
+    private static long getSegmentKey(long code, int segment, long[] segmentMasks) {
+        return (code & segmentMasks[segment]) | ((long) segment << SEGMENT_SHIFT);
     }
 
-    static class TrieNode {
-
-        private Map<Character, TrieNode> children;
-        private List<Integer> references;
-
-        public TrieNode(List<Integer> references) {
-            this.references = references;
-            this.children = new HashMap<>();
-        }
-
-        public static TrieNode recursiveAddAll(Map<String, List<Integer>> code2References) {
-            TrieNode root = new TrieNode(null);
-            TrieNode.recursiveAddAll(root, code2References);
-            return root;
-        }
-
-        public static void recursiveAddAll(TrieNode root, Map<String, List<Integer>> code2References) {
-            for (Map.Entry<String, List<Integer>> entry : code2References.entrySet())
-                TrieNode.recursiveAdd(root, entry.getKey(), entry.getValue());
+    /**
+     * Checks that two codes with the given difference agree on no segment
+     * before the given one, so every pair is reported only once.
+     */
+    private static boolean isFirstCommonSegment(long difference, int segment, long[] segmentMasks) {
+        for (int s = 0; s < segment; s++) {
+            if ((difference & segmentMasks[s]) == 0) {
+                return false;
+            }
         }
+        return true;
+    }
 
-        private static void recursiveAdd(TrieNode node, String code, List<Integer> references) {
-            if (code.length() > 1)
-                TrieNode.recursiveAdd(node.addChild(code.charAt(0), null), code.substring(1), references);
-            else
-                node.addChild(code.charAt(0), references);
+    /**
+     * Number of positions in which two packed codes differ.
+     */
+    private static int getDistance(long difference) {
+        int distance = 0;
+        for (int position = 0; position < SoundexMeasure.codeLength; position++) {
+            if ((difference & getPositionMask(position)) != 0) {
+                distance++;
+            }
         }
+        return distance;
+    }
 
-        public TrieNode addChild(char symbol, List<Integer> references) {
-            TrieNode child;
-            if (!this.children.containsKey(symbol)) {
-                child = new TrieNode(references);
-                this.children.put(symbol, child);
-            } else {
-                child = this.children.get(symbol);
+    /**
+     * Distinct packed Soundex codes of a value-to-URI map, each with the
+     * values that share it.
+     */
+    private static class CodeGroups {
+        private final long[] codes;
+        private final List<List<Set<String>>> uris = new ArrayList<>();
+
+        private CodeGroups(Map<String, Set<String>> valueToUriMap) {
+            Map<Long, Integer> ids = new HashMap<>();
+            List<Long> distinct = new ArrayList<>();
+            for (Map.Entry<String, Set<String>> entry : valueToUriMap.entrySet()) {
+                long code = pack(SoundexMeasure.getCode(entry.getKey()));
+                Integer id = ids.get(code);
+                if (id == null) {
+                    id = distinct.size();
+                    ids.put(code, id);
+                    distinct.add(code);
+                    uris.add(new ArrayList<>());
+                }
+                uris.get(id).add(entry.getValue());
+            }
+            codes = new long[distinct.size()];
+            for (int i = 0; i < codes.length; i++) {
+                codes[i] = distinct.get(i);
             }
-            return child;
         }
 
-        public List<Integer> getReferences() {
-            return this.references;
+        private int size() {
+            return codes.length;
         }
 
-        public Set<Map.Entry<Character, TrieNode>> getChildren() {
-            return this.children.entrySet();
+        /**
+         * Returns the URIs of all values with the given code.
+         */
+        private Iterable<String> getUris(int code) {
+            List<Set<String>> groups = uris.get(code);
+            if (groups.size() == 1) {
+                return groups.get(0);
+            }
+            List<String> all = new ArrayList<>();
+            for (Set<String> group : groups) {
+                all.addAll(group);
+            }
+            return all;
         }
     }
 
-    static class TrieSearchState {
-        private int distance;
-        private int position;
-        private TrieNode node;
-
-        public TrieSearchState(int distance, int position, TrieNode node) {
-            this.distance = distance;
-            this.position = position;
-            this.node = node;
-        }
-
-        public int getDistance() {
-            return distance;
-        }
-
-        public int getPosition() {
-            return position;
-        }
+    public String getName() {
+        return "soundex";
+    }
 
-        public TrieNode getNode() {
-            return node;
-        }
+    public double getRuntimeApproximation(int sourceSize, int targetSize, double theta, Language language) {
+        return 1000d;
     }
 
-    ;
+    public double getMappingSizeApproximation(int sourceSize, int targetSize, double theta, Language language) {
+        return 1000d;
+    }
 
+    private int getMaxDistance(double threshold) {
+        return new Double(Math.floor(SoundexMeasure.codeLength * (1 - threshold))).intValue();
+    }
 }
@@ -0,0 +1,103 @@
+package org.aksw.limes.core.measures.mapper.string;
+
+import java.util.Set;
+
+import org.aksw.limes.core.io.mapping.AMapping;
+import org.aksw.limes.core.measures.mapper.ValueIndex;
+
+/**
+ * The distinct values of a source and a target property as one array of
+ * records for the self-joins of PPJoin+ and EDJoin. Record ids below the
+ * number of source values are the ids of source values, the others are
+ * target value ids shifted by that number. A link between two records is
+ * expanded to all pairs of instances with these values.
+ *
+ * @version 1.0
+ */
+class ValueJoin {
+
+    private final ValueIndex sourceIndex;
+    private final ValueIndex targetIndex;
+    private final String[] values;
+
+    /**
+     * Constructor of ValueJoin class.
+     *
+     * @param sourceIndex
+     *            Value index of the source property
+     * @param targetIndex
+     *            Value index of the target property
+     */
+    ValueJoin(ValueIndex sourceIndex, ValueIndex targetIndex) {
+        this.sourceIndex = sourceIndex;
+        this.targetIndex = targetIndex;
+        values = new String[sourceIndex.size() + targetIndex.size()];
+        for (int v = 0; v < sourceIndex.size(); v++) {
+            values[v] = sourceIndex.getValue(v);
+        }
+        for (int v = 0; v < targetIndex.size(); v++) {
+            values[sourceIndex.size() + v] = targetIndex.getValue(v);
+        }
+    }
+
+    /**
+     * @return the source values followed by the target values, indexed by
+     *         record id
+     */
+    String[] getValues() {
+        return values;
+    }
+
+    /**
+     * @param x
+     *            Id of a record
+     * @param y
+     *            Id of a record
+     * @return true if one of the records is a source value and the other one
+     *         a target value
+     */
+    boolean connects(int x, int y) {
+        return isSource(x) != isSource(y);
+    }
+
+    /**
+     * @param id
+     *            Id of a record
+     * @return the instances with the value of the record
+     */
+    Set<String> getUris(int id) {
+        return isSource(id) ? sourceIndex.getUris(id) : targetIndex.getUris(id - sourceIndex.size());
+    }
+
+    /**
+     * Adds the links between the instances of two records, one of which is a
+     * source value and the other one a target value.
+     *
+     * @param mapping
+     *            Mapping the links are added to
+     * @param x
+     *            Id of a record
+     * @param y
+     *            Id of a record
+     * @param similarity
+     *            Similarity of the two values
+     */
+    void link(AMapping mapping, int x, int y, double similarity) {
+        int sourceId = isSource(x) ? x : y;
+        int targetId = (isSource(x) ? y : x) - sourceIndex.size();
+        for (String sourceUri : sourceIndex.getUris(sourceId)) {
+            for (String targetUri : targetIndex.getUris(targetId)) {
+                mapping.add(sourceUri, targetUri, similarity);
+            }
+        }
+    }
+
+    /**
+     * @param id
+     *            Id of a record
+     * @return true if the record is a source value
+     */
+    boolean isSource(int id) {
+        return id < sourceIndex.size();
+    }
+}
@@ -6,11 +6,11 @@
 package org.aksw.limes.core.measures.mapper.string.fastngram;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
-import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.TreeSet;
 
 import org.aksw.limes.core.exceptions.InvalidThresholdException;
 import org.aksw.limes.core.io.cache.ACache;
@@ -18,6 +18,11 @@ import org.aksw.limes.core.io.mapping.AMapping;
 import org.aksw.limes.core.io.mapping.MappingFactory;
 import org.aksw.limes.core.io.parser.Parser;
 import org.aksw.limes.core.measures.mapper.AMapper;
+import org.aksw.limes.core.measures.mapper.IIndexedMapper;
+import org.aksw.limes.core.measures.mapper.ITargetIndex;
+import org.aksw.limes.core.measures.mapper.ITopKMapper;
+import org.aksw.limes.core.measures.mapper.PairCounter;
+import org.aksw.limes.core.measures.mapper.TopKHeap;
 import org.aksw.limes.core.measures.measure.string.QGramSimilarityMeasure;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -26,16 +31,22 @@ import org.slf4j.MarkerFactory;
 /**
  * @author Axel-C. Ngonga Ngomo (ngonga@informatik.uni-leipzig.de)
  */
-public class FastNGramMapper extends AMapper {
+public class FastNGramMapper extends AMapper implements IIndexedMapper, ITopKMapper {
 
     static Logger logger = LoggerFactory.getLogger(FastNGramMapper.class);
     static int q = 3;
 
     public static AMapping compute(Set<String> source, Set<String> target, int q, double threshold) {
+        return compute(source, target, q, threshold, null);
+    }
+
+    /**
+     * Links the source strings to the target strings and adds the number of
+     * compared and linked string pairs to the counter, unless it is null.
+     */
+    private static AMapping compute(Set<String> source, Set<String> target, int q, double threshold,
+            PairCounter counter) {
         Index index = new Index(q);
-        double kappa = (1 + threshold) / threshold;
-        QGramSimilarityMeasure sim = new QGramSimilarityMeasure(q);
-        ITokenizer tokenizer = new NGramTokenizer();
         Map<String, Set<String>> targetTokens = new HashMap<String, Set<String>>();
         AMapping result = MappingFactory.createDefaultMapping();
         // index target
@@ -43,54 +54,109 @@ public class FastNGramMapper extends AMapper {
             targetTokens.put(t, index.addString(t));
         }
         // run similarity computation
-
+        QGramSimilarityMeasure sim = new QGramSimilarityMeasure(q);
+        ITokenizer tokenizer = new NGramTokenizer();
+        long candidates = 0;
         for (String s : source) {
-            Set<Integer> allSizes = index.getAllSizes();
-            Set<String> sourceTokens = tokenizer.tokenize(s, q);
-            double sourceSize = (double) sourceTokens.size();
-            for (int size = (int) Math.ceil(sourceSize * threshold); size <= (int) Math
-                    .floor(sourceSize / threshold); size++) {
-                if (allSizes.contains(size)) {
-                    // maps tokens to strings
-                    Map<String, Set<String>> stringsOfSize = index.getStrings(size);
-                    Map<String, Integer> countMap = new HashMap<String, Integer>();
-                    for (String token : sourceTokens) {
-                        if (stringsOfSize.containsKey(token)) {
-                            // take each string and add it to the count map
-                            Set<String> candidates = stringsOfSize.get(token);
-                            for (String candidate : candidates) {
-                                if (!countMap.containsKey(candidate)) {
-                                    countMap.put(candidate, 0);
-                                }
-                                countMap.put(candidate, countMap.get(candidate) + 1);
+            candidates += probe(s, index, targetTokens, q, threshold, sim, tokenizer, result);
+        }
+        if (counter != null) {
+            counter.add(candidates, result.getNumberofMappings());
+        }
+        return result;
+    }
+
+    /**
+     * Adds the links of a source string to the indexed target strings with a
+     * similarity not below the threshold.
+     *
+     * @return the number of target strings whose similarity was computed
+     */
+    private static int probe(String s, Index index, Map<String, Set<String>> targetTokens, int q,
+            double threshold, QGramSimilarityMeasure sim, ITokenizer tokenizer, AMapping result) {
+        double kappa = (1 + threshold) / threshold;
+        Set<Integer> allSizes = index.getAllSizes();
+        Set<String> sourceTokens = tokenizer.tokenize(s, q);
+        double sourceSize = (double) sourceTokens.size();
+        int compared = 0;
+        for (int size = (int) Math.ceil(sourceSize * threshold); size <= (int) Math
+                .floor(sourceSize / threshold); size++) {
+            if (allSizes.contains(size)) {
+                // maps tokens to strings
+                Map<String, Set<String>> stringsOfSize = index.getStrings(size);
+                Map<String, Integer> countMap = new HashMap<String, Integer>();
+                for (String token : sourceTokens) {
+                    if (stringsOfSize.containsKey(token)) {
+                        // take each string and add it to the count map
+                        Set<String> candidates = stringsOfSize.get(token);
+                        for (String candidate : candidates) {
+                            if (!countMap.containsKey(candidate)) {
+                                countMap.put(candidate, 0);
                             }
+                            countMap.put(candidate, countMap.get(candidate) + 1);
                         }
                     }
-                    // now apply filtering |X \cap Y| \geq \kappa(|X| + |Y|)
-                    for (String candidate : countMap.keySet()) {
-                        double count = (double) countMap.get(candidate);
-                        if (kappa * count >= (sourceSize + size)) {
-                            double similarity = sim.getSimilarity(targetTokens.get(candidate), sourceTokens);
-                            if (similarity >= threshold) {
-                                result.add(s, candidate, similarity);
-                            }
+                }
+                // now apply filtering |X \cap Y| \geq \kappa(|X| + |Y|)
+                for (String candidate : countMap.keySet()) {
+                    double count = (double) countMap.get(candidate);
+                    if (kappa * count >= (sourceSize + size)) {
+                        compared++;
+                        double similarity = sim.getSimilarity(targetTokens.get(candidate), sourceTokens);
+                        if (similarity >= threshold) {
+                            result.add(s, candidate, similarity);
                         }
                     }
                 }
             }
+        }
+        return compared;
+    }
 
+    /**
+     * Collects the most similar target strings of a source string. The sizes
+     * of the target strings are visited by decreasing upper bound
+     * min(|X|, |Y|) / max(|X|, |Y|) of the similarity against the threshold
+     * of the heap, which rises while the heap fills up.
+     */
+    private static void probeTopK(String s, Index index, int q, ITokenizer tokenizer, TopKHeap<String> heap,
+            Map<String, Set<String>> targetMap) {
+        Set<String> sourceTokens = tokenizer.tokenize(s, q);
+        double sourceSize = (double) sourceTokens.size();
+        if (sourceSize == 0) {
+            return;
         }
-        AMapping tempMapping = MappingFactory.createDefaultMapping();
-        for (String key : result.getMap().keySet()) {
-            for (String value : result.getMap().get(key).keySet()) {
-                double confidence = result.getConfidence(key, value);
-                if (confidence >= threshold) {
-                    tempMapping.add(key, value, confidence);
+        List<Integer> sizes = new ArrayList<Integer>(index.getAllSizes());
+        Collections.sort(sizes, (a, b) -> Double.compare(getBound(sourceSize, b), getBound(sourceSize, a)));
+        for (int size : sizes) {
+            if (getBound(sourceSize, size) < heap.getThreshold()) {
+                break;
+            }
+            Map<String, Set<String>> stringsOfSize = index.getStrings(size);
+            Map<String, Integer> countMap = new HashMap<String, Integer>();
+            for (String token : sourceTokens) {
+                Set<String> candidates = stringsOfSize.get(token);
+                if (candidates != null) {
+                    for (String candidate : candidates) {
+                        countMap.merge(candidate, 1, Integer::sum);
+                    }
                 }
             }
+            // the count of shared q-grams gives the similarity without a
+            // further comparison
+            for (Map.Entry<String, Integer> candidate : countMap.entrySet()) {
+                double count = (double) candidate.getValue();
+                heap.add(candidate.getKey(), count / (size + sourceSize - count), targetMap.get(candidate.getKey()));
+            }
         }
-        result = tempMapping;
-        return result;
+    }
+
+    /**
+     * @return the upper bound of the similarity of two token sets of the
+     *         given sizes
+     */
+    private static double getBound(double sourceSize, int targetSize) {
+        return Math.min(sourceSize, targetSize) / Math.max(sourceSize, targetSize);
     }
 
     public String getName() {
@@ -118,6 +184,97 @@ public class FastNGramMapper extends AMapper {
     public AMapping getMapping(ACache source, ACache target, String sourceVar, String targetVar, String expression,
             double threshold) {
 
+        String[] properties = getProperties(sourceVar, expression, threshold);
+        String property1 = properties[0], property2 = properties[1];
+
+        Map<String, Set<String>> sourceMap = getValueToUriMap(source, property1);
+        Map<String, Set<String>> targetMap = getValueToUriMap(target, property2);
+
+        // run the algorithm
+        // logger.info("Computing mappings");
+        AMapping m = FastNGramMapper.compute(sourceMap.keySet(), targetMap.keySet(), q, threshold,
+                getPairCounter());
+        AMapping result = MappingFactory.createDefaultMapping();
+        for (String s : m.getMap().keySet()) {
+            for (String t : m.getMap().get(s).keySet()) {
+                for (String sourceUri : sourceMap.get(s)) {
+                    for (String targetUri : targetMap.get(t)) {
+                        result.add(sourceUri, targetUri, m.getConfidence(s, t));
+                    }
+                }
+            }
+        }
+
+        return result;
+
+    }
+
+    /**
+     * Indexes the q-grams of the distinct target values. A source is linked by
+     * probing its distinct values against the index.
+     */
+    @Override
+    public ITargetIndex getTargetIndex(ACache target, String sourceVar, String targetVar, String expression,
+            double threshold) {
+        String[] properties = getProperties(sourceVar, expression, threshold);
+        final String sourceProperty = properties[0];
+        final Map<String, Set<String>> targetMap = getValueToUriMap(target, properties[1]);
+        final Index index = new Index(q);
+        final Map<String, Set<String>> targetTokens = new HashMap<String, Set<String>>();
+        for (String t : targetMap.keySet()) {
+            targetTokens.put(t, index.addString(t));
+        }
+        final QGramSimilarityMeasure sim = new QGramSimilarityMeasure(q);
+        final ITokenizer tokenizer = new NGramTokenizer();
+        return source -> {
+            Map<String, Set<String>> sourceMap = getValueToUriMap(source, sourceProperty);
+            AMapping m = MappingFactory.createDefaultMapping();
+            for (String s : sourceMap.keySet()) {
+                probe(s, index, targetTokens, q, threshold, sim, tokenizer, m);
+            }
+            AMapping result = MappingFactory.createDefaultMapping();
+            for (String s : m.getMap().keySet()) {
+                for (String t : m.getMap().get(s).keySet()) {
+                    for (String sourceUri : sourceMap.get(s)) {
+                        for (String targetUri : targetMap.get(t)) {
+                            result.add(sourceUri, targetUri, m.getConfidence(s, t));
+                        }
+                    }
+                }
+            }
+            return result;
+        };
+    }
+
+    /**
+     * Indexes the q-grams of the distinct target values and probes each
+     * distinct source value with a {@link TopKHeap} of its most similar
+     * target values.
+     */
+    @Override
+    public AMapping getTopKMapping(ACache source, ACache target, String sourceVar, String targetVar,
+            String expression, double threshold, int k) {
+        String[] properties = getProperties(sourceVar, expression, threshold);
+        Map<String, Set<String>> sourceMap = getValueToUriMap(source, properties[0]);
+        Map<String, Set<String>> targetMap = getValueToUriMap(target, properties[1]);
+        Index index = new Index(q);
+        for (String t : targetMap.keySet()) {
+            index.addString(t);
+        }
+        ITokenizer tokenizer = new NGramTokenizer();
+        Map<String, TopKHeap<String>> heaps = new HashMap<String, TopKHeap<String>>();
+        for (String s : sourceMap.keySet()) {
+            TopKHeap<String> heap = new TopKHeap<String>(k, threshold);
+            probeTopK(s, index, q, tokenizer, heap, targetMap);
+            heaps.put(s, heap);
+        }
+        return getTopKUriToUriMapping(heaps, sourceMap, targetMap, k);
+    }
+
+    /**
+     * @return the source and the target property of an atomic expression
+     */
+    private static String[] getProperties(String sourceVar, String expression, double threshold) {
         if (threshold <= 0) {
             throw new InvalidThresholdException(threshold);
         }
@@ -186,51 +343,7 @@ public class FastNGramMapper extends AMapper {
             throw new RuntimeException();
         }
 
-        /////////////////// This actually runs the algorithm
-        Map<String, Set<String>> sourceMap = new HashMap<String, Set<String>>();
-        ArrayList<String> sourceUris = source.getAllUris();
-        Map<String, Set<String>> targetMap = new HashMap<String, Set<String>>();
-        ArrayList<String> targetUris = target.getAllUris();
-
-        // index source values
-        for (String s : sourceUris) {
-            TreeSet<String> values = source.getInstance(s).getProperty(property1);
-            for (String v : values) {
-                if (!sourceMap.containsKey(v)) {
-                    sourceMap.put(v, new HashSet<String>());
-                }
-                sourceMap.get(v).add(s);
-            }
-        }
-
-        // index target values
-        // logger.info("Indexing target values");
-        for (String t : targetUris) {
-            TreeSet<String> values = target.getInstance(t).getProperty(property2);
-            for (String v : values) {
-                if (!targetMap.containsKey(v)) {
-                    targetMap.put(v, new HashSet<String>());
-                }
-                targetMap.get(v).add(t);
-            }
-        }
-
-        // run the algorithm
-        // logger.info("Computing mappings");
-        AMapping m = FastNGramMapper.compute(sourceMap.keySet(), targetMap.keySet(), q, threshold);
-        AMapping result = MappingFactory.createDefaultMapping();
-        for (String s : m.getMap().keySet()) {
-            for (String t : m.getMap().get(s).keySet()) {
-                for (String sourceUri : sourceMap.get(s)) {
-                    for (String targetUri : targetMap.get(t)) {
-                        result.add(sourceUri, targetUri, m.getConfidence(s, t));
-                    }
-                }
-            }
-        }
-
-        return result;
-
+        return new String[] { property1, property2 };
     }
 
     public double getRuntimeApproximation(int sourceSize, int targetSize, double threshold, Language language) {
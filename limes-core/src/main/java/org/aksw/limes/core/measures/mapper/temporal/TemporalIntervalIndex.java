@@ -0,0 +1,328 @@
+package org.aksw.limes.core.measures.mapper.temporal;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.aksw.limes.core.io.cache.ACache;
+import org.aksw.limes.core.io.mapping.AMapping;
+import org.aksw.limes.core.io.mapping.MappingFactory;
+import org.aksw.limes.core.util.Partitions;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Columnar interval index over the events of a cache. For every instance that
+ * has a begin (and optionally an end) date, the index stores its uri and the
+ * corresponding epochs as primitive long arrays. Additionally, it keeps two
+ * permutations of the instances, one ordered by begin and one ordered by end
+ * date, so that every temporal relation can be answered by binary searches and
+ * contiguous scans instead of rebuilding TreeMaps per atomic relation.
+ *
+ * Indexes are built once per (cache, begin property, end property) and shared
+ * between all temporal mappers through {@link #getIndex(ACache, String, String)}.
+ * The epochs are taken from the {@link TimestampColumns} of the cache, so the
+ * date literals are parsed only once, no matter how many indexes are built.
+ * If an instance has more than one value for a property, its first value is
+ * used, which is consistent with the temporal measures.
+ *
+ * @version 1.0
+ */
+public class TemporalIntervalIndex {
+    private static final Logger logger = LoggerFactory.getLogger(TemporalIntervalIndex.class);
+
+    /**
+     * Registry of already built indexes. Caches are held weakly so that an
+     * index does not outlive its cache.
+     */
+    private static final Map<ACache, Map<String, TemporalIntervalIndex>> registry = Collections
+            .synchronizedMap(new WeakHashMap<ACache, Map<String, TemporalIntervalIndex>>());
+
+    /**
+     * Uris of the indexed events.
+     */
+    private final String[] uris;
+    /**
+     * Begin epoch of each event.
+     */
+    private final long[] begins;
+    /**
+     * End epoch of each event. Equals the begin epoch if no end property was
+     * given.
+     */
+    private final long[] ends;
+    /**
+     * Event ids ordered by begin epoch.
+     */
+    private final int[] beginOrder;
+    /**
+     * Event ids ordered by end epoch.
+     */
+    private final int[] endOrder;
+    /**
+     * Begin epochs in ascending order, i.e. begins[beginOrder[i]].
+     */
+    private final long[] sortedBegins;
+    /**
+     * End epochs in ascending order, i.e. ends[endOrder[i]].
+     */
+    private final long[] sortedEnds;
+    /**
+     * Timestamp columns the index was built from, used to detect stale
+     * indexes.
+     */
+    private final TimestampColumns columns;
+
+    /**
+     * Minimal number of source events per partition of a parallel join.
+     */
+    private static final int MIN_PARTITION_SIZE = 10000;
+
+    /**
+     * Endpoints of an event interval.
+     */
+    public enum Endpoint {
+        BEGIN, END
+    }
+
+    /**
+     * Join of a contiguous range of source events against a target index.
+     */
+    public interface PartitionJoin {
+        /**
+         * Adds the links of the source events [from, to) to the mapping.
+         *
+         * @param from,
+         *            first source event (inclusive)
+         * @param to,
+         *            last source event (exclusive)
+         * @param mapping,
+         *            the partition-local result mapping
+         */
+        void join(int from, int to, AMapping mapping);
+    }
+
+    private TemporalIntervalIndex(ArrayList<String> uris, ArrayList<long[]> intervals, TimestampColumns columns) {
+        int n = uris.size();
+        this.columns = columns;
+        this.uris = uris.toArray(new String[n]);
+        this.begins = new long[n];
+        this.ends = new long[n];
+        for (int i = 0; i < n; i++) {
+            begins[i] = intervals.get(i)[0];
+            ends[i] = intervals.get(i)[1];
+        }
+        this.beginOrder = sortedPermutation(begins);
+        this.endOrder = sortedPermutation(ends);
+        this.sortedBegins = new long[n];
+        this.sortedEnds = new long[n];
+        for (int i = 0; i < n; i++) {
+            sortedBegins[i] = begins[beginOrder[i]];
+            sortedEnds[i] = ends[endOrder[i]];
+        }
+    }
+
+    /**
+     * Returns the interval index of a cache for the given begin and end
+     * properties. The index is built on first request and reused afterwards as
+     * long as the timestamp columns of the cache do not change.
+     *
+     * @param cache,
+     *            the cache of instances
+     * @param beginProperty,
+     *            the begin date property
+     * @param endProperty,
+     *            the end date property, or null if events are points in time
+     * @return the interval index of the cache
+     */
+    public static TemporalIntervalIndex getIndex(ACache cache, String beginProperty, String endProperty) {
+        String key = beginProperty + "|" + (endProperty == null ? "" : endProperty);
+        Map<String, TemporalIntervalIndex> indexes;
+        synchronized (registry) {
+            indexes = registry.get(cache);
+            if (indexes == null) {
+                indexes = new ConcurrentHashMap<String, TemporalIntervalIndex>();
+                registry.put(cache, indexes);
+            }
+        }
+        TemporalIntervalIndex index = indexes.get(key);
+        if (index == null || index.columns != TimestampColumns.getColumns(cache)) {
+            index = build(cache, beginProperty, endProperty);
+            indexes.put(key, index);
+        }
+        return index;
+    }
+
+    /**
+     * Removes all indexes of a cache from the registry. Must be called if the
+     * values of an already indexed cache are modified in place.
+     *
+     * @param cache,
+     *            the cache whose indexes are dropped
+     */
+    public static void invalidate(ACache cache) {
+        registry.remove(cache);
+        TimestampColumns.invalidate(cache);
+    }
+
+    /**
+     * Builds a new interval index for a cache.
+     *
+     * @param cache,
+     *            the cache of instances
+     * @param beginProperty,
+     *            the begin date property
+     * @param endProperty,
+     *            the end date property, or null if events are points in time
+     * @return the interval index of the cache
+     */
+    public static TemporalIntervalIndex build(ACache cache, String beginProperty, String endProperty) {
+        TimestampColumns columns = TimestampColumns.getColumns(cache);
+        long[] beginColumn = columns.getColumn(beginProperty);
+        long[] endColumn = (endProperty == null) ? beginColumn : columns.getColumn(endProperty);
+        ArrayList<String> uris = new ArrayList<String>(columns.size());
+        ArrayList<long[]> intervals = new ArrayList<long[]>(columns.size());
+        int skipped = 0;
+        for (int row = 0; row < columns.size(); row++) {
+            if (beginColumn[row] == TimestampColumns.MISSING || endColumn[row] == TimestampColumns.MISSING) {
+                skipped++;
+                continue;
+            }
+            uris.add(columns.getUri(row));
+            intervals.add(new long[] { beginColumn[row], endColumn[row] });
+        }
+        if (skipped > 0) {
+            logger.warn("Skipped " + skipped + " instances without valid values for " + beginProperty
+                    + (endProperty == null ? "" : " and " + endProperty));
+        }
+        return new TemporalIntervalIndex(uris, intervals, columns);
+    }
+
+    private static int[] sortedPermutation(final long[] keys) {
+        Integer[] boxed = new Integer[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            boxed[i] = i;
+        }
+        Arrays.sort(boxed, (a, b) -> Long.compare(keys[a], keys[b]));
+        int[] order = new int[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            order[i] = boxed[i];
+        }
+        return order;
+    }
+
+    /**
+     * Returns the position of the first element of a sorted array that is
+     * greater than or equal to the key.
+     *
+     * @param sorted,
+     *            array in ascending order
+     * @param key,
+     *            the search key
+     * @return insertion point of key
+     */
+    public static int lowerBound(long[] sorted, long key) {
+        int low = 0, high = sorted.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sorted[mid] < key)
+                low = mid + 1;
+            else
+                high = mid;
+        }
+        return low;
+    }
+
+    /**
+     * Returns the position of the first element of a sorted array that is
+     * strictly greater than the key.
+     *
+     * @param sorted,
+     *            array in ascending order
+     * @param key,
+     *            the search key
+     * @return insertion point after all occurrences of key
+     */
+    public static int upperBound(long[] sorted, long key) {
+        int low = 0, high = sorted.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sorted[mid] <= key)
+                low = mid + 1;
+            else
+                high = mid;
+        }
+        return low;
+    }
+
+    /**
+     * Returns the number of indexed events.
+     *
+     * @return size of the index
+     */
+    public int size() {
+        return uris.length;
+    }
+
+    public String getUri(int event) {
+        return uris[event];
+    }
+
+    public long getBegin(int event) {
+        return begins[event];
+    }
+
+    public long getEnd(int event) {
+        return ends[event];
+    }
+
+    public long get(int event, Endpoint endpoint) {
+        return endpoint == Endpoint.BEGIN ? begins[event] : ends[event];
+    }
+
+    /**
+     * Returns the event ids ordered by the given endpoint.
+     *
+     * @param endpoint,
+     *            begin or end
+     * @return permutation of event ids
+     */
+    public int[] getOrder(Endpoint endpoint) {
+        return endpoint == Endpoint.BEGIN ? beginOrder : endOrder;
+    }
+
+    /**
+     * Returns the epochs of the given endpoint in ascending order.
+     *
+     * @param endpoint,
+     *            begin or end
+     * @return sorted epochs, parallel to {@link #getOrder(Endpoint)}
+     */
+    public long[] getSorted(Endpoint endpoint) {
+        return endpoint == Endpoint.BEGIN ? sortedBegins : sortedEnds;
+    }
+
+    /**
+     * Runs a join over the source events [0, sourceSize). The source events
+     * are split into contiguous partitions that are joined in parallel by
+     * {@link Partitions}, each into its own mapping. Since partitions do not
+     * share source uris, the partial mappings are merged without conflicts.
+     *
+     * @param sourceSize,
+     *            the number of source events
+     * @param join,
+     *            the partition join
+     * @return the resulting mapping
+     */
+    public static AMapping parallelJoin(int sourceSize, final PartitionJoin join) {
+        return Partitions.collect(sourceSize, MIN_PARTITION_SIZE, (from, to) -> {
+            AMapping partial = MappingFactory.createDefaultMapping();
+            join.join(from, to, partial);
+            return partial;
+        });
+    }
+
+}
@@ -0,0 +1,137 @@
+package org.aksw.limes.core.measures.mapper.temporal;
+
+import java.lang.ref.WeakReference;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.aksw.limes.core.io.cache.ACache;
+import org.aksw.limes.core.util.TimestampParser;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Temporal properties of a cache, parsed once into columns of epoch
+ * milliseconds. All columns share the same row order, i.e. row i of every
+ * column belongs to the instance {@link #getUri(int)}. Columns are built lazily
+ * on first access of a property and shared by all temporal mappers that work
+ * on the same cache, so that every date literal is parsed only once. If an
+ * instance has more than one value for a property, its first value is used;
+ * rows without a valid value hold {@link #MISSING}.
+ *
+ * @version 1.0
+ */
+public class TimestampColumns {
+    private static final Logger logger = LoggerFactory.getLogger(TimestampColumns.class);
+
+    /**
+     * Marker of rows without a valid timestamp.
+     */
+    public static final long MISSING = Long.MIN_VALUE;
+
+    /**
+     * Registry of the columns of each cache. Caches are held weakly so that
+     * the columns do not outlive their cache.
+     */
+    private static final Map<ACache, TimestampColumns> registry = Collections
+            .synchronizedMap(new WeakHashMap<ACache, TimestampColumns>());
+
+    /**
+     * The columned cache, referenced weakly since it is the key of the
+     * registry.
+     */
+    private final WeakReference<ACache> cache;
+    private final String[] uris;
+    private final ConcurrentHashMap<String, long[]> columns = new ConcurrentHashMap<String, long[]>();
+
+    private TimestampColumns(ACache cache) {
+        this.cache = new WeakReference<ACache>(cache);
+        ArrayList<String> allUris = cache.getAllUris();
+        this.uris = allUris.toArray(new String[allUris.size()]);
+    }
+
+    /**
+     * Returns the timestamp columns of a cache. The columns are created on
+     * first request and reused afterwards as long as the size of the cache
+     * does not change.
+     *
+     * @param cache,
+     *            the cache of instances
+     * @return the timestamp columns of the cache
+     */
+    public static TimestampColumns getColumns(ACache cache) {
+        synchronized (registry) {
+            TimestampColumns columns = registry.get(cache);
+            if (columns == null || columns.size() != cache.size()) {
+                columns = new TimestampColumns(cache);
+                registry.put(cache, columns);
+            }
+            return columns;
+        }
+    }
+
+    /**
+     * Drops the columns of a cache. Must be called if the values of a cache
+     * are modified in place.
+     *
+     * @param cache,
+     *            the cache whose columns are dropped
+     */
+    public static void invalidate(ACache cache) {
+        registry.remove(cache);
+    }
+
+    /**
+     * Returns the number of rows, i.e. the size of the cache when the columns
+     * were created.
+     *
+     * @return the number of rows
+     */
+    public int size() {
+        return uris.length;
+    }
+
+    public String getUri(int row) {
+        return uris[row];
+    }
+
+    /**
+     * Returns the epochs of a temporal property, parsing its values on first
+     * access.
+     *
+     * @param property,
+     *            the temporal property
+     * @return the epoch of each row or {@link #MISSING}
+     */
+    public long[] getColumn(String property) {
+        return columns.computeIfAbsent(property, this::parseColumn);
+    }
+
+    private long[] parseColumn(String property) {
+        ACache instances = cache.get();
+        if (instances == null) {
+            throw new IllegalStateException("The cache of the timestamp columns was garbage collected");
+        }
+        long[] epochs = new long[uris.length];
+        int invalid = 0;
+        for (int row = 0; row < uris.length; row++) {
+            TreeSet<String> values = instances.getInstance(uris[row]).getProperty(property);
+            epochs[row] = MISSING;
+            if (!values.isEmpty()) {
+                try {
+                    epochs[row] = TimestampParser.parse(values.first());
+                } catch (DateTimeParseException e) {
+                    invalid++;
+                }
+            }
+        }
+        if (invalid > 0) {
+            logger.warn(invalid + " values of property " + property + " are not valid dates");
+        }
+        return epochs;
+    }
+}
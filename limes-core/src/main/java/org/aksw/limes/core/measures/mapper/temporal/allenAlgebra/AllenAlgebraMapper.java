@@ -4,7 +4,13 @@ import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.Set;
 
+import org.aksw.limes.core.io.cache.ACache;
+import org.aksw.limes.core.io.mapping.AMapping;
+import org.aksw.limes.core.io.parser.Parser;
 import org.aksw.limes.core.measures.mapper.AMapper;
+import org.aksw.limes.core.measures.mapper.IIndexedMapper;
+import org.aksw.limes.core.measures.mapper.ITargetIndex;
+import org.aksw.limes.core.measures.mapper.temporal.TemporalIntervalIndex;
 
 /**
  * Abstract class of Allen's temporal relations mapper. It computes basic
@@ -14,7 +20,7 @@ import org.aksw.limes.core.measures.mapper.AMapper;
  * @author Kleanthi Georgala (georgala@informatik.uni-leipzig.de)
  * @version 1.0
  */
-public abstract class AllenAlgebraMapper extends AMapper implements IAllenAlgebraMapper {
+public abstract class AllenAlgebraMapper extends AMapper implements IAllenAlgebraMapper, IIndexedMapper {
     /**
      * List of atomic relations required to compute a complex Allen temporal
      * relation.
@@ -79,4 +85,101 @@ public abstract class AllenAlgebraMapper extends AMapper implements IAllenAlgebr
         return requiredAtomicRelations;
     }
 
+    /**
+     * Maps each source instance to the set of target instances that stand in
+     * the given Allen relation to it. Both caches are accessed through their
+     * shared interval indexes, hence the begin and end dates are parsed and
+     * sorted only once per cache and property pair, no matter how many Allen
+     * relations are computed.
+     *
+     * @param source,
+     *            the source cache
+     * @param target,
+     *            the target cache
+     * @param expression,
+     *            the metric expression
+     * @param relation,
+     *            the Allen relation
+     * @return a mapping, the resulting mapping
+     */
+    protected static AMapping getMapping(ACache source, ACache target, String expression, AllenRelation relation) {
+        Parser p = new Parser(expression, 1.0d);
+        TemporalIntervalIndex sourceIndex = getIndex(source, p.getLeftTerm());
+        TemporalIntervalIndex targetIndex = getIndex(target, p.getRightTerm());
+        return join(sourceIndex, targetIndex, relation);
+    }
+
+    /**
+     * Builds the interval index of the target over its begin and end dates.
+     * The returned index holds the target, so every source is joined with
+     * this interval index, and only the interval index of the source is
+     * built per source.
+     */
+    @Override
+    public ITargetIndex getTargetIndex(ACache target, String sourceVar, String targetVar, String expression,
+            double threshold) {
+        getIndex(target, new Parser(expression, 1.0d).getRightTerm());
+        return source -> getMapping(source, target, sourceVar, targetVar, expression, threshold);
+    }
+
+    /**
+     * Returns the interval index of a cache given a term of the form
+     * x.beginDate|endDate.
+     *
+     * @param cache,
+     *            the cache of instances
+     * @param term,
+     *            the left or right term of the metric expression
+     * @return the interval index of the cache
+     * @throws IllegalArgumentException
+     *             if endDate property is not declared
+     */
+    private static TemporalIntervalIndex getIndex(ACache cache, String term) throws IllegalArgumentException {
+        String properties = term.substring(term.indexOf(".") + 1, term.length());
+        int plusIndex = properties.indexOf("|");
+        if (plusIndex == -1)
+            throw new IllegalArgumentException();
+        return TemporalIntervalIndex.getIndex(cache, properties.substring(0, plusIndex),
+                properties.substring(plusIndex + 1, properties.length()));
+    }
+
+    /**
+     * Joins the source events with the target events that stand in the given
+     * Allen relation to them. For each source event, the candidate targets are
+     * the contiguous range of the sorted target endpoint column prescribed by
+     * the relation, the remaining conditions are checked per candidate. Source
+     * events are processed in parallel partitions.
+     *
+     * @param source,
+     *            the source index
+     * @param target,
+     *            the target index
+     * @param relation,
+     *            the Allen relation
+     * @return a mapping of all related (source, target) pairs
+     */
+    public static AMapping join(final TemporalIntervalIndex source, final TemporalIntervalIndex target,
+            final AllenRelation relation) {
+        final long[] sorted = target.getSorted(relation.getTargetEndpoint());
+        final int[] order = target.getOrder(relation.getTargetEndpoint());
+        return TemporalIntervalIndex.parallelJoin(source.size(), (from, to, mapping) -> {
+            for (int i = from; i < to; i++) {
+                long bs = source.getBegin(i);
+                long es = source.getEnd(i);
+                long lower = relation.lowerBound(bs, es);
+                long upper = relation.upperBound(bs, es);
+                if (lower > upper) {
+                    continue;
+                }
+                int end = TemporalIntervalIndex.upperBound(sorted, upper);
+                for (int k = TemporalIntervalIndex.lowerBound(sorted, lower); k < end; k++) {
+                    int j = order[k];
+                    if (relation.holds(bs, es, target.getBegin(j), target.getEnd(j))) {
+                        mapping.add(source.getUri(i), target.getUri(j), 1d);
+                    }
+                }
+            }
+        });
+    }
+
 }
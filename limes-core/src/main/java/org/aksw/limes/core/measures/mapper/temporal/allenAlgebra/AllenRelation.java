@@ -0,0 +1,266 @@
+package org.aksw.limes.core.measures.mapper.temporal.allenAlgebra;
+
+import org.aksw.limes.core.measures.mapper.temporal.TemporalIntervalIndex.Endpoint;
+
+/**
+ * The 13 basic relations of Allen's interval algebra between a source event s
+ * = (b(s), e(s)) and a target event t = (b(t), e(t)). Each relation names one
+ * endpoint of the target events together with an (inclusive) range of epochs,
+ * derived from the source event, that every related target event must fall
+ * into. The range is answered by a binary search on the sorted endpoint column
+ * of the target index; the remaining conditions are verified by
+ * {@link #holds(long, long, long, long)}.
+ *
+ * @version 1.0
+ */
+public enum AllenRelation {
+    /**
+     * b(s) &gt; e(t)
+     */
+    AFTER(Endpoint.END) {
+        long lowerBound(long bs, long es) {
+            return Long.MIN_VALUE;
+        }
+
+        long upperBound(long bs, long es) {
+            return bs - 1;
+        }
+
+        public boolean holds(long bs, long es, long bt, long et) {
+            return bs > et;
+        }
+    },
+    /**
+     * e(s) &lt; b(t)
+     */
+    BEFORE(Endpoint.BEGIN) {
+        long lowerBound(long bs, long es) {
+            return es + 1;
+        }
+
+        long upperBound(long bs, long es) {
+            return Long.MAX_VALUE;
+        }
+
+        public boolean holds(long bs, long es, long bt, long et) {
+            return es < bt;
+        }
+    },
+    /**
+     * b(s) &gt; b(t) and e(s) &lt; e(t)
+     */
+    DURING(Endpoint.BEGIN) {
+        long lowerBound(long bs, long es) {
+            return Long.MIN_VALUE;
+        }
+
+        long upperBound(long bs, long es) {
+            return bs - 1;
+        }
+
+        public boolean holds(long bs, long es, long bt, long et) {
+            return bs > bt && es < et;
+        }
+    },
+    /**
+     * b(s) &lt; b(t) and e(s) &gt; e(t)
+     */
+    DURING_REVERSE(Endpoint.BEGIN) {
+        long lowerBound(long bs, long es) {
+            return bs + 1;
+        }
+
+        long upperBound(long bs, long es) {
+            return Long.MAX_VALUE;
+        }
+
+        public boolean holds(long bs, long es, long bt, long et) {
+            return bs < bt && es > et;
+        }
+    },
+    /**
+     * b(s) = b(t) and e(s) = e(t)
+     */
+    EQUALS(Endpoint.BEGIN) {
+        long lowerBound(long bs, long es) {
+            return bs;
+        }
+
+        long upperBound(long bs, long es) {
+            return bs;
+        }
+
+        public boolean holds(long bs, long es, long bt, long et) {
+            return bs == bt && es == et;
+        }
+    },
+    /**
+     * b(s) &gt; b(t) and e(s) = e(t)
+     */
+    FINISHES(Endpoint.END) {
+        long lowerBound(long bs, long es) {
+            return es;
+        }
+
+        long upperBound(long bs, long es) {
+            return es;
+        }
+
+        public boolean holds(long bs, long es, long bt, long et) {
+            return bs > bt && es == et;
+        }
+    },
+    /**
+     * b(s) &lt; b(t) and e(s) = e(t)
+     */
+    IS_FINISHED_BY(Endpoint.END) {
+        long lowerBound(long bs, long es) {
+            return es;
+        }
+
+        long upperBound(long bs, long es) {
+            return es;
+        }
+
+        public boolean holds(long bs, long es, long bt, long et) {
+            return bs < bt && es == et;
+        }
+    },
+    /**
+     * b(s) = e(t)
+     */
+    IS_MET_BY(Endpoint.END) {
+        long lowerBound(long bs, long es) {
+            return bs;
+        }
+
+        long upperBound(long bs, long es) {
+            return bs;
+        }
+
+        public boolean holds(long bs, long es, long bt, long et) {
+            return bs == et;
+        }
+    },
+    /**
+     * b(t) &lt; b(s) &lt; e(t) and e(s) &gt; e(t)
+     */
+    IS_OVERLAPPED_BY(Endpoint.END) {
+        long lowerBound(long bs, long es) {
+            return bs + 1;
+        }
+
+        long upperBound(long bs, long es) {
+            return es - 1;
+        }
+
+        public boolean holds(long bs, long es, long bt, long et) {
+            return bs > bt && bs < et && es > et;
+        }
+    },
+    /**
+     * b(s) = b(t) and e(s) &gt; e(t)
+     */
+    IS_STARTED_BY(Endpoint.BEGIN) {
+        long lowerBound(long bs, long es) {
+            return bs;
+        }
+
+        long upperBound(long bs, long es) {
+            return bs;
+        }
+
+        public boolean holds(long bs, long es, long bt, long et) {
+            return bs == bt && es > et;
+        }
+    },
+    /**
+     * e(s) = b(t)
+     */
+    MEETS(Endpoint.BEGIN) {
+        long lowerBound(long bs, long es) {
+            return es;
+        }
+
+        long upperBound(long bs, long es) {
+            return es;
+        }
+
+        public boolean holds(long bs, long es, long bt, long et) {
+            return es == bt;
+        }
+    },
+    /**
+     * b(s) &lt; b(t) &lt; e(s) and e(s) &lt; e(t)
+     */
+    OVERLAPS(Endpoint.BEGIN) {
+        long lowerBound(long bs, long es) {
+            return bs + 1;
+        }
+
+        long upperBound(long bs, long es) {
+            return es - 1;
+        }
+
+        public boolean holds(long bs, long es, long bt, long et) {
+            return bs < bt && bt < es && es < et;
+        }
+    },
+    /**
+     * b(s) = b(t) and e(s) &lt; e(t)
+     */
+    STARTS(Endpoint.BEGIN) {
+        long lowerBound(long bs, long es) {
+            return bs;
+        }
+
+        long upperBound(long bs, long es) {
+            return bs;
+        }
+
+        public boolean holds(long bs, long es, long bt, long et) {
+            return bs == bt && es < et;
+        }
+    };
+
+    /**
+     * Endpoint of the target events that is searched.
+     */
+    private final Endpoint targetEndpoint;
+
+    AllenRelation(Endpoint targetEndpoint) {
+        this.targetEndpoint = targetEndpoint;
+    }
+
+    public Endpoint getTargetEndpoint() {
+        return targetEndpoint;
+    }
+
+    /**
+     * Returns the smallest epoch of the searched target endpoint that can be in
+     * relation with the source event (b(s), e(s)).
+     */
+    abstract long lowerBound(long bs, long es);
+
+    /**
+     * Returns the largest epoch of the searched target endpoint that can be in
+     * relation with the source event (b(s), e(s)).
+     */
+    abstract long upperBound(long bs, long es);
+
+    /**
+     * Checks whether the relation holds between a source event (b(s), e(s))
+     * and a target event (b(t), e(t)).
+     *
+     * @param bs,
+     *            begin of the source event
+     * @param es,
+     *            end of the source event
+     * @param bt,
+     *            begin of the target event
+     * @param et,
+     *            end of the target event
+     * @return true if the relation holds, false otherwise
+     */
+    public abstract boolean holds(long bs, long es, long bt, long et);
+}
@@ -1,8 +1,5 @@
 package org.aksw.limes.core.measures.mapper.temporal.allenAlgebra.atomic;
 
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
-import java.util.Date;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
@@ -11,8 +8,8 @@ import java.util.TreeMap;
 import java.util.TreeSet;
 
 import org.aksw.limes.core.io.cache.ACache;
-import org.aksw.limes.core.io.cache.Instance;
 import org.aksw.limes.core.io.parser.Parser;
+import org.aksw.limes.core.measures.mapper.temporal.TimestampColumns;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -83,7 +80,7 @@ public abstract class AAtomicAllenAlgebraMapper {
     /**
      * Orders a cache of instances based on their begin date property. For each
      * instance, it retrieves its begin date property, converts its value to an
-     * epoch (string) using the SimpleDateFormat function and places the
+     * epoch using the shared timestamp columns of the cache and places the
      * instance inside the corresponding set("bucket") of instances.
      * 
      * 
@@ -98,7 +95,6 @@ public abstract class AAtomicAllenAlgebraMapper {
      *         instances (string representation) as values
      */
     protected static TreeMap<Long, Set<String>> orderByBeginDate(ACache cache, String expression, String kbType) {
-        TreeMap<Long, Set<String>> blocks = new TreeMap<Long, Set<String>>();
         Parser p = new Parser(expression, 1.0d);
         String property = null;
         if (kbType.equalsIgnoreCase("source"))
@@ -106,35 +102,13 @@ public abstract class AAtomicAllenAlgebraMapper {
         else
             property = getBeginProperty(p.getRightTerm());
 
-        for (Instance instance : cache.getAllInstances()) {
-            TreeSet<String> time = instance.getProperty(property);
-
-            for (String value : time) {
-                try {
-                    // 2015-04-22T11:29:51+02:00
-                    SimpleDateFormat df = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ssXXX");
-                    Date date = df.parse(value);
-                    long epoch = date.getTime();
-                    if (!blocks.containsKey(epoch)) {
-                        Set<String> l = new HashSet<String>();
-                        l.add(instance.getUri());
-                        blocks.put(epoch, l);
-                    } else {
-                        blocks.get(epoch).add(instance.getUri());
-                    }
-                } catch (ParseException e) {
-                    e.printStackTrace();
-                }
-            }
-
-        }
-        return blocks;
+        return orderBy(cache, property);
     }
 
     /**
      * Orders a cache of instances based on their end date property. For each
      * instance, it retrieves its end date property, converts its value to an
-     * epoch (string) using the SimpleDateFormat function and places the
+     * epoch using the shared timestamp columns of the cache and places the
      * instance inside the corresponding set("bucket") of instances.
      * 
      * @param kbType
@@ -151,7 +125,6 @@ public abstract class AAtomicAllenAlgebraMapper {
      *         instances (string representation) as values
      */
     protected static TreeMap<Long, Set<String>> orderByEndDate(ACache cache, String expression, String kbType) {
-        TreeMap<Long, Set<String>> blocks = new TreeMap<Long, Set<String>>();
         Parser p = new Parser(expression, 1.0d);
         String property = null;
         if (kbType.equalsIgnoreCase("source"))
@@ -159,27 +132,33 @@ public abstract class AAtomicAllenAlgebraMapper {
         else
             property = getEndProperty(p.getRightTerm());
 
-        for (Instance instance : cache.getAllInstances()) {
-            TreeSet<String> time = instance.getProperty(property);
+        return orderBy(cache, property);
+    }
 
-            for (String value : time) {
-                try {
-                    // 2015-04-22T11:29:51+02:00
-                    SimpleDateFormat df = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ssXXX");
-                    Date date = df.parse(value);
-                    long epoch = date.getTime();
-                    if (!blocks.containsKey(epoch)) {
-                        Set<String> l = new HashSet<String>();
-                        l.add(instance.getUri());
-                        blocks.put(epoch, l);
-                    } else {
-                        blocks.get(epoch).add(instance.getUri());
-                    }
-                } catch (ParseException e) {
-                    e.printStackTrace();
-                }
+    /**
+     * Groups the instances of a cache by the epoch of a temporal property.
+     *
+     * @param cache,
+     *            The cache of instances
+     * @param property,
+     *            The temporal property
+     * @return blocks, a map of sets with unique epochs as keys and set of
+     *         instances (string representation) as values
+     */
+    private static TreeMap<Long, Set<String>> orderBy(ACache cache, String property) {
+        TreeMap<Long, Set<String>> blocks = new TreeMap<Long, Set<String>>();
+        TimestampColumns columns = TimestampColumns.getColumns(cache);
+        long[] epochs = columns.getColumn(property);
+        for (int row = 0; row < columns.size(); row++) {
+            if (epochs[row] == TimestampColumns.MISSING) {
+                continue;
             }
-
+            Set<String> l = blocks.get(epochs[row]);
+            if (l == null) {
+                l = new HashSet<String>();
+                blocks.put(epochs[row], l);
+            }
+            l.add(columns.getUri(row));
         }
         return blocks;
     }
@@ -1,14 +1,12 @@
 package org.aksw.limes.core.measures.mapper.temporal.simpleTemporal;
 
-import java.util.Map;
-import java.util.Set;
-import java.util.TreeMap;
+import java.util.TreeSet;
 
 import org.aksw.limes.core.io.cache.ACache;
-import org.aksw.limes.core.io.cache.Instance;
 import org.aksw.limes.core.io.mapping.AMapping;
-import org.aksw.limes.core.io.mapping.MappingFactory;
 import org.aksw.limes.core.io.parser.Parser;
+import org.aksw.limes.core.measures.mapper.temporal.TemporalIntervalIndex;
+import org.aksw.limes.core.measures.mapper.temporal.TemporalIntervalIndex.Endpoint;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -33,32 +31,29 @@ public class ConcurrentMapper extends SimpleTemporalMapper {
     @Override
     public AMapping getMapping(ACache source, ACache target, String sourceVar, String targetVar, String expression,
             double threshold) {
-        AMapping m = MappingFactory.createDefaultMapping();
         Parser p = new Parser(expression, threshold);
+        final TemporalIntervalIndex sources = this.getBeginDateIndex(source, expression, "source");
+        final TemporalIntervalIndex targets = this.getBeginDateIndex(target, expression, "target");
+        final String machineIDSource = this.getSecondProperty(p.getLeftTerm());
+        final String machineIDTarget = this.getSecondProperty(p.getRightTerm());
+        final long[] targetEpochs = targets.getSorted(Endpoint.BEGIN);
+        final int[] targetOrder = targets.getOrder(Endpoint.BEGIN);
 
-        TreeMap<String, Set<Instance>> sources = this.orderByBeginDate(source, expression, "source");
-        TreeMap<String, Set<Instance>> targets = this.orderByBeginDate(target, expression, "target");
-        String machineIDSource = this.getSecondProperty(p.getLeftTerm());
-        String machineIDTarget = this.getSecondProperty(p.getRightTerm());
-
-        
-        
-        for (Map.Entry<String, Set<Instance>> sourceEntry : sources.entrySet()) {
-            String epochSource = sourceEntry.getKey();
-
-            Set<Instance> targetInstances = targets.get(epochSource);
-            if (targetInstances != null) {
-                Set<Instance> sourceInstances = sourceEntry.getValue();
-                for (Instance i : sourceInstances) {
-                    for (Instance j : targetInstances) {
-                        if (i.getProperty(machineIDSource).equals(j.getProperty(machineIDTarget)))
-                            m.add(i.getUri(), j.getUri(), 1);
-                    }
+        return TemporalIntervalIndex.parallelJoin(sources.size(), (from, to, m) -> {
+            for (int i = from; i < to; i++) {
+                long epochSource = sources.getBegin(i);
+                int end = TemporalIntervalIndex.upperBound(targetEpochs, epochSource);
+                int k = TemporalIntervalIndex.lowerBound(targetEpochs, epochSource);
+                if (k == end)
+                    continue;
+                TreeSet<String> machineID = source.getInstance(sources.getUri(i)).getProperty(machineIDSource);
+                for (; k < end; k++) {
+                    String targetUri = targets.getUri(targetOrder[k]);
+                    if (machineID.equals(target.getInstance(targetUri).getProperty(machineIDTarget)))
+                        m.add(sources.getUri(i), targetUri, 1);
                 }
             }
-        }
-
-        return m;
+        });
     }
 
     /**
@@ -1,13 +1,9 @@
 package org.aksw.limes.core.measures.mapper.temporal.simpleTemporal;
 
-import java.util.Map;
-import java.util.Set;
-import java.util.TreeMap;
-
 import org.aksw.limes.core.io.cache.ACache;
-import org.aksw.limes.core.io.cache.Instance;
 import org.aksw.limes.core.io.mapping.AMapping;
-import org.aksw.limes.core.io.mapping.MappingFactory;
+import org.aksw.limes.core.measures.mapper.temporal.TemporalIntervalIndex;
+import org.aksw.limes.core.measures.mapper.temporal.TemporalIntervalIndex.Endpoint;
 
 /**
  * Implements the predecessor mapper class.
@@ -28,28 +24,23 @@ public class PredecessorMapper extends SimpleTemporalMapper {
     @Override
     public AMapping getMapping(ACache source, ACache target, String sourceVar, String targetVar, String expression,
             double threshold) {
-        AMapping m = MappingFactory.createDefaultMapping();
-
-        TreeMap<String, Set<Instance>> sources = this.orderByBeginDate(source, expression, "source");
-        TreeMap<String, Set<Instance>> targets = this.orderByBeginDate(target, expression, "target");
-
-        for (Map.Entry<String, Set<Instance>> sourceEntry : sources.entrySet()) {
-            String epochSource = sourceEntry.getKey();
+        final TemporalIntervalIndex sources = this.getBeginDateIndex(source, expression, "source");
+        final TemporalIntervalIndex targets = this.getBeginDateIndex(target, expression, "target");
+        final long[] targetEpochs = targets.getSorted(Endpoint.BEGIN);
+        final int[] targetOrder = targets.getOrder(Endpoint.BEGIN);
 
-            String lowerEpoch = targets.lowerKey(epochSource);
-            if (lowerEpoch != null) {
-                Set<Instance> sourceInstances = sourceEntry.getValue();
-                Set<Instance> targetInstances = targets.get(lowerEpoch);
-                for (Instance i : sourceInstances) {
-                    for (Instance j : targetInstances) {
-                        m.add(i.getUri(), j.getUri(), 1);
-                    }
+        return TemporalIntervalIndex.parallelJoin(sources.size(), (from, to, m) -> {
+            for (int i = from; i < to; i++) {
+                // last target event strictly before the source event
+                int end = TemporalIntervalIndex.lowerBound(targetEpochs, sources.getBegin(i));
+                if (end == 0)
+                    continue;
+                long lowerEpoch = targetEpochs[end - 1];
+                for (int k = TemporalIntervalIndex.lowerBound(targetEpochs, lowerEpoch); k < end; k++) {
+                    m.add(sources.getUri(i), targets.getUri(targetOrder[k]), 1);
                 }
             }
-        }
-
-        return m;
-
+        });
     }
 
     /**
@@ -1,17 +1,11 @@
 package org.aksw.limes.core.measures.mapper.temporal.simpleTemporal;
 
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
-import java.util.Date;
-import java.util.HashSet;
-import java.util.Set;
-import java.util.TreeMap;
-import java.util.TreeSet;
-
 import org.aksw.limes.core.io.cache.ACache;
-import org.aksw.limes.core.io.cache.Instance;
 import org.aksw.limes.core.io.parser.Parser;
 import org.aksw.limes.core.measures.mapper.AMapper;
+import org.aksw.limes.core.measures.mapper.IIndexedMapper;
+import org.aksw.limes.core.measures.mapper.ITargetIndex;
+import org.aksw.limes.core.measures.mapper.temporal.TemporalIntervalIndex;
 
 /**
  * Abstract class of simple temporal relations mapper.
@@ -19,7 +13,7 @@ import org.aksw.limes.core.measures.mapper.AMapper;
  * @author Kleanthi Georgala (georgala@informatik.uni-leipzig.de)
  * @version 1.0
  */
-public abstract class SimpleTemporalMapper extends AMapper implements ISimpleTemporalMapper {
+public abstract class SimpleTemporalMapper extends AMapper implements ISimpleTemporalMapper, IIndexedMapper {
 
     /**
      * Extracts first property (beginDate) from metric expression.
@@ -56,53 +50,40 @@ public abstract class SimpleTemporalMapper extends AMapper implements ISimpleTem
     }
 
     /**
-     * Orders a cache of instances based on their begin date property. For each
-     * instance, it retrieves its begin date property, converts its value to an
-     * epoch (string) using the SimpleDateFormat function and places the
-     * instance inside the corresponding set("bucket") of instances.
-     * 
+     * Returns the interval index of a cache ordered by the begin date property
+     * of the metric expression. Since the index is shared, the begin dates of
+     * a cache are parsed and sorted only once for all simple temporal mappers.
+     *
      * @param cache,
      *            the cache of instances
      * @param expression,
      *            the metric expression
      * @param kbType,
      *            source or target
-     *            
-     * @return blocks, a map of sets with unique begin dates as keys and set of
-     *         instances as values
+     *
+     * @return the interval index of the cache over its begin dates
      */
-    protected TreeMap<String, Set<Instance>> orderByBeginDate(ACache cache, String expression, String kbType) {
-
-        TreeMap<String, Set<Instance>> blocks = new TreeMap<String, Set<Instance>>();
+    protected TemporalIntervalIndex getBeginDateIndex(ACache cache, String expression, String kbType) {
         Parser p = new Parser(expression, 0.0d);
         String property = null;
         if (kbType.equalsIgnoreCase("source"))
             property = getFirstProperty(p.getLeftTerm());
         else
             property = getFirstProperty(p.getRightTerm());
-        for (Instance instance : cache.getAllInstances()) {
-            TreeSet<String> time = instance.getProperty(property);
-            for (String value : time) {
-                try {
-                    // 2015-04-22T11:29:51+02:00
-                    SimpleDateFormat df = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ssXXX");
-                    Date date = df.parse(value);
-                    long epoch = date.getTime();
-                    if (!blocks.containsKey(String.valueOf(epoch))) {
-                        Set<Instance> l = new HashSet<Instance>();
-                        l.add(instance);
-                        blocks.put(String.valueOf(epoch), l);
-                    } else {
-                        blocks.get(String.valueOf(epoch)).add(instance);
-                    }
-                } catch (ParseException e) {
-                    e.printStackTrace();
-                }
-            }
-
-        }
-        return blocks;
+        return TemporalIntervalIndex.getIndex(cache, property, null);
+    }
 
+    /**
+     * Builds the interval index of the target over its begin dates. Since
+     * the target is kept by the returned index, its interval index stays in
+     * the registry of {@link TemporalIntervalIndex}, so a source is linked by
+     * running the mapper, which then only indexes the source.
+     */
+    @Override
+    public ITargetIndex getTargetIndex(ACache target, String sourceVar, String targetVar, String expression,
+            double threshold) {
+        getBeginDateIndex(target, expression, "target");
+        return source -> getMapping(source, target, sourceVar, targetVar, expression, threshold);
     }
 
 }
@@ -1,13 +1,9 @@
 package org.aksw.limes.core.measures.mapper.temporal.simpleTemporal;
 
-import java.util.Map;
-import java.util.Set;
-import java.util.TreeMap;
-
 import org.aksw.limes.core.io.cache.ACache;
-import org.aksw.limes.core.io.cache.Instance;
 import org.aksw.limes.core.io.mapping.AMapping;
-import org.aksw.limes.core.io.mapping.MappingFactory;
+import org.aksw.limes.core.measures.mapper.temporal.TemporalIntervalIndex;
+import org.aksw.limes.core.measures.mapper.temporal.TemporalIntervalIndex.Endpoint;
 
 /**
  * Implements the successor mapper class.
@@ -28,27 +24,24 @@ public class SuccessorMapper extends SimpleTemporalMapper {
     @Override
     public AMapping getMapping(ACache source, ACache target, String sourceVar, String targetVar, String expression,
             double threshold) {
-        AMapping m = MappingFactory.createDefaultMapping();
-
-        TreeMap<String, Set<Instance>> sources = this.orderByBeginDate(source, expression, "source");
-        TreeMap<String, Set<Instance>> targets = this.orderByBeginDate(target, expression, "target");
+        final TemporalIntervalIndex sources = this.getBeginDateIndex(source, expression, "source");
+        final TemporalIntervalIndex targets = this.getBeginDateIndex(target, expression, "target");
+        final long[] targetEpochs = targets.getSorted(Endpoint.BEGIN);
+        final int[] targetOrder = targets.getOrder(Endpoint.BEGIN);
 
-        for (Map.Entry<String, Set<Instance>> sourceEntry : sources.entrySet()) {
-            String epochSource = sourceEntry.getKey();
-
-            String higherEpoch = targets.higherKey(epochSource);
-            if (higherEpoch != null) {
-                Set<Instance> sourceInstances = sourceEntry.getValue();
-                Set<Instance> targetInstances = targets.get(higherEpoch);
-                for (Instance i : sourceInstances) {
-                    for (Instance j : targetInstances) {
-                        m.add(i.getUri(), j.getUri(), 1);
-                    }
+        return TemporalIntervalIndex.parallelJoin(sources.size(), (from, to, m) -> {
+            for (int i = from; i < to; i++) {
+                // first target event strictly after the source event
+                int begin = TemporalIntervalIndex.upperBound(targetEpochs, sources.getBegin(i));
+                if (begin == targetEpochs.length)
+                    continue;
+                long higherEpoch = targetEpochs[begin];
+                int end = TemporalIntervalIndex.upperBound(targetEpochs, higherEpoch);
+                for (int k = begin; k < end; k++) {
+                    m.add(sources.getUri(i), targets.getUri(targetOrder[k]), 1);
                 }
             }
-        }
-
-        return m;
+        });
     }
 
     /**
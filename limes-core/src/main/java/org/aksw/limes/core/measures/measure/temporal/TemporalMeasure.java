@@ -1,6 +1,9 @@
 package org.aksw.limes.core.measures.measure.temporal;
 
+import java.time.format.DateTimeParseException;
+
 import org.aksw.limes.core.measures.measure.AMeasure;
+import org.aksw.limes.core.util.TimestampParser;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 /**
@@ -45,4 +48,22 @@ public abstract class TemporalMeasure extends AMeasure implements ITemporalMeasu
             throw new IllegalArgumentException();
             }
     }
+
+    /**
+     * Parses a date or dateTime value into its epoch. Since measures compare
+     * the same values over and over again, parsed values are memoized by
+     * {@link TimestampParser#parseCached(String)}.
+     *
+     * @param value,
+     *         the date or dateTime value
+     * @return the epoch in milliseconds, or 0 if the value is not a valid date
+     */
+    protected long getEpoch(String value) {
+        try {
+            return TimestampParser.parseCached(value);
+        } catch (DateTimeParseException e) {
+            logger.error("Invalid date " + value);
+            return 0;
+        }
+    }
 }
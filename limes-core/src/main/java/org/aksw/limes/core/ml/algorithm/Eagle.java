@@ -118,7 +118,9 @@ public class Eagle extends ACoreMLAlgorithm {
         Integer nGen = (Integer) getParameter(GENERATIONS);
         
         for (int gen = 1; gen <= nGen; gen++) {
+            fitness.calculateFitness(gp.getGPPopulation().getGPPrograms());
             gp.evolve();
+            fitness.calculateFitness(gp.getGPPopulation().getGPPrograms());
             bestSolutions.add(determineFittest(gp, gen));
         }
 
@@ -145,7 +147,9 @@ public class Eagle extends ACoreMLAlgorithm {
         specifications = new LinkedList<LinkSpecification>();
         logger.info("Start learning");
         for (int gen = 1; gen <= nGen; gen++) {
+            fitness.calculateFitness(gp.getGPPopulation().getGPPrograms());
             gp.evolve();
+            fitness.calculateFitness(gp.getGPPopulation().getGPPrograms());
             IGPProgram currentBest = determineFittestUnsup(gp, gen);
             LinkSpecification currentBestMetric = getLinkSpecification(currentBest);
             //TODO: save the best LS of each generation
@@ -4,6 +4,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
 
 import org.aksw.limes.core.datastrutures.Tree;
 import org.aksw.limes.core.evaluation.qualititativeMeasures.PseudoFMeasure;
@@ -126,7 +127,7 @@ public class WombatComplete extends AWombat {
         List<ExtendedClassifier> classifiers = findInitialClassifiers();
         diffs = computeClassifiersDiffPermutations(classifiers);
         createRefinementTreeRoot();
-        RefinementNode.setrMax(computeMaxRecall(classifiers));
+        rMax = computeMaxRecall(classifiers);
         Tree<RefinementNode> mostPromisingNode = findMostPromisingNode(refinementTreeRoot, false);
         long time = System.currentTimeMillis();
         pruneTree(refinementTreeRoot, mostPromisingNode.getValue().getFMeasure());
@@ -150,7 +151,7 @@ public class WombatComplete extends AWombat {
         }
         RefinementNode bestSolution = findMostPromisingNode(refinementTreeRoot, true).getValue();
         logger.debug("Overall Best Solution: " + bestSolution);
-        if (!RefinementNode.isSaveMapping()) {
+        if (!saveMapping()) {
             bestSolution.setMap(getMapingOfMetricExpression(bestSolution.getMetricExpression()));
         }
         return bestSolution;
@@ -318,11 +319,7 @@ public class WombatComplete extends AWombat {
         String nodeMetricExpr = node.getValue().getMetricExpression();
         // is it the root of the tree?
         if (node.getParent() == null) {
-            for (String diffExpr : diffs.keySet()) {
-                AMapping diffMapping = diffs.get(diffExpr);
-                result.add(createNode(diffMapping, diffExpr));
-            }
-            return result;
+            return createDiffNodes();
         } else if (isAtomic(nodeMetricExpr)) {
             return createDisjunctionsWithDiffNodes(node);
         } else if (isDifference(nodeMetricExpr)) {
@@ -388,20 +385,19 @@ public class WombatComplete extends AWombat {
      * @return list of nodes L \cup A_i \ A_j | A_i \in P, A_j \in P, where P is the set if initial classifiers
      */
     private List<RefinementNode> createDisjunctionsWithDiffNodes(Tree<RefinementNode> node) {
-        List<RefinementNode> result = new ArrayList<>();
+        List<Callable<RefinementNode>> tasks = new ArrayList<>();
+        AMapping nodeMaping;
+        if (saveMapping()) {
+            nodeMaping = node.getValue().getMapping();
+        } else {
+            nodeMaping = getMapingOfMetricExpression(node.getValue().getMetricExpression());
+        }
         for (String diffExpr : diffs.keySet()) {
             AMapping diffMapping = diffs.get(diffExpr);
             String childMetricExpr = "OR(" + node.getValue().getMetricExpression() + "," + diffExpr + ")|0.0";
-            AMapping nodeMaping = MappingFactory.createDefaultMapping();
-            if (RefinementNode.isSaveMapping()) {
-                nodeMaping = node.getValue().getMapping();
-            } else {
-                nodeMaping = getMapingOfMetricExpression(node.getValue().getMetricExpression());
-            }
-            AMapping childMap = MappingOperations.union(nodeMaping, diffMapping);
-            result.add(createNode(childMap, childMetricExpr));
+            tasks.add(() -> createNode(MappingOperations.union(nodeMaping, diffMapping), childMetricExpr));
         }
-        return result;
+        return refineInParallel(tasks);
     }
 
    
@@ -436,20 +432,31 @@ public class WombatComplete extends AWombat {
      * @return list of nodes L \cup A_i \ A_j | A_i \in P, A_j \in P, where P is the set if initial classifiers
      */
     private List<RefinementNode> createConjunctionsWithDiffNodes(Tree<RefinementNode> node) {
-        List<RefinementNode> result = new ArrayList<>();
+        List<Callable<RefinementNode>> tasks = new ArrayList<>();
+        AMapping nodeMaping;
+        if (saveMapping()) {
+            nodeMaping = node.getValue().getMapping();
+        } else {
+            nodeMaping = getMapingOfMetricExpression(node.getValue().getMetricExpression());
+        }
         for (String diffExpr : diffs.keySet()) {
             AMapping diffMapping = diffs.get(diffExpr);
-            AMapping nodeMaping = MappingFactory.createDefaultMapping();
-            if (RefinementNode.isSaveMapping()) {
-                nodeMaping = node.getValue().getMapping();
-            } else {
-                nodeMaping = getMapingOfMetricExpression(node.getValue().getMetricExpression());
-            }
             String childMetricExpr = "AND(" + node.getValue().getMetricExpression() + "," + diffExpr + ")|0.0";
-            AMapping childMap = MappingOperations.intersection(nodeMaping, diffMapping);
-            result.add(createNode(childMap, childMetricExpr));
+            tasks.add(() -> createNode(MappingOperations.intersection(nodeMaping, diffMapping), childMetricExpr));
         }
-        return result;
+        return refineInParallel(tasks);
+    }
+
+    /**
+     * @return one node per permutation x\y of the initial classifiers
+     */
+    private List<RefinementNode> createDiffNodes() {
+        List<Callable<RefinementNode>> tasks = new ArrayList<>();
+        for (String diffExpr : diffs.keySet()) {
+            AMapping diffMapping = diffs.get(diffExpr);
+            tasks.add(() -> createNode(diffMapping, diffExpr));
+        }
+        return refineInParallel(tasks);
     }
     
     /**
@@ -501,9 +508,7 @@ public class WombatComplete extends AWombat {
     private void createRefinementTreeRoot() {
         RefinementNode initialNode = new RefinementNode(-Double.MAX_VALUE, MappingFactory.createDefaultMapping(), "");
         refinementTreeRoot = new Tree<RefinementNode>(null, initialNode, null);
-        for (String diffExpr : diffs.keySet()) {
-            AMapping diffMapping = diffs.get(diffExpr);
-            RefinementNode n = createNode(diffMapping, diffExpr);
+        for (RefinementNode n : createDiffNodes()) {
             refinementTreeRoot.addChild(new Tree<RefinementNode>(refinementTreeRoot, n, null));
         }
         if (isVerbose()) {
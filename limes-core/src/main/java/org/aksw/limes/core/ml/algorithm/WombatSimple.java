@@ -4,6 +4,7 @@ import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 import java.util.TreeSet;
+import java.util.concurrent.Callable;
 
 import org.aksw.limes.core.datastrutures.LogicOperator;
 import org.aksw.limes.core.datastrutures.Tree;
@@ -282,21 +283,30 @@ public class WombatSimple extends AWombat {
      * @author sherif
      */
     private Tree<RefinementNode> expandNode(Tree<RefinementNode> node) {
-        AMapping map = MappingFactory.createDefaultMapping();
+        List<Callable<List<RefinementNode>>> tasks = new ArrayList<>();
         for (ExtendedClassifier c : classifiers) {
-            for (LogicOperator op : LogicOperator.values()) {
-                if (node.getValue().getMetricExpression() != c.getMetricExpression()) { // do not create the same metricExpression again
-                    if (op.equals(LogicOperator.AND)) {
-                        map = MappingOperations.intersection(node.getValue().getMapping(), c.getMapping());
-                    } else if (op.equals(LogicOperator.OR)) {
-                        map = MappingOperations.union(node.getValue().getMapping(), c.getMapping());
-                    } else if (op.equals(LogicOperator.MINUS)) {
-                        map = MappingOperations.difference(node.getValue().getMapping(), c.getMapping());
+            tasks.add(() -> {
+                List<RefinementNode> children = new ArrayList<>();
+                AMapping map = MappingFactory.createDefaultMapping();
+                for (LogicOperator op : LogicOperator.values()) {
+                    if (node.getValue().getMetricExpression() != c.getMetricExpression()) { // do not create the same metricExpression again
+                        if (op.equals(LogicOperator.AND)) {
+                            map = MappingOperations.intersection(node.getValue().getMapping(), c.getMapping());
+                        } else if (op.equals(LogicOperator.OR)) {
+                            map = MappingOperations.union(node.getValue().getMapping(), c.getMapping());
+                        } else if (op.equals(LogicOperator.MINUS)) {
+                            map = MappingOperations.difference(node.getValue().getMapping(), c.getMapping());
+                        }
+                        String metricExpr = op + "(" + node.getValue().getMetricExpression() + "," + c.getMetricExpression() + ")|0";
+                        children.add(createNode(map, metricExpr));
                     }
-                    String metricExpr = op + "(" + node.getValue().getMetricExpression() + "," + c.getMetricExpression() + ")|0";
-                    RefinementNode child = createNode(map, metricExpr);
-                    node.addChild(new Tree<RefinementNode>(child));
                 }
+                return children;
+            });
+        }
+        for (List<RefinementNode> children : refineInParallel(tasks)) {
+            for (RefinementNode child : children) {
+                node.addChild(new Tree<RefinementNode>(child));
             }
         }
         if (isVerbose()) {
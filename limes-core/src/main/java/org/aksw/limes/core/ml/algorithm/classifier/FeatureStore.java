@@ -0,0 +1,206 @@
+package org.aksw.limes.core.ml.algorithm.classifier;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.aksw.limes.core.io.cache.ACache;
+import org.aksw.limes.core.io.mapping.AMapping;
+import org.aksw.limes.core.io.mapping.MappingFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Similarities of the candidate classifiers of a learning run. For each
+ * (measure, source property, target property) the atomic measure is executed
+ * once with a floor threshold, and the resulting sparse similarity matrix is
+ * kept as columnar primitive arrays. The mapping of the classifier for any
+ * threshold not below the floor is then computed by scanning the arrays
+ * instead of executing the measure again. Thresholds below the floor are
+ * executed directly.
+ *
+ * @version 1.0
+ */
+public class FeatureStore {
+
+    static Logger logger = LoggerFactory.getLogger(FeatureStore.class);
+
+    /**
+     * Executes an atomic measure expression such as
+     * "trigrams(x.name, y.label)" with a threshold.
+     */
+    public interface MeasureExecutor {
+        AMapping execute(String measureExpression, double threshold);
+    }
+
+    /**
+     * Sparse matrix of the similarities not below the floor of one
+     * classifier. Entry i links source sourceUris[sources[i]] to target
+     * targetUris[targets[i]] with similarity similarities[i].
+     */
+    public static class SimilarityMatrix {
+        private final String[] sourceUris;
+        private final String[] targetUris;
+        private final int[] sources;
+        private final int[] targets;
+        private final double[] similarities;
+
+        /**
+         * Constructor of SimilarityMatrix class.
+         *
+         * @param mapping
+         *            all pairs of the classifier with their similarities
+         */
+        public SimilarityMatrix(AMapping mapping) {
+            int size = mapping.getNumberofMappings();
+            Map<String, Integer> targetIds = new HashMap<>();
+            sourceUris = new String[mapping.getMap().size()];
+            String[] targetTable = new String[size];
+            sources = new int[size];
+            targets = new int[size];
+            similarities = new double[size];
+            int s = 0, i = 0;
+            for (Map.Entry<String, HashMap<String, Double>> row : mapping.getMap().entrySet()) {
+                sourceUris[s] = row.getKey();
+                for (Map.Entry<String, Double> cell : row.getValue().entrySet()) {
+                    Integer t = targetIds.get(cell.getKey());
+                    if (t == null) {
+                        t = targetIds.size();
+                        targetIds.put(cell.getKey(), t);
+                        targetTable[t] = cell.getKey();
+                    }
+                    sources[i] = s;
+                    targets[i] = t;
+                    similarities[i] = cell.getValue();
+                    i++;
+                }
+                s++;
+            }
+            targetUris = new String[targetIds.size()];
+            System.arraycopy(targetTable, 0, targetUris, 0, targetUris.length);
+        }
+
+        /**
+         * @return number of stored similarities
+         */
+        public int size() {
+            return similarities.length;
+        }
+
+        /**
+         * @param threshold
+         *            similarity threshold
+         * @return number of pairs with a similarity not below the threshold
+         */
+        public int count(double threshold) {
+            int count = 0;
+            for (double similarity : similarities) {
+                if (similarity >= threshold) {
+                    count++;
+                }
+            }
+            return count;
+        }
+
+        /**
+         * @param threshold
+         *            similarity threshold
+         * @return all pairs with a similarity not below the threshold
+         */
+        public AMapping getMapping(double threshold) {
+            AMapping result = MappingFactory.createDefaultMapping();
+            for (int i = 0; i < similarities.length; i++) {
+                if (similarities[i] >= threshold) {
+                    result.add(sourceUris[sources[i]], targetUris[targets[i]], similarities[i]);
+                }
+            }
+            return result;
+        }
+    }
+
+    private final ACache source;
+    private final ACache target;
+    private final double floor;
+    private final MeasureExecutor executor;
+    private final Map<String, SimilarityMatrix> matrices = new ConcurrentHashMap<>();
+
+    /**
+     * Constructor of FeatureStore class.
+     *
+     * @param source
+     *            source cache of the learning run
+     * @param target
+     *            target cache of the learning run
+     * @param floor
+     *            lowest threshold that is answered from the store
+     * @param executor
+     *            executes the atomic measures on the caches
+     */
+    public FeatureStore(ACache source, ACache target, double floor, MeasureExecutor executor) {
+        this.source = source;
+        this.target = target;
+        this.floor = floor;
+        this.executor = executor;
+    }
+
+    /**
+     * @param source
+     *            source cache
+     * @param target
+     *            target cache
+     * @return true if the store holds the similarities of these caches
+     */
+    public boolean isFor(ACache source, ACache target) {
+        return this.source == source && this.target == target;
+    }
+
+    public double getFloor() {
+        return floor;
+    }
+
+    /**
+     * Returns the mapping of measure(x.sourceProperty, y.targetProperty)
+     * &gt;= threshold.
+     *
+     * @param sourceProperty
+     *            source property
+     * @param targetProperty
+     *            target property
+     * @param measure
+     *            similarity measure
+     * @param threshold
+     *            similarity threshold
+     * @return the mapping
+     */
+    public AMapping getMapping(String sourceProperty, String targetProperty, String measure, double threshold) {
+        String measureExpression = measure + "(x." + sourceProperty + ", y." + targetProperty + ")";
+        if (threshold < floor) {
+            return executor.execute(measureExpression, threshold);
+        }
+        return getMatrix(measureExpression).getMapping(threshold);
+    }
+
+    /**
+     * Returns the similarity matrix of an atomic measure expression, which is
+     * computed on the first request. Concurrent requests for the same
+     * expression wait for this computation instead of repeating it.
+     *
+     * @param measureExpression
+     *            atomic measure expression
+     * @return the similarity matrix
+     */
+    public SimilarityMatrix getMatrix(String measureExpression) {
+        return matrices.computeIfAbsent(measureExpression, expression -> {
+            SimilarityMatrix matrix = new SimilarityMatrix(executor.execute(expression, floor));
+            logger.debug("Stored " + matrix.size() + " similarities of " + expression);
+            return matrix;
+        });
+    }
+
+    /**
+     * @return number of stored similarity matrices
+     */
+    public int size() {
+        return matrices.size();
+    }
+}
@@ -124,13 +124,13 @@ public class ExpressionFitnessFunction extends IGPFitnessFunction {
      * @return Double value. The closer to 0 the better.
      */
     public double calculateRawFitness(IGPProgram p) {
-        p.getGPConfiguration().clearStack();
-        p.getGPConfiguration().clearMemory();
+        return getMemoizedFitness(getSpecification(p));
+    }
+
+    @Override
+    public double calculateRawFitness(LinkSpecification spec) {
         // get actual Mapping
-        Object[] args = {};
-        ProgramChromosome pc = p.getChromosome(0);
         AMapping actualMapping = MappingFactory.createDefaultMapping();
-        LinkSpecification spec = (LinkSpecification) pc.getNode(0).execute_object(pc, 0, args);
         String expr = spec.getFilterExpression();
         
         if(expr == null)
@@ -255,6 +255,7 @@ public class ExpressionFitnessFunction extends IGPFitnessFunction {
      *         Mapping holding data instances a user has evaluated. That may include non-matches.
      */
     public void trimKnowledgeBases(AMapping trainingData) {
+        clearMemo();
     	trimmedSourceCache = sC;
 		trimmedTargetCache = tC;
     	if(trainingData.size()<=0) {
@@ -282,6 +283,7 @@ public class ExpressionFitnessFunction extends IGPFitnessFunction {
      * @param value
      */
     public void setUseFullCaches(boolean value) {
+        clearMemo();
     	this.useFullCaches = value;
     }
 
@@ -302,6 +304,7 @@ public class ExpressionFitnessFunction extends IGPFitnessFunction {
      *         A Mapping holding all matches.
      */
     public void setReferenceMapping(AMapping referenceData) {
+        clearMemo();
         reference = referenceData;
     }
 
@@ -312,6 +315,7 @@ public class ExpressionFitnessFunction extends IGPFitnessFunction {
      *         Mapping of matches, designated as such by an oracle.
      */
     public void addToReference(AMapping m) {
+        clearMemo();
         logger.info("Filling reference of size " + reference.size() + " with " + m.size() + " additional matches.");
         for (Entry<String, HashMap<String, Double>> e1 : m.getMap().entrySet()) {
             for (Entry<String, Double> e2 : e1.getValue().entrySet()) {
@@ -322,6 +326,7 @@ public class ExpressionFitnessFunction extends IGPFitnessFunction {
     }
 
     public void fillCachesIncrementally(AMapping matches) {
+        clearMemo();
         for (String sUri : matches.getMap().keySet())
             for (String tUri : matches.getMap().get(sUri).keySet()) {
                 if (!trimmedSourceCache.containsUri(sUri)) {
@@ -342,6 +347,7 @@ public class ExpressionFitnessFunction extends IGPFitnessFunction {
     }
 
     public void setCaches(ACache sC, ACache tC) {
+        clearMemo();
         this.sC = sC;
         this.tC = tC;
     }
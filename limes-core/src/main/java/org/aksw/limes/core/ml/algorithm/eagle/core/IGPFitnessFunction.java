@@ -1,7 +1,21 @@
 package org.aksw.limes.core.ml.algorithm.eagle.core;
 
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.aksw.limes.core.io.ls.LinkSpecification;
 import org.aksw.limes.core.io.mapping.AMapping;
 import org.jgap.gp.GPFitnessFunction;
+import org.jgap.gp.GPProgramBase;
+import org.jgap.gp.IGPProgram;
+import org.jgap.gp.impl.ProgramChromosome;
 
 /**
  * @author Tommaso Soru (tsoru@informatik.uni-leipzig.de)
@@ -10,12 +24,153 @@ import org.jgap.gp.GPFitnessFunction;
 public abstract class IGPFitnessFunction extends GPFitnessFunction implements IFitnessFunction {
 
 	/**
-	 * 
+	 *
 	 */
 	private static final long serialVersionUID = -94163100342394354L;
-	
+
+	/**
+	 * Fitness of the link specifications scored in the current generation,
+	 * keyed by {@link #getKey(LinkSpecification)}.
+	 */
+	private final Map<String, Double> memo = new ConcurrentHashMap<String, Double>();
+
 	public abstract void addToReference(AMapping m);
-	
+
 	public abstract void fillCachesIncrementally(AMapping matches);
-	
+
+	/**
+	 * Calculates the fitness of a link specification. Must be thread-safe, as
+	 * the programs of a population are scored in parallel.
+	 *
+	 * @param spec
+	 *            the link specification of a program
+	 * @return the fitness, the closer to 0 the better
+	 */
+	public abstract double calculateRawFitness(LinkSpecification spec);
+
+	/**
+	 * Executes a program to get its link specification.
+	 *
+	 * @param p
+	 *            GP program
+	 * @return the link specification of p
+	 */
+	protected LinkSpecification getSpecification(IGPProgram p) {
+		p.getGPConfiguration().clearStack();
+		p.getGPConfiguration().clearMemory();
+		Object[] args = {};
+		ProgramChromosome pc = p.getChromosome(0);
+		return (LinkSpecification) pc.getNode(0).execute_object(pc, 0, args);
+	}
+
+	/**
+	 * Returns the fitness of a link specification from the memo of the
+	 * current generation, or calculates it.
+	 *
+	 * @param spec
+	 *            the link specification
+	 * @return the fitness
+	 */
+	protected double getMemoizedFitness(LinkSpecification spec) {
+		String key = getKey(spec);
+		Double fitness = memo.get(key);
+		if (fitness == null) {
+			fitness = calculateRawFitness(spec);
+			memo.put(key, fitness);
+		}
+		return fitness;
+	}
+
+	/**
+	 * Returns the memo key of a link specification: its operator, filter
+	 * expression without white space and threshold, followed by the keys of
+	 * its children. Unlike the full expression, which writes MIN as AND and
+	 * MAX as OR, two specifications share a key only if they are executed
+	 * alike.
+	 *
+	 * @param spec
+	 *            the link specification
+	 * @return the key of spec
+	 */
+	protected static String getKey(LinkSpecification spec) {
+		StringBuilder key = new StringBuilder();
+		if (spec.getOperator() != null) {
+			key.append(spec.getOperator().name());
+		}
+		if (spec.getFilterExpression() != null) {
+			key.append(spec.getFilterExpression().replaceAll("\\s", ""));
+		}
+		key.append('|').append(spec.getThreshold());
+		if (spec.getChildren() != null) {
+			key.append('(');
+			for (LinkSpecification child : spec.getChildren()) {
+				key.append(getKey(child)).append(',');
+			}
+			key.append(')');
+		}
+		return key.toString();
+	}
+
+	/**
+	 * Forgets all scored link specifications. Must be called whenever the
+	 * caches or the reference change.
+	 */
+	protected void clearMemo() {
+		memo.clear();
+	}
+
+	/**
+	 * Scores all programs of a population that have no fitness value yet.
+	 * The programs are executed serially, as they share their configuration;
+	 * each distinct link specification is then scored once on a thread pool,
+	 * so that duplicate programs cost nothing.
+	 *
+	 * @param programs
+	 *            the programs of a population
+	 */
+	public void calculateFitness(IGPProgram[] programs) {
+		List<IGPProgram> pending = new ArrayList<IGPProgram>();
+		List<String> keys = new ArrayList<String>();
+		Map<String, LinkSpecification> distinct = new LinkedHashMap<String, LinkSpecification>();
+		for (IGPProgram p : programs) {
+			if (p == null || (p instanceof GPProgramBase && ((GPProgramBase) p).getFitnessValueDirectly() >= 0)) {
+				continue;
+			}
+			LinkSpecification spec;
+			try {
+				spec = getSpecification(p);
+			} catch (IllegalStateException e) {
+				// left to JGAP, which assigns a bad fitness
+				continue;
+			}
+			String key = getKey(spec);
+			pending.add(p);
+			keys.add(key);
+			distinct.put(key, spec);
+		}
+		if (pending.isEmpty()) {
+			return;
+		}
+		// a new generation
+		memo.clear();
+		int threads = Math.min(Runtime.getRuntime().availableProcessors(), distinct.size());
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		Map<String, Future<Double>> futures = new LinkedHashMap<String, Future<Double>>();
+		for (final Map.Entry<String, LinkSpecification> entry : distinct.entrySet()) {
+			futures.put(entry.getKey(), executor.submit(() -> calculateRawFitness(entry.getValue())));
+		}
+		try {
+			for (Map.Entry<String, Future<Double>> entry : futures.entrySet()) {
+				memo.put(entry.getKey(), entry.getValue().get());
+			}
+		} catch (InterruptedException | ExecutionException e) {
+			throw new RuntimeException("Fitness evaluation failed", e);
+		} finally {
+			executor.shutdownNow();
+		}
+		for (int i = 0; i < pending.size(); i++) {
+			pending.get(i).setFitnessValue(memo.get(keys.get(i)));
+		}
+	}
+
 }
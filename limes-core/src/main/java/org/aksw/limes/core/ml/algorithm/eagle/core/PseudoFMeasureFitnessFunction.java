@@ -78,12 +78,13 @@ public class PseudoFMeasureFitnessFunction extends IGPFitnessFunction {
      * @return 1-PseudoFMeasure. Or if something wents wrong either 5d, iff p isn't fulfilling all constraints. 8d if executing p results in memory error.
      */
     public double calculateRawFitness(IGPProgram p) {
-        double pseudoFMeasure = calculatePseudoMeasure(p);
+        return getMemoizedFitness(getSpecification(p));
+    }
+
+    @Override
+    public double calculateRawFitness(LinkSpecification spec) {
+        double pseudoFMeasure = calculatePseudoMeasure(spec);
         if (!(pseudoFMeasure >= 0d && pseudoFMeasure <= 1d)) {
-            Object[] args = {};
-            ProgramChromosome pc = null;
-            pc = p.getChromosome(0);
-            LinkSpecification spec = (LinkSpecification) pc.getNode(0).execute_object(pc, 0, args);
             logger.info("LS: " + spec);
             logger.error("Pseudo Measure was not in [0,1]");
             System.out.println("Pseudo Measure for (" + spec + ") was not in [0,1]");
@@ -101,17 +102,19 @@ public class PseudoFMeasureFitnessFunction extends IGPFitnessFunction {
         Object[] args = {};
         ProgramChromosome pc = null;
         pc = p.getChromosome(0);
-        AMapping actualMapping = MappingFactory.createDefaultMapping();
         LinkSpecification spec = (LinkSpecification) pc.getNode(0).execute_object(pc, 0, args);
+        return calculateMapping(spec);
+    }
+
+    private AMapping calculateMapping(LinkSpecification spec) {
         // get Mapping
         try {
-            actualMapping = getMapping(sourceCache, targetCache, spec);
+            return getMapping(sourceCache, targetCache, spec);
         } catch (java.lang.OutOfMemoryError e) {
             e.printStackTrace(); // should not happen
             
             return MappingFactory.createDefaultMapping();
         }
-        return actualMapping;
     }
 
     /**
@@ -119,9 +122,14 @@ public class PseudoFMeasureFitnessFunction extends IGPFitnessFunction {
      * @return PseudoMeasure
      */
     public Double calculatePseudoMeasure(IGPProgram p) {
-        
+        Object[] args = {};
+        ProgramChromosome pc = p.getChromosome(0);
+        return calculatePseudoMeasure((LinkSpecification) pc.getNode(0).execute_object(pc, 0, args));
+    }
+
+    private double calculatePseudoMeasure(LinkSpecification spec) {
     	// mapping
-        AMapping mapping = calculateMapping(p);
+        AMapping mapping = calculateMapping(spec);
         // gold standard is not needed by pseudoFM
         GoldStandard gold = new GoldStandard(mapping, sourceCache, targetCache);
         
@@ -139,6 +147,9 @@ public class PseudoFMeasureFitnessFunction extends IGPFitnessFunction {
         try {
             IPlanner planner = ExecutionPlannerFactory.getPlanner(ExecutionPlannerType.DEFAULT,
                     sC, tC);
+            // engines keep intermediate results, so every call gets its own
+            ExecutionEngine engine = ExecutionEngineFactory.getEngine(ExecutionEngineType.DEFAULT, sourceCache,
+                    targetCache, config.source.getVar(), config.target.getVar());
             return engine.execute(spec, planner);
         } catch (Exception e) {
             e.printStackTrace();
@@ -162,6 +173,7 @@ public class PseudoFMeasureFitnessFunction extends IGPFitnessFunction {
     }
 
     public void setMeasure(PseudoFMeasure pfm) {
+        clearMemo();
         this.pfm = pfm;
     }
 
@@ -170,6 +182,7 @@ public class PseudoFMeasureFitnessFunction extends IGPFitnessFunction {
     }
 
     public void setBeta(double beta) {
+        clearMemo();
         this.beta = beta;
     }
 
@@ -19,6 +19,7 @@ import org.aksw.limes.core.io.mapping.AMapping;
 import org.aksw.limes.core.io.mapping.MappingFactory;
 import org.aksw.limes.core.measures.measure.AMeasure;
 import org.aksw.limes.core.measures.measure.MeasureFactory;
+import org.aksw.limes.core.ml.algorithm.classifier.FeatureStore;
 import org.aksw.limes.core.ml.algorithm.classifier.SimpleClassifier;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -67,6 +68,8 @@ public class LinearSelfConfigurator implements ISelfConfigurator {
     /* supervised approaches need a reference mapping to compute qualities*/
     AMapping reference = MappingFactory.createDefaultMapping(); // all true instance pairs.
     public AMapping asked = MappingFactory.createDefaultMapping();// all known instance pairs.
+    /* similarities of the classifiers, thresholds from MIN_THRESHOLD on are answered without executing the measure again */
+    private FeatureStore featureStore = null;
     
     /**
      * Set PFMs based upon name.
@@ -494,8 +497,12 @@ public class LinearSelfConfigurator implements ISelfConfigurator {
      * @return Correspoding AMapping
      */
     public AMapping execute(String sourceProperty, String targetProperty, String measure, double threshold) {
-        String measureExpression = measure + "(x." + sourceProperty + ", y." + targetProperty + ")";
-        return LSPipeline.execute(source, target, new LinkSpecification(measureExpression, threshold));
+        if (featureStore == null || !featureStore.isFor(source, target) || featureStore.getFloor() != MIN_THRESHOLD) {
+            final ACache s = source, t = target;
+            featureStore = new FeatureStore(s, t, MIN_THRESHOLD,
+                    (measureExpression, theta) -> LSPipeline.execute(s, t, new LinkSpecification(measureExpression, theta)));
+        }
+        return featureStore.getMapping(sourceProperty, targetProperty, measure, threshold);
     }
 
     /**
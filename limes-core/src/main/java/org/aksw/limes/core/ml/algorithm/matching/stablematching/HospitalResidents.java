@@ -5,9 +5,11 @@
 package org.aksw.limes.core.ml.algorithm.matching.stablematching;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 
 import org.aksw.limes.core.io.mapping.AMapping;
+import org.aksw.limes.core.io.mapping.EncodedMapping;
 import org.aksw.limes.core.io.mapping.MappingFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -27,7 +29,9 @@ public class HospitalResidents {
         HashMap<Integer, String> hospitalReverseIndex = new HashMap<Integer, String>();
 
     /** Implements hospital/residents for a similarity mapping. Can be used for
-     * detecting stable matching between properties and classes
+     * detecting stable matching between properties and classes. Every resident
+     * ranks every hospital, unlinked ones with weight 0, see
+     * {@link #getMatching(EncodedMapping, int)} for a sparse variant.
      * @param m Input Mapping
      * @return Stable matching including weights
      */
@@ -80,7 +84,7 @@ public class HospitalResidents {
             for (int j = 0; j < hCounter; j++) {
                 //System.out.print(preferences[j]+"\t");
             }
-            preferences = sort(preferences);
+            preferences = rank(preferences);
             //System.out.print("Sorted preferences===\n"+r+"\t");
             for (int j = 0; j < hCounter; j++) {
                 //System.out.print(preferences[j]+"\t");
@@ -103,7 +107,7 @@ public class HospitalResidents {
                 int index = residentIndex.get(r);
                 preferences[index] = m.getConfidence(r, h);
             }
-            preferences = sort(preferences);
+            preferences = rank(preferences);
             if(rCounter%hCounter == 0)
             hospitals.add(new Hospital(i, (int)(rCounter / hCounter), preferences));
             else
@@ -124,6 +128,136 @@ public class HospitalResidents {
         return result;
     }
 
+    /** Sparse hospital/residents on ID-encoded links, an opt-in alternative to
+     * {@link #getMatching(AMapping)} for large mappings. Only the listed links
+     * are acceptable: a resident (source) only applies to the hospitals
+     * (targets) it is linked to, in the order of descending similarity, and a
+     * hospital never admits a resident it is not linked to. A full hospital
+     * replaces its least similar resident if the applicant is more similar.
+     * Residents whose applications are all rejected remain unmatched, whereas
+     * the dense matching may assign them an unlinked hospital with weight 0.
+     * The result is stable with respect to the listed links. Runs in
+     * O(links * log(capacity)) after sorting the links.
+     * @param links Links between residents (sources) and hospitals (targets)
+     * @param capacity Maximal number of residents per hospital
+     * @return Stable matching including weights
+     */
+    public AMapping getMatching(EncodedMapping links, int capacity) {
+        int residents = links.getSourceCount();
+        int hospitals = links.getTargetCount();
+        // applications of each resident, by descending similarity
+        int[] applications = new int[links.size()];
+        int[] nextApplication = new int[residents];
+        for (int r = 0; r < residents; r++) {
+            nextApplication[r] = links.getRowStart(r);
+        }
+        for (int link : links.getOrder()) {
+            applications[nextApplication[getResident(links, link)]++] = link;
+        }
+        for (int r = 0; r < residents; r++) {
+            nextApplication[r] = links.getRowStart(r);
+        }
+        // admitted links of each hospital as a min-heap by similarity
+        int[] admitted = new int[hospitals * capacity];
+        int[] admittedCount = new int[hospitals];
+        int[] free = new int[residents];
+        int freeCount = 0;
+        for (int r = residents - 1; r >= 0; r--) {
+            free[freeCount++] = r;
+        }
+        while (freeCount > 0) {
+            int r = free[--freeCount];
+            if (nextApplication[r] == links.getRowEnd(r)) {
+                continue;
+            }
+            int link = applications[nextApplication[r]++];
+            int h = links.getTarget(link);
+            int base = h * capacity;
+            if (admittedCount[h] < capacity) {
+                siftUp(links, admitted, base, admittedCount[h]++, link);
+            } else if (links.getSimilarity(admitted[base]) < links.getSimilarity(link)) {
+                int rejected = admitted[base];
+                siftDown(links, admitted, base, capacity, link);
+                free[freeCount++] = getResident(links, rejected);
+            } else {
+                free[freeCount++] = r;
+            }
+        }
+        AMapping result = MappingFactory.createDefaultMapping();
+        for (int h = 0; h < hospitals; h++) {
+            for (int i = 0; i < admittedCount[h]; i++) {
+                int link = admitted[h * capacity + i];
+                result.add(links.getSourceUri(getResident(links, link)), links.getTargetUri(h),
+                        links.getSimilarity(link));
+            }
+        }
+        return result;
+    }
+
+    private static void siftUp(EncodedMapping links, int[] heap, int base, int i, int link) {
+        while (i > 0) {
+            int parent = (i - 1) / 2;
+            if (links.getSimilarity(heap[base + parent]) <= links.getSimilarity(link)) {
+                break;
+            }
+            heap[base + i] = heap[base + parent];
+            i = parent;
+        }
+        heap[base + i] = link;
+    }
+
+    private static void siftDown(EncodedMapping links, int[] heap, int base, int size, int link) {
+        int i = 0;
+        while (2 * i + 1 < size) {
+            int child = 2 * i + 1;
+            if (child + 1 < size
+                    && links.getSimilarity(heap[base + child + 1]) < links.getSimilarity(heap[base + child])) {
+                child++;
+            }
+            if (links.getSimilarity(heap[base + child]) >= links.getSimilarity(link)) {
+                break;
+            }
+            heap[base + i] = heap[base + child];
+            i = child;
+        }
+        heap[base + i] = link;
+    }
+
+    /**
+     * @return the resident (source) of a link, found by binary search over the rows
+     */
+    private static int getResident(EncodedMapping links, int link) {
+        int low = 0, high = links.getSourceCount() - 1;
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (links.getRowStart(middle) <= link) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Same order as {@link #sort(double[])} for non-negative weights: the
+     * indexes by ascending weight, ties by descending index. Runs in
+     * O(n log n) instead of O(n^2).
+     */
+    private static double[] rank(double[] input) {
+        Integer[] order = new Integer[input.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        // stable, so that ties keep the ascending index
+        Arrays.sort(order, (i, j) -> Double.compare(input[j], input[i]));
+        double[] result = new double[input.length];
+        for (int k = 0; k < order.length; k++) {
+            result[input.length - k - 1] = order[k];
+        }
+        return result;
+    }
+
     public double[] sort(double[] input) {
         double[] result = new double[input.length];
         double max;
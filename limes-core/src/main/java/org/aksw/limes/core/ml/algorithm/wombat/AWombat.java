@@ -6,12 +6,20 @@ package org.aksw.limes.core.ml.algorithm.wombat;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.aksw.limes.core.datastrutures.GoldStandard;
+import org.aksw.limes.core.datastrutures.LogicOperator;
 import org.aksw.limes.core.datastrutures.Tree;
 import org.aksw.limes.core.evaluation.qualititativeMeasures.FMeasure;
 import org.aksw.limes.core.evaluation.qualititativeMeasures.Precision;
@@ -20,6 +28,7 @@ import org.aksw.limes.core.evaluation.qualititativeMeasures.Recall;
 import org.aksw.limes.core.execution.engine.ExecutionEngine;
 import org.aksw.limes.core.execution.engine.ExecutionEngineFactory;
 import org.aksw.limes.core.execution.engine.ExecutionEngineFactory.ExecutionEngineType;
+import org.aksw.limes.core.execution.engine.LinkSpecificationScorer;
 import org.aksw.limes.core.execution.engine.SimpleExecutionEngine;
 import org.aksw.limes.core.execution.planning.plan.Instruction;
 import org.aksw.limes.core.execution.planning.plan.Plan;
@@ -34,10 +43,13 @@ import org.aksw.limes.core.io.cache.HybridCache;
 import org.aksw.limes.core.io.ls.LinkSpecification;
 import org.aksw.limes.core.io.mapping.AMapping;
 import org.aksw.limes.core.io.mapping.MappingFactory;
+import org.aksw.limes.core.io.parser.Parser;
+import org.aksw.limes.core.measures.mapper.MappingOperations;
 import org.aksw.limes.core.measures.measure.MeasureType;
 import org.aksw.limes.core.ml.algorithm.ACoreMLAlgorithm;
 import org.aksw.limes.core.ml.algorithm.LearningParameter;
 import org.aksw.limes.core.ml.algorithm.classifier.ExtendedClassifier;
+import org.aksw.limes.core.ml.algorithm.classifier.FeatureStore;
 import org.aksw.limes.core.ml.algorithm.euclid.LinearSelfConfigurator;
 import org.apache.jena.atlas.lib.CacheFactory;
 import org.slf4j.Logger;
@@ -69,8 +81,8 @@ public abstract class AWombat extends ACoreMLAlgorithm {
     public static final String PARAMETER_ATOMIC_MEASURES = "atomic measures";
     public static final String PARAMETER_SAVE_MAPPING = "save mapping";
 
-    public static List<String> sourceUris;
-    public static List<String> targetUris;
+    protected List<String> sourceUris;
+    protected List<String> targetUris;
 
     protected Map<String, Double> sourcePropertiesCoverageMap; //coverage map for latter computations
     protected Map<String, Double> targetPropertiesCoverageMap; //coverage map for latter computations
@@ -83,6 +95,48 @@ public abstract class AWombat extends ACoreMLAlgorithm {
     protected ACache sourceSample = new HybridCache();
     protected ACache targetSample = new HybridCache();
 
+    /**
+     * Lowest threshold probed for the initial classifiers.
+     */
+    private static final double MIN_CLASSIFIER_THRESHOLD = 0.4d;
+
+    /**
+     * Similarities of the initial classifier candidates, computed once per
+     * pair of caches.
+     */
+    private FeatureStore featureStore = null;
+
+    /**
+     * Maximal number of mappings kept in the memo of metric expressions.
+     */
+    private static final int MAX_MEMO_SIZE = 1000;
+
+    /**
+     * Mappings of the atomic and composite metric expressions computed so
+     * far, keyed by normalized expression. The least recently used mappings
+     * are dropped first.
+     */
+    private final Map<String, AMapping> mappingMemo = Collections.synchronizedMap(
+            new LinkedHashMap<String, AMapping>(16, 0.75f, true) {
+                private static final long serialVersionUID = 1L;
+
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, AMapping> eldest) {
+                    return size() > MAX_MEMO_SIZE;
+                }
+            });
+
+    /**
+     * Maximal recall of the refinement tree of this run, see
+     * {@link RefinementNode#RefinementNode(AMapping, String, AMapping, double)}.
+     */
+    protected double rMax = -Double.MAX_VALUE;
+
+    /**
+     * Number of threads that compute sibling refinements.
+     */
+    private int refinementThreads = Runtime.getRuntime().availableProcessors();
+
 
     protected AWombat() {
         super();
@@ -100,11 +154,14 @@ public abstract class AWombat extends ACoreMLAlgorithm {
         if(!saveMapping()){
             mapping = null;
         }
+        if (mapping != null) {
+            mappingMemo.put(normalize(metricExpr), mapping);
+        }
         if (isUnsupervised) {
             double pfm = pseudoFMeasure.calculate(mapping, new GoldStandard(null, sourceUris, targetUris));
             return new RefinementNode(pfm, mapping, metricExpr);
         }
-        return new RefinementNode(mapping, metricExpr, trainingData);
+        return new RefinementNode(mapping, metricExpr, trainingData, rMax);
     }
 
 
@@ -132,7 +189,19 @@ public abstract class AWombat extends ACoreMLAlgorithm {
      * the atomic mapper measure(sourceProperty, targetProperty)
      */
     public AMapping executeAtomicMeasure(String sourceProperty, String targetProperty, String measure, double threshold) {
-        String measureExpression = measure + "(x." + sourceProperty + ", y." + targetProperty + ")";
+        if (featureStore == null || !featureStore.isFor(sourceCache, targetCache)) {
+            featureStore = new FeatureStore(sourceCache, targetCache, MIN_CLASSIFIER_THRESHOLD, this::executeAtomicMeasure);
+        }
+        return featureStore.getMapping(sourceProperty, targetProperty, measure, threshold);
+    }
+
+    /**
+     * @param measureExpression atomic measure expression
+     * @param threshold of the LS
+     * @return Mapping from source to target resources after executing the
+     * atomic measure expression
+     */
+    private AMapping executeAtomicMeasure(String measureExpression, double threshold) {
         Instruction inst = new Instruction(Instruction.Command.RUN, measureExpression, threshold + "", -1, -1, -1);
         ExecutionEngine ee = ExecutionEngineFactory.getEngine(ExecutionEngineType.DEFAULT, sourceCache, targetCache, "?x", "?y");
         Plan plan = new Plan();
@@ -157,33 +226,113 @@ public abstract class AWombat extends ACoreMLAlgorithm {
 
 
     /**
-     * Looks first for the input metricExpression in the already constructed tree,
-     * if found the corresponding mapping is returned.
-     * Otherwise, the SetConstraintsMapper is generate the mapping from the metricExpression.
+     * Looks first for the input metricExpression in the memo of computed
+     * expressions and in the already constructed tree, if found the
+     * corresponding mapping is returned. Otherwise, the mapping of a
+     * conjunction, disjunction or difference is derived from the mappings of
+     * its sub-expressions by set operations, and atomic expressions are
+     * executed. If mappings are not saved, nothing is memoized.
      *
      * @param metricExpression learning specifications
      * @return Mapping corresponding to the input metric expression
      */
     protected AMapping getMapingOfMetricExpression(String metricExpression) {
-        AMapping map = null;
-        if (RefinementNode.isSaveMapping()) {
+        String key = normalize(metricExpression);
+        AMapping map = mappingMemo.get(key);
+        if (map != null) {
+            return map;
+        }
+        if (saveMapping()) {
             map = getMapingOfMetricFromTree(metricExpression, refinementTreeRoot);
         }
         if (map == null) {
             Double threshold = Double.parseDouble(metricExpression.substring(metricExpression.lastIndexOf("|") + 1, metricExpression.length()));
-            Rewriter rw = RewriterFactory.getRewriter(RewriterType.DEFAULT);
-            LinkSpecification ls = new LinkSpecification(metricExpression, threshold);
-            LinkSpecification rwLs = rw.rewrite(ls);
-            IPlanner planner = ExecutionPlannerFactory.getPlanner(ExecutionPlannerType.DEFAULT, sourceCache, targetCache);
-            assert planner != null;
-            ExecutionEngine engine = ExecutionEngineFactory.getEngine(ExecutionEngineType.DEFAULT, sourceCache, targetCache, "?x", "?y");
-            assert engine != null;
-            AMapping resultMap = engine.execute(rwLs, planner);
-            map = resultMap.getSubMap(threshold);
+            String metric = metricExpression.substring(0, metricExpression.lastIndexOf("|"));
+            Parser p = new Parser(metric, threshold);
+            String operator = p.isAtomic() ? null : p.getOperator().toUpperCase();
+            if (LogicOperator.AND.name().equals(operator) || LogicOperator.OR.name().equals(operator)
+                    || LogicOperator.MINUS.name().equals(operator)) {
+                AMapping left = getMapingOfMetricExpression(p.getLeftTerm() + "|" + p.getThreshold1());
+                AMapping right = getMapingOfMetricExpression(p.getRightTerm() + "|" + p.getThreshold2());
+                if (LogicOperator.AND.name().equals(operator)) {
+                    map = MappingOperations.intersection(left, right);
+                } else if (LogicOperator.OR.name().equals(operator)) {
+                    map = MappingOperations.union(left, right);
+                } else {
+                    map = MappingOperations.difference(left, right);
+                }
+                map = map.getSubMap(threshold);
+            } else {
+                Rewriter rw = RewriterFactory.getRewriter(RewriterType.DEFAULT);
+                LinkSpecification ls = new LinkSpecification(metricExpression, threshold);
+                LinkSpecification rwLs = rw.rewrite(ls);
+                IPlanner planner = ExecutionPlannerFactory.getPlanner(ExecutionPlannerType.DEFAULT, sourceCache, targetCache);
+                assert planner != null;
+                ExecutionEngine engine = ExecutionEngineFactory.getEngine(ExecutionEngineType.DEFAULT, sourceCache, targetCache, "?x", "?y");
+                assert engine != null;
+                AMapping resultMap = engine.execute(rwLs, planner);
+                map = resultMap.getSubMap(threshold);
+            }
+        }
+        if (saveMapping()) {
+            mappingMemo.put(key, map);
         }
         return map;
     }
 
+    /**
+     * @param metricExpression metric expression
+     * @return the expression without white space
+     */
+    protected static String normalize(String metricExpression) {
+        return metricExpression.replaceAll("\\s", "");
+    }
+
+    /**
+     * Computes independent refinements in parallel, e.g. the siblings created
+     * by combining a node with each initial classifier.
+     *
+     * @param tasks the refinements
+     * @param <T> type of the refinements
+     * @return the results in the order of the tasks
+     */
+    protected <T> List<T> refineInParallel(List<Callable<T>> tasks) {
+        List<T> result = new ArrayList<>(tasks.size());
+        int threads = Math.min(refinementThreads, tasks.size());
+        if (threads <= 1) {
+            try {
+                for (Callable<T> task : tasks) {
+                    result.add(task.call());
+                }
+            } catch (Exception e) {
+                throw new RuntimeException("Refinement failed", e);
+            }
+            return result;
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            for (Future<T> future : executor.invokeAll(tasks)) {
+                result.add(future.get());
+            }
+        } catch (InterruptedException | ExecutionException e) {
+            throw new RuntimeException("Refinement failed", e);
+        } finally {
+            executor.shutdownNow();
+        }
+        return result;
+    }
+
+    /**
+     * @param threads number of threads that compute sibling refinements, 1
+     * to refine sequentially
+     */
+    public void setRefinementThreads(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Number of refinement threads must be positive, got " + threads);
+        }
+        this.refinementThreads = threads;
+    }
+
     /**
      * @param metricExpression learning specifications
      * @param r refinement tree
@@ -217,6 +366,11 @@ public abstract class AWombat extends ACoreMLAlgorithm {
      */
     protected AMapping getPredictions(LinkSpecification ls, ACache sCache, ACache tCache) {
         AMapping map;
+        if (LinkSpecificationScorer.supports(ls)) {
+            // one blocking join, the rest of the specification is scored per pair
+            map = new LinkSpecificationScorer(sCache, tCache, "?x", "?y").execute(ls);
+            return map.getSubMap(ls.getThreshold());
+        }
         Rewriter rw = RewriterFactory.getDefaultRewriter();
         LinkSpecification rwLs = rw.rewrite(ls);
         IPlanner planner = ExecutionPlannerFactory.getPlanner(ExecutionPlannerType.DEFAULT, sCache, tCache);
@@ -240,9 +394,10 @@ public abstract class AWombat extends ACoreMLAlgorithm {
     @Override
     protected void init(List<LearningParameter> lp, ACache sourceCache, ACache targetCache) {
         super.init(lp, sourceCache, targetCache);
+        mappingMemo.clear();
+        featureStore = null;
         sourcePropertiesCoverageMap = LinearSelfConfigurator.getPropertyStats(sourceCache, getMinPropertyCoverage());
         targetPropertiesCoverageMap = LinearSelfConfigurator.getPropertyStats(targetCache, getMinPropertyCoverage());
-        RefinementNode.setSaveMapping(saveMapping());
     }
 
 
@@ -297,7 +452,7 @@ public abstract class AWombat extends ACoreMLAlgorithm {
         double maxOverlap = 0;
         double theta = 1.0;
         AMapping bestMapping = MappingFactory.createDefaultMapping();
-        for (double threshold = 1d; threshold > 0.4d; threshold = threshold * getPropertyLearningRate()) {
+        for (double threshold = 1d; threshold > MIN_CLASSIFIER_THRESHOLD; threshold = threshold * getPropertyLearningRate()) {
             AMapping mapping = executeAtomicMeasure(sourceProperty, targetProperty, measure, threshold);
             double overlap = fMeasure(mapping);
             if (maxOverlap < overlap) { //only interested in largest threshold with recall 1
@@ -481,7 +636,7 @@ public abstract class AWombat extends ACoreMLAlgorithm {
         return childrenPenalty + complexityPenalty;
     }
 
-    private boolean saveMapping() {
+    protected boolean saveMapping() {
         return Boolean.parseBoolean(getParameter(PARAMETER_SAVE_MAPPING).toString());
     }
 
@@ -76,13 +76,27 @@ public class RefinementNode implements Comparable<RefinementNode> {
      * @author sherif
      */
     public RefinementNode(AMapping map, String metricExpression, AMapping refMap) {
+        this(map, metricExpression, refMap, RefinementNode.rMax);
+        this.setMap(saveMapping ? map : null);
+    }
+
+    /**
+     * Constructor that does not read the static rMax and saveMapping, so
+     * that learners running at the same time do not share them
+     *
+     * @param map mapping of the node, null if mappings are not saved
+     * @param metricExpression
+     * @param refMap
+     * @param rMax maximal recall of the refinement tree
+     */
+    public RefinementNode(AMapping map, String metricExpression, AMapping refMap, double rMax) {
         super();
         this.setPrecision(new Precision().calculate(map, new GoldStandard(refMap)));
         this.setRecall(new Recall().calculate(map, new GoldStandard(refMap)));
         this.setfMeasure((precision == 0 && recall == 0) ? 0 : 2 * precision * recall / (precision + recall));
         double pMax = computeMaxPrecision(map, refMap);
         this.setMaxFMeasure(2 * pMax * rMax / (pMax + rMax));
-        this.setMap(saveMapping ? map : null);
+        this.setMap(map);
         this.setMetricExpression(metricExpression);
     }
 
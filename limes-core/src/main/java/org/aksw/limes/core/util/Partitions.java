@@ -0,0 +1,251 @@
+package org.aksw.limes.core.util;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+import org.aksw.limes.core.io.mapping.AMapping;
+import org.aksw.limes.core.io.mapping.MappingFactory;
+
+/**
+ * Runs a task on contiguous partitions [from, to) of the indexes 0 to size - 1
+ * in parallel. All callers share one fork/join pool with a thread per
+ * processor instead of creating a pool per call. Nested calls, e.g. of a
+ * mapper inside a partition of another task, run on the same pool without
+ * blocking it, since a partition that waits for nested partitions executes
+ * pending ones itself. A task with a single partition is run by the calling
+ * thread. Partitions that have not started yet are skipped once the thread
+ * that started the task is interrupted, e.g. because its job was cancelled,
+ * and the task throws a {@link CancellationException}.
+ *
+ * @version 1.0
+ */
+public class Partitions {
+
+    private static final ForkJoinPool POOL = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+
+    /**
+     * Outermost task a pool thread currently works on.
+     */
+    private static final ThreadLocal<Caller> CALLER = new ThreadLocal<>();
+
+    /**
+     * Thread that started an outermost task, and whether the task was
+     * cancelled because the thread was interrupted while waiting.
+     */
+    private static class Caller {
+        private final Thread thread = Thread.currentThread();
+        private volatile boolean cancelled = false;
+
+        private boolean isInterrupted() {
+            return cancelled || thread.isInterrupted();
+        }
+    }
+
+    /**
+     * Task on one partition.
+     *
+     * @param <T>
+     *            Type of the result of a partition
+     */
+    public interface Task<T> {
+        /**
+         * @param from
+         *            First index of the partition
+         * @param to
+         *            Index after the last index of the partition
+         * @return the result of the partition
+         */
+        T apply(int from, int to);
+    }
+
+    private Partitions() {
+    }
+
+    /**
+     * Checks whether the current thread, or the thread that started the task
+     * of the current partition, was interrupted. Long running loops call this
+     * to stop early.
+     *
+     * @throws CancellationException
+     *             if the thread was interrupted
+     */
+    public static void checkInterrupted() {
+        Caller caller = CALLER.get();
+        if (Thread.currentThread().isInterrupted() || (caller != null && caller.isInterrupted())) {
+            throw new CancellationException("Interrupted");
+        }
+    }
+
+    /**
+     * @param size
+     *            Number of indexes
+     * @param minPartitionSize
+     *            Minimal number of indexes per partition
+     * @return the number of partitions, at most the number of processors and
+     *         at least 1
+     */
+    public static int count(int size, int minPartitionSize) {
+        return Math.max(1, Math.min(POOL.getParallelism(), (size + minPartitionSize - 1) / minPartitionSize));
+    }
+
+    /**
+     * Splits the indexes into {@link #count(int, int)} partitions of about
+     * the same size.
+     *
+     * @param size
+     *            Number of indexes
+     * @param minPartitionSize
+     *            Minimal number of indexes per partition
+     * @return the start and end index of each partition
+     */
+    public static List<int[]> split(int size, int minPartitionSize) {
+        int partitions = count(size, minPartitionSize);
+        int step = (size + partitions - 1) / partitions;
+        List<int[]> ranges = new ArrayList<>();
+        for (int from = 0; from < size; from += step) {
+            ranges.add(new int[] { from, Math.min(size, from + step) });
+        }
+        return ranges;
+    }
+
+    /**
+     * Runs a task on the partitions of the indexes.
+     *
+     * @param size
+     *            Number of indexes
+     * @param minPartitionSize
+     *            Minimal number of indexes per partition
+     * @param task
+     *            Task on one partition
+     * @param <T>
+     *            Type of the result of a partition
+     * @return the results of the partitions in the order of the partitions
+     */
+    public static <T> List<T> map(int size, int minPartitionSize, Task<T> task) {
+        return map(split(size, minPartitionSize), task);
+    }
+
+    /**
+     * Runs a task on the given partitions.
+     *
+     * @param ranges
+     *            Start and end index of each partition
+     * @param task
+     *            Task on one partition
+     * @param <T>
+     *            Type of the result of a partition
+     * @return the results of the partitions in the order of the partitions
+     */
+    public static <T> List<T> map(List<int[]> ranges, Task<T> task) {
+        checkInterrupted();
+        if (ranges.size() <= 1) {
+            return ranges.isEmpty() ? Collections.emptyList()
+                    : Collections.singletonList(task.apply(ranges.get(0)[0], ranges.get(0)[1]));
+        }
+        Caller caller = CALLER.get() != null ? CALLER.get() : new Caller();
+        RecursiveTask<List<T>> all = new RecursiveTask<List<T>>() {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected List<T> compute() {
+                List<RecursiveTask<T>> partitions = new ArrayList<>();
+                for (int[] range : ranges) {
+                    partitions.add(new RecursiveTask<T>() {
+                        private static final long serialVersionUID = 1L;
+
+                        @Override
+                        protected T compute() {
+                            Caller previous = CALLER.get();
+                            CALLER.set(caller);
+                            try {
+                                checkInterrupted();
+                                return task.apply(range[0], range[1]);
+                            } finally {
+                                CALLER.set(previous);
+                            }
+                        }
+                    });
+                }
+                for (RecursiveTask<T> partition : partitions) {
+                    partition.fork();
+                }
+                // unlike invokeAll, wait for all partitions even if one
+                // failed, so that none is still running when the task ends
+                for (RecursiveTask<T> partition : partitions) {
+                    partition.quietlyJoin();
+                }
+                List<T> results = new ArrayList<>();
+                for (RecursiveTask<T> partition : partitions) {
+                    results.add(partition.join());
+                }
+                return results;
+            }
+        };
+        if (ForkJoinTask.inForkJoinPool()) {
+            return all.invoke();
+        }
+        try {
+            return POOL.submit(all).get();
+        } catch (InterruptedException e) {
+            // skip the remaining partitions and wait for the running ones
+            caller.cancelled = true;
+            all.quietlyJoin();
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrupted while waiting for partitions");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    /**
+     * Runs a task that computes a mapping on the partitions of the indexes
+     * and merges the mappings.
+     *
+     * @param size
+     *            Number of indexes
+     * @param minPartitionSize
+     *            Minimal number of indexes per partition
+     * @param task
+     *            Task on one partition
+     * @return the union of the mappings of all partitions
+     */
+    public static AMapping collect(int size, int minPartitionSize, Task<AMapping> task) {
+        return collect(split(size, minPartitionSize), task);
+    }
+
+    /**
+     * Runs a task that computes a mapping on the given partitions and merges
+     * the mappings.
+     *
+     * @param ranges
+     *            Start and end index of each partition
+     * @param task
+     *            Task on one partition
+     * @return the union of the mappings of all partitions
+     */
+    public static AMapping collect(List<int[]> ranges, Task<AMapping> task) {
+        List<AMapping> mappings = map(ranges, task);
+        if (mappings.size() == 1) {
+            return mappings.get(0);
+        }
+        AMapping result = MappingFactory.createDefaultMapping();
+        for (AMapping mapping : mappings) {
+            for (String s : mapping.getMap().keySet()) {
+                result.add(s, mapping.getMap().get(s));
+            }
+        }
+        return result;
+    }
+}
@@ -2,6 +2,7 @@ package org.aksw.limes.core.util;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Random;
 
 /*
  * To change this template, choose Tools | Templates
@@ -20,10 +21,30 @@ public class RandomStringGenerator implements DataGenerator {
     int minLength, maxLength;
     double mean = 0d;
     double stdDev = 0d;
+    Random random;
 
     public RandomStringGenerator(int minLength, int maxLength) {
+        this(minLength, maxLength, new Random());
+    }
+
+    /**
+     * Generates the same strings for the same seed, e.g. for benchmarks.
+     *
+     * @param minLength
+     *         Minimal length of the strings
+     * @param maxLength
+     *         Maximal length of the strings
+     * @param seed
+     *         Seed of the random generator
+     */
+    public RandomStringGenerator(int minLength, int maxLength, long seed) {
+        this(minLength, maxLength, new Random(seed));
+    }
+
+    private RandomStringGenerator(int minLength, int maxLength, Random random) {
         this.minLength = minLength;
         this.maxLength = maxLength;
+        this.random = random;
     }
 
     /**
@@ -50,9 +71,9 @@ public class RandomStringGenerator implements DataGenerator {
 
     public String generateString() {
         String s = "";
-        int length = minLength + (int) (Math.random() * (maxLength - minLength));
+        int length = minLength + (int) (random.nextDouble() * (maxLength - minLength));
         for (int j = 0; j < length; j++) {
-            s = s + (char) (97 + (int) 26 * Math.random());
+            s = s + (char) (97 + (int) 26 * random.nextDouble());
         }
         return s;
     }
@@ -0,0 +1,86 @@
+package org.aksw.limes.core.util;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoField;
+import java.time.temporal.TemporalAccessor;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Thread-safe parser of xsd:date and xsd:dateTime literals into epoch
+ * milliseconds. Accepted are dates with an optional time (with or without
+ * fractional seconds) and an optional time zone offset, e.g.
+ * 2015-04-22T11:29:51+02:00, 2015-04-22T11:29:51.250Z, 2015-04-22T11:29:51 or
+ * 2015-04-22. Values without time default to midnight, values without offset
+ * to UTC. A datatype suffix (^^xsd:dateTime) is ignored.
+ *
+ * @version 1.0
+ */
+public class TimestampParser {
+
+    private static final DateTimeFormatter FORMATTER = new DateTimeFormatterBuilder()
+            .append(DateTimeFormatter.ISO_LOCAL_DATE)
+            .optionalStart().appendLiteral('T').append(DateTimeFormatter.ISO_LOCAL_TIME).optionalEnd()
+            .optionalStart().appendOffset("+HH:MM", "Z").optionalEnd()
+            .toFormatter();
+
+    /**
+     * Upper bound of memoized literals, the memo is cleared when exceeded.
+     */
+    private static final int MAX_MEMO_SIZE = 100000;
+
+    private static final ConcurrentHashMap<String, Long> memo = new ConcurrentHashMap<String, Long>();
+
+    private TimestampParser() {
+    }
+
+    /**
+     * Parses a date or dateTime literal.
+     *
+     * @param value,
+     *            the literal
+     * @return the epoch in milliseconds
+     * @throws DateTimeParseException
+     *             if the value is not a valid date or dateTime
+     */
+    public static long parse(String value) throws DateTimeParseException {
+        String lexicalForm = value.trim();
+        int datatype = lexicalForm.indexOf("^^");
+        if (datatype != -1) {
+            lexicalForm = lexicalForm.substring(0, datatype);
+        }
+        TemporalAccessor parsed = FORMATTER.parse(lexicalForm);
+        LocalTime time = parsed.isSupported(ChronoField.HOUR_OF_DAY) ? LocalTime.from(parsed) : LocalTime.MIDNIGHT;
+        ZoneOffset offset = parsed.isSupported(ChronoField.OFFSET_SECONDS) ? ZoneOffset.from(parsed)
+                : ZoneOffset.UTC;
+        return LocalDateTime.of(LocalDate.from(parsed), time).toInstant(offset).toEpochMilli();
+    }
+
+    /**
+     * Parses a date or dateTime literal, reusing the result of earlier calls
+     * with the same literal. Meant for callers that see the same values over
+     * and over again, e.g. measures that compare instances pairwise.
+     *
+     * @param value,
+     *            the literal
+     * @return the epoch in milliseconds
+     * @throws DateTimeParseException
+     *             if the value is not a valid date or dateTime
+     */
+    public static long parseCached(String value) throws DateTimeParseException {
+        Long epoch = memo.get(value);
+        if (epoch == null) {
+            epoch = parse(value);
+            if (memo.size() >= MAX_MEMO_SIZE) {
+                memo.clear();
+            }
+            memo.put(value, epoch);
+        }
+        return epoch;
+    }
+}
@@ -0,0 +1,150 @@
+package org.aksw.limes.core.controller;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import org.aksw.limes.core.io.cache.ACache;
+import org.aksw.limes.core.io.cache.MemoryCache;
+import org.aksw.limes.core.io.config.KBInfo;
+import org.junit.Test;
+
+public class CacheRegistryTest {
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private final Function<KBInfo, ACache> loader = kb -> {
+        loads.incrementAndGet();
+        MemoryCache cache = new MemoryCache();
+        for (int i = 0; i < 100; i++) {
+            cache.addTriple(kb.getEndpoint() + i, "rdfs:label", "label " + i);
+        }
+        return cache;
+    };
+
+    private KBInfo kb(String endpoint, String var) {
+        KBInfo kb = new KBInfo(var);
+        kb.setId(var);
+        kb.setEndpoint(endpoint);
+        kb.setType("csv");
+        return kb;
+    }
+
+    @Test
+    public void testFingerprint() {
+        assertEquals(CacheRegistry.getFingerprint(kb("a", "?x")), CacheRegistry.getFingerprint(kb("a", "?y")));
+        assertNotEquals(CacheRegistry.getFingerprint(kb("a", "?x")), CacheRegistry.getFingerprint(kb("b", "?x")));
+    }
+
+    @Test
+    public void testSharing() {
+        CacheRegistry registry = new CacheRegistry(Long.MAX_VALUE, loader);
+        try (CacheRegistry.Lease first = registry.acquire(kb("a", "?x"));
+                CacheRegistry.Lease second = registry.acquire(kb("a", "?y"))) {
+            assertSame(first.getCache(), second.getCache());
+            assertEquals(100, first.getCache().size());
+        }
+        assertEquals(1, loads.get());
+        assertEquals(1, registry.getMisses());
+        assertEquals(1, registry.getHits());
+        assertTrue(registry.isResident(kb("a", "?x")));
+        assertTrue(registry.getResidentMemory() > 0);
+    }
+
+    @Test
+    public void testEviction() {
+        long memory = CacheRegistry.estimateMemory(loader.apply(kb("a", "?x")));
+        loads.set(0);
+        CacheRegistry registry = new CacheRegistry(2 * memory, loader);
+        registry.acquire(kb("a", "?x")).close();
+        CacheRegistry.Lease b = registry.acquire(kb("b", "?x"));
+        registry.acquire(kb("a", "?x")).close();
+        // b is in use, so the least recently used idle cache a is evicted
+        CacheRegistry.Lease c = registry.acquire(kb("c", "?x"));
+        assertFalse(registry.isResident(kb("a", "?x")));
+        assertTrue(registry.isResident(kb("b", "?x")));
+        assertTrue(registry.isResident(kb("c", "?x")));
+        assertEquals(1, registry.getEvictions());
+        b.close();
+        c.close();
+        registry.clear();
+        assertEquals(0, registry.getResidentCaches());
+        assertEquals(0, registry.getResidentMemory());
+    }
+
+    @Test
+    public void testConcurrentAcquireLoadsOnce() throws Exception {
+        CacheRegistry registry = new CacheRegistry(Long.MAX_VALUE, kb -> {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+            return loader.apply(kb);
+        });
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<ACache>> futures = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            futures.add(executor.submit(() -> {
+                try (CacheRegistry.Lease lease = registry.acquire(kb("a", "?x"))) {
+                    return lease.getCache();
+                }
+            }));
+        }
+        for (Future<ACache> future : futures) {
+            assertSame(futures.get(0).get(), future.get());
+        }
+        executor.shutdown();
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    public void testLoaderError() throws Exception {
+        AtomicInteger attempts = new AtomicInteger();
+        CacheRegistry registry = new CacheRegistry(Long.MAX_VALUE, kb -> {
+            if (attempts.incrementAndGet() == 1) {
+                try {
+                    Thread.sleep(500);
+                } catch (InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+                throw new StackOverflowError();
+            }
+            return loader.apply(kb);
+        });
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        Future<?> loading = executor.submit(() -> registry.acquire(kb("a", "?x")));
+        Thread.sleep(50);
+        Future<?> waiting = executor.submit(() -> registry.acquire(kb("a", "?x")));
+        try {
+            loading.get(5, TimeUnit.SECONDS);
+            fail();
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof StackOverflowError);
+        }
+        try {
+            waiting.get(5, TimeUnit.SECONDS);
+            fail();
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause().getCause() instanceof StackOverflowError);
+        }
+        executor.shutdown();
+        // the failed entry is removed, so the next acquire loads again
+        try (CacheRegistry.Lease lease = registry.acquire(kb("a", "?x"))) {
+            assertEquals(100, lease.getCache().size());
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package org.aksw.limes.core.controller;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import org.aksw.limes.core.io.config.Configuration;
+import org.junit.Test;
+
+public class ControllerTest {
+
+    private static String check(String mlAlgorithm, String... args) {
+        Configuration config = new Configuration();
+        config.setMlAlgorithmName(mlAlgorithm);
+        return Controller.checkExecutionOptions(Controller.parseCommandLine(args), config);
+    }
+
+    @Test
+    public void testCheckExecutionOptions() {
+        assertNull(check("", "config.xml"));
+        assertNull(check("", "-w", "4", "config.xml"));
+        assertNull(check("", "-k", "3", "config.xml"));
+        assertNull(check("wombat simple", "-d", "snapshot", "config.xml"));
+        assertEquals("Options -w, -k cannot be combined", check("", "-w", "4", "-k", "3", "config.xml"));
+        assertEquals("Options -d, -m cannot be combined", check("", "-m", "-d", "snapshot", "config.xml"));
+        assertEquals("Option -k cannot be used with a machine learning algorithm",
+                check("wombat simple", "-k", "3", "config.xml"));
+        assertEquals("Option -w cannot be used with a machine learning algorithm",
+                check("wombat simple", "-w", "4", "config.xml"));
+        assertEquals("Option -k requires a positive number, not \"three\"", check("", "-k", "three", "config.xml"));
+        assertEquals("Option -w requires a positive number, not \"0\"", check("", "-w", "0", "config.xml"));
+    }
+}
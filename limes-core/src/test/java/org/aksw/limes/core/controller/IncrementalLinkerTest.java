@@ -0,0 +1,87 @@
+package org.aksw.limes.core.controller;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.aksw.limes.core.execution.engine.ExecutionEngineFactory.ExecutionEngineType;
+import org.aksw.limes.core.execution.planning.planner.ExecutionPlannerFactory.ExecutionPlannerType;
+import org.aksw.limes.core.execution.rewriter.RewriterFactory.RewriterType;
+import org.aksw.limes.core.io.cache.ACache;
+import org.aksw.limes.core.io.cache.MemoryCache;
+import org.aksw.limes.core.io.config.Configuration;
+import org.aksw.limes.core.io.config.KBInfo;
+import org.aksw.limes.core.io.mapping.AMapping;
+import org.junit.Test;
+
+public class IncrementalLinkerTest {
+
+    private static final String METRIC = "qgrams(x.name,y.name)";
+
+    private static ACache createCache(String prefix, String... names) {
+        ACache cache = new MemoryCache();
+        for (int i = 0; i < names.length; i++) {
+            cache.addTriple(prefix + i, "name", names[i]);
+        }
+        return cache;
+    }
+
+    private static AMapping union(ResultMappings mappings) {
+        AMapping m = mappings.getAcceptanceMapping();
+        for (String s : mappings.getVerificationMapping().getMap().keySet()) {
+            for (String t : mappings.getVerificationMapping().getMap().get(s).keySet()) {
+                m.add(s, t, mappings.getVerificationMapping().getConfidence(s, t));
+            }
+        }
+        return m;
+    }
+
+    @Test
+    public void testSameMappingAsFullRun() throws IOException {
+        Configuration config = new Configuration();
+        config.setSourceInfo(new KBInfo("?x"));
+        config.setTargetInfo(new KBInfo("?y"));
+        config.setMetricExpression(METRIC);
+        config.setVerificationThreshold(0.5);
+        config.setAcceptanceThreshold(0.8);
+        File snapshot = File.createTempFile("limes", ".snapshot");
+        snapshot.delete();
+        try {
+            ACache source = createCache("s", "berlin", "hamburg", "munich", "leipzig", "dresden");
+            ACache target = createCache("t", "berlin", "hamburgo", "muenchen", "lipsia", "dresda");
+            IncrementalLinker linker = new IncrementalLinker(config, snapshot);
+            DeltaMappings first = linker.getMapping(source, target);
+            assertEquals(union(first).getNumberofMappings(), first.getAddedLinks().getNumberofMappings());
+            assertTrue(snapshot.exists());
+
+            // t1 changes, t4 is deleted, t5 is added and s3 changes
+            ACache newTarget = createCache("t", "berlin", "hamburg", "muenchen", "lipsia");
+            newTarget.addTriple("t5", "name", "leipzig");
+            ACache newSource = createCache("s", "berlin", "hamburg", "munich", "lipsia", "dresden");
+            DeltaMappings second = linker.getMapping(newSource, newTarget);
+
+            AMapping expected = LSPipeline.execute(newSource, newTarget, METRIC, 0.5, "?x", "?y",
+                    RewriterType.DEFAULT, ExecutionPlannerType.DEFAULT, ExecutionEngineType.DEFAULT);
+            AMapping actual = union(second);
+            assertEquals(expected.getMap(), actual.getMap());
+            AMapping previous = union(first);
+            for (String s : second.getAddedLinks().getMap().keySet()) {
+                for (String t : second.getAddedLinks().getMap().get(s).keySet()) {
+                    assertTrue(actual.contains(s, t));
+                }
+            }
+            for (String s : second.getRemovedLinks().getMap().keySet()) {
+                for (String t : second.getRemovedLinks().getMap().get(s).keySet()) {
+                    assertTrue(previous.contains(s, t));
+                }
+            }
+            assertTrue(second.getRemovedLinks().contains("s4", "t4"));
+            assertTrue(second.getAddedLinks().contains("s1", "t1"));
+            assertTrue(second.getAddedLinks().contains("s3", "t3"));
+        } finally {
+            snapshot.delete();
+        }
+    }
+}
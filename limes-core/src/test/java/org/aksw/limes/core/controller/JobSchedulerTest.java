@@ -0,0 +1,169 @@
+package org.aksw.limes.core.controller;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import org.aksw.limes.core.util.Partitions;
+import org.junit.After;
+import org.junit.Test;
+
+public class JobSchedulerTest {
+
+    private JobScheduler scheduler;
+
+    @After
+    public void tearDown() {
+        if (scheduler != null) {
+            scheduler.shutdown();
+        }
+    }
+
+    private void awaitStatus(long id, JobScheduler.Status status) throws InterruptedException {
+        for (int i = 0; i < 500 && scheduler.getJob(id).getStatus() != status; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(status, scheduler.getJob(id).getStatus());
+    }
+
+    @Test
+    public void testPriorityOrder() throws InterruptedException {
+        scheduler = new JobScheduler(1, Long.MAX_VALUE);
+        final CountDownLatch blocker = new CountDownLatch(1);
+        final List<Long> order = Collections.synchronizedList(new ArrayList<Long>());
+        scheduler.submit(0, 0, 0, job -> blocker.await());
+        scheduler.submit(1, 0, 0, job -> order.add(job.getId()));
+        scheduler.submit(2, 5, 0, job -> order.add(job.getId()));
+        scheduler.submit(3, 0, 0, job -> order.add(job.getId()));
+        assertEquals(0, scheduler.getQueuePosition(2));
+        assertEquals(1, scheduler.getQueuePosition(1));
+        assertEquals(2, scheduler.getQueuePosition(3));
+        blocker.countDown();
+        awaitStatus(3, JobScheduler.Status.FINISHED);
+        assertEquals(Arrays.asList(2L, 1L, 3L), order);
+    }
+
+    @Test
+    public void testMemoryAdmission() throws InterruptedException {
+        scheduler = new JobScheduler(4, 100);
+        final CountDownLatch blocker = new CountDownLatch(1);
+        scheduler.submit(0, 0, 60, job -> blocker.await());
+        scheduler.submit(1, 0, 60, job -> blocker.await());
+        scheduler.submit(2, 0, 30, job -> blocker.await());
+        awaitStatus(0, JobScheduler.Status.RUNNING);
+        // job 1 does not fit next to job 0 and blocks job 2 behind it
+        assertEquals(JobScheduler.Status.QUEUED, scheduler.getJob(1).getStatus());
+        assertEquals(JobScheduler.Status.QUEUED, scheduler.getJob(2).getStatus());
+        blocker.countDown();
+        awaitStatus(1, JobScheduler.Status.FINISHED);
+        awaitStatus(2, JobScheduler.Status.FINISHED);
+    }
+
+    @Test
+    public void testOversizedJobRunsAlone() throws InterruptedException {
+        scheduler = new JobScheduler(2, 100);
+        scheduler.submit(0, 0, 1000, job -> job.setPhase(JobScheduler.Phase.LINKING));
+        awaitStatus(0, JobScheduler.Status.FINISHED);
+        assertTrue(scheduler.getJob(0).getPhaseDurations().containsKey(JobScheduler.Phase.LINKING));
+    }
+
+    @Test
+    public void testCancel() throws InterruptedException {
+        scheduler = new JobScheduler(1, Long.MAX_VALUE);
+        scheduler.submit(0, 0, 0, job -> {
+            job.setPhase(JobScheduler.Phase.LINKING);
+            Thread.sleep(60000);
+        });
+        scheduler.submit(1, 0, 0, job -> {
+        });
+        awaitStatus(0, JobScheduler.Status.RUNNING);
+        assertTrue(scheduler.cancel(1));
+        assertEquals(JobScheduler.Status.CANCELLED, scheduler.getJob(1).getStatus());
+        assertTrue(scheduler.cancel(0));
+        scheduler.submit(2, 0, 0, job -> {
+        });
+        awaitStatus(2, JobScheduler.Status.FINISHED);
+        assertEquals(JobScheduler.Status.CANCELLED, scheduler.getJob(0).getStatus());
+        assertFalse(scheduler.cancel(2));
+        assertTrue(scheduler.toJson(0).contains("\"status\":\"CANCELLED\""));
+    }
+
+    @Test
+    public void testCancelPartitions() throws InterruptedException {
+        scheduler = new JobScheduler(1, Long.MAX_VALUE);
+        final AtomicInteger done = new AtomicInteger();
+        final CountDownLatch started = new CountDownLatch(1);
+        scheduler.submit(0, 0, 0, job -> {
+            List<int[]> ranges = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                ranges.add(new int[] { i, i + 1 });
+            }
+            Partitions.map(ranges, (from, to) -> {
+                started.countDown();
+                long end = System.currentTimeMillis() + 20;
+                while (System.currentTimeMillis() < end) {
+                    // busy partition that does not check the interrupt
+                }
+                return done.incrementAndGet();
+            });
+        });
+        started.await();
+        assertTrue(scheduler.cancel(0));
+        // the job is cancelled once the running partitions stopped
+        assertEquals(JobScheduler.Status.RUNNING, scheduler.getJob(0).getStatus());
+        assertTrue(scheduler.toJson(0).contains("\"cancel_requested\":true"));
+        awaitStatus(0, JobScheduler.Status.CANCELLED);
+        int stopped = done.get();
+        assertTrue(stopped < 200);
+        Thread.sleep(100);
+        assertEquals(stopped, done.get());
+    }
+
+    @Test
+    public void testFailure() throws InterruptedException {
+        scheduler = new JobScheduler(1, Long.MAX_VALUE);
+        scheduler.submit(0, 0, 0, job -> {
+            throw new IllegalStateException("broken");
+        });
+        awaitStatus(0, JobScheduler.Status.FAILED);
+        assertTrue(scheduler.toJson(0).contains("broken"));
+    }
+
+    @Test
+    public void testCancelWhileEnding() throws InterruptedException {
+        scheduler = new JobScheduler(1, Long.MAX_VALUE);
+        for (int i = 0; i < 200; i += 2) {
+            final CountDownLatch started = new CountDownLatch(1);
+            scheduler.submit(i, 0, 0, job -> started.countDown());
+            // the next job on the same worker must not receive the interrupt
+            scheduler.submit(i + 1, 0, 0, job -> Thread.sleep(1));
+            started.await();
+            boolean cancelled = scheduler.cancel(i);
+            awaitStatus(i + 1, JobScheduler.Status.FINISHED);
+            assertEquals(cancelled ? JobScheduler.Status.CANCELLED : JobScheduler.Status.FINISHED,
+                    scheduler.getJob(i).getStatus());
+        }
+    }
+
+    @Test
+    public void testRetention() throws InterruptedException {
+        scheduler = new JobScheduler(1, Long.MAX_VALUE, 2);
+        for (int i = 0; i < 3; i++) {
+            scheduler.submit(i, 0, 0, job -> {
+            });
+            awaitStatus(i, JobScheduler.Status.FINISHED);
+        }
+        assertNull(scheduler.getJob(0));
+        assertNull(scheduler.toJson(0));
+        assertEquals(JobScheduler.Status.FINISHED, scheduler.getJob(1).getStatus());
+        assertEquals(JobScheduler.Status.FINISHED, scheduler.getJob(2).getStatus());
+    }
+}
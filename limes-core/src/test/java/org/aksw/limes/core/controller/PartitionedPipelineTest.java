@@ -0,0 +1,125 @@
+package org.aksw.limes.core.controller;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.HashSet;
+
+import org.aksw.limes.core.execution.engine.ExecutionEngineFactory.ExecutionEngineType;
+import org.aksw.limes.core.execution.planning.planner.ExecutionPlannerFactory.ExecutionPlannerType;
+import org.aksw.limes.core.execution.rewriter.RewriterFactory.RewriterType;
+import org.aksw.limes.core.io.cache.ACache;
+import org.aksw.limes.core.io.cache.MemoryCache;
+import org.aksw.limes.core.io.config.Configuration;
+import org.aksw.limes.core.io.config.reader.xml.XMLConfigurationReader;
+import org.aksw.limes.core.io.ls.LinkSpecification;
+import org.aksw.limes.core.io.mapping.AMapping;
+import org.aksw.limes.core.io.serializer.ISerializer;
+import org.aksw.limes.core.io.serializer.SerializerFactory;
+import org.junit.Test;
+
+public class PartitionedPipelineTest {
+
+    private static final String[] NAMES = { "berlin", "hamburg", "munich", "leipzig", "dresden", "bremen",
+            "hamburgo", "muenchen", "lipsia", "dresda", "bern", "hanover" };
+
+    private static ACache createCache(String prefix, int offset) {
+        ACache cache = new MemoryCache();
+        for (int i = 0; i < NAMES.length; i++) {
+            cache.addTriple(prefix + i, "name", NAMES[(i + offset) % NAMES.length]);
+            cache.addTriple(prefix + i, "country", "c" + i % 4);
+        }
+        return cache;
+    }
+
+    private static void assertSameMapping(String metric, double threshold) {
+        ACache source = createCache("s", 0);
+        ACache target = createCache("t", 5);
+        AMapping expected = LSPipeline.execute(source, target, metric, threshold, "?x", "?y", RewriterType.DEFAULT,
+                ExecutionPlannerType.DEFAULT, ExecutionEngineType.DEFAULT);
+        AMapping actual = new PartitionedPipeline(2).execute(source, target, metric, threshold, "?x", "?y",
+                RewriterType.DEFAULT, ExecutionPlannerType.DEFAULT, ExecutionEngineType.DEFAULT);
+        assertEquals(expected.getMap(), actual.getMap());
+    }
+
+    @Test
+    public void testPartitionByUri() {
+        assertSameMapping("qgrams(x.name,y.name)", 0.4);
+    }
+
+    @Test
+    public void testPartitionByValue() {
+        assertSameMapping("AND(exactmatch(x.country,y.country)|1.0,qgrams(x.name,y.name)|0.3)", 0.3);
+    }
+
+    private static void assertSameFiles(String metric) throws IOException {
+        String file = Thread.currentThread().getContextClassLoader().getResource("datasets/restaurants_csv.xml")
+                .getPath();
+        Configuration config = new XMLConfigurationReader(file).read();
+        config.setMetricExpression(metric);
+        config.setVerificationThreshold(0.3);
+        config.setAcceptanceThreshold(0.8);
+        ACache[] caches = Controller.loadCaches(config);
+        ResultMappings expected = Controller.getMapping(config, caches[0], caches[1]);
+        File expectedAccepted = File.createTempFile("limes", ".accepted");
+        File expectedVerification = File.createTempFile("limes", ".verification");
+        ISerializer output = SerializerFactory.createSerializer(config.getOutputFormat());
+        output.setPrefixes(config.getPrefixes());
+        output.writeToFile(expected.getAcceptanceMapping(), config.getAcceptanceRelation(),
+                expectedAccepted.getAbsolutePath());
+        output.writeToFile(expected.getVerificationMapping(), config.getVerificationRelation(),
+                expectedVerification.getAbsolutePath());
+
+        File accepted = File.createTempFile("limes", ".accepted");
+        File verification = File.createTempFile("limes", ".verification");
+        config.setAcceptanceFile(accepted.getAbsolutePath());
+        config.setVerificationFile(verification.getAbsolutePath());
+        new PartitionedPipeline(3).execute(config);
+        // the partitions repeat the prefixes and are written in any order
+        assertEquals(new HashSet<>(Files.readAllLines(expectedAccepted.toPath())),
+                new HashSet<>(Files.readAllLines(accepted.toPath())));
+        assertEquals(new HashSet<>(Files.readAllLines(expectedVerification.toPath())),
+                new HashSet<>(Files.readAllLines(verification.toPath())));
+        assertEquals(Files.readAllLines(expectedAccepted.toPath()).size()
+                + Files.readAllLines(expectedVerification.toPath()).size(),
+                countLinks(accepted) + countLinks(verification));
+        for (File f : new File[] { expectedAccepted, expectedVerification, accepted, verification }) {
+            f.delete();
+        }
+    }
+
+    private static long countLinks(File file) throws IOException {
+        return Files.readAllLines(file.toPath()).stream().filter(line -> !line.startsWith("@prefix")).count();
+    }
+
+    @Test
+    public void testExecuteConfigurationByUri() throws IOException {
+        assertSameFiles("qgrams(x.http://www.okkam.org/ontology_restaurant1.owl#name,"
+                + "y.http://www.okkam.org/ontology_restaurant2.owl#name)");
+    }
+
+    @Test
+    public void testExecuteConfigurationByValue() throws IOException {
+        assertSameFiles("AND(exactmatch(x.http://www.okkam.org/ontology_restaurant1.owl#name,"
+                + "y.http://www.okkam.org/ontology_restaurant2.owl#name)|1.0,"
+                + "qgrams(x.http://www.okkam.org/ontology_restaurant1.owl#has_address,"
+                + "y.http://www.okkam.org/ontology_restaurant2.owl#has_address)|0.3)");
+    }
+
+    @Test
+    public void testBlockingProperties() {
+        assertArrayEquals(new String[] { "country", "land" }, PartitionedPipeline
+                .getBlockingProperties(new LinkSpecification("exactmatch(x.country,y.land)", 1.0)));
+        assertArrayEquals(new String[] { "country", "country" },
+                PartitionedPipeline.getBlockingProperties(new LinkSpecification(
+                        "AND(qgrams(x.name,y.name)|0.5,exactmatch(x.country,y.country)|1.0)", 0.5)));
+        assertNull(PartitionedPipeline.getBlockingProperties(new LinkSpecification(
+                "OR(qgrams(x.name,y.name)|0.5,exactmatch(x.country,y.country)|1.0)", 0.5)));
+        assertNull(PartitionedPipeline
+                .getBlockingProperties(new LinkSpecification("exactmatch(lowercase(x.country),y.country)", 1.0)));
+    }
+}
@@ -0,0 +1,107 @@
+package org.aksw.limes.core.controller;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import org.aksw.limes.core.execution.engine.ExecutionEngineFactory.ExecutionEngineType;
+import org.aksw.limes.core.execution.planning.planner.ExecutionPlannerFactory.ExecutionPlannerType;
+import org.aksw.limes.core.execution.rewriter.RewriterFactory.RewriterType;
+import org.aksw.limes.core.io.cache.ACache;
+import org.aksw.limes.core.io.cache.Instance;
+import org.aksw.limes.core.io.cache.MemoryCache;
+import org.aksw.limes.core.io.mapping.AMapping;
+import org.aksw.limes.core.io.mapping.MappingFactory;
+import org.junit.Test;
+
+public class StreamingLinkerTest {
+
+    private static final String[] NAMES = { "berlin", "hamburg", "munich", "leipzig", "dresden", "bremen",
+            "hamburgo", "muenchen", "lipsia", "dresda", "bern", "hanover" };
+
+    private final Random random = new Random(11);
+
+    private ACache createCache(String prefix, int size) {
+        ACache cache = new MemoryCache();
+        for (int i = 0; i < size; i++) {
+            cache.addTriple(prefix + i, "name", NAMES[random.nextInt(NAMES.length)] + random.nextInt(3));
+            cache.addTriple(prefix + i, "country", "c" + random.nextInt(3));
+            cache.addTriple(prefix + i, "lat", "" + random.nextInt(1000) / 100d);
+            cache.addTriple(prefix + i, "long", "" + random.nextInt(1000) / 100d);
+            cache.addTriple(prefix + i, "label",
+                    NAMES[random.nextInt(NAMES.length)] + " " + NAMES[random.nextInt(NAMES.length)]);
+            int begin = random.nextInt(50);
+            int end = begin + random.nextInt(10);
+            cache.addTriple(prefix + i, "begin", String.format("2015-05-20T08:%02d:04+02:00", begin));
+            cache.addTriple(prefix + i, "end", String.format("2015-05-20T08:%02d:04+02:00", end));
+        }
+        return cache;
+    }
+
+    private static void add(AMapping mapping, AMapping links) {
+        for (String s : links.getMap().keySet()) {
+            for (String t : links.getMap().get(s).keySet()) {
+                mapping.add(s, t, links.getConfidence(s, t));
+            }
+        }
+    }
+
+    private void assertSameMapping(String metric, double threshold) throws InterruptedException {
+        ACache source = createCache("s", 200);
+        ACache target = createCache("t", 150);
+        AMapping expected = LSPipeline.execute(source, target, metric, threshold, "?x", "?y", RewriterType.DEFAULT,
+                ExecutionPlannerType.DEFAULT, ExecutionEngineType.DEFAULT);
+        StreamingLinker linker = new StreamingLinker(target, metric, threshold, "?x", "?y", RewriterType.DEFAULT);
+        linker.setBatchSize(30);
+
+        BlockingQueue<Instance> queue = new LinkedBlockingQueue<>();
+        for (Instance instance : source.getAllInstances()) {
+            queue.add(instance);
+        }
+        queue.add(StreamingLinker.END_OF_STREAM);
+        List<LinkBatch> batches = new ArrayList<>();
+        linker.run(queue, batches::add);
+
+        AMapping actual = MappingFactory.createDefaultMapping();
+        int instances = 0;
+        for (int i = 0; i < batches.size(); i++) {
+            LinkBatch batch = batches.get(i);
+            assertEquals(i, batch.getNumber());
+            assertTrue(batch.getInstanceCount() <= 30);
+            assertTrue(batch.getLatency() >= batch.getExecutionTime());
+            instances += batch.getInstanceCount();
+            add(actual, batch.getMapping());
+        }
+        assertEquals(source.size(), instances);
+        assertEquals(expected.getMap(), actual.getMap());
+    }
+
+    @Test
+    public void testIndexedMeasures() throws InterruptedException {
+        assertSameMapping("AND(qgrams(x.name,y.name)|0.5,exactmatch(x.country,y.country)|1.0)", 0.5);
+        assertSameMapping("euclidean(x.lat|long,y.lat|long)", 0.6);
+    }
+
+    @Test
+    public void testIndexedJoinMeasures() throws InterruptedException {
+        assertSameMapping("jaccard(x.label,y.label)", 0.3);
+        assertSameMapping("OR(trigram(x.label,y.label)|0.6,levenshtein(x.name,y.name)|0.5)", 0.5);
+    }
+
+    @Test
+    public void testIndexedTemporalMeasures() throws InterruptedException {
+        assertSameMapping("tmp_during(x.begin|end,y.begin|end)", 1.0);
+        assertSameMapping("tmp_successor(x.begin|end,y.begin|end)", 1.0);
+        assertSameMapping("tmp_concurrent(x.begin|country,y.begin|country)", 1.0);
+    }
+
+    @Test
+    public void testNotIndexedMeasure() throws InterruptedException {
+        assertSameMapping("OR(jaro(x.name,y.name)|0.9,qgrams(x.name,y.name)|0.8)", 0.8);
+    }
+}
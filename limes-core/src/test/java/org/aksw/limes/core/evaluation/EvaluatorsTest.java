@@ -1,16 +1,33 @@
 package org.aksw.limes.core.evaluation;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Random;
 import java.util.Set;
 
 import org.aksw.limes.core.datastrutures.EvaluationRun;
+import org.aksw.limes.core.datastrutures.GoldStandard;
 import org.aksw.limes.core.datastrutures.TaskAlgorithm;
 import org.aksw.limes.core.datastrutures.TaskData;
 import org.aksw.limes.core.evaluation.evaluator.Evaluator;
 import org.aksw.limes.core.evaluation.evaluator.EvaluatorType;
+import org.aksw.limes.core.evaluation.evaluator.FoldData;
+import org.aksw.limes.core.evaluation.qualititativeMeasures.PseudoFMeasure;
+import org.aksw.limes.core.exceptions.UnsupportedMLImplementationException;
+import org.aksw.limes.core.io.cache.ACache;
+import org.aksw.limes.core.io.cache.MemoryCache;
+import org.aksw.limes.core.io.mapping.AMapping;
+import org.aksw.limes.core.io.mapping.MappingFactory;
+import org.aksw.limes.core.ml.algorithm.MLAlgorithmFactory;
+import org.aksw.limes.core.ml.algorithm.MLImplementationType;
 import org.aksw.limes.core.ml.algorithm.SupervisedMLAlgorithm;
+import org.aksw.limes.core.ml.algorithm.WombatComplete;
+import org.aksw.limes.core.ml.algorithm.WombatSimple;
 import org.junit.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -82,5 +99,81 @@ public class EvaluatorsTest {
         assertTrue(true);
     }
 
+    @Test
+    public void testSeededFolds() {
+        TaskData task = new DatasetsInitTest().initializeDataSets(datasetsList).iterator().next();
+        Evaluator evaluator = new Evaluator();
+        List<FoldData> first = evaluator.generateFolds(task.evalData, folds, new Random(7));
+        List<FoldData> second = evaluator.generateFolds(task.evalData, folds, new Random(7));
+        assertEquals(first.size(), second.size());
+        for (int i = 0; i < first.size(); i++) {
+            assertEquals(first.get(i).map.getMap(), second.get(i).map.getMap());
+        }
+    }
+
+    @Test
+    public void testParallelRuns() throws UnsupportedMLImplementationException {
+        Set<TaskData> tasks = new HashSet<>();
+        for (int d = 0; d < 3; d++) {
+            tasks.add(createTask("data" + d, new Random(d)));
+        }
+        Set<EvaluatorType> evaluators = new HashSet<>(
+                Arrays.asList(EvaluatorType.PRECISION, EvaluatorType.RECALL, EvaluatorType.F_MEASURE));
+
+        List<EvaluationRun> sequential = evaluate(tasks, evaluators, 1);
+        List<EvaluationRun> parallel = evaluate(tasks, evaluators, 4);
+        assertEquals(sequential.size(), parallel.size());
+        for (int i = 0; i < sequential.size(); i++) {
+            assertEquals(sequential.get(i).getAlgorithmName(), parallel.get(i).getAlgorithmName());
+            assertEquals(sequential.get(i).getDatasetName(), parallel.get(i).getDatasetName());
+            assertEquals(sequential.get(i).toString(), sequential.get(i).qualititativeScores,
+                    parallel.get(i).qualititativeScores);
+        }
+    }
+
+    private List<EvaluationRun> evaluate(Set<TaskData> tasks, Set<EvaluatorType> evaluators, int parallelism)
+            throws UnsupportedMLImplementationException {
+        List<TaskAlgorithm> algorithms = new ArrayList<>();
+        for (MLImplementationType type : new MLImplementationType[] { MLImplementationType.SUPERVISED_BATCH,
+                MLImplementationType.UNSUPERVISED }) {
+            algorithms.add(new TaskAlgorithm(type, MLAlgorithmFactory.createMLAlgorithm(WombatSimple.class, type), null));
+            algorithms.add(new TaskAlgorithm(type, MLAlgorithmFactory.createMLAlgorithm(WombatComplete.class, type), null));
+        }
+        for (TaskAlgorithm algorithm : algorithms) {
+            algorithm.getMlAlgorithm().setParameter(WombatSimple.PARAMETER_ATOMIC_MEASURES, "[qgrams, jaro, exactmatch]");
+        }
+        Evaluator evaluator = new Evaluator();
+        evaluator.setParallelism(parallelism);
+        return evaluator.evaluate(algorithms, tasks, evaluators, null);
+    }
+
+    private TaskData createTask(String name, Random random) {
+        String[] syllables = { "ka", "lo", "mi", "ne", "ru", "sa", "to" };
+        ACache source = new MemoryCache();
+        ACache target = new MemoryCache();
+        AMapping reference = MappingFactory.createDefaultMapping();
+        for (int i = 0; i < 20; i++) {
+            String label = "";
+            for (int j = 0; j < 2 + random.nextInt(3); j++) {
+                label += syllables[random.nextInt(syllables.length)];
+            }
+            String city = syllables[random.nextInt(syllables.length)] + syllables[random.nextInt(syllables.length)];
+            source.addTriple("ex:s" + i, "label", label);
+            source.addTriple("ex:s" + i, "city", city);
+            target.addTriple("ex:t" + i, "label", random.nextBoolean() ? label : label + "a");
+            target.addTriple("ex:t" + i, "city", random.nextInt(4) == 0 ? "x" + city : city);
+            reference.add("ex:s" + i, "ex:t" + i, 1d);
+        }
+        TaskData task = new TaskData(new GoldStandard(reference, source.getAllUris(), target.getAllUris()), source,
+                target);
+        task.dataName = name;
+        AMapping training = MappingFactory.createDefaultMapping();
+        for (int i = 0; i < 10; i++) {
+            training.add("ex:s" + i, "ex:t" + i, 1d);
+        }
+        task.training = training;
+        task.pseudoFMeasure = new PseudoFMeasure();
+        return task;
+    }
 
 }
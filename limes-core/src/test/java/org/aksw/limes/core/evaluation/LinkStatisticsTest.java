@@ -0,0 +1,130 @@
+package org.aksw.limes.core.evaluation;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.aksw.limes.core.datastrutures.GoldStandard;
+import org.aksw.limes.core.evaluation.qualititativeMeasures.LinkStatistics;
+import org.aksw.limes.core.evaluation.qualititativeMeasures.LinkStatistics.LinkStream;
+import org.aksw.limes.core.io.mapping.AMapping;
+import org.aksw.limes.core.io.mapping.MappingFactory;
+import org.junit.Test;
+
+public class LinkStatisticsTest {
+
+    private static final int SOURCES = 30;
+    private static final int TARGETS = 40;
+
+    private final Random random = new Random(3);
+
+    private AMapping randomMapping(int links) {
+        AMapping m = MappingFactory.createDefaultMapping();
+        for (int i = 0; i < links; i++) {
+            // few distinct similarities, so that there are ties
+            m.add("s" + random.nextInt(SOURCES), "t" + random.nextInt(TARGETS), random.nextInt(4) / 4d);
+        }
+        return m;
+    }
+
+    private static List<String> uris(String prefix, int size) {
+        List<String> uris = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            uris.add(prefix + i);
+        }
+        return uris;
+    }
+
+    @Test
+    public void testMatchesMappingBasedMeasures() {
+        for (int run = 0; run < 20; run++) {
+            AMapping predictions = randomMapping(60);
+            AMapping reference = randomMapping(40);
+            GoldStandard gs = new GoldStandard(reference, uris("s", SOURCES), uris("t", TARGETS));
+            LinkStatistics statistics = LinkStatistics.of(predictions, gs, true);
+
+            double tp = 0;
+            for (String s : predictions.getMap().keySet()) {
+                for (String t : predictions.getMap().get(s).keySet()) {
+                    tp += reference.contains(s, t) ? 1 : 0;
+                }
+            }
+            assertEquals(tp / predictions.getNumberofMappings(), statistics.getPrecision(), 1e-12);
+            assertEquals(tp / reference.getNumberofMappings(), statistics.getRecall(), 1e-12);
+
+            AMapping best = predictions.getBestOneToNMapping();
+            AMapping bestReverse = best.reverseSourceTarget().getBestOneToNMapping();
+            double links = predictions.getNumberofMappings();
+            double symmetric = (best.getMap().size() + bestReverse.getMap().size()) / (2 * links);
+            assertEquals(symmetric, statistics.getPseudoPrecision(true, true), 1e-12);
+            double all = (predictions.getMap().size() + predictions.reverseSourceTarget().getMap().size()) / (2 * links);
+            assertEquals(all, statistics.getPseudoPrecision(true, false), 1e-12);
+            assertEquals(predictions.getMap().size() / links, statistics.getPseudoPrecision(false, false), 1e-12);
+
+            Set<String> targets = new HashSet<>();
+            for (String s : best.getMap().keySet()) {
+                targets.addAll(best.getMap().get(s).keySet());
+            }
+            double recall = (best.getMap().size() + targets.size()) / (double) (SOURCES + TARGETS);
+            assertEquals(recall, statistics.getPseudoRecall(true), 1e-12);
+        }
+    }
+
+    @Test
+    public void testStreamsMatchMapping() {
+        for (int run = 0; run < 20; run++) {
+            AMapping predictions = randomMapping(60);
+            AMapping reference = randomMapping(40);
+            GoldStandard gs = new GoldStandard(reference, uris("s", SOURCES), uris("t", TARGETS));
+            LinkStatistics expected = LinkStatistics.of(predictions, gs, true);
+            LinkStatistics actual = LinkStatistics.of(stream(predictions), stream(reference), SOURCES, TARGETS);
+            assertEquals(expected.getLinks(), actual.getLinks());
+            assertEquals(expected.getTruePositives(), actual.getTruePositives());
+            assertEquals(expected.getReferences(), actual.getReferences());
+            assertEquals(expected.getFMeasure(1), actual.getFMeasure(1), 1e-12);
+            assertEquals(expected.getPseudoFMeasure(1, true, true), actual.getPseudoFMeasure(1, true, true), 1e-12);
+            assertEquals(expected.getPseudoFMeasure(2, true, false), actual.getPseudoFMeasure(2, true, false), 1e-12);
+        }
+    }
+
+    /**
+     * Encodes "s12"/"t7" as ids 12/7 and sorts the links.
+     */
+    private static LinkStream stream(AMapping m) {
+        List<double[]> links = new ArrayList<>();
+        for (String s : m.getMap().keySet()) {
+            for (String t : m.getMap().get(s).keySet()) {
+                links.add(new double[] { Integer.parseInt(s.substring(1)), Integer.parseInt(t.substring(1)),
+                        m.getConfidence(s, t) });
+            }
+        }
+        links.sort((a, b) -> a[0] != b[0] ? Double.compare(a[0], b[0]) : Double.compare(a[1], b[1]));
+        return new LinkStream() {
+            int i = -1;
+
+            @Override
+            public boolean next() {
+                return ++i < links.size();
+            }
+
+            @Override
+            public int getSource() {
+                return (int) links.get(i)[0];
+            }
+
+            @Override
+            public int getTarget() {
+                return (int) links.get(i)[1];
+            }
+
+            @Override
+            public double getSimilarity() {
+                return links.get(i)[2];
+            }
+        };
+    }
+}
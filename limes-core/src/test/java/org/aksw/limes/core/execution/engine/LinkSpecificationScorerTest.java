@@ -0,0 +1,70 @@
+package org.aksw.limes.core.execution.engine;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.aksw.limes.core.execution.planning.planner.CanonicalPlanner;
+import org.aksw.limes.core.io.cache.ACache;
+import org.aksw.limes.core.io.cache.MemoryCache;
+import org.aksw.limes.core.io.ls.LinkSpecification;
+import org.aksw.limes.core.io.mapping.AMapping;
+import org.junit.Before;
+import org.junit.Test;
+
+public class LinkSpecificationScorerTest {
+    private ACache source;
+    private ACache target;
+
+    @Before
+    public void setUp() {
+        source = new MemoryCache();
+        target = new MemoryCache();
+        String[][] sources = { { "georgala", "kleanthi" }, { "sandra", "lukas" }, { "depp", "johny" },
+                { "swift", "taylor maria" }, { "paok", "ole" }, { "georgiou", "klea" } };
+        String[][] targets = { { "georg", "klea" }, { "sandra", "lukas" }, { "derp", "johnny" },
+                { "swift", "taylor" }, { "paok", "oleole" }, { "georgala", "kleanthis" } };
+        for (int i = 0; i < sources.length; i++) {
+            source.addTriple("S" + i, "surname", sources[i][0]);
+            source.addTriple("S" + i, "name", sources[i][1]);
+        }
+        for (int i = 0; i < targets.length; i++) {
+            target.addTriple("T" + i, "surname", targets[i][0]);
+            target.addTriple("T" + i, "name", targets[i][1]);
+        }
+    }
+
+    private void assertSameMapping(String expression, double threshold) {
+        LinkSpecification ls = new LinkSpecification(expression, threshold);
+        assertTrue(LinkSpecificationScorer.supports(ls));
+        AMapping expected = new SimpleExecutionEngine(source, target, "?x", "?y").execute(ls, new CanonicalPlanner());
+        AMapping actual = new LinkSpecificationScorer(source, target, "?x", "?y").execute(ls);
+        assertEquals(expression, expected.getMap().keySet(), actual.getMap().keySet());
+        for (String s : expected.getMap().keySet()) {
+            assertEquals(expression, expected.getMap().get(s).keySet(), actual.getMap().get(s).keySet());
+            for (String t : expected.getMap().get(s).keySet()) {
+                // mappers may compute in float precision
+                assertEquals(expression, expected.getConfidence(s, t), actual.getConfidence(s, t), 1e-6);
+            }
+        }
+    }
+
+    @Test
+    public void testSameMappingAsEngine() {
+        assertSameMapping("AND(qgrams(x.surname,y.surname)|0.4,jaro(x.name,y.name)|0.7)", 0.3);
+        assertSameMapping("OR(exactmatch(x.surname,y.surname)|0.8,jaro(x.name,y.name)|0.8)", 0.5);
+        assertSameMapping("MINUS(qgrams(x.surname,y.surname)|0.3,exactmatch(x.name,y.name)|0.9)", 0.3);
+        assertSameMapping("XOR(qgrams(x.surname,y.surname)|0.5,jaro(x.name,y.name)|0.5)", 0.6);
+        assertSameMapping("AND(OR(qgrams(x.surname,y.surname)|0.6,exactmatch(x.name,y.name)|0.6)|0.5,"
+                + "MINUS(jaro(x.name,y.name)|0.2,exactmatch(x.surname,y.surname)|0.95)|0.2)", 0.4);
+    }
+
+    @Test
+    public void testSupports() {
+        assertFalse(LinkSpecificationScorer.supports(new LinkSpecification("trigrams(x.name,y.name)", 0.5)));
+        assertFalse(LinkSpecificationScorer.supports(
+                new LinkSpecification("ADD(0.5*trigrams(x.name,y.name)|0.4,0.5*cosine(x.name,y.name)|0.4)", 0.5)));
+        assertFalse(LinkSpecificationScorer.supports(
+                new LinkSpecification("AND(trigrams(x.name,y.name)|0,cosine(x.name,y.name)|0.4)", 0.5)));
+    }
+}
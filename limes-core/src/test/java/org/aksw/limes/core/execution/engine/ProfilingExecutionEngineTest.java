@@ -0,0 +1,132 @@
+package org.aksw.limes.core.execution.engine;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import org.aksw.limes.core.exceptions.InvalidThresholdException;
+import org.aksw.limes.core.execution.engine.PlanProfiler.Node;
+import org.aksw.limes.core.execution.planning.plan.Instruction;
+import org.aksw.limes.core.execution.planning.planner.CanonicalPlanner;
+import org.aksw.limes.core.execution.planning.planner.DynamicPlanner;
+import org.aksw.limes.core.io.cache.ACache;
+import org.aksw.limes.core.io.cache.MemoryCache;
+import org.aksw.limes.core.io.ls.LinkSpecification;
+import org.aksw.limes.core.io.mapping.AMapping;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ProfilingExecutionEngineTest {
+
+    private static final String METRIC = "AND(qgrams(x.name,y.name)|0.3,exactmatch(x.age,y.age)|1.0)";
+
+    private ACache source;
+    private ACache target;
+
+    @Before
+    public void setUp() {
+        source = new MemoryCache();
+        target = new MemoryCache();
+        String[] names = { "kleanthi", "lukas", "johny", "taylor", "ole" };
+        String[] targetNames = { "klea", "lukas", "johnny", "taylor", "oleole" };
+        for (int i = 0; i < names.length; i++) {
+            source.addTriple("S" + i, "name", names[i]);
+            source.addTriple("S" + i, "age", "" + (20 + i % 3));
+            target.addTriple("T" + i, "name", targetNames[i]);
+            target.addTriple("T" + i, "age", "" + (20 + i % 3));
+        }
+    }
+
+    private static int count(Node node, String operation) {
+        int count = node.getOperation().equals(operation) ? 1 : 0;
+        for (Node child : node.getChildren()) {
+            count += count(child, operation);
+        }
+        return count;
+    }
+
+    private static Node find(Node node, String operation, String expression) {
+        if (node.getOperation().equals(operation) && expression.equals(node.getExpression())) {
+            return node;
+        }
+        for (Node child : node.getChildren()) {
+            Node found = find(child, operation, expression);
+            if (found != null) {
+                return found;
+            }
+        }
+        return null;
+    }
+
+    @Test
+    public void testStatic() {
+        LinkSpecification spec = new LinkSpecification(METRIC, 0.3);
+        AMapping expected = new SimpleExecutionEngine(source, target, "?x", "?y").execute(spec,
+                new CanonicalPlanner());
+        PlanProfiler profiler = new PlanProfiler();
+        AMapping actual = new ProfilingExecutionEngine(source, target, "?x", "?y", profiler).execute(spec,
+                new CanonicalPlanner());
+        assertEquals(expected.getMap(), actual.getMap());
+
+        assertEquals(1, profiler.getRoots().size());
+        Node root = profiler.getRoots().get(0);
+        assertEquals("PLAN INTERSECTION", root.getOperation());
+        assertEquals(actual.getNumberofMappings(), root.getOutputSize());
+        assertTrue(root.getWallTime() >= 0);
+        assertEquals(2, count(root, "RUN"));
+        assertEquals(1, count(root, "INTERSECTION"));
+        for (Node child : root.getChildren()) {
+            if (child.getOperation().equals("FILTER")) {
+                assertEquals(child.getInputSize(), child.getCandidates());
+                assertEquals(child.getOutputSize(), child.getVerified());
+            }
+        }
+        // the q-gram mapper counts its pairs, the exact match mapper does not
+        Node qgrams = find(root, "RUN", "qgrams(x.name,y.name)");
+        assertTrue(qgrams.getCandidates() >= qgrams.getVerified());
+        assertEquals(qgrams.getOutputSize(), qgrams.getVerified());
+        Node exactmatch = find(root, "RUN", "exactmatch(x.age,y.age)");
+        assertEquals(-1, exactmatch.getCandidates());
+        assertEquals(-1, exactmatch.getVerified());
+        String json = profiler.toJson();
+        assertTrue(json.startsWith("[{\"operation\":\"PLAN INTERSECTION\""));
+        assertTrue(json.contains("\"expression\":\"exactmatch(x.age,y.age)\""));
+        assertTrue(json.endsWith("]}]"));
+    }
+
+    @Test
+    public void testDynamic() {
+        LinkSpecification spec = new LinkSpecification(METRIC, 0.3);
+        AMapping expected = new SimpleExecutionEngine(source, target, "?x", "?y").execute(spec,
+                new DynamicPlanner(source, target));
+        PlanProfiler profiler = new PlanProfiler();
+        AMapping actual = new ProfilingExecutionEngine(source, target, "?x", "?y", profiler).execute(spec,
+                new DynamicPlanner(source, target));
+        assertEquals(expected.getMap(), actual.getMap());
+
+        assertEquals(1, profiler.getRoots().size());
+        Node root = profiler.getRoots().get(0);
+        assertEquals("SPEC", root.getOperation());
+        assertEquals(actual.getNumberofMappings(), root.getOutputSize());
+        assertTrue(count(root, "RUN") >= 1);
+        assertTrue(count(root, "SPEC") >= 2);
+    }
+
+    @Test
+    public void testFailedNode() {
+        PlanProfiler profiler = new PlanProfiler();
+        ProfilingExecutionEngine engine = new ProfilingExecutionEngine(source, target, "?x", "?y", profiler);
+        Node plan = profiler.start("PLAN", null, null);
+        try {
+            engine.executeRun(new Instruction(Instruction.Command.RUN, "exactmatch(x.age,y.age)", "0", -1, -1, 0));
+            fail();
+        } catch (InvalidThresholdException e) {
+            // the failed node is ended, so the plan is the innermost open node
+        }
+        profiler.end(plan, 0);
+        Node run = plan.getChildren().get(0);
+        assertEquals("RUN", run.getOperation());
+        assertEquals(-1, run.getOutputSize());
+        assertTrue(profiler.toJson().contains("\"calling_thread_cpu_time_ns\":"));
+    }
+}
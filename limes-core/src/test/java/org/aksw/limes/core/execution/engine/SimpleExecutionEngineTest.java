@@ -2,6 +2,7 @@ package org.aksw.limes.core.execution.engine;
 
 import static org.junit.Assert.assertTrue;
 
+import java.util.concurrent.CancellationException;
 import org.aksw.limes.core.execution.engine.filter.LinearFilter;
 import org.aksw.limes.core.execution.planning.plan.Instruction;
 import org.aksw.limes.core.execution.planning.plan.Instruction.Command;
@@ -18,6 +19,7 @@ import org.aksw.limes.core.io.mapping.MappingFactory;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
+import static org.junit.Assert.fail;
 
 public class SimpleExecutionEngineTest {
     public ACache source = new MemoryCache();
@@ -698,4 +700,20 @@ public class SimpleExecutionEngineTest {
         System.out.println("---------------------------------");
 
     }
+
+    @Test
+    public void interrupted() {
+        LinkSpecification ls = new LinkSpecification("OR(qgrams(x.surname,y.surname)|0.4,trigrams(x.name,y.name)|0.4)",
+                0.4);
+        SimpleExecutionEngine ee = new SimpleExecutionEngine(source, target, "?x", "?y");
+        Thread.currentThread().interrupt();
+        try {
+            ee.execute(ls, new CanonicalPlanner());
+            fail();
+        } catch (CancellationException e) {
+            // a cancelled job stops before the next instruction
+        } finally {
+            Thread.interrupted();
+        }
+    }
 }
@@ -0,0 +1,113 @@
+package org.aksw.limes.core.execution.engine;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.aksw.limes.core.execution.planning.planner.CanonicalPlanner;
+import org.aksw.limes.core.execution.planning.planner.DynamicPlanner;
+import org.aksw.limes.core.execution.planning.planner.HeliosPlanner;
+import org.aksw.limes.core.execution.planning.planner.IPlanner;
+import org.aksw.limes.core.io.cache.ACache;
+import org.aksw.limes.core.io.cache.MemoryCache;
+import org.aksw.limes.core.io.ls.LinkSpecification;
+import org.aksw.limes.core.io.mapping.AMapping;
+import org.aksw.limes.core.io.mapping.EncodedMapping;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TopKExecutionEngineTest {
+
+    private ACache source;
+    private ACache target;
+
+    @Before
+    public void setUp() {
+        source = new MemoryCache();
+        target = new MemoryCache();
+        Random random = new Random(7);
+        String[] syllables = { "ka", "lo", "mi", "ne", "ru", "sa", "to" };
+        for (int i = 0; i < 60; i++) {
+            String name = "";
+            for (int j = 0; j < 2 + random.nextInt(3); j++) {
+                name += syllables[random.nextInt(syllables.length)];
+            }
+            source.addTriple("S" + i, "name", name);
+            source.addTriple("S" + i, "lat", "" + random.nextInt(20));
+            source.addTriple("S" + i, "long", "" + random.nextInt(20));
+            target.addTriple("T" + i, "name", random.nextBoolean() ? name : name.substring(1) + "a");
+            if (i % 7 == 0) {
+                target.addTriple("T" + i, "name", syllables[i % syllables.length] + name);
+            }
+            target.addTriple("T" + i, "lat", "" + random.nextInt(20));
+            target.addTriple("T" + i, "long", "" + random.nextInt(20));
+        }
+        // multi-word titles for the token based measures
+        Random words = new Random(11);
+        for (int i = 0; i < 60; i++) {
+            String title = syllables[words.nextInt(syllables.length)];
+            for (int j = 0; j < 1 + words.nextInt(4); j++) {
+                title += " " + syllables[words.nextInt(syllables.length)] + syllables[words.nextInt(syllables.length)];
+            }
+            source.addTriple("S" + i, "title", title);
+            target.addTriple("T" + i, "title", words.nextBoolean() ? title : title.substring(title.indexOf(' ') + 1));
+        }
+    }
+
+    private void assertTopK(String metric, double threshold, int k, IPlanner planner) {
+        LinkSpecification spec = new LinkSpecification(metric, threshold);
+        AMapping expected = EncodedMapping
+                .of(new SimpleExecutionEngine(source, target, "?x", "?y").execute(spec, planner)).getTopK(k);
+        AMapping actual = new TopKExecutionEngine(source, target, "?x", "?y", k).execute(spec, planner);
+        assertEquals(metric + " top-" + k, expected.getMap(), actual.getMap());
+    }
+
+    @Test
+    public void testAtomic() {
+        for (int k : new int[] { 1, 3 }) {
+            assertTopK("qgrams(x.name,y.name)", 0.1, k, new CanonicalPlanner());
+            assertTopK("jaro(x.name,y.name)", 0.1, k, new CanonicalPlanner());
+            assertTopK("euclidean(x.lat|long,y.lat|long)", 0.05, k, new CanonicalPlanner());
+            assertTopK("exactmatch(x.name,y.name)", 1.0, k, new CanonicalPlanner());
+            assertTopK("jaccard(x.title,y.title)", 0.1, k, new CanonicalPlanner());
+            assertTopK("cosine(x.title,y.title)", 0.1, k, new CanonicalPlanner());
+            assertTopK("trigram(x.title,y.title)", 0.1, k, new CanonicalPlanner());
+            assertTopK("levenshtein(x.name,y.name)", 0.2, k, new CanonicalPlanner());
+        }
+    }
+
+    @Test
+    public void testDisjunction() {
+        assertTopK("OR(qgrams(x.name,y.name)|0.45,euclidean(x.lat|long,y.lat|long)|0.1)", 0.2, 2,
+                new CanonicalPlanner());
+        assertTopK("OR(qgrams(x.name,y.name)|0.45,euclidean(x.lat|long,y.lat|long)|0.1)", 0.2, 2,
+                new HeliosPlanner(source, target));
+    }
+
+    @Test
+    public void testConjunction() {
+        String metric = "AND(qgrams(x.name,y.name)|0.1,euclidean(x.lat|long,y.lat|long)|0.05)";
+        assertTopK(metric, 0.05, 1, new CanonicalPlanner());
+        assertTopK(metric, 0.05, 3, new CanonicalPlanner());
+        assertTopK(metric, 0.05, 3, new DynamicPlanner(source, target));
+        assertTopK("AND(OR(qgrams(x.name,y.name)|0.3,exactmatch(x.name,y.name)|1.0)|0.3,"
+                + "euclidean(x.lat|long,y.lat|long)|0.05)", 0.05, 2, new CanonicalPlanner());
+    }
+
+    @Test
+    public void testDifference() {
+        assertTopK("MINUS(qgrams(x.name,y.name)|0.2,exactmatch(x.name,y.name)|1.0)", 0.2, 2,
+                new CanonicalPlanner());
+    }
+
+    @Test
+    public void testBounded() {
+        AMapping m = new TopKExecutionEngine(source, target, "?x", "?y", 2)
+                .execute(new LinkSpecification("jaro(x.name,y.name)", 0.1), new CanonicalPlanner());
+        assertTrue(m.size() > 0);
+        AMapping all = new SimpleExecutionEngine(source, target, "?x", "?y")
+                .execute(new LinkSpecification("jaro(x.name,y.name)", 0.1), new CanonicalPlanner());
+        assertTrue(m.size() < all.size());
+    }
+}
@@ -0,0 +1,87 @@
+package org.aksw.limes.core.io.mapping;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+public class EncodedMappingTest {
+
+    private AMapping randomMapping(Random random, int sources, int targets, int links) {
+        AMapping m = MappingFactory.createDefaultMapping();
+        for (int i = 0; i < links; i++) {
+            // few distinct similarities, so that there are ties
+            m.add("s" + random.nextInt(sources), "t" + random.nextInt(targets), random.nextInt(10) / 10d);
+        }
+        return m;
+    }
+
+    @Test
+    public void testBestOneToNAndOneToOne() {
+        Random random = new Random(11);
+        // the large mapping is extracted in parallel partitions
+        for (AMapping m : new AMapping[] { randomMapping(random, 50, 60, 500),
+                randomMapping(random, 20000, 20000, 300000) }) {
+            EncodedMapping links = EncodedMapping.of(m);
+            assertEquals(m.getNumberofMappings(), links.size());
+            assertEquals(m.getMap(), links.toMapping().getMap());
+            assertEquals(m.getBestOneToNMapping().getMap(), links.getBestOneToN().getMap());
+            assertEquals(m.getBestOneToNMapping().getMap(), links.getTopK(1).getMap());
+            AMapping oneToOne = m.getBestOneToNMapping().reverseSourceTarget().getBestOneToNMapping()
+                    .reverseSourceTarget();
+            assertEquals(oneToOne.getMap(), m.getBestOneToOneMappings(m).getMap());
+        }
+    }
+
+    @Test
+    public void testTopK() {
+        AMapping m = MappingFactory.createDefaultMapping();
+        m.add("s", "t1", 0.9);
+        m.add("s", "t2", 0.5);
+        m.add("s", "t3", 0.5);
+        m.add("s", "t4", 0.1);
+        AMapping top = EncodedMapping.of(m).getTopK(2);
+        assertEquals(3, top.getNumberofMappings());
+        assertTrue(top.contains("s", "t3"));
+        assertEquals(4, EncodedMapping.of(m).getTopK(10).getNumberofMappings());
+    }
+
+    @Test
+    public void testGreedyOneToOne() {
+        Random random = new Random(12);
+        AMapping m = randomMapping(random, 300, 200, 5000);
+        EncodedMapping links = EncodedMapping.of(m);
+        int[] order = links.getOrder();
+        for (int i = 1; i < order.length; i++) {
+            assertTrue(links.getSimilarity(order[i - 1]) >= links.getSimilarity(order[i]));
+        }
+        AMapping greedy = links.getGreedyOneToOne();
+        Set<String> targets = new HashSet<>();
+        for (String s : greedy.getMap().keySet()) {
+            assertEquals(1, greedy.getMap().get(s).size());
+            for (String t : greedy.getMap().get(s).keySet()) {
+                assertTrue(targets.add(t));
+                assertEquals(m.getConfidence(s, t), greedy.getConfidence(s, t), 0d);
+            }
+        }
+        // every link that is left out has a matched source or target with a link at least as similar
+        for (String s : m.getMap().keySet()) {
+            for (String t : m.getMap().get(s).keySet()) {
+                if (!greedy.contains(s, t)) {
+                    boolean blocked = greedy.getMap().containsKey(s)
+                            && greedy.getMap().get(s).values().iterator().next() >= m.getConfidence(s, t);
+                    for (String s2 : greedy.getMap().keySet()) {
+                        if (greedy.contains(s2, t) && greedy.getConfidence(s2, t) >= m.getConfidence(s, t)) {
+                            blocked = true;
+                        }
+                    }
+                    assertTrue(blocked);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package org.aksw.limes.core.io.mapping;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.aksw.limes.core.execution.engine.filter.LinearFilter;
+import org.junit.Test;
+
+public class MemoryMappingTest {
+
+    private AMapping randomMapping(Random random, int links) {
+        AMapping m = MappingFactory.createDefaultMapping();
+        for (int i = 0; i < links; i++) {
+            // few distinct similarities, so that there are ties
+            m.add("s" + random.nextInt(100), "t" + random.nextInt(100), random.nextInt(20) / 20d);
+        }
+        return m;
+    }
+
+    @Test
+    public void testSubMap() {
+        Random random = new Random(5);
+        AMapping m = randomMapping(random, 2000);
+        LinearFilter filter = new LinearFilter();
+        for (double threshold : new double[] { 0.05, 0.3, 0.5, 0.95, 1.0, 1.5 }) {
+            assertEquals(filter.filter(m, threshold).getMap(), m.getSubMap(threshold).getMap());
+        }
+        // links added after a cut are part of the next one
+        m.add("s1000", "t1000", 0.99);
+        assertEquals(0.99, m.getSubMap(0.9).getConfidence("s1000", "t1000"), 0d);
+    }
+
+    @Test
+    public void testSplit() {
+        Random random = new Random(6);
+        AMapping m = randomMapping(random, 2000);
+        AMapping[] split = m.split(0.4);
+        m.getSubMap(0.5);
+        AMapping[] indexedSplit = m.split(0.4);
+        assertEquals(m.getSubMap(0.4).getMap(), split[0].getMap());
+        assertEquals(split[0].getMap(), indexedSplit[0].getMap());
+        assertEquals(split[1].getMap(), indexedSplit[1].getMap());
+        assertEquals(m.getNumberofMappings(), split[0].getNumberofMappings() + split[1].getNumberofMappings());
+        for (String s : split[1].getMap().keySet()) {
+            for (String t : split[1].getMap().get(s).keySet()) {
+                assertEquals(m.getConfidence(s, t), split[1].getConfidence(s, t), 0d);
+            }
+        }
+    }
+}
@@ -1,7 +1,13 @@
 package org.aksw.limes.core.io.preprocessing;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
+import java.util.HashMap;
+import java.util.Map;
+
+import org.aksw.limes.core.io.cache.ACache;
+import org.aksw.limes.core.io.cache.MemoryCache;
 import org.junit.Test;
 
 public class PreprocessorTest {
@@ -36,5 +42,37 @@ public class PreprocessorTest {
         assertTrue(process.equals(anObject));
     }
 
+    @Test
+    public void testFusedChain() {
+        assertEquals("category:random_house_books", Preprocessor.process(TEST_URI, "cleaniri->lowercase"));
+        assertEquals("berlin", Preprocessor.process("http://example.org/Berlin@en", "cleaniri->nolang->lowercase"));
+        assertEquals("BERLIN", Preprocessor.process("Berlin@en^^xsd:string", "nolang->uppercase"));
+        assertEquals("a@b", Preprocessor.process("x/a@b@de", "nolang->cleaniri"));
+        assertEquals("no cut", Preprocessor.process("no cut", "cleaniri->nolang"));
+    }
+
+    @Test
+    public void testRegexReplace() {
+        assertEquals("Random House books", Preprocessor.process("Random_House_books!", "regexreplace(_, )->regularAlphabet"));
+        assertEquals("12.5", Preprocessor.process("12.5 km", Preprocessor.NUMBER));
+        assertEquals("54.5", Preprocessor.process("12.5", Preprocessor.CELSIUS));
+        // broken expressions leave the value unchanged
+        assertEquals("a(b", Preprocessor.process("a(b", "regexreplace([,x)"));
+    }
 
+    @Test
+    public void testProcessData() {
+        MemoryCache cache = new MemoryCache();
+        for (int i = 0; i < 25000; i++) {
+            cache.addTriple("http://example.org/" + i, "rdfs:label", "Label " + i + "@en");
+            cache.addTriple("http://example.org/" + i, "dbo:page", "http://example.org/Page_" + (i % 100));
+        }
+        Map<String, String> functions = new HashMap<>();
+        functions.put("rdfs:label", "nolang->lowercase");
+        ACache processed = cache.processData(functions);
+        assertEquals(cache.size(), processed.size());
+        assertEquals("label 7", processed.getInstance("http://example.org/7").getProperty("rdfs:label").first());
+        assertEquals("http://example.org/Page_7",
+                processed.getInstance("http://example.org/7").getProperty("dbo:page").first());
+    }
 }
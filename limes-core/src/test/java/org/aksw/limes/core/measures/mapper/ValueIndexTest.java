@@ -0,0 +1,106 @@
+package org.aksw.limes.core.measures.mapper;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.aksw.limes.core.execution.engine.SimpleExecutionEngine;
+import org.aksw.limes.core.execution.planning.planner.CanonicalPlanner;
+import org.aksw.limes.core.io.cache.ACache;
+import org.aksw.limes.core.io.cache.MemoryCache;
+import org.aksw.limes.core.io.ls.LinkSpecification;
+import org.aksw.limes.core.io.mapping.AMapping;
+import org.aksw.limes.core.measures.mapper.string.EDJoinMapper;
+import org.aksw.limes.core.measures.mapper.string.JaroMapper;
+import org.aksw.limes.core.measures.mapper.string.PPJoinPlusPlus;
+import org.aksw.limes.core.measures.mapper.string.fastngram.FastNGramMapper;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ValueIndexTest {
+
+    private ACache source;
+    private ACache target;
+
+    @Before
+    public void setUp() {
+        source = new MemoryCache();
+        target = new MemoryCache();
+        String[] names = { "kleanthi", "lukas", "johny", "taylor", "ole", "lukas" };
+        String[] targetNames = { "klea", "lukas", "johnny", "taylor", "oleole", "lukas" };
+        for (int i = 0; i < names.length; i++) {
+            source.addTriple("S" + i, "name", names[i]);
+            source.addTriple("S" + i, "age", "" + (20 + i % 3));
+            target.addTriple("T" + i, "name", targetNames[i]);
+            target.addTriple("T" + i, "age", "" + (20 + i % 3));
+        }
+        source.addTriple("S2", "name", "john");
+    }
+
+    @Test
+    public void testIndex() {
+        ValueIndex index = new ValueIndex(source, "name");
+        Map<String, Set<String>> expected = new HashMap<>();
+        for (String uri : source.getAllUris()) {
+            for (String value : source.getInstance(uri).getProperty("name")) {
+                expected.computeIfAbsent(value, v -> new HashSet<>()).add(uri);
+            }
+        }
+        assertEquals(expected, index.asMap());
+        assertEquals(expected.size(), index.size());
+        int id = index.getId("lukas");
+        assertEquals("lukas", index.getValue(id));
+        assertEquals(2, index.getUris(id).size());
+        assertEquals(-1, index.getId("klea"));
+        assertNull(index.asMap().get("klea"));
+    }
+
+    @Test
+    public void testRegistry() {
+        ValueIndexRegistry registry = new ValueIndexRegistry();
+        assertSame(registry.getIndex(source, "name"), registry.getIndex(source, "name"));
+        registry.getIndex(target, "name");
+        registry.getIndex(source, "age");
+        assertEquals(3, registry.getBuildCount());
+    }
+
+    @Test
+    public void testSharedAcrossMappers() {
+        String metric = "OR(OR(OR(qgrams(x.name,y.name)|0.5,jaro(x.name,y.name)|0.8)|0.5,"
+                + "OR(exactmatch(x.name,y.name)|1.0,jaro(x.name,y.name)|0.9)|0.5)|0.5,"
+                + "OR(OR(trigrams(x.name,y.name)|0.6,cosine(x.name,y.name)|0.7)|0.5,"
+                + "OR(jaccard(x.name,y.name)|0.6,levenshtein(x.name,y.name)|0.5)|0.5)|0.5)";
+        SimpleExecutionEngine engine = new SimpleExecutionEngine(source, target, "?x", "?y");
+        AMapping m = engine.execute(new LinkSpecification(metric, 0.5), new CanonicalPlanner());
+        // one index of the source names and one of the target names
+        assertEquals(2, engine.getValueIndexes().getBuildCount());
+
+        AMapping expected = MappingOperations.union(
+                new FastNGramMapper().getMapping(source, target, "?x", "?y", "qgrams(x.name,y.name)", 0.5),
+                new JaroMapper().getMapping(source, target, "?x", "?y", "jaro(x.name,y.name)", 0.8));
+        String[] joins = { "trigrams(x.name,y.name)|0.6", "cosine(x.name,y.name)|0.7", "jaccard(x.name,y.name)|0.6" };
+        for (String join : joins) {
+            String[] atom = join.split("\\|");
+            expected = MappingOperations.union(expected, new PPJoinPlusPlus().getMapping(source, target, "?x", "?y",
+                    atom[0], Double.parseDouble(atom[1])));
+        }
+        expected = MappingOperations.union(expected,
+                new EDJoinMapper().getMapping(source, target, "?x", "?y", "levenshtein(x.name,y.name)", 0.5));
+        assertEquals(expected.getMap(), m.getMap());
+
+        // the set similarity joins take their values from the registry
+        ValueIndexRegistry registry = new ValueIndexRegistry();
+        AMapper ppjoin = new PPJoinPlusPlus();
+        AMapper edjoin = new EDJoinMapper();
+        ppjoin.setValueIndexes(registry);
+        edjoin.setValueIndexes(registry);
+        ppjoin.getMapping(source, target, "?x", "?y", "trigrams(x.name,y.name)", 0.6);
+        edjoin.getMapping(source, target, "?x", "?y", "levenshtein(x.name,y.name)", 0.5);
+        assertEquals(2, registry.getBuildCount());
+    }
+}
@@ -2,10 +2,13 @@ package org.aksw.limes.core.measures.mapper.resourcesets;
 
 import static org.junit.Assert.assertEquals;
 
+import java.util.Random;
+
 import org.aksw.limes.core.io.cache.ACache;
 import org.aksw.limes.core.io.cache.MemoryCache;
 import org.aksw.limes.core.io.mapping.AMapping;
 import org.aksw.limes.core.io.mapping.MappingFactory;
+import org.aksw.limes.core.measures.measure.resourcesets.SetJaccardMeasure;
 import org.junit.Test;
 
 /**
@@ -30,4 +33,39 @@ public class SetJaccardMapperTest {
         mapping2.add("spielberg", "spilberg", 0.5d);
         assertEquals(mapping2, mapping1);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testGetMappingMatchesMeasure() {
+        Random random = new Random(7);
+        ACache s = new MemoryCache();
+        ACache t = new MemoryCache();
+        // more source than target instances and enough of them for parallel probing
+        for (int i = 0; i < 3000; i++) {
+            int size = 1 + random.nextInt(6);
+            for (int j = 0; j < size; j++) {
+                s.addTriple("s" + i, "tags", "tag" + random.nextInt(40));
+            }
+        }
+        for (int i = 0; i < 500; i++) {
+            int size = 1 + random.nextInt(6);
+            for (int j = 0; j < size; j++) {
+                t.addTriple("t" + i, "tags", "tag" + random.nextInt(40));
+            }
+        }
+        for (double threshold : new double[] { 0.3d, 0.5d, 0.8d }) {
+            AMapping mapping = new SetJaccardMapper().getMapping(s, t, "?x", "?y", "set_jaccard(x.tags, y.tags)",
+                    threshold);
+            SetJaccardMeasure measure = new SetJaccardMeasure();
+            AMapping expected = MappingFactory.createDefaultMapping();
+            for (String x : s.getAllUris()) {
+                for (String y : t.getAllUris()) {
+                    double sim = measure.getSimilarity(s.getInstance(x), t.getInstance(y), "tags", "tags");
+                    if (sim >= threshold) {
+                        expected.add(x, y, sim);
+                    }
+                }
+            }
+            assertEquals(expected, mapping);
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package org.aksw.limes.core.measures.mapper.space;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.aksw.limes.core.io.cache.ACache;
+import org.aksw.limes.core.io.cache.MemoryCache;
+import org.aksw.limes.core.io.mapping.AMapping;
+import org.aksw.limes.core.io.mapping.MappingFactory;
+import org.aksw.limes.core.measures.measure.space.EuclideanMeasure;
+import org.junit.Test;
+
+public class HR3MapperTest {
+
+    private static final String[] PROPERTIES = { "a", "b", "c" };
+
+    private final Random random = new Random(7);
+
+    private ACache createCache(String prefix, int size, int dim) {
+        ACache cache = new MemoryCache();
+        for (int i = 0; i < size; i++) {
+            for (int d = 0; d < dim; d++) {
+                cache.addTriple(prefix + i, PROPERTIES[d], "" + random.nextInt(2000) / 100d);
+                if (random.nextInt(50) == 0) {
+                    // instances with several values per property
+                    cache.addTriple(prefix + i, PROPERTIES[d], "" + random.nextInt(2000) / 100d);
+                }
+            }
+        }
+        return cache;
+    }
+
+    private AMapping bruteForce(ACache source, ACache target, String properties, double threshold) {
+        EuclideanMeasure measure = new EuclideanMeasure();
+        AMapping m = MappingFactory.createDefaultMapping();
+        for (String s : source.getAllUris()) {
+            for (String t : target.getAllUris()) {
+                double sim = measure.getSimilarity(source.getInstance(s), target.getInstance(t), properties,
+                        properties);
+                if (sim >= threshold) {
+                    m.add(s, t, sim);
+                }
+            }
+        }
+        return m;
+    }
+
+    @Test
+    public void testSameMappingAsBruteForce() {
+        for (int dim = 1; dim <= 3; dim++) {
+            // more sources than one partition, so that they are probed in parallel
+            ACache source = createCache("s", 2500, dim);
+            ACache target = createCache("t", 200, dim);
+            String properties = String.join("|", Arrays.copyOf(PROPERTIES, dim));
+            for (double threshold : new double[] { 0.5, 0.8 }) {
+                AMapping expected = bruteForce(source, target, properties, threshold);
+                AMapping actual = new HR3Mapper().getMapping(source, target, "?x", "?y",
+                        "euclidean(x." + properties + ", y." + properties + ")", threshold);
+                assertEquals(expected.getMap(), actual.getMap());
+            }
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package org.aksw.limes.core.measures.mapper.string;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.aksw.limes.core.io.cache.ACache;
+import org.aksw.limes.core.io.cache.MemoryCache;
+import org.aksw.limes.core.io.mapping.AMapping;
+import org.aksw.limes.core.io.mapping.MappingFactory;
+import org.junit.Test;
+
+public class ExactMatchMapperTest {
+
+    private ACache generateCache(Random random, String prefix, int size) {
+        ACache cache = new MemoryCache();
+        for (int i = 0; i < size; i++) {
+            cache.addTriple(prefix + i, "isbn", "978-" + random.nextInt(size));
+            if (random.nextBoolean()) {
+                cache.addTriple(prefix + i, "isbn", "979-" + random.nextInt(size));
+            }
+        }
+        return cache;
+    }
+
+    private AMapping bruteForce(ACache source, ACache target) {
+        AMapping m = MappingFactory.createDefaultMapping();
+        for (String s : source.getAllUris()) {
+            for (String t : target.getAllUris()) {
+                for (String v : source.getInstance(s).getProperty("isbn")) {
+                    if (target.getInstance(t).getProperty("isbn").contains(v)) {
+                        m.add(s, t, 1d);
+                    }
+                }
+            }
+        }
+        return m;
+    }
+
+    @Test
+    public void testGetMapping() {
+        Random random = new Random(11);
+        // source smaller and larger than target, the latter with parallel probing
+        for (int[] sizes : new int[][] { { 200, 1000 }, { 30000, 300 } }) {
+            ACache source = generateCache(random, "s", sizes[0]);
+            ACache target = generateCache(random, "t", sizes[1]);
+            AMapping m = new ExactMatchMapper().getMapping(source, target, "?x", "?y",
+                    "exactmatch(x.isbn, y.isbn)", 1d);
+            assertEquals(bruteForce(source, target), m);
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package org.aksw.limes.core.measures.mapper.string;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.aksw.limes.core.io.mapping.AMapping;
+import org.aksw.limes.core.io.mapping.MappingFactory;
+import org.aksw.limes.core.measures.measure.string.MongeElkanMeasure;
+import org.junit.Test;
+
+public class MongeElkanMapperTest {
+
+    private static final String[] TOKENS = { "anna", "ann", "maria", "marie", "john", "jon", "smith", "smyth",
+            "miller", "muller", "street", "str", "road", "rd", "berlin", "leipzig" };
+
+    private Map<String, Set<String>> generateNames(Random random, String prefix, int size) {
+        Map<String, Set<String>> map = new HashMap<String, Set<String>>();
+        for (int i = 0; i < size; i++) {
+            StringBuilder name = new StringBuilder(TOKENS[random.nextInt(TOKENS.length)]);
+            int tokens = random.nextInt(3);
+            for (int k = 0; k < tokens; k++) {
+                name.append(" ").append(TOKENS[random.nextInt(TOKENS.length)]);
+            }
+            String value = name.toString();
+            if (!map.containsKey(value)) {
+                map.put(value, new HashSet<String>());
+            }
+            map.get(value).add(prefix + i);
+        }
+        return map;
+    }
+
+    @Test
+    public void testGetMappingMatchesMeasure() {
+        Random random = new Random(3);
+        // enough distinct source texts for parallel partitions
+        Map<String, Set<String>> sourceMap = generateNames(random, "s", 2000);
+        Map<String, Set<String>> targetMap = generateNames(random, "t", 300);
+        MongeElkanMeasure measure = new MongeElkanMeasure();
+        for (double threshold : new double[] { 0.5d, 0.8d, 1d }) {
+            AMapping expected = MappingFactory.createDefaultMapping();
+            for (String s : sourceMap.keySet()) {
+                for (String t : targetMap.keySet()) {
+                    double sim = measure.getSimilarity(s, t);
+                    if (sim >= threshold) {
+                        for (String sourceUri : sourceMap.get(s)) {
+                            for (String targetUri : targetMap.get(t)) {
+                                expected.add(sourceUri, targetUri, sim);
+                            }
+                        }
+                    }
+                }
+            }
+            AMapping mapping = new MongeElkanMapper().getMapping(sourceMap, targetMap, threshold);
+            assertEquals(expected.getNumberofMappings(), mapping.getNumberofMappings());
+            for (String s : expected.getMap().keySet()) {
+                for (String t : expected.getMap().get(s).keySet()) {
+                    assertEquals(expected.getConfidence(s, t), mapping.getConfidence(s, t), 1e-9);
+                }
+            }
+        }
+    }
+}
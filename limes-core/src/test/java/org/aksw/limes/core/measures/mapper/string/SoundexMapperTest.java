@@ -0,0 +1,65 @@
+package org.aksw.limes.core.measures.mapper.string;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.aksw.limes.core.io.cache.ACache;
+import org.aksw.limes.core.io.cache.MemoryCache;
+import org.aksw.limes.core.io.mapping.AMapping;
+import org.aksw.limes.core.io.mapping.MappingFactory;
+import org.aksw.limes.core.measures.measure.string.SoundexMeasure;
+import org.junit.Test;
+
+public class SoundexMapperTest {
+
+    private static final String LETTERS = "abcdefghijklmnoprstuvwz";
+
+    private ACache generateCache(Random random, String prefix, int size) {
+        ACache cache = new MemoryCache();
+        for (int i = 0; i < size; i++) {
+            StringBuilder name = new StringBuilder();
+            int length = 3 + random.nextInt(8);
+            for (int k = 0; k < length; k++) {
+                name.append(LETTERS.charAt(random.nextInt(LETTERS.length())));
+            }
+            cache.addTriple(prefix + i, "name", name.toString());
+        }
+        return cache;
+    }
+
+    @Test
+    public void testGetMappingMatchesMeasure() {
+        Random random = new Random(5);
+        ACache source = generateCache(random, "s", 600);
+        ACache target = generateCache(random, "t", 400);
+        SoundexMeasure measure = new SoundexMeasure();
+        for (double threshold : new double[] { 0.3d, 0.5d, 0.8d, 1d }) {
+            AMapping expected = MappingFactory.createDefaultMapping();
+            for (String s : source.getAllUris()) {
+                for (String t : target.getAllUris()) {
+                    double sim = measure.getSimilarity(source.getInstance(s).getProperty("name").first(),
+                            target.getInstance(t).getProperty("name").first());
+                    if (sim > 1d - Math.floor(SoundexMeasure.codeLength * (1 - threshold)) / SoundexMeasure.codeLength
+                            - 1e-9) {
+                        expected.add(s, t, sim);
+                    }
+                }
+            }
+            assertEquals(expected, new SoundexMapper().getMapping(source, target, "?x", "?y",
+                    "soundex(x.name, y.name)", threshold));
+            assertEquals(expected, reverse(new SoundexMapper().getMapping(target, source, "?x", "?y",
+                    "soundex(x.name, y.name)", threshold)));
+        }
+    }
+
+    private AMapping reverse(AMapping m) {
+        AMapping r = MappingFactory.createDefaultMapping();
+        for (String s : m.getMap().keySet()) {
+            for (String t : m.getMap().get(s).keySet()) {
+                r.add(t, s, m.getConfidence(s, t));
+            }
+        }
+        return r;
+    }
+}
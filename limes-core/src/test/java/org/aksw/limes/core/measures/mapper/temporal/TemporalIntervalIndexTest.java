@@ -0,0 +1,130 @@
+package org.aksw.limes.core.measures.mapper.temporal;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Random;
+import java.util.TimeZone;
+
+import org.aksw.limes.core.io.cache.ACache;
+import org.aksw.limes.core.io.cache.MemoryCache;
+import org.aksw.limes.core.io.mapping.AMapping;
+import org.aksw.limes.core.io.mapping.MappingFactory;
+import org.aksw.limes.core.measures.mapper.temporal.allenAlgebra.AllenAlgebraMapper;
+import org.aksw.limes.core.measures.mapper.temporal.allenAlgebra.AllenRelation;
+import org.junit.Before;
+import org.junit.Test;
+
+public class TemporalIntervalIndexTest {
+
+    private ACache source;
+    private ACache target;
+
+    private static ACache randomEvents(Random random, int size) {
+        SimpleDateFormat df = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ssXXX");
+        df.setTimeZone(TimeZone.getTimeZone("UTC"));
+        ACache cache = new MemoryCache();
+        for (int i = 0; i < size; i++) {
+            // few distinct minutes so that equal endpoints are frequent
+            long begin = 1432100000000L + random.nextInt(30) * 60000L;
+            long end = begin + (1 + random.nextInt(10)) * 60000L;
+            cache.addTriple("E" + i, "b", df.format(new Date(begin)));
+            cache.addTriple("E" + i, "e", df.format(new Date(end)));
+        }
+        return cache;
+    }
+
+    @Before
+    public void setUp() {
+        Random random = new Random(42);
+        source = randomEvents(random, 200);
+        target = randomEvents(random, 150);
+    }
+
+    @Test
+    public void indexIsShared() {
+        TemporalIntervalIndex index = TemporalIntervalIndex.getIndex(source, "b", "e");
+        assertTrue(index == TemporalIntervalIndex.getIndex(source, "b", "e"));
+        assertEquals(200, index.size());
+        source.addTriple("E200", "b", "2015-05-20T08:21:04+02:00");
+        source.addTriple("E200", "e", "2015-05-20T08:22:04+02:00");
+        assertEquals(201, TemporalIntervalIndex.getIndex(source, "b", "e").size());
+    }
+
+    @Test
+    public void columnsParseXsdForms() {
+        ACache cache = new MemoryCache();
+        cache.addTriple("A", "d", "2015-05-20T08:21:04+02:00");
+        cache.addTriple("B", "d", "2015-05-20T06:21:04.000Z^^http://www.w3.org/2001/XMLSchema#dateTime");
+        cache.addTriple("C", "d", "2015-05-20");
+        cache.addTriple("D", "d", "not a date");
+        TimestampColumns columns = TimestampColumns.getColumns(cache);
+        assertTrue(columns == TimestampColumns.getColumns(cache));
+        long[] epochs = columns.getColumn("d");
+        for (int row = 0; row < columns.size(); row++) {
+            String uri = columns.getUri(row);
+            if (uri.equals("A") || uri.equals("B")) {
+                assertEquals(1432102864000L, epochs[row]);
+            } else if (uri.equals("C")) {
+                assertEquals(1432080000000L, epochs[row]);
+            } else {
+                assertEquals(TimestampColumns.MISSING, epochs[row]);
+            }
+        }
+        assertEquals(3, TemporalIntervalIndex.getIndex(cache, "d", null).size());
+    }
+
+    private static void addEvent(ACache cache, String uri, int beginMinute, int endMinute) {
+        SimpleDateFormat df = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ssXXX");
+        df.setTimeZone(TimeZone.getTimeZone("UTC"));
+        cache.addTriple(uri, "b", df.format(new Date(1432100000000L + beginMinute * 60000L)));
+        cache.addTriple(uri, "e", df.format(new Date(1432100000000L + endMinute * 60000L)));
+    }
+
+    @Test
+    public void joinMatchesHandWrittenPairs() {
+        ACache sources = new MemoryCache();
+        addEvent(sources, "S", 10, 20);
+        addEvent(sources, "Late", 40, 50);
+        // every target is in exactly one relation with S, Late is after all of them
+        ACache targets = new MemoryCache();
+        addEvent(targets, "AFTER", 1, 5);
+        addEvent(targets, "BEFORE", 25, 30);
+        addEvent(targets, "DURING", 5, 25);
+        addEvent(targets, "DURING_REVERSE", 12, 18);
+        addEvent(targets, "EQUALS", 10, 20);
+        addEvent(targets, "FINISHES", 5, 20);
+        addEvent(targets, "IS_FINISHED_BY", 15, 20);
+        addEvent(targets, "IS_MET_BY", 5, 10);
+        addEvent(targets, "IS_OVERLAPPED_BY", 5, 15);
+        addEvent(targets, "IS_STARTED_BY", 10, 15);
+        addEvent(targets, "MEETS", 20, 25);
+        addEvent(targets, "OVERLAPS", 15, 25);
+        addEvent(targets, "STARTS", 10, 25);
+        TemporalIntervalIndex s = TemporalIntervalIndex.getIndex(sources, "b", "e");
+        TemporalIntervalIndex t = TemporalIntervalIndex.getIndex(targets, "b", "e");
+        for (AllenRelation relation : AllenRelation.values()) {
+            AMapping m = AllenAlgebraMapper.join(s, t, relation);
+            AMapping expected = MappingFactory.createDefaultMapping();
+            expected.add("S", relation.name(), 1d);
+            if (relation == AllenRelation.AFTER) {
+                for (String target : targets.getAllUris()) {
+                    expected.add("Late", target, 1d);
+                }
+            }
+            assertEquals(relation.name(), expected.getMap(), m.getMap());
+        }
+    }
+
+    @Test
+    public void parallelJoinCoversAllPartitions() {
+        AMapping m = TemporalIntervalIndex.parallelJoin(25000, (from, to, mapping) -> {
+            for (int i = from; i < to; i++) {
+                mapping.add("S" + i, "T", 1d);
+            }
+        });
+        assertEquals(25000, m.size());
+    }
+}
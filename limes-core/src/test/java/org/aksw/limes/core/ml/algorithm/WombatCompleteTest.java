@@ -1,5 +1,6 @@
 package org.aksw.limes.core.ml.algorithm;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.fail;
 
 import java.util.LinkedList;
@@ -19,6 +20,7 @@ import org.aksw.limes.core.ml.algorithm.SupervisedMLAlgorithm;
 import org.aksw.limes.core.ml.algorithm.UnsupervisedMLAlgorithm;
 import org.aksw.limes.core.ml.algorithm.WombatComplete;
 import org.aksw.limes.core.ml.algorithm.eagle.util.PropertyMapping;
+import org.aksw.limes.core.ml.algorithm.wombat.AWombat;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -100,4 +102,38 @@ public class WombatCompleteTest {
         assert (resultMap.equals(refMap));
     }
 
+    @Test
+    public void testParallelRefinement() throws UnsupportedMLImplementationException {
+        ACache source = new MemoryCache();
+        ACache target = new MemoryCache();
+        String[] names = { "Klaus", "Claus", "John", "Jon", "Donald", "Ronald", "Phill", "Phil" };
+        String[] surnames = { "Lyko", "Stadler", "Doe", "Dough", "Dumb", "Zlaus", "Smith", "Smyth" };
+        AMapping training = MappingFactory.createDefaultMapping();
+        for (int i = 0; i < names.length; i++) {
+            source.addTriple("ex:s" + i, "name", names[i]);
+            source.addTriple("ex:s" + i, "surname", surnames[i]);
+            target.addTriple("ex:t" + i, "name", names[(i + i % 2) % names.length]);
+            target.addTriple("ex:t" + i, "surname", surnames[i]);
+            training.add("ex:s" + i, "ex:t" + i, 1d);
+        }
+        MLResults sequential = learn(source, target, training, 1);
+        MLResults parallel = learn(source, target, training, 4);
+        assertEquals(sequential.getLinkSpecification().getFullExpression(),
+                parallel.getLinkSpecification().getFullExpression());
+        assertEquals(sequential.getLinkSpecification().getThreshold(),
+                parallel.getLinkSpecification().getThreshold(), 0d);
+        assertEquals(sequential.getQuality(), parallel.getQuality(), 0d);
+        assertEquals(sequential.getMapping().getMap(), parallel.getMapping().getMap());
+    }
+
+    private MLResults learn(ACache source, ACache target, AMapping training, int threads)
+            throws UnsupportedMLImplementationException {
+        SupervisedMLAlgorithm wombat = MLAlgorithmFactory.createMLAlgorithm(WombatComplete.class,
+                MLImplementationType.SUPERVISED_BATCH).asSupervised();
+        wombat.init(null, source, target);
+        wombat.setParameter(AWombat.PARAMETER_ATOMIC_MEASURES, "[qgrams, jaro, exactmatch]");
+        ((AWombat) wombat.getMl()).setRefinementThreads(threads);
+        return wombat.learn(training);
+    }
+
 }
@@ -0,0 +1,77 @@
+package org.aksw.limes.core.ml.algorithm.classifier;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.aksw.limes.core.io.mapping.AMapping;
+import org.aksw.limes.core.io.mapping.MappingFactory;
+import org.junit.Test;
+
+public class FeatureStoreTest {
+
+    private int executions = 0;
+
+    private AMapping execute(String measureExpression, double threshold) {
+        executions++;
+        AMapping all = MappingFactory.createDefaultMapping();
+        all.add("s1", "t1", 1.0);
+        all.add("s1", "t2", 0.6);
+        all.add("s2", "t2", 0.8);
+        all.add("s3", "t3", 0.3);
+        return all.getSubMap(threshold);
+    }
+
+    @Test
+    public void testThresholdSweep() {
+        FeatureStore store = new FeatureStore(null, null, 0.5, this::execute);
+        for (double threshold = 1d; threshold >= 0.5d; threshold -= 0.1d) {
+            AMapping expected = execute("trigrams(x.p, y.q)", threshold);
+            executions--;
+            assertEquals(expected.getMap(), store.getMapping("p", "q", "trigrams", threshold).getMap());
+        }
+        // the store executed the measure once at its floor
+        assertEquals(1, executions);
+        assertEquals(1, store.size());
+        assertEquals(3, store.getMatrix("trigrams(x.p, y.q)").size());
+        assertEquals(2, store.getMatrix("trigrams(x.p, y.q)").count(0.8));
+    }
+
+    @Test
+    public void testConcurrentRequestsExecuteOnce() throws Exception {
+        AtomicInteger concurrentExecutions = new AtomicInteger();
+        FeatureStore store = new FeatureStore(null, null, 0.5, (measureExpression, threshold) -> {
+            concurrentExecutions.incrementAndGet();
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+            return execute(measureExpression, threshold);
+        });
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        List<Future<FeatureStore.SimilarityMatrix>> futures = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            futures.add(pool.submit(() -> store.getMatrix("trigrams(x.p, y.q)")));
+        }
+        for (Future<FeatureStore.SimilarityMatrix> future : futures) {
+            assertSame(futures.get(0).get(), future.get());
+        }
+        pool.shutdown();
+        assertEquals(1, concurrentExecutions.get());
+    }
+
+    @Test
+    public void testBelowFloor() {
+        FeatureStore store = new FeatureStore(null, null, 0.5, this::execute);
+        AMapping mapping = store.getMapping("p", "q", "trigrams", 0.2);
+        assertEquals(4, mapping.getNumberofMappings());
+        assertEquals(0, store.size());
+    }
+}
@@ -0,0 +1,92 @@
+package org.aksw.limes.core.ml.algorithm.eagle.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.aksw.limes.core.evaluation.qualititativeMeasures.FMeasure;
+import org.aksw.limes.core.io.cache.ACache;
+import org.aksw.limes.core.io.cache.MemoryCache;
+import org.aksw.limes.core.io.config.KBInfo;
+import org.aksw.limes.core.io.ls.LinkSpecification;
+import org.aksw.limes.core.io.mapping.AMapping;
+import org.aksw.limes.core.io.mapping.MappingFactory;
+import org.aksw.limes.core.ml.algorithm.eagle.util.PropertyMapping;
+import org.junit.Before;
+import org.junit.Test;
+
+public class IGPFitnessFunctionTest {
+
+    private ExpressionFitnessFunction fitness;
+
+    @Before
+    public void setUp() throws Exception {
+        ACache source = new MemoryCache();
+        ACache target = new MemoryCache();
+        String[] names = { "Klaus", "Claus", "John", "Donald", "Phill" };
+        String[] surnames = { "Lyko", "Stadler", "Doe", "Dumb", "Zlaus" };
+        for (int i = 0; i < names.length; i++) {
+            source.addTriple("ex:s" + i, "name", names[i]);
+            source.addTriple("ex:s" + i, "surname", surnames[i]);
+            target.addTriple("ex:t" + i, "name", names[(i + 1) % names.length]);
+            target.addTriple("ex:t" + i, "surname", surnames[i]);
+        }
+        KBInfo si = new KBInfo();
+        si.setVar("?x");
+        si.setProperties(Arrays.asList("name", "surname"));
+        KBInfo ti = new KBInfo();
+        ti.setVar("?y");
+        ti.setProperties(Arrays.asList("name", "surname"));
+        PropertyMapping pm = new PropertyMapping();
+        pm.addStringPropertyMatch("name", "name");
+        pm.addStringPropertyMatch("surname", "surname");
+        org.jgap.Configuration.reset();
+        LinkSpecGeneticLearnerConfig config = new LinkSpecGeneticLearnerConfig(si, ti, pm);
+        config.sC = source;
+        config.tC = target;
+
+        AMapping reference = MappingFactory.createDefaultMapping();
+        for (int i = 0; i < names.length; i++) {
+            reference.add("ex:s" + i, "ex:t" + i, 1d);
+        }
+        fitness = new ExpressionFitnessFunction(config) {
+            private static final long serialVersionUID = 1L;
+        };
+        fitness.measure = new FMeasure();
+        fitness.setReferenceMapping(reference);
+        fitness.trimKnowledgeBases(reference);
+    }
+
+    @Test
+    public void testMemoizedFitness() {
+        List<LinkSpecification> specs = Arrays.asList(
+                new LinkSpecification("qgrams(x.surname,y.surname)", 0.5),
+                new LinkSpecification("qgrams(x.surname, y.surname)", 0.5),
+                new LinkSpecification("qgrams(x.surname,y.surname)", 0.9),
+                new LinkSpecification("qgrams(x.name,y.name)", 0.5),
+                new LinkSpecification("AND(qgrams(x.name,y.name)|0.5,qgrams(x.surname,y.surname)|0.5)", 0.5),
+                new LinkSpecification("MIN(qgrams(x.name,y.name)|0.5,qgrams(x.surname,y.surname)|0.9)", 0.5));
+        for (int round = 0; round < 2; round++) {
+            for (LinkSpecification spec : specs) {
+                assertEquals(spec.toString(), fitness.calculateRawFitness(spec), fitness.getMemoizedFitness(spec),
+                        0d);
+            }
+        }
+        assertNotEquals(fitness.getMemoizedFitness(specs.get(0)), fitness.getMemoizedFitness(specs.get(3)), 0d);
+    }
+
+    @Test
+    public void testKey() {
+        assertEquals(IGPFitnessFunction.getKey(new LinkSpecification("qgrams(x.name,y.name)", 0.5)),
+                IGPFitnessFunction.getKey(new LinkSpecification("qgrams(x.name, y.name)", 0.5)));
+        assertNotEquals(IGPFitnessFunction.getKey(new LinkSpecification("qgrams(x.name,y.name)", 0.5)),
+                IGPFitnessFunction.getKey(new LinkSpecification("qgrams(x.name,y.name)", 0.6)));
+        assertNotEquals(
+                IGPFitnessFunction.getKey(new LinkSpecification(
+                        "AND(qgrams(x.name,y.name)|0.5,qgrams(x.surname,y.surname)|0.9)", 0.5)),
+                IGPFitnessFunction.getKey(new LinkSpecification(
+                        "MIN(qgrams(x.name,y.name)|0.5,qgrams(x.surname,y.surname)|0.9)", 0.5)));
+    }
+}
@@ -0,0 +1,59 @@
+package org.aksw.limes.core.ml.matching;
+
+import static org.junit.Assert.assertEquals;
+
+import org.aksw.limes.core.io.mapping.AMapping;
+import org.aksw.limes.core.io.mapping.EncodedMapping;
+import org.aksw.limes.core.io.mapping.MappingFactory;
+import org.aksw.limes.core.ml.algorithm.matching.stablematching.HospitalResidents;
+import org.junit.Test;
+
+public class HospitalResidentsTest {
+
+    @Test
+    public void testStableMatching() {
+        AMapping m = MappingFactory.createDefaultMapping();
+        m.add("name", "label", 0.9);
+        m.add("name", "title", 0.8);
+        m.add("title", "label", 0.95);
+        m.add("title", "title", 0.6);
+        m.add("born", "birthDate", 0.7);
+        m.add("born", "title", 0.5);
+
+        AMapping expected = MappingFactory.createDefaultMapping();
+        expected.add("title", "label", 0.95);
+        expected.add("name", "title", 0.8);
+        expected.add("born", "birthDate", 0.7);
+        assertEquals(expected.getMap(), new HospitalResidents().getMatching(m).getMap());
+        assertEquals(expected.getMap(), new HospitalResidents().getMatching(EncodedMapping.of(m), 1).getMap());
+    }
+
+    @Test
+    public void testSparseStableMatching() {
+        AMapping m = MappingFactory.createDefaultMapping();
+        m.add("name", "label", 0.9);
+        m.add("name", "title", 0.8);
+        m.add("title", "label", 0.95);
+        m.add("title", "title", 0.6);
+        m.add("born", "birthDate", 0.7);
+        m.add("born", "title", 0.5);
+        // age is only acceptable to label, which prefers its residents
+        m.add("age", "label", 0.3);
+
+        // title displaces name at label, name moves on to title, and age is
+        // rejected by label and stays unmatched
+        AMapping expected = MappingFactory.createDefaultMapping();
+        expected.add("title", "label", 0.95);
+        expected.add("name", "title", 0.8);
+        expected.add("born", "birthDate", 0.7);
+        assertEquals(expected.getMap(), new HospitalResidents().getMatching(EncodedMapping.of(m), 1).getMap());
+
+        // with two places, label keeps name and title; born and age apply as
+        // before
+        expected = MappingFactory.createDefaultMapping();
+        expected.add("title", "label", 0.95);
+        expected.add("name", "label", 0.9);
+        expected.add("born", "birthDate", 0.7);
+        assertEquals(expected.getMap(), new HospitalResidents().getMatching(EncodedMapping.of(m), 2).getMap());
+    }
+}
@@ -0,0 +1,110 @@
+package org.aksw.limes.core.util;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import org.aksw.limes.core.io.mapping.AMapping;
+import org.aksw.limes.core.io.mapping.MappingFactory;
+import org.junit.Test;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.assertFalse;
+
+public class PartitionsTest {
+
+    private static AMapping link(int from, int to) {
+        AMapping m = MappingFactory.createDefaultMapping();
+        for (int i = from; i < to; i++) {
+            m.add("s" + i % 7, "t" + i, i);
+        }
+        return m;
+    }
+
+    @Test
+    public void testSplit() {
+        assertEquals(1, Partitions.count(0, 10));
+        assertEquals(1, Partitions.count(10, 10));
+        assertEquals(Math.min(2, Runtime.getRuntime().availableProcessors()), Partitions.count(11, 10));
+        int next = 0;
+        for (int[] range : Partitions.split(1000, 1)) {
+            assertEquals(next, range[0]);
+            next = range[1];
+        }
+        assertEquals(1000, next);
+        assertEquals(0, Partitions.split(0, 10).size());
+    }
+
+    @Test
+    public void testCollect() {
+        // sources are shared by the partitions
+        assertEquals(link(0, 5000).getMap(), Partitions.collect(5000, 10, PartitionsTest::link).getMap());
+        assertEquals(0, Partitions.collect(0, 10, PartitionsTest::link).size());
+    }
+
+    @Test
+    public void testNested() {
+        List<Integer> sizes = Partitions.map(64, 1,
+                (from, to) -> Partitions.collect(1000, 10, (start, end) -> link(start, end)).size());
+        for (int size : sizes) {
+            assertEquals(1000, size);
+        }
+    }
+
+    @Test
+    public void testInterrupted() throws InterruptedException {
+        List<int[]> ranges = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            ranges.add(new int[] { i, i + 1 });
+        }
+        AtomicInteger done = new AtomicInteger();
+        AtomicReference<RuntimeException> failure = new AtomicReference<>();
+        Thread caller = new Thread(() -> {
+            try {
+                Partitions.map(ranges, (from, to) -> {
+                    long end = System.currentTimeMillis() + 20;
+                    while (System.currentTimeMillis() < end) {
+                        // busy partition that does not check the interrupt
+                    }
+                    return done.incrementAndGet();
+                });
+            } catch (RuntimeException e) {
+                failure.set(e);
+            }
+        });
+        caller.start();
+        Thread.sleep(100);
+        caller.interrupt();
+        caller.join(2000);
+        assertFalse(caller.isAlive());
+        assertTrue(failure.get() instanceof CancellationException);
+        // the partitions that were not started are skipped
+        int stopped = done.get();
+        assertTrue(stopped < ranges.size());
+        Thread.sleep(100);
+        assertEquals(stopped, done.get());
+    }
+
+    @Test(expected = CancellationException.class)
+    public void testInterruptedCaller() {
+        Thread.currentThread().interrupt();
+        try {
+            Partitions.map(1000, 1, (from, to) -> from);
+        } finally {
+            Thread.interrupted();
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testFailure() {
+        Partitions.map(1000, 1, (from, to) -> {
+            if (to == 1000) {
+                throw new IllegalStateException();
+            }
+            return from;
+        });
+    }
+}